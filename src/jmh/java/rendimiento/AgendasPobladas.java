@@ -0,0 +1,84 @@
+package rendimiento;
+
+import modelo.Cita;
+import org.openjdk.jmh.annotations.*;
+import servicio.GestorDisponibilidad;
+import servicio.MetricasAgenda;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Gestor con los horarios de cada profesional consecutivos desde mañana; las primeras citasPorProfesional
+// posiciones quedan reservadas y el resto libres para reservar durante la medición
+@State(Scope.Benchmark)
+public class AgendasPobladas {
+    static final int MINUTOS_POR_SLOT = 30;
+    static final int SLOTS_POR_DIA = 24 * 60 / MINUTOS_POR_SLOT;
+    
+    @Param({"10", "1000"})
+    int profesionales;
+    
+    @Param({"480", "4800"})
+    int slotsPorProfesional;
+    
+    @Param({"50", "240"})
+    int citasPorProfesional;
+    
+    // -p metricas=false,true compara el coste de la instrumentación
+    @Param({"false"})
+    boolean metricas;
+    
+    GestorDisponibilidad gestor;
+    String[] profesionalIds;
+    LocalDateTime[] horarios;
+    final AtomicLong secuencia = new AtomicLong();
+    
+    @Setup(Level.Trial)
+    public void poblar() {
+        if (citasPorProfesional >= slotsPorProfesional) {
+            throw new IllegalArgumentException("Debe quedar al menos un horario libre por profesional");
+        }
+        
+        gestor = new GestorDisponibilidad(64, MINUTOS_POR_SLOT);
+        if (metricas) {
+            gestor.activarMetricas(new MetricasAgenda());
+        }
+        LocalDateTime inicio = LocalDate.now().plusDays(1).atStartOfDay();
+        horarios = new LocalDateTime[slotsPorProfesional];
+        for (int i = 0; i < slotsPorProfesional; i++) {
+            horarios[i] = inicio.plusMinutes((long) i * MINUTOS_POR_SLOT);
+        }
+        Set<LocalDateTime> configurados = new HashSet<>(Arrays.asList(horarios));
+        
+        profesionalIds = new String[profesionales];
+        List<Cita> citas = new ArrayList<>(citasPorProfesional);
+        for (int p = 0; p < profesionales; p++) {
+            profesionalIds[p] = "DOC-" + p;
+            gestor.configurarHorarios(profesionalIds[p], configurados);
+            citas.clear();
+            for (int i = 0; i < citasPorProfesional; i++) {
+                citas.add(new Cita("CIT-" + p + "-" + i, "PAC-" + i, profesionalIds[p], horarios[i], "Consulta general"));
+            }
+            gestor.agendarCitas(citas);
+        }
+    }
+    
+    String profesionalAlAzar() {
+        return profesionalIds[ThreadLocalRandom.current().nextInt(profesionales)];
+    }
+    
+    LocalDateTime horarioAlAzar() {
+        return horarios[ThreadLocalRandom.current().nextInt(slotsPorProfesional)];
+    }
+    
+    LocalDateTime horarioLibreAlAzar() {
+        return horarios[ThreadLocalRandom.current().nextInt(citasPorProfesional, slotsPorProfesional)];
+    }
+    
+    LocalDateTime diaAlAzar() {
+        return horarios[ThreadLocalRandom.current().nextInt((slotsPorProfesional + SLOTS_POR_DIA - 1) / SLOTS_POR_DIA)
+            * SLOTS_POR_DIA];
+    }
+}
\ No newline at end of file
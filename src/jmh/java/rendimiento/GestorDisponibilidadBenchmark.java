@@ -0,0 +1,42 @@
+package rendimiento;
+
+import modelo.Cita;
+import org.openjdk.jmh.annotations.*;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Un solo hilo; GestorDisponibilidadConcurrenteBenchmark repite las mismas operaciones con todos los núcleos
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class GestorDisponibilidadBenchmark {
+    
+    @Benchmark
+    public List<LocalDateTime> consultarDisponibilidad(AgendasPobladas agendas) {
+        return agendas.gestor.consultarDisponibilidad(agendas.profesionalAlAzar(), agendas.diaAlAzar());
+    }
+    
+    @Benchmark
+    public boolean estaDisponible(AgendasPobladas agendas) {
+        return agendas.gestor.estaDisponible(agendas.profesionalAlAzar(), agendas.horarioAlAzar());
+    }
+    
+    // Reservar y cancelar en la misma operación mantiene constante la ocupación durante la medición
+    @Benchmark
+    public boolean agendarYCancelarCita(AgendasPobladas agendas) {
+        String citaId = "BEN-" + agendas.secuencia.incrementAndGet();
+        Cita cita = new Cita(citaId, "PAC-1", agendas.profesionalAlAzar(), agendas.horarioLibreAlAzar(),
+            "Consulta general");
+        return agendas.gestor.agendarCita(cita) && agendas.gestor.cancelarCita(citaId);
+    }
+    
+    @Benchmark
+    public Map<String, Integer> obtenerEstadisticasDisponibilidad(AgendasPobladas agendas) {
+        return agendas.gestor.obtenerEstadisticasDisponibilidad(agendas.profesionalAlAzar());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,7 @@
+package rendimiento;
+
+import org.openjdk.jmh.annotations.Threads;
+
+@Threads(Threads.MAX)
+public class GestorDisponibilidadConcurrenteBenchmark extends GestorDisponibilidadBenchmark {
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+package rendimiento;
+
+import modelo.Cita;
+import org.openjdk.jmh.annotations.*;
+import persistencia.PersistenciaAgenda;
+import servicio.GestorDisponibilidad;
+import servicio.ReglaHorario;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Arranque en frío: la instantánea (10 citas por día y profesional durante 200 días) se
+// reproduce en un gestor vacío en cada medición
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecuperacionBenchmark {
+    static final int DIAS_POR_PROFESIONAL = 200;
+    static final int CITAS_POR_DIA = 10;
+    
+    @Param({"100000", "1000000"})
+    int citas;
+    
+    Path directorio;
+    
+    @Setup(Level.Trial)
+    public void poblar() throws IOException {
+        directorio = Files.createTempDirectory("recuperacion");
+        LocalDate dia = LocalDate.now().plusDays(1);
+        GestorDisponibilidad gestor = new GestorDisponibilidad();
+        try (PersistenciaAgenda persistencia = PersistenciaAgenda.abrir(directorio, gestor)) {
+            gestor.quitarOyente(persistencia);
+            int profesionales = Math.max(1, citas / (DIAS_POR_PROFESIONAL * CITAS_POR_DIA));
+            for (int p = 0; p < profesionales; p++) {
+                String profesionalId = "DOC-" + p;
+                gestor.configurarReglasHorario(profesionalId, List.of(new ReglaHorario(
+                    EnumSet.allOf(DayOfWeek.class), LocalTime.of(8, 0), LocalTime.of(8 + CITAS_POR_DIA - 1, 30),
+                    dia, dia.plusDays(DIAS_POR_PROFESIONAL - 1))));
+                List<Cita> lote = new ArrayList<>();
+                for (int d = 0; d < DIAS_POR_PROFESIONAL; d++) {
+                    for (int hora = 8; hora < 8 + CITAS_POR_DIA; hora++) {
+                        lote.add(new Cita(profesionalId + "-" + d + "-" + hora, "PAC-" + (d % 100), profesionalId,
+                                          dia.plusDays(d).atTime(hora, 0), "Consulta General"));
+                    }
+                }
+                gestor.agendarCitas(lote);
+            }
+            persistencia.tomarInstantanea();
+        }
+    }
+    
+    @Benchmark
+    public int recuperar() throws IOException {
+        GestorDisponibilidad gestor = new GestorDisponibilidad();
+        PersistenciaAgenda.abrir(directorio, gestor).close();
+        return gestor.contarCitas();
+    }
+    
+    @TearDown(Level.Trial)
+    public void borrar() throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                Files.delete(archivo);
+            }
+        }
+        Files.delete(directorio);
+    }
+}
\ No newline at end of file
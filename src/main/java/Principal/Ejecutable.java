@@ -1,14 +1,60 @@
 package Principal;
 
 import controlador.ControladorPrincipal;
+import persistencia.PersistenciaAgenda;
+import servicio.AlmacenCalendarios;
+import servicio.ArchivadorHistorial;
+import servicio.CalendarioSlots;
+import servicio.GestorDisponibilidad;
+import servicio.MetricasAgenda;
+import servidor.ServidorReservas;
 
+import javax.management.JMException;
 import javax.swing.*;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public class Ejecutable {
+    private static final int PUERTO_POR_DEFECTO = 8080;
     
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException, JMException {
+        if (args.length > 0 && args[0].equals("--servidor")) {
+            iniciarServidor(args.length > 1 ? Integer.parseInt(args[1]) : PUERTO_POR_DEFECTO);
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
             new ControladorPrincipal();
         });
     }
-}
+    
+    // Modo sin interfaz: el mismo gestor y registro de eventos que la aplicación de escritorio, servidos por HTTP
+    private static void iniciarServidor(int puerto) throws IOException, JMException {
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        Path datos = Paths.get(System.getProperty("citas.datos", "datos"));
+        AlmacenCalendarios almacen = new AlmacenCalendarios(datos.resolve("calendarios"),
+            CalendarioSlots.MINUTOS_POR_SLOT_POR_DEFECTO);
+        GestorDisponibilidad gestor = new GestorDisponibilidad(almacen);
+        if (Boolean.getBoolean("citas.metricas")) {
+            MetricasAgenda metricas = new MetricasAgenda();
+            metricas.registrarEnPlataforma("servidor");
+            gestor.activarMetricas(metricas);
+        }
+        PersistenciaAgenda persistencia = PersistenciaAgenda.abrir(datos, gestor);
+        ArchivadorHistorial archivador = ArchivadorHistorial.iniciar(gestor, ArchivadorHistorial.PERIODO_POR_DEFECTO);
+        ServidorReservas servidor = ServidorReservas.iniciar(gestor, new InetSocketAddress(puerto),
+            Integer.getInteger("citas.hilos", ServidorReservas.HILOS_POR_DEFECTO));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            servidor.close();
+            archivador.close();
+            try {
+                persistencia.close();
+                almacen.close();
+            } catch (IOException ex) {
+                System.err.println("Error al cerrar el registro de eventos: " + ex.getMessage());
+            }
+        }));
+        System.out.println("Servidor de reservas escuchando en el puerto " + servidor.getPuerto());
+    }
+}
\ No newline at end of file
@@ -1,25 +1,48 @@
 package controlador;
 
+import exportacion.ExportadorDatos;
+import importacion.ImportadorDatos;
+import importacion.ResultadoImportacion;
 import modelo.Cita;
 import modelo.Usuario;
+import persistencia.PersistenciaAgenda;
+import servicio.AlmacenCalendarios;
+import servicio.ArchivadorHistorial;
+import servicio.CalendarioSlots;
 import servicio.GestorDisponibilidad;
+import servicio.IndiceBusquedaCitas;
+import servicio.RegistroUsuarios;
+import servicio.MetricasAgenda;
+import servicio.ReglaHorario;
 import vista.*;
 
+import javax.management.JMException;
 import javax.swing.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 
 public class ControladorPrincipal {
+    private static final int MAXIMO_RESULTADOS_BUSQUEDA = 200;
     
     private VentanaPrincipal ventanaPrincipal;
     private GestorDisponibilidad gestorDisponibilidad;
-    private Map<String, Usuario> usuarios;
-    private Map<String, Cita> citas;
+    private PersistenciaAgenda persistencia;
+    private IndiceBusquedaCitas indiceBusqueda;
+    private RegistroUsuarios usuarios;
+    private AlmacenCalendarios almacenCalendarios;
     private int contadorCitas;
-    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private final TareasEnSegundoPlano tareas = new TareasEnSegundoPlano();
     private final DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
     
     public ControladorPrincipal() {
@@ -30,15 +53,78 @@ public class ControladorPrincipal {
     }
     
     private void inicializarModelo() {
-        gestorDisponibilidad = new GestorDisponibilidad();
-        usuarios = new HashMap<>();
-        citas = new HashMap<>();
-        contadorCitas = 1;
+        gestorDisponibilidad = crearGestor();
+        usuarios = new RegistroUsuarios();
+        abrirPersistencia();
+        activarMetricas();
+        ArchivadorHistorial.iniciar(gestorDisponibilidad, ArchivadorHistorial.PERIODO_POR_DEFECTO);
+        contadorCitas = gestorDisponibilidad.contarCitas() + 1;
         
         crearUsuariosPrueba();
         configurarHorariosMedicos();
     }
     
+    // Los calendarios de slots se guardan mapeados junto al registro de eventos; si no se pueden abrir,
+    // el gestor trabaja en memoria y el registro los reconstruye
+    private GestorDisponibilidad crearGestor() {
+        try {
+            almacenCalendarios = new AlmacenCalendarios(directorioDatos().resolve("calendarios"),
+                                                        CalendarioSlots.MINUTOS_POR_SLOT_POR_DEFECTO);
+            return new GestorDisponibilidad(almacenCalendarios);
+        } catch (IOException ex) {
+            System.err.println("No se pudieron abrir los calendarios guardados: " + ex.getMessage());
+            cerrarAlmacenCalendarios();
+            return new GestorDisponibilidad();
+        }
+    }
+    
+    private void cerrarAlmacenCalendarios() {
+        if (almacenCalendarios == null) {
+            return;
+        }
+        try {
+            almacenCalendarios.close();
+        } catch (IOException ex) {
+            System.err.println("Error al cerrar los calendarios guardados: " + ex.getMessage());
+        }
+        almacenCalendarios = null;
+    }
+    
+    private static Path directorioDatos() {
+        return Paths.get(System.getProperty("citas.datos", "datos"));
+    }
+    
+    private void abrirPersistencia() {
+        try {
+            persistencia = PersistenciaAgenda.abrir(directorioDatos(), gestorDisponibilidad);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    persistencia.close();
+                    cerrarAlmacenCalendarios();
+                } catch (IOException ex) {
+                    System.err.println("Error al cerrar el registro de eventos: " + ex.getMessage());
+                }
+            }));
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(null, "No se pudo abrir el registro de citas: " + ex.getMessage()
+                + "\nLos cambios no se guardaran al cerrar la aplicacion.");
+        }
+    }
+    
+    // Con -Dcitas.metricas=true las latencias y contadores se publican por JMX
+    private void activarMetricas() {
+        if (!Boolean.getBoolean("citas.metricas")) {
+            return;
+        }
+        MetricasAgenda metricas = new MetricasAgenda();
+        try {
+            metricas.registrarEnPlataforma("escritorio");
+            gestorDisponibilidad.activarMetricas(metricas);
+        } catch (JMException ex) {
+            System.err.println("No se pudieron publicar las metricas: " + ex.getMessage());
+        }
+    }
+    
     private void inicializarVista() {
         ventanaPrincipal = new VentanaPrincipal();
         ventanaPrincipal.setVisible(true);
@@ -54,101 +140,97 @@ public class ControladorPrincipal {
         panelMisCitas.getBtnActualizar().addActionListener(this::actualizarMisCitas);
         panelMisCitas.getBtnCancelarCita().addActionListener(this::cancelarCita);
         panelMisCitas.getBtnReprogramarCita().addActionListener(this::reprogramarCita);
+        panelMisCitas.alCambiarFiltro(this::filtrarMisCitas);
         
         PanelAdministracion panelAdmin = ventanaPrincipal.getPanelAdministracion();
         panelAdmin.getBtnGenerarReporte().addActionListener(this::generarReporte);
         panelAdmin.getBtnExportarDatos().addActionListener(this::exportarDatos);
+        panelAdmin.getBtnImportarDatos().addActionListener(this::importarDatos);
         
         PanelPersonalMedico panelPersonal = ventanaPrincipal.getPanelPersonalMedico();
         panelPersonal.getBtnVerCitas().addActionListener(this::verCitasPersonalMedico);
+        
+        ventanaPrincipal.getPanelUsuarios().alCambiarBusqueda(this::cargarUsuariosEnTabla);
     }
     
     private void cargarDatosIniciales() {
         cargarProfesionalesEnCombo();
-        actualizarMisCitas(null);
+        ventanaPrincipal.getPanelMisCitas().getModeloTabla().conectar(gestorDisponibilidad::contarCitasIndexadas,
+            gestorDisponibilidad::citaEnPosicion, this::nombreProfesional);
+        indiceBusqueda = new IndiceBusquedaCitas(gestorDisponibilidad, this::nombreProfesional);
+        gestorDisponibilidad.agregarOyente(indiceBusqueda);
         actualizarEstadisticasAdmin();
         cargarUsuariosEnTabla();
     }
     
     private void crearUsuariosPrueba() {
-        usuarios.put("PAC-001", new Usuario("PAC-001", "Juan", "Perez", "juan@email.com", Usuario.TipoUsuario.PACIENTE));
-        usuarios.put("PAC-002", new Usuario("PAC-002", "Maria", "Garcia", "maria@email.com", Usuario.TipoUsuario.PACIENTE));
-        usuarios.put("DOC-001", new Usuario("DOC-001", "Dr. Ana", "Martinez", "ana@hospital.com", Usuario.TipoUsuario.PROFESIONAL_MEDICO));
-        usuarios.put("DOC-002", new Usuario("DOC-002", "Dr. Carlos", "Lopez", "carlos@hospital.com", Usuario.TipoUsuario.PROFESIONAL_MEDICO));
-        usuarios.put("ADM-001", new Usuario("ADM-001", "Admin", "Sistema", "admin@hospital.com", Usuario.TipoUsuario.ADMINISTRADOR));
+        registrarUsuario(new Usuario("PAC-001", "Juan", "Perez", "juan@email.com", Usuario.TipoUsuario.PACIENTE));
+        registrarUsuario(new Usuario("PAC-002", "Maria", "Garcia", "maria@email.com", Usuario.TipoUsuario.PACIENTE));
+        registrarUsuario(new Usuario("DOC-001", "Dr. Ana", "Martinez", "ana@hospital.com", Usuario.TipoUsuario.PROFESIONAL_MEDICO));
+        registrarUsuario(new Usuario("DOC-002", "Dr. Carlos", "Lopez", "carlos@hospital.com", Usuario.TipoUsuario.PROFESIONAL_MEDICO));
+        registrarUsuario(new Usuario("ADM-001", "Admin", "Sistema", "admin@hospital.com", Usuario.TipoUsuario.ADMINISTRADOR));
+    }
+    
+    private void registrarUsuario(Usuario usuario) {
+        usuarios.registrar(usuario);
     }
     
     private void configurarHorariosMedicos() {
-        Set<LocalDateTime> horarios1 = new HashSet<>();
-        Set<LocalDateTime> horarios2 = new HashSet<>();
+        LocalDate desde = LocalDate.now().plusDays(1);
+        LocalDate hasta = desde.plusYears(1);
+        Set<DayOfWeek> todosLosDias = EnumSet.allOf(DayOfWeek.class);
         
-        LocalDateTime fechaBase = LocalDateTime.now().plusDays(1);
+        List<ReglaHorario> reglas = List.of(
+            new ReglaHorario(todosLosDias, LocalTime.of(9, 0), LocalTime.of(11, 30), desde, hasta),
+            new ReglaHorario(todosLosDias, LocalTime.of(14, 0), LocalTime.of(16, 30), desde, hasta));
         
-        for (int dia = 0; dia < 7; dia++) {
-            LocalDateTime fecha = fechaBase.plusDays(dia);
-            String[] horas = {"09:00", "09:30", "10:00", "10:30", "11:00", "11:30", 
-                            "14:00", "14:30", "15:00", "15:30", "16:00", "16:30"};
-            for (String hora : horas) {
-                String[] partes = hora.split(":");
-                LocalDateTime horarioCompleto = fecha
-                    .withHour(Integer.parseInt(partes[0]))
-                    .withMinute(Integer.parseInt(partes[1]))
-                    .withSecond(0).withNano(0);
-                horarios1.add(horarioCompleto);
-                horarios2.add(horarioCompleto);
+        for (String profesionalId : List.of("DOC-001", "DOC-002")) {
+            if (gestorDisponibilidad.obtenerEstadisticasDisponibilidad(profesionalId).get("horariosConfigurados") == 0) {
+                gestorDisponibilidad.configurarReglasHorario(profesionalId, reglas);
             }
         }
-        
-        gestorDisponibilidad.configurarHorarios("DOC-001", horarios1);
-        gestorDisponibilidad.configurarHorarios("DOC-002", horarios2);
     }
     
     private void cargarProfesionalesEnCombo() {
         JComboBox<String> combo = ventanaPrincipal.getPanelAgendarCita().getComboProfesional();
         combo.removeAllItems();
         
-        for (Usuario usuario : usuarios.values()) {
-            if (usuario.getTipo() == Usuario.TipoUsuario.PROFESIONAL_MEDICO) {
-                combo.addItem(usuario.getId() + " - " + usuario.getNombreCompleto());
-            }
+        for (Usuario usuario : usuarios.listar(Usuario.TipoUsuario.PROFESIONAL_MEDICO, true)) {
+            combo.addItem(usuario.getId() + " - " + usuario.getNombreCompleto());
         }
     }
     
     private void consultarDisponibilidad(ActionEvent e) {
         PanelAgendarCita panel = ventanaPrincipal.getPanelAgendarCita();
-        
-        try {
-            String profesionalSeleccionado = (String) panel.getComboProfesional().getSelectedItem();
-            if (profesionalSeleccionado == null) {
-                JOptionPane.showMessageDialog(ventanaPrincipal, "Seleccione un profesional");
-                return;
-            }
-            
-            String profesionalId = profesionalSeleccionado.split(" - ")[0];
-            Date fechaSeleccionada = (Date) panel.getSpinnerFecha().getValue();
-            LocalDateTime fecha = new java.sql.Timestamp(fechaSeleccionada.getTime()).toLocalDateTime();
-            
-            List<LocalDateTime> horariosDisponibles = gestorDisponibilidad.consultarDisponibilidad(profesionalId, fecha);
-            
-            JComboBox<String> comboHorario = panel.getComboHorario();
-            comboHorario.removeAllItems();
-            
-            for (LocalDateTime horario : horariosDisponibles) {
-                comboHorario.addItem(horario.format(timeFormatter));
-            }
-            
-            if (horariosDisponibles.isEmpty()) {
-                JOptionPane.showMessageDialog(ventanaPrincipal, "No hay horarios disponibles para esta fecha");
-                panel.habilitarAgendamiento(false);
-            } else {
-                panel.habilitarAgendamiento(true);
-                JOptionPane.showMessageDialog(ventanaPrincipal, 
-                    "Se encontraron " + horariosDisponibles.size() + " horarios disponibles");
-            }
-            
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(ventanaPrincipal, "Error al consultar disponibilidad: " + ex.getMessage());
+        String profesionalSeleccionado = (String) panel.getComboProfesional().getSelectedItem();
+        if (profesionalSeleccionado == null) {
+            JOptionPane.showMessageDialog(ventanaPrincipal, "Seleccione un profesional");
+            return;
         }
+        
+        String profesionalId = profesionalSeleccionado.split(" - ")[0];
+        Date fechaSeleccionada = (Date) panel.getSpinnerFecha().getValue();
+        LocalDateTime fecha = new java.sql.Timestamp(fechaSeleccionada.getTime()).toLocalDateTime();
+        
+        tareas.lanzar("disponibilidad", () -> gestorDisponibilidad.consultarDisponibilidad(profesionalId, fecha),
+            horariosDisponibles -> {
+                JComboBox<String> comboHorario = panel.getComboHorario();
+                comboHorario.removeAllItems();
+                
+                for (LocalDateTime horario : horariosDisponibles) {
+                    comboHorario.addItem(horario.format(timeFormatter));
+                }
+                
+                if (horariosDisponibles.isEmpty()) {
+                    JOptionPane.showMessageDialog(ventanaPrincipal, "No hay horarios disponibles para esta fecha");
+                    panel.habilitarAgendamiento(false);
+                } else {
+                    panel.habilitarAgendamiento(true);
+                    JOptionPane.showMessageDialog(ventanaPrincipal,
+                        "Se encontraron " + horariosDisponibles.size() + " horarios disponibles");
+                }
+            },
+            ex -> JOptionPane.showMessageDialog(ventanaPrincipal, "Error al consultar disponibilidad: " + ex.getMessage()));
     }
     
     private void agendarCita(ActionEvent e) {
@@ -182,20 +264,30 @@ public class ControladorPrincipal {
             String citaId = "CIT-" + String.format("%03d", contadorCitas++);
             Cita nuevaCita = new Cita(citaId, "PAC-001", profesionalId, fechaHoraCompleta, motivo);
             
-            if (gestorDisponibilidad.agendarCita(nuevaCita)) {
+            panel.getBtnAgendarCita().setEnabled(false);
+            tareas.lanzar(null, () -> {
+                if (!gestorDisponibilidad.agendarCita(nuevaCita)) {
+                    return false;
+                }
                 nuevaCita.confirmar();
-                citas.put(citaId, nuevaCita);
-                
-                JOptionPane.showMessageDialog(ventanaPrincipal, 
-                    "Cita agendada exitosamente!\nCodigo: " + citaId);
-                
-                panel.limpiarFormulario();
-                actualizarMisCitas(null);
-                actualizarEstadisticasAdmin();
-            } else {
-                JOptionPane.showMessageDialog(ventanaPrincipal, "Error: No se pudo agendar la cita");
-            }
-            
+                return true;
+            }, agendada -> {
+                if (agendada) {
+                    JOptionPane.showMessageDialog(ventanaPrincipal,
+                        "Cita agendada exitosamente!\nCodigo: " + citaId);
+                    
+                    panel.limpiarFormulario();
+                    actualizarMisCitas(null);
+                    actualizarEstadisticasAdmin();
+                } else {
+                    panel.getBtnAgendarCita().setEnabled(true);
+                    JOptionPane.showMessageDialog(ventanaPrincipal, "Error: No se pudo agendar la cita");
+                }
+            }, ex -> {
+                panel.getBtnAgendarCita().setEnabled(true);
+                JOptionPane.showMessageDialog(ventanaPrincipal, "Error al agendar cita: " + ex.getMessage());
+            });
+        
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(ventanaPrincipal, "Error al agendar cita: " + ex.getMessage());
         }
@@ -205,26 +297,32 @@ public class ControladorPrincipal {
         ventanaPrincipal.getPanelAgendarCita().limpiarFormulario();
     }
     
+    // La tabla lee las citas del gestor por posición: actualizar solo anexa las nuevas y repinta lo visible
     private void actualizarMisCitas(ActionEvent e) {
         PanelMisCitas panel = ventanaPrincipal.getPanelMisCitas();
-        panel.limpiarTabla();
-        
-        for (Cita cita : citas.values()) {
-            Usuario paciente = usuarios.get(cita.getPacienteId());
-            Usuario profesional = usuarios.get(cita.getProfesionalId());
-            
-            Object[] fila = {
-                cita.getId(),
-                cita.getFechaHora().format(formatter),
-                cita.getFechaHora().format(timeFormatter),
-                profesional.getNombreCompleto(),
-                "Consulta",
-                cita.getMotivo(),
-                cita.getEstado().toString()
-            };
-            
-            panel.agregarCita(fila);
+        if (panel.getModeloTabla().estaFiltrado()) {
+            filtrarMisCitas();
+        }
+        panel.actualizarCitas();
+    }
+    
+    // El índice se pone al día solo con lo agendado o cambiado desde la última búsqueda
+    private void filtrarMisCitas() {
+        PanelMisCitas panel = ventanaPrincipal.getPanelMisCitas();
+        String texto = panel.getTxtFiltro().getText();
+        int seleccion = panel.getComboFiltroEstado().getSelectedIndex();
+        Cita.EstadoCita estado = seleccion <= 0 ? null : Cita.EstadoCita.values()[seleccion - 1];
+        if (texto.isBlank() && estado == null) {
+            panel.getModeloTabla().filtrar(null);
+            return;
         }
+        indiceBusqueda.sincronizar();
+        panel.getModeloTabla().filtrar(indiceBusqueda.buscar(texto, estado));
+    }
+    
+    private String nombreProfesional(String profesionalId) {
+        Usuario profesional = usuarios.buscarPorId(profesionalId);
+        return profesional == null ? profesionalId : profesional.getNombreCompleto();
     }
     
     private void cancelarCita(ActionEvent e) {
@@ -232,19 +330,18 @@ public class ControladorPrincipal {
         String citaId = panel.getCitaSeleccionada();
         
         if (citaId != null) {
-            int confirmacion = JOptionPane.showConfirmDialog(ventanaPrincipal, 
+            int confirmacion = JOptionPane.showConfirmDialog(ventanaPrincipal,
                 "¿Esta seguro que desea cancelar la cita " + citaId + "?",
                 "Confirmar Cancelacion", JOptionPane.YES_NO_OPTION);
             
             if (confirmacion == JOptionPane.YES_OPTION) {
-                Cita cita = citas.get(citaId);
-                if (cita != null) {
-                    cita.cancelar();
-                    gestorDisponibilidad.cancelarCita(citaId);
-                    actualizarMisCitas(null);
-                    actualizarEstadisticasAdmin();
-                    JOptionPane.showMessageDialog(ventanaPrincipal, "Cita cancelada exitosamente");
-                }
+                tareas.lanzar(null, () -> gestorDisponibilidad.cancelarCita(citaId), cancelada -> {
+                    if (cancelada) {
+                        actualizarMisCitas(null);
+                        actualizarEstadisticasAdmin();
+                        JOptionPane.showMessageDialog(ventanaPrincipal, "Cita cancelada exitosamente");
+                    }
+                }, ex -> JOptionPane.showMessageDialog(ventanaPrincipal, "Error al cancelar cita: " + ex.getMessage()));
             }
         }
     }
@@ -255,74 +352,200 @@ public class ControladorPrincipal {
     
     private void generarReporte(ActionEvent e) {
         PanelAdministracion panel = ventanaPrincipal.getPanelAdministracion();
+        int totalUsuarios = usuarios.contar();
+        int doctoresActivos = contarDoctoresActivos();
         
-        StringBuilder reporte = new StringBuilder();
-        reporte.append("REPORTE DEL SISTEMA DE GESTION DE CITAS\n");
-        reporte.append("=========================================\n\n");
-        
-        reporte.append("RESUMEN EJECUTIVO:\n");
-        reporte.append("- Total de citas en el sistema: ").append(citas.size()).append("\n");
-        reporte.append("- Total de usuarios registrados: ").append(usuarios.size()).append("\n");
+        tareas.lanzar("reporte", () -> {
+            StringBuilder reporte = new StringBuilder();
+            reporte.append("REPORTE DEL SISTEMA DE GESTION DE CITAS\n");
+            reporte.append("=========================================\n\n");
+            
+            reporte.append("RESUMEN EJECUTIVO:\n");
+            reporte.append("- Total de citas en el sistema: ").append(gestorDisponibilidad.contarCitas()).append("\n");
+            reporte.append("- Citas archivadas en el historial: ").append(gestorDisponibilidad.contarCitasArchivadas())
+                .append("\n");
+            reporte.append("- Total de usuarios registrados: ").append(totalUsuarios).append("\n");
+            
+            reporte.append("- Doctores activos: ").append(doctoresActivos).append("\n\n");
+            
+            reporte.append("DETALLE DE CITAS POR ESTADO:\n");
+            for (Map.Entry<Cita.EstadoCita, Integer> conteo : gestorDisponibilidad.obtenerConteoPorEstado().entrySet()) {
+                reporte.append("- ").append(conteo.getKey()).append(": ").append(conteo.getValue()).append("\n");
+            }
+            
+            reporte.append("\nHISTORIAL ARCHIVADO DEL ULTIMO MES:\n");
+            LocalDateTime ahora = LocalDateTime.now();
+            for (Map.Entry<Cita.EstadoCita, Integer> conteo
+                    : gestorDisponibilidad.contarHistorial(null, ahora.minusMonths(1), ahora).entrySet()) {
+                reporte.append("- ").append(conteo.getKey()).append(": ").append(conteo.getValue()).append("\n");
+            }
+            return reporte.toString();
+        }, panel.getTextAreaReporte()::setText,
+            ex -> JOptionPane.showMessageDialog(ventanaPrincipal, "Error al generar el reporte: " + ex.getMessage()));
+    }
+    
+    private void exportarDatos(ActionEvent e) {
+        PanelAdministracion panel = ventanaPrincipal.getPanelAdministracion();
+        JFileChooser selector = new JFileChooser();
+        selector.setDialogTitle("Seleccione la carpeta de destino");
+        selector.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (selector.showSaveDialog(ventanaPrincipal) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
         
-        long doctoresActivos = usuarios.values().stream()
-            .filter(u -> u.getTipo() == Usuario.TipoUsuario.PROFESIONAL_MEDICO && u.isActivo())
-            .count();
-        reporte.append("- Doctores activos: ").append(doctoresActivos).append("\n\n");
+        Path carpeta = selector.getSelectedFile().toPath();
+        ExportadorDatos exportador = new ExportadorDatos(
+            (ExportadorDatos.Formato) panel.getComboFormato().getSelectedItem(), panel.getChkComprimir().isSelected());
+        List<Usuario> listaUsuarios = usuarios.todos();
+        long totalCitas = gestorDisponibilidad.contarCitas();
+        long total = totalCitas + listaUsuarios.size();
         
-        reporte.append("DETALLE DE CITAS POR ESTADO:\n");
-        for (Cita.EstadoCita estado : Cita.EstadoCita.values()) {
-            long count = citas.values().stream()
-                .filter(c -> c.getEstado() == estado)
-                .count();
-            reporte.append("- ").append(estado).append(": ").append(count).append("\n");
+        panel.getBtnExportarDatos().setEnabled(false);
+        panel.mostrarProgresoExportacion(0, total);
+        new SwingWorker<Long, Long>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                long citas = exportador.exportarCitas(gestorDisponibilidad.iterarCitas(), totalCitas,
+                    carpeta.resolve(exportador.nombreArchivo("citas")), (exportadas, t) -> publish(exportadas));
+                return citas + exportador.exportarUsuarios(listaUsuarios.iterator(), listaUsuarios.size(),
+                    carpeta.resolve(exportador.nombreArchivo("usuarios")), (exportados, t) -> publish(citas + exportados));
+            }
+            
+            @Override
+            protected void process(List<Long> avances) {
+                panel.mostrarProgresoExportacion(avances.get(avances.size() - 1), total);
+            }
+            
+            @Override
+            protected void done() {
+                panel.getBtnExportarDatos().setEnabled(true);
+                try {
+                    long filas = get();
+                    panel.mostrarProgresoExportacion(filas, filas);
+                    JOptionPane.showMessageDialog(ventanaPrincipal,
+                        "Exportacion completada: " + filas + " registros en " + carpeta);
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(ventanaPrincipal,
+                        "Error al exportar datos: " + ex.getCause().getMessage());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
+    }
+    
+    // Importa usuarios.* y citas.* de la carpeta elegida, en el formato seleccionado
+    private void importarDatos(ActionEvent e) {
+        PanelAdministracion panel = ventanaPrincipal.getPanelAdministracion();
+        JFileChooser selector = new JFileChooser();
+        selector.setDialogTitle("Seleccione la carpeta de origen");
+        selector.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (selector.showOpenDialog(ventanaPrincipal) != JFileChooser.APPROVE_OPTION) {
+            return;
         }
         
-        panel.getTextAreaReporte().setText(reporte.toString());
+        Path carpeta = selector.getSelectedFile().toPath();
+        ExportadorDatos.Formato formato = (ExportadorDatos.Formato) panel.getComboFormato().getSelectedItem();
+        ImportadorDatos importador = new ImportadorDatos(formato);
+        Set<String> idsImportados = new HashSet<>();
+        List<Usuario> importados = new ArrayList<>();
+        
+        panel.getBtnImportarDatos().setEnabled(false);
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() throws Exception {
+                StringBuilder resumen = new StringBuilder();
+                Path archivoUsuarios = buscarArchivo(carpeta, "usuarios" + formato.getExtension());
+                if (archivoUsuarios != null) {
+                    ResultadoImportacion resultado = importador.importarUsuarios(archivoUsuarios,
+                        usuario -> !usuarios.contiene(usuario.getId()) && idsImportados.add(usuario.getId())
+                            && importados.add(usuario));
+                    resumen.append(resumirImportacion("Usuarios", resultado, carpeta.resolve("errores-usuarios.csv")));
+                }
+                Path archivoCitas = buscarArchivo(carpeta, "citas" + formato.getExtension());
+                if (archivoCitas != null) {
+                    ResultadoImportacion resultado = importador.importarCitas(archivoCitas, gestorDisponibilidad);
+                    resumen.append(resumirImportacion("Citas", resultado, carpeta.resolve("errores-citas.csv")));
+                }
+                return resumen.length() == 0 ? "No se encontraron archivos para importar en " + carpeta
+                    : resumen.toString();
+            }
+            
+            @Override
+            protected void done() {
+                panel.getBtnImportarDatos().setEnabled(true);
+                importados.forEach(ControladorPrincipal.this::registrarUsuario);
+                cargarProfesionalesEnCombo();
+                contadorCitas = Math.max(contadorCitas, gestorDisponibilidad.contarCitas() + 1);
+                ventanaPrincipal.getPanelMisCitas().getModeloTabla().olvidarNombres();
+                actualizarMisCitas(null);
+                cargarUsuariosEnTabla();
+                actualizarEstadisticasAdmin();
+                try {
+                    JOptionPane.showMessageDialog(ventanaPrincipal, get());
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(ventanaPrincipal,
+                        "Error al importar datos: " + ex.getCause().getMessage());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
     }
     
-    private void exportarDatos(ActionEvent e) {
-        JOptionPane.showMessageDialog(ventanaPrincipal, "Funcionalidad de exportacion disponible");
+    private static Path buscarArchivo(Path carpeta, String nombre) {
+        for (Path candidato : List.of(carpeta.resolve(nombre), carpeta.resolve(nombre + ".gz"))) {
+            if (Files.isRegularFile(candidato)) {
+                return candidato;
+            }
+        }
+        return null;
+    }
+    
+    private static String resumirImportacion(String titulo, ResultadoImportacion resultado, Path reporte)
+            throws IOException {
+        String resumen = titulo + ": " + resultado.getImportadas() + " importados, "
+            + resultado.getRechazadas() + " rechazados";
+        if (resultado.getRechazadas() > 0) {
+            resultado.escribirReporte(reporte);
+            resumen += " (detalle en " + reporte.getFileName() + ")";
+        }
+        return resumen + "\n";
     }
     
     private void verCitasPersonalMedico(ActionEvent e) {
         JOptionPane.showMessageDialog(ventanaPrincipal, "Vista de citas para personal medico disponible");
     }
     
+    // Sin texto se listan todos; con texto, los mejores resultados del índice de trigramas
     private void cargarUsuariosEnTabla() {
         PanelUsuarios panel = ventanaPrincipal.getPanelUsuarios();
-        panel.getModeloTabla().setRowCount(0);
-        
-        for (Usuario usuario : usuarios.values()) {
-            Object[] fila = {
-                usuario.getId(),
-                usuario.getNombre(),
-                usuario.getApellido(),
-                usuario.getEmail(),
-                usuario.getTipo().getDescripcion(),
-                usuario.isActivo() ? "Activo" : "Inactivo"
-            };
-            panel.getModeloTabla().addRow(fila);
-        }
+        String consulta = panel.getTxtBuscar().getText();
+        panel.getModeloTabla().mostrar(consulta.isBlank() ? usuarios.todos()
+            : usuarios.buscar(consulta, MAXIMO_RESULTADOS_BUSQUEDA));
     }
     
     private void actualizarEstadisticasAdmin() {
         PanelAdministracion panel = ventanaPrincipal.getPanelAdministracion();
+        int totalUsuarios = usuarios.contar();
+        int doctoresActivos = contarDoctoresActivos();
         
-        int totalCitas = citas.size();
-        long confirmadas = citas.values().stream().filter(c -> c.getEstado() == Cita.EstadoCita.CONFIRMADA).count();
-        long pendientes = citas.values().stream().filter(c -> c.getEstado() == Cita.EstadoCita.PENDIENTE).count();
-        long canceladas = citas.values().stream().filter(c -> c.getEstado() == Cita.EstadoCita.CANCELADA).count();
-        
-        int totalUsuarios = usuarios.size();
-        int doctoresActivos = (int) usuarios.values().stream()
-            .filter(u -> u.getTipo() == Usuario.TipoUsuario.PROFESIONAL_MEDICO && u.isActivo())
-            .count();
-        
-        double eficiencia = totalCitas > 0 ? (double) confirmadas / totalCitas * 100 : 0;
-        
-        panel.actualizarEstadisticas(totalCitas, (int)confirmadas, (int)pendientes, 
-                                   (int)canceladas, totalUsuarios, doctoresActivos, eficiencia);
+        tareas.lanzar("estadisticas", gestorDisponibilidad::obtenerConteoPorEstado, conteo -> {
+            int confirmadas = conteo.getOrDefault(Cita.EstadoCita.CONFIRMADA, 0);
+            int pendientes = conteo.getOrDefault(Cita.EstadoCita.PENDIENTE, 0);
+            int canceladas = conteo.getOrDefault(Cita.EstadoCita.CANCELADA, 0);
+            int totalCitas = conteo.values().stream().mapToInt(Integer::intValue).sum();
+            
+            double eficiencia = totalCitas > 0 ? (double) confirmadas / totalCitas * 100 : 0;
+            
+            panel.actualizarEstadisticas(totalCitas, confirmadas, pendientes,
+                                       canceladas, totalUsuarios, doctoresActivos, eficiencia);
+        }, ex -> JOptionPane.showMessageDialog(ventanaPrincipal, "Error al calcular estadisticas: " + ex.getMessage()));
     }
     
+    private int contarDoctoresActivos() {
+        return usuarios.contar(Usuario.TipoUsuario.PROFESIONAL_MEDICO, true);
+    }
+
 
 }
\ No newline at end of file
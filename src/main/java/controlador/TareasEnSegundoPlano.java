@@ -0,0 +1,53 @@
+package controlador;
+
+import javax.swing.SwingWorker;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+// Ejecuta el trabajo fuera del EDT y entrega el resultado en el EDT. Una petición con la misma clave cancela
+// la anterior y solo la última llega a tocar la vista; sin clave la tarea no se cancela (altas, bajas)
+class TareasEnSegundoPlano {
+    interface Trabajo<T> {
+        T ejecutar() throws Exception;
+    }
+    
+    // Solo se usa desde el EDT
+    private final Map<String, SwingWorker<?, ?>> vigentes = new HashMap<>();
+    
+    <T> void lanzar(String clave, Trabajo<T> trabajo, Consumer<T> alTerminar, Consumer<Throwable> alFallar) {
+        SwingWorker<?, ?> anterior = clave == null ? null : vigentes.remove(clave);
+        if (anterior != null) {
+            anterior.cancel(true);
+        }
+        
+        SwingWorker<T, Void> tarea = new SwingWorker<>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                return trabajo.ejecutar();
+            }
+            
+            @Override
+            protected void done() {
+                if (clave != null && !vigentes.remove(clave, this)) {
+                    return;
+                }
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    alTerminar.accept(get());
+                } catch (ExecutionException ex) {
+                    alFallar.accept(ex.getCause());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        if (clave != null) {
+            vigentes.put(clave, tarea);
+        }
+        tarea.execute();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,214 @@
+package exportacion;
+
+import modelo.Cita;
+import modelo.Usuario;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+// Escribe fila a fila sobre un Writer con búfer: la memoria no depende de cuántas filas se exporten
+public class ExportadorDatos {
+    static final int FILAS_POR_AVISO = 10_000;
+    private static final int TAMANO_BUFER = 1 << 16;
+    private static final String[] COLUMNAS_CITA =
+        {"id", "pacienteId", "profesionalId", "fechaHora", "tipo", "motivo", "estado"};
+    private static final String[] COLUMNAS_USUARIO =
+        {"id", "nombre", "apellido", "email", "telefono", "tipo", "activo"};
+    
+    public enum Formato {
+        CSV("CSV", ".csv"),
+        JSON_LINES("JSON Lines", ".jsonl");
+        
+        private final String descripcion;
+        private final String extension;
+        
+        Formato(String descripcion, String extension) {
+            this.descripcion = descripcion;
+            this.extension = extension;
+        }
+        
+        public String getDescripcion() {
+            return descripcion;
+        }
+        
+        public String getExtension() {
+            return extension;
+        }
+        
+        @Override
+        public String toString() {
+            return descripcion;
+        }
+    }
+    
+    public interface ObservadorProgreso {
+        void progreso(long exportadas, long total);
+    }
+    
+    private final Formato formato;
+    private final boolean comprimir;
+    
+    public ExportadorDatos(Formato formato, boolean comprimir) {
+        if (formato == null) {
+            throw new IllegalArgumentException("El formato no puede ser nulo");
+        }
+        this.formato = formato;
+        this.comprimir = comprimir;
+    }
+    
+    public String nombreArchivo(String base) {
+        return base + formato.getExtension() + (comprimir ? ".gz" : "");
+    }
+    
+    public long exportarCitas(Iterator<Cita> citas, long total, Path destino,
+                              ObservadorProgreso progreso) throws IOException {
+        return exportar(citas, total, destino, COLUMNAS_CITA, cita -> new Object[] {
+            cita.getId(), cita.getPacienteId(), cita.getProfesionalId(), cita.getFechaHora(),
+            cita.getTipo(), cita.getMotivo(), cita.getEstado()
+        }, progreso);
+    }
+    
+    public long exportarUsuarios(Iterator<Usuario> usuarios, long total, Path destino,
+                                 ObservadorProgreso progreso) throws IOException {
+        return exportar(usuarios, total, destino, COLUMNAS_USUARIO, usuario -> new Object[] {
+            usuario.getId(), usuario.getNombre(), usuario.getApellido(), usuario.getEmail(),
+            usuario.getTelefono(), usuario.getTipo(), usuario.isActivo()
+        }, progreso);
+    }
+    
+    private <T> long exportar(Iterator<T> filas, long total, Path destino, String[] columnas,
+                              Function<T, Object[]> valores, ObservadorProgreso progreso) throws IOException {
+        if (filas == null || destino == null) {
+            throw new IllegalArgumentException("Las filas y el destino no pueden ser nulos");
+        }
+        
+        long exportadas = 0;
+        try (Writer salida = abrir(destino)) {
+            if (formato == Formato.CSV) {
+                escribirFilaCsv(salida, columnas);
+            }
+            while (filas.hasNext()) {
+                Object[] fila = valores.apply(filas.next());
+                if (formato == Formato.CSV) {
+                    escribirFilaCsv(salida, fila);
+                } else {
+                    escribirObjetoJson(salida, columnas, fila);
+                }
+                exportadas++;
+                if (exportadas % FILAS_POR_AVISO == 0) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedIOException("Exportación cancelada");
+                    }
+                    avisar(progreso, exportadas, total);
+                }
+            }
+        }
+        avisar(progreso, exportadas, total);
+        return exportadas;
+    }
+    
+    private Writer abrir(Path destino) throws IOException {
+        OutputStream salida = Channels.newOutputStream(FileChannel.open(destino, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+        if (comprimir) {
+            salida = new GZIPOutputStream(salida, TAMANO_BUFER);
+        }
+        return new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAMANO_BUFER);
+    }
+    
+    private static void avisar(ObservadorProgreso progreso, long exportadas, long total) {
+        if (progreso != null) {
+            progreso.progreso(exportadas, Math.max(total, exportadas));
+        }
+    }
+    
+    public static void escribirFilaCsv(Writer salida, Object[] valores) throws IOException {
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                salida.write(',');
+            }
+            if (valores[i] != null) {
+                escribirCampoCsv(salida, valores[i].toString());
+            }
+        }
+        salida.write('\n');
+    }
+    
+    private static void escribirCampoCsv(Writer salida, String valor) throws IOException {
+        boolean entrecomillar = false;
+        for (int i = 0; i < valor.length() && !entrecomillar; i++) {
+            char c = valor.charAt(i);
+            entrecomillar = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!entrecomillar) {
+            salida.write(valor);
+            return;
+        }
+        salida.write('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                salida.write('"');
+            }
+            salida.write(c);
+        }
+        salida.write('"');
+    }
+    
+    static void escribirObjetoJson(Writer salida, String[] columnas, Object[] valores) throws IOException {
+        salida.write('{');
+        for (int i = 0; i < columnas.length; i++) {
+            if (i > 0) {
+                salida.write(',');
+            }
+            escribirTextoJson(salida, columnas[i]);
+            salida.write(':');
+            Object valor = valores[i];
+            if (valor == null) {
+                salida.write("null");
+            } else if (valor instanceof Boolean || valor instanceof Number) {
+                salida.write(valor.toString());
+            } else {
+                escribirTextoJson(salida, valor.toString());
+            }
+        }
+        salida.write("}\n");
+    }
+    
+    private static void escribirTextoJson(Writer salida, String texto) throws IOException {
+        salida.write('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"':
+                    salida.write("\\\"");
+                    break;
+                case '\\':
+                    salida.write("\\\\");
+                    break;
+                case '\n':
+                    salida.write("\\n");
+                    break;
+                case '\r':
+                    salida.write("\\r");
+                    break;
+                case '\t':
+                    salida.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        salida.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        salida.write(c);
+                    }
+            }
+        }
+        salida.write('"');
+    }
+}
\ No newline at end of file
@@ -0,0 +1,30 @@
+package importacion;
+
+public class ErrorImportacion {
+    private final long linea;
+    private final String motivo;
+    private final String contenido;
+    
+    public ErrorImportacion(long linea, String motivo, String contenido) {
+        this.linea = linea;
+        this.motivo = motivo;
+        this.contenido = contenido;
+    }
+    
+    public long getLinea() {
+        return linea;
+    }
+    
+    public String getMotivo() {
+        return motivo;
+    }
+    
+    public String getContenido() {
+        return contenido;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Línea %d: %s", linea, motivo);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,378 @@
+package importacion;
+
+import exportacion.ExportadorDatos.Formato;
+import modelo.Cita;
+import modelo.Usuario;
+import servicio.GestorDisponibilidad;
+import servicio.ResultadoReserva;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+
+// Un solo hilo corta el archivo en bloques de registros; el análisis y la validación de cada bloque
+// se reparten en un ForkJoinPool y los bloques se fusionan en orden a medida que terminan
+public class ImportadorDatos {
+    static final int FILAS_POR_BLOQUE_POR_DEFECTO = 10_000;
+    static final int FILAS_POR_TAREA = 1_000;
+    private static final int TAMANO_BUFER = 1 << 16;
+    private static final String[] COLUMNAS_CITA =
+        {"id", "pacienteId", "profesionalId", "fechaHora", "tipo", "motivo", "estado"};
+    private static final String[] COLUMNAS_USUARIO =
+        {"id", "nombre", "apellido", "email", "telefono", "tipo", "activo"};
+    
+    private final Formato formato;
+    private final ForkJoinPool pool;
+    private final int filasPorBloque;
+    
+    public ImportadorDatos(Formato formato) {
+        this(formato, ForkJoinPool.commonPool(), FILAS_POR_BLOQUE_POR_DEFECTO);
+    }
+    
+    public ImportadorDatos(Formato formato, ForkJoinPool pool, int filasPorBloque) {
+        if (formato == null || pool == null) {
+            throw new IllegalArgumentException("El formato y el pool no pueden ser nulos");
+        }
+        if (filasPorBloque <= 0) {
+            throw new IllegalArgumentException("Las filas por bloque deben ser positivas");
+        }
+        this.formato = formato;
+        this.pool = pool;
+        this.filasPorBloque = filasPorBloque;
+    }
+    
+    public ResultadoImportacion importarCitas(Path origen, GestorDisponibilidad gestor) throws IOException {
+        if (gestor == null) {
+            throw new IllegalArgumentException("El gestor no puede ser nulo");
+        }
+        return importar(origen, COLUMNAS_CITA, ImportadorDatos::crearCita, (bloque, errores) -> {
+            List<ResultadoReserva> resultados = gestor.cargarCitas(bloque.validos);
+            long cargadas = 0;
+            for (int i = 0; i < resultados.size(); i++) {
+                if (resultados.get(i) == ResultadoReserva.AGENDADA) {
+                    cargadas++;
+                } else {
+                    errores.add(new ErrorImportacion(bloque.lineasValidas[i],
+                        "Rechazada por la agenda: " + resultados.get(i), bloque.contenidosValidos[i]));
+                }
+            }
+            return cargadas;
+        });
+    }
+    
+    // El predicado recibe los usuarios en el orden del archivo y devuelve false si no los acepta
+    public ResultadoImportacion importarUsuarios(Path origen, Predicate<Usuario> registrar) throws IOException {
+        if (registrar == null) {
+            throw new IllegalArgumentException("El destino de los usuarios no puede ser nulo");
+        }
+        return importar(origen, COLUMNAS_USUARIO, ImportadorDatos::crearUsuario, (bloque, errores) -> {
+            long registrados = 0;
+            for (int i = 0; i < bloque.validos.size(); i++) {
+                if (registrar.test(bloque.validos.get(i))) {
+                    registrados++;
+                } else {
+                    errores.add(new ErrorImportacion(bloque.lineasValidas[i],
+                        "Usuario duplicado", bloque.contenidosValidos[i]));
+                }
+            }
+            return registrados;
+        });
+    }
+    
+    private interface Fusion<T> {
+        long fusionar(Bloque<T> bloque, List<ErrorImportacion> errores);
+    }
+    
+    private <T> ResultadoImportacion importar(Path origen, String[] columnas, Function<String[], T> crear,
+                                              Fusion<T> fusion) throws IOException {
+        if (origen == null) {
+            throw new IllegalArgumentException("El origen no puede ser nulo");
+        }
+        
+        List<ErrorImportacion> errores = new ArrayList<>();
+        Deque<ForkJoinTask<Bloque<T>>> pendientes = new ArrayDeque<>();
+        long importadas = 0;
+        try (LectorRegistros lector = new LectorRegistros(abrir(origen), formato == Formato.CSV)) {
+            int[] posiciones = formato == Formato.CSV ? leerCabecera(lector, columnas) : null;
+            List<String> registros = new ArrayList<>(filasPorBloque);
+            long[] lineas = new long[filasPorBloque];
+            String registro;
+            while ((registro = lector.siguiente()) != null) {
+                lineas[registros.size()] = lector.getLineaDelRegistro();
+                registros.add(registro);
+                if (registros.size() == filasPorBloque) {
+                    pendientes.add(pool.submit(new TareaBloque<>(registros.toArray(new String[0]), lineas,
+                        0, registros.size(), columnas, posiciones, crear)));
+                    registros.clear();
+                    lineas = new long[filasPorBloque];
+                    // Limitar los bloques en vuelo acota la memoria sin dejar ociosos a los trabajadores
+                    while (pendientes.size() > pool.getParallelism() * 2) {
+                        importadas += fusionar(pendientes.poll(), fusion, errores);
+                    }
+                }
+            }
+            if (!registros.isEmpty()) {
+                pendientes.add(pool.submit(new TareaBloque<>(registros.toArray(new String[0]), lineas,
+                    0, registros.size(), columnas, posiciones, crear)));
+            }
+            while (!pendientes.isEmpty()) {
+                importadas += fusionar(pendientes.poll(), fusion, errores);
+            }
+        } finally {
+            pendientes.forEach(tarea -> tarea.cancel(false));
+        }
+        return new ResultadoImportacion(importadas, errores);
+    }
+    
+    private static <T> long fusionar(ForkJoinTask<Bloque<T>> tarea, Fusion<T> fusion,
+                                     List<ErrorImportacion> errores) throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Importación cancelada");
+        }
+        Bloque<T> bloque = tarea.join();
+        errores.addAll(bloque.errores);
+        return fusion.fusionar(bloque, errores);
+    }
+    
+    private Reader abrir(Path origen) throws IOException {
+        InputStream entrada = Files.newInputStream(origen);
+        if (origen.getFileName().toString().endsWith(".gz")) {
+            entrada = new GZIPInputStream(entrada, TAMANO_BUFER);
+        }
+        return new InputStreamReader(entrada, StandardCharsets.UTF_8);
+    }
+    
+    private static int[] leerCabecera(LectorRegistros lector, String[] columnas) throws IOException {
+        String cabecera = lector.siguiente();
+        if (cabecera == null) {
+            throw new IOException("El archivo está vacío");
+        }
+        List<String> nombres = dividirCsv(cabecera);
+        int[] posiciones = new int[columnas.length];
+        for (int i = 0; i < columnas.length; i++) {
+            posiciones[i] = nombres.indexOf(columnas[i]);
+            if (posiciones[i] < 0) {
+                throw new IOException("Falta la columna " + columnas[i]);
+            }
+        }
+        return posiciones;
+    }
+    
+    static Cita crearCita(String[] campos) {
+        String estado = campos[6];
+        Cita cita = Cita.restaurar(campos[0], campos[1], campos[2],
+            LocalDateTime.parse(obligatorio(campos[3], "fechaHora").trim()), campos[4],
+            estado == null ? Cita.EstadoCita.PENDIENTE : Cita.EstadoCita.valueOf(estado.trim().toUpperCase()));
+        cita.setMotivo(campos[5]);
+        return cita;
+    }
+    
+    static Usuario crearUsuario(String[] campos) {
+        Usuario usuario = new Usuario(campos[0], campos[1], campos[2], campos[3],
+            Usuario.TipoUsuario.valueOf(obligatorio(campos[5], "tipo").trim().toUpperCase()));
+        usuario.setTelefono(campos[4]);
+        if (campos[6] != null && campos[6].trim().equalsIgnoreCase("false")) {
+            usuario.desactivar();
+        }
+        return usuario;
+    }
+    
+    private static String obligatorio(String valor, String columna) {
+        if (valor == null || valor.trim().isEmpty()) {
+            throw new IllegalArgumentException("Falta el valor de " + columna);
+        }
+        return valor;
+    }
+    
+    private static final class Bloque<T> {
+        private final List<T> validos = new ArrayList<>();
+        private final List<ErrorImportacion> errores = new ArrayList<>();
+        private long[] lineasValidas = new long[0];
+        private String[] contenidosValidos = new String[0];
+    }
+    
+    // Divide el bloque por mitades hasta FILAS_POR_TAREA filas y une los resultados en orden
+    private static final class TareaBloque<T> extends RecursiveTask<Bloque<T>> {
+        private static final long serialVersionUID = 1L;
+        
+        private final String[] registros;
+        private final long[] lineas;
+        private final int desde;
+        private final int hasta;
+        private final String[] columnas;
+        private final int[] posiciones;
+        private final Function<String[], T> crear;
+        
+        TareaBloque(String[] registros, long[] lineas, int desde, int hasta, String[] columnas,
+                    int[] posiciones, Function<String[], T> crear) {
+            this.registros = registros;
+            this.lineas = lineas;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.columnas = columnas;
+            this.posiciones = posiciones;
+            this.crear = crear;
+        }
+        
+        @Override
+        protected Bloque<T> compute() {
+            if (hasta - desde > FILAS_POR_TAREA) {
+                int medio = (desde + hasta) >>> 1;
+                TareaBloque<T> izquierda = new TareaBloque<>(registros, lineas, desde, medio, columnas, posiciones, crear);
+                izquierda.fork();
+                Bloque<T> derecha = new TareaBloque<>(registros, lineas, medio, hasta, columnas, posiciones, crear)
+                    .compute();
+                return unir(izquierda.join(), derecha);
+            }
+            
+            Bloque<T> bloque = new Bloque<>();
+            long[] lineasValidas = new long[hasta - desde];
+            String[] contenidosValidos = new String[hasta - desde];
+            for (int i = desde; i < hasta; i++) {
+                try {
+                    T valor = crear.apply(campos(registros[i]));
+                    lineasValidas[bloque.validos.size()] = lineas[i];
+                    contenidosValidos[bloque.validos.size()] = registros[i];
+                    bloque.validos.add(valor);
+                } catch (IllegalArgumentException | IllegalStateException | DateTimeException e) {
+                    bloque.errores.add(new ErrorImportacion(lineas[i], e.getMessage(), registros[i]));
+                }
+            }
+            bloque.lineasValidas = Arrays.copyOf(lineasValidas, bloque.validos.size());
+            bloque.contenidosValidos = Arrays.copyOf(contenidosValidos, bloque.validos.size());
+            return bloque;
+        }
+        
+        private String[] campos(String registro) {
+            String[] campos = new String[columnas.length];
+            if (posiciones == null) {
+                Map<String, String> objeto = LectorJson.leerObjeto(registro);
+                for (int i = 0; i < columnas.length; i++) {
+                    campos[i] = objeto.get(columnas[i]);
+                }
+                return campos;
+            }
+            List<String> valores = dividirCsv(registro);
+            for (int i = 0; i < columnas.length; i++) {
+                campos[i] = posiciones[i] < valores.size() ? valores.get(posiciones[i]) : null;
+            }
+            return campos;
+        }
+        
+        private static <T> Bloque<T> unir(Bloque<T> izquierda, Bloque<T> derecha) {
+            int total = izquierda.validos.size() + derecha.validos.size();
+            long[] lineasValidas = Arrays.copyOf(izquierda.lineasValidas, total);
+            System.arraycopy(derecha.lineasValidas, 0, lineasValidas, izquierda.validos.size(), derecha.validos.size());
+            String[] contenidosValidos = Arrays.copyOf(izquierda.contenidosValidos, total);
+            System.arraycopy(derecha.contenidosValidos, 0, contenidosValidos, izquierda.validos.size(),
+                derecha.validos.size());
+            izquierda.validos.addAll(derecha.validos);
+            izquierda.errores.addAll(derecha.errores);
+            izquierda.lineasValidas = lineasValidas;
+            izquierda.contenidosValidos = contenidosValidos;
+            return izquierda;
+        }
+    }
+    
+    // Un campo vacío sin comillas se lee como null, igual que lo escribe el exportador
+    static List<String> dividirCsv(String registro) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        boolean citado = false;
+        for (int i = 0; i < registro.length(); i++) {
+            char c = registro.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < registro.length() && registro.charAt(i + 1) == '"') {
+                    campo.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    campo.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+                citado = true;
+            } else if (c == ',') {
+                campos.add(campo.length() == 0 && !citado ? null : campo.toString());
+                campo.setLength(0);
+                citado = false;
+            } else if (c != '\r') {
+                campo.append(c);
+            }
+        }
+        if (entreComillas) {
+            throw new IllegalArgumentException("Comillas sin cerrar");
+        }
+        campos.add(campo.length() == 0 && !citado ? null : campo.toString());
+        return campos;
+    }
+    
+    // Devuelve registros completos: en CSV un campo entre comillas puede abarcar varias líneas
+    static final class LectorRegistros implements Closeable {
+        private final BufferedReader entrada;
+        private final boolean unirLineasCitadas;
+        private long linea;
+        private long lineaDelRegistro;
+        
+        LectorRegistros(Reader entrada, boolean unirLineasCitadas) {
+            this.entrada = new BufferedReader(entrada, TAMANO_BUFER);
+            this.unirLineasCitadas = unirLineasCitadas;
+        }
+        
+        String siguiente() throws IOException {
+            String texto;
+            do {
+                texto = entrada.readLine();
+                linea++;
+                if (texto == null) {
+                    return null;
+                }
+            } while (texto.trim().isEmpty());
+            
+            lineaDelRegistro = linea;
+            if (!unirLineasCitadas || comillasEquilibradas(texto)) {
+                return texto;
+            }
+            StringBuilder registro = new StringBuilder(texto);
+            String continuacion;
+            while ((continuacion = entrada.readLine()) != null) {
+                linea++;
+                registro.append('\n').append(continuacion);
+                if (!comillasEquilibradas(continuacion)) {
+                    break;
+                }
+            }
+            return registro.toString();
+        }
+        
+        long getLineaDelRegistro() {
+            return lineaDelRegistro;
+        }
+        
+        private static boolean comillasEquilibradas(String texto) {
+            int comillas = 0;
+            for (int i = 0; i < texto.length(); i++) {
+                if (texto.charAt(i) == '"') {
+                    comillas++;
+                }
+            }
+            return comillas % 2 == 0;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            entrada.close();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,130 @@
+package importacion;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Lee los objetos planos que escribe el exportador: valores de texto, números, booleanos o null
+final class LectorJson {
+    private final String texto;
+    private int posicion;
+    
+    private LectorJson(String texto) {
+        this.texto = texto;
+    }
+    
+    static Map<String, String> leerObjeto(String texto) {
+        LectorJson lector = new LectorJson(texto);
+        Map<String, String> objeto = lector.objeto();
+        lector.saltarEspacios();
+        if (lector.posicion != texto.length()) {
+            throw lector.error("contenido sobrante");
+        }
+        return objeto;
+    }
+    
+    private Map<String, String> objeto() {
+        Map<String, String> objeto = new HashMap<>();
+        saltarEspacios();
+        esperar('{');
+        saltarEspacios();
+        if (consumir('}')) {
+            return objeto;
+        }
+        do {
+            saltarEspacios();
+            String clave = cadena();
+            saltarEspacios();
+            esperar(':');
+            saltarEspacios();
+            objeto.put(clave, valor());
+            saltarEspacios();
+        } while (consumir(','));
+        esperar('}');
+        return objeto;
+    }
+    
+    private String valor() {
+        if (posicion < texto.length() && texto.charAt(posicion) == '"') {
+            return cadena();
+        }
+        int inicio = posicion;
+        while (posicion < texto.length() && "-+.eE0123456789truefalsn".indexOf(texto.charAt(posicion)) >= 0) {
+            posicion++;
+        }
+        String literal = texto.substring(inicio, posicion);
+        if (literal.isEmpty()) {
+            throw error("se esperaba un valor");
+        }
+        return literal.equals("null") ? null : literal;
+    }
+    
+    private String cadena() {
+        esperar('"');
+        StringBuilder cadena = new StringBuilder();
+        while (posicion < texto.length()) {
+            char c = texto.charAt(posicion++);
+            if (c == '"') {
+                return cadena.toString();
+            }
+            if (c != '\\') {
+                cadena.append(c);
+                continue;
+            }
+            if (posicion >= texto.length()) {
+                break;
+            }
+            char escapado = texto.charAt(posicion++);
+            switch (escapado) {
+                case 'n':
+                    cadena.append('\n');
+                    break;
+                case 'r':
+                    cadena.append('\r');
+                    break;
+                case 't':
+                    cadena.append('\t');
+                    break;
+                case 'b':
+                    cadena.append('\b');
+                    break;
+                case 'f':
+                    cadena.append('\f');
+                    break;
+                case 'u':
+                    if (posicion + 4 > texto.length()) {
+                        throw error("escape unicode incompleto");
+                    }
+                    cadena.append((char) Integer.parseInt(texto.substring(posicion, posicion + 4), 16));
+                    posicion += 4;
+                    break;
+                default:
+                    cadena.append(escapado);
+            }
+        }
+        throw error("texto sin cerrar");
+    }
+    
+    private void saltarEspacios() {
+        while (posicion < texto.length() && Character.isWhitespace(texto.charAt(posicion))) {
+            posicion++;
+        }
+    }
+    
+    private boolean consumir(char esperado) {
+        if (posicion < texto.length() && texto.charAt(posicion) == esperado) {
+            posicion++;
+            return true;
+        }
+        return false;
+    }
+    
+    private void esperar(char esperado) {
+        if (!consumir(esperado)) {
+            throw error("se esperaba '" + esperado + "'");
+        }
+    }
+    
+    private IllegalArgumentException error(String detalle) {
+        return new IllegalArgumentException("JSON inválido en la posición " + posicion + ": " + detalle);
+    }
+}
\ No newline at end of file
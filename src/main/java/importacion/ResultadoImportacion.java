@@ -0,0 +1,49 @@
+package importacion;
+
+import exportacion.ExportadorDatos;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+public class ResultadoImportacion {
+    private final long importadas;
+    private final List<ErrorImportacion> errores;
+    
+    ResultadoImportacion(long importadas, List<ErrorImportacion> errores) {
+        errores.sort(Comparator.comparingLong(ErrorImportacion::getLinea));
+        this.importadas = importadas;
+        this.errores = Collections.unmodifiableList(errores);
+    }
+    
+    public long getImportadas() {
+        return importadas;
+    }
+    
+    public int getRechazadas() {
+        return errores.size();
+    }
+    
+    public List<ErrorImportacion> getErrores() {
+        return errores;
+    }
+    
+    public void escribirReporte(Path destino) throws IOException {
+        try (Writer salida = Files.newBufferedWriter(destino, StandardCharsets.UTF_8)) {
+            ExportadorDatos.escribirFilaCsv(salida, new Object[] {"linea", "motivo", "contenido"});
+            for (ErrorImportacion error : errores) {
+                ExportadorDatos.escribirFilaCsv(salida,
+                    new Object[] {error.getLinea(), error.getMotivo(), error.getContenido()});
+            }
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("ResultadoImportacion{importadas=%d, rechazadas=%d}", importadas, errores.size());
+    }
+}
\ No newline at end of file
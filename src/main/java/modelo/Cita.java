@@ -3,15 +3,25 @@ package modelo;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Predicate;
 
 public class Cita {
+    private static final Set<String> TIPOS_VALIDOS = Set.of("consulta general", "especialista", "examenes", "seguimiento");
+    private static final AtomicReferenceFieldUpdater<Cita, EstadoCita> ESTADO =
+        AtomicReferenceFieldUpdater.newUpdater(Cita.class, EstadoCita.class, "estado");
+    
     private String id;
     private String pacienteId;
     private String profesionalId;
+    // Handle del profesional en el registro del gestor que la admitió; -1 mientras no esté vinculada
+    private int profesional = -1;
     private LocalDateTime fechaHora;
     private String tipo;
     private String motivo;
-    private EstadoCita estado;
+    private volatile EstadoCita estado;
+    private volatile ObservadorCita observador;
     
     public enum EstadoCita {
         PENDIENTE,
@@ -21,7 +31,7 @@ public class Cita {
     }
     
     // Constructor
-    public Cita(String id, String pacienteId, String profesionalId, 
+    public Cita(String id, String pacienteId, String profesionalId,
                 LocalDateTime fechaHora, String tipo) {
         this.id = validarId(id);
         this.pacienteId = validarId(pacienteId);
@@ -31,6 +41,28 @@ public class Cita {
         this.estado = EstadoCita.PENDIENTE;
     }
     
+    private Cita(String id, String pacienteId, String profesionalId,
+                 LocalDateTime fechaHora, String tipo, EstadoCita estado) {
+        this.id = validarId(id);
+        this.pacienteId = validarId(pacienteId);
+        this.profesionalId = validarId(profesionalId);
+        if (fechaHora == null) {
+            throw new IllegalArgumentException("La fecha y hora no puede ser nula");
+        }
+        this.fechaHora = fechaHora;
+        this.tipo = validarTipo(tipo);
+        if (estado == null) {
+            throw new IllegalArgumentException("El estado no puede ser nulo");
+        }
+        this.estado = estado;
+    }
+    
+    // Reconstruye una cita ya registrada, aunque su fecha haya quedado en el pasado
+    public static Cita restaurar(String id, String pacienteId, String profesionalId,
+                                 LocalDateTime fechaHora, String tipo, EstadoCita estado) {
+        return new Cita(id, pacienteId, profesionalId, fechaHora, tipo, estado);
+    }
+    
     private String validarId(String id) {
         if (id == null || id.trim().isEmpty()) {
             throw new IllegalArgumentException("El ID no puede ser nulo o vacío");
@@ -53,31 +85,63 @@ public class Cita {
             throw new IllegalArgumentException("El tipo de cita no puede ser nulo o vacío");
         }
         String normalizado = tipo.trim().toLowerCase();
-        if (!normalizado.matches("consulta general|especialista|examenes|seguimiento")) {
+        if (!TIPOS_VALIDOS.contains(normalizado)) {
             throw new IllegalArgumentException("Tipo de cita no válido: " + tipo);
         }
         return tipo.trim();
     }
     
     public void confirmar() {
-        if (estado == EstadoCita.CANCELADA) {
-            throw new IllegalStateException("No se puede confirmar una cita cancelada");
-        }
-        this.estado = EstadoCita.CONFIRMADA;
+        cambiarEstado(EstadoCita.CONFIRMADA, anterior -> anterior != EstadoCita.CANCELADA,
+                      "No se puede confirmar una cita cancelada");
     }
     
     public void cancelar() {
-        if (estado == EstadoCita.COMPLETADA) {
-            throw new IllegalStateException("No se puede cancelar una cita completada");
-        }
-        this.estado = EstadoCita.CANCELADA;
+        cambiarEstado(EstadoCita.CANCELADA, anterior -> anterior != EstadoCita.COMPLETADA,
+                      "No se puede cancelar una cita completada");
     }
     
     public void completar() {
-        if (estado != EstadoCita.CONFIRMADA) {
-            throw new IllegalStateException("Solo se pueden completar citas confirmadas");
+        cambiarEstado(EstadoCita.COMPLETADA, anterior -> anterior == EstadoCita.CONFIRMADA,
+                      "Solo se pueden completar citas confirmadas");
+    }
+    
+    // El observador envuelve la transición entera (el gestor la ejecuta bajo el cerrojo del profesional); el CAS
+    // garantiza además que, entre dos transiciones simultáneas, solo la ganadora avise con su estado anterior
+    private void cambiarEstado(EstadoCita nuevoEstado, Predicate<EstadoCita> permitido, String rechazo) {
+        ObservadorCita actual = observador;
+        if (actual == null) {
+            aplicarTransicion(nuevoEstado, permitido, rechazo);
+        } else {
+            actual.enTransicion(this, () -> aplicarTransicion(nuevoEstado, permitido, rechazo));
+        }
+    }
+    
+    private void aplicarTransicion(EstadoCita nuevoEstado, Predicate<EstadoCita> permitido, String rechazo) {
+        JfrTransicionCita evento = new JfrTransicionCita();
+        evento.begin();
+        EstadoCita anterior;
+        do {
+            anterior = estado;
+            if (!permitido.test(anterior)) {
+                throw new IllegalStateException(rechazo);
+            }
+        } while (!ESTADO.compareAndSet(this, anterior, nuevoEstado));
+        try {
+            // Se relee: si la cita se archivó mientras esperaba el cerrojo ya no hay a quién avisar
+            ObservadorCita actual = observador;
+            if (actual != null && anterior != nuevoEstado) {
+                actual.estadoCambiado(this, anterior);
+            }
+        } finally {
+            if (evento.shouldCommit()) {
+                evento.citaId = id;
+                evento.profesionalId = profesionalId;
+                evento.estadoAnterior = anterior.name();
+                evento.estadoNuevo = nuevoEstado.name();
+                evento.commit();
+            }
         }
-        this.estado = EstadoCita.COMPLETADA;
     }
     
     public boolean esEnFecha(LocalDateTime fecha) {
@@ -100,11 +164,34 @@ public class Cita {
         return profesionalId;
     }
     
+    public int getHandleProfesional() {
+        return profesional;
+    }
+    
+    // El gestor la vincula al admitirla, antes de publicarla a otros hilos: las citas de un mismo usuario pasan a
+    // compartir una sola cadena y el handle queda calculado. Una cita agendada ya no cambia
+    public void vincular(int profesional, RegistroIds pacientes, RegistroIds profesionales) {
+        if (observador != null) {
+            throw new IllegalStateException("La cita ya está agendada");
+        }
+        String registrado = profesionales.id(profesional);
+        if (!registrado.equals(profesionalId)) {
+            throw new IllegalArgumentException("El handle " + profesional + " no corresponde a " + profesionalId);
+        }
+        this.pacienteId = pacientes.canonico(pacienteId);
+        this.profesionalId = registrado;
+        this.profesional = profesional;
+    }
+    
     public LocalDateTime getFechaHora() {
         return fechaHora;
     }
     
+    // La agenda indexa la cita por su hora: una vez agendada se reprograma con GestorDisponibilidad.reprogramarCita
     public void setFechaHora(LocalDateTime fechaHora) {
+        if (observador != null) {
+            throw new IllegalStateException("Una cita agendada solo se puede reprogramar desde el gestor");
+        }
         this.fechaHora = validarFechaHora(fechaHora);
     }
     
@@ -128,6 +215,14 @@ public class Cita {
         return estado;
     }
     
+    public ObservadorCita getObservador() {
+        return observador;
+    }
+    
+    public void setObservador(ObservadorCita observador) {
+        this.observador = observador;
+    }
+    
     // equals, hashCode y toString
     @Override
     public boolean equals(Object o) {
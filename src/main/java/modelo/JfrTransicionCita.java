@@ -0,0 +1,27 @@
+package modelo;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// La duración incluye al observador, es decir, la actualización de contadores y el registro del evento en disco
+@Name("citas.TransicionCita")
+@Label("Transición de cita")
+@Description("Cambio de estado de una cita: confirmar, cancelar o completar")
+@Category({"Citas", "Modelo"})
+@StackTrace(false)
+final class JfrTransicionCita extends jdk.jfr.Event {
+    @Label("Cita")
+    String citaId;
+    
+    @Label("Profesional")
+    String profesionalId;
+    
+    @Label("Estado anterior")
+    String estadoAnterior;
+    
+    @Label("Estado nuevo")
+    String estadoNuevo;
+}
\ No newline at end of file
@@ -0,0 +1,10 @@
+package modelo;
+
+public interface ObservadorCita {
+    void estadoCambiado(Cita cita, Cita.EstadoCita estadoAnterior);
+    
+    // Ejecuta la transición completa (comprobar, cambiar y avisar); quien lleve la cuenta puede serializarla
+    default void enTransicion(Cita cita, Runnable transicion) {
+        transicion.run();
+    }
+}
\ No newline at end of file
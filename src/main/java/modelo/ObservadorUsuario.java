@@ -0,0 +1,8 @@
+package modelo;
+
+public interface ObservadorUsuario {
+    void datosCambiados(Usuario usuario);
+    
+    default void rolCambiado(Usuario usuario, Usuario.TipoUsuario tipoAnterior, boolean activoAnterior) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,166 @@
+package modelo;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Asigna a cada id de usuario un entero denso la primera vez que aparece y guarda una sola copia de la cadena.
+// Tabla de direccionamiento abierto sin cajas: cada hueco guarda el entero + 1 y se ocupa por CAS. Las lecturas
+// no bloquean; las altas se reparten en franjas por id, y solo el crecimiento de la tabla es exclusivo
+public final class RegistroIds {
+    private static final int CAPACIDAD_INICIAL = 256;
+    private static final int FRANJAS = 64;
+    
+    private static final class Tabla {
+        private final AtomicIntegerArray huecos;
+        private final AtomicReferenceArray<String> ids;
+        
+        Tabla(int capacidad) {
+            this.huecos = new AtomicIntegerArray(capacidad * 2);
+            this.ids = new AtomicReferenceArray<>(capacidad);
+        }
+    }
+    
+    private volatile Tabla tabla = new Tabla(CAPACIDAD_INICIAL);
+    private final AtomicInteger tamano = new AtomicInteger();
+    // Una franja por id evita dos handles para la misma cadena; el cerrojo de lectura lo comparten todas las altas
+    private final ReentrantLock[] altas;
+    private final ReentrantReadWriteLock crecimiento = new ReentrantReadWriteLock();
+    
+    public RegistroIds() {
+        this.altas = new ReentrantLock[FRANJAS];
+        for (int i = 0; i < FRANJAS; i++) {
+            altas[i] = new ReentrantLock();
+        }
+    }
+    
+    public int registrar(String id) {
+        int handle = buscarEn(tabla, id);
+        return handle >= 0 ? handle : registrarEnFranja(id);
+    }
+    
+    public int buscar(String id) {
+        Tabla actual = tabla;
+        int handle = buscarEn(actual, id);
+        // Un fallo durante un crecimiento se repite sobre la tabla nueva
+        while (handle < 0 && actual != tabla) {
+            actual = tabla;
+            handle = buscarEn(actual, id);
+        }
+        return handle;
+    }
+    
+    public String id(int handle) {
+        Tabla actual = tabla;
+        String id = handle >= 0 && handle < actual.ids.length() ? actual.ids.get(handle) : null;
+        if (id == null) {
+            throw new IllegalArgumentException("Handle de id desconocido: " + handle);
+        }
+        return id;
+    }
+    
+    // La copia registrada del id: todas las citas de un mismo usuario comparten la misma cadena
+    public String canonico(String id) {
+        return id(registrar(id));
+    }
+    
+    public int tamano() {
+        return tamano.get();
+    }
+    
+    private int registrarEnFranja(String id) {
+        if (id == null) {
+            throw new IllegalArgumentException("El id no puede ser nulo");
+        }
+        ReentrantLock franja = altas[dispersar(id) & (FRANJAS - 1)];
+        franja.lock();
+        try {
+            while (true) {
+                Tabla llena;
+                crecimiento.readLock().lock();
+                try {
+                    Tabla actual = tabla;
+                    int handle = buscarEn(actual, id);
+                    if (handle >= 0) {
+                        return handle;
+                    }
+                    handle = reservarHandle(actual);
+                    if (handle >= 0) {
+                        // La cadena se publica antes que el hueco: quien vea el hueco ve también la cadena
+                        actual.ids.set(handle, id);
+                        colocar(actual, handle, id);
+                        return handle;
+                    }
+                    llena = actual;
+                } finally {
+                    crecimiento.readLock().unlock();
+                }
+                crecer(llena);
+            }
+        } finally {
+            franja.unlock();
+        }
+    }
+    
+    private int reservarHandle(Tabla actual) {
+        int capacidad = actual.ids.length();
+        while (true) {
+            int handle = tamano.get();
+            if (handle == capacidad) {
+                return -1;
+            }
+            if (tamano.compareAndSet(handle, handle + 1)) {
+                return handle;
+            }
+        }
+    }
+    
+    // Con el cerrojo de escritura no hay altas a medias: todos los handles reservados tienen ya su cadena
+    private void crecer(Tabla llena) {
+        crecimiento.writeLock().lock();
+        try {
+            if (tabla != llena) {
+                return;
+            }
+            Tabla mayor = new Tabla(llena.ids.length() * 2);
+            for (int handle = 0, total = tamano.get(); handle < total; handle++) {
+                String id = llena.ids.get(handle);
+                mayor.ids.set(handle, id);
+                colocar(mayor, handle, id);
+            }
+            tabla = mayor;
+        } finally {
+            crecimiento.writeLock().unlock();
+        }
+    }
+    
+    private static int buscarEn(Tabla tabla, String id) {
+        if (id == null) {
+            return -1;
+        }
+        AtomicIntegerArray huecos = tabla.huecos;
+        int mascara = huecos.length() - 1;
+        for (int i = dispersar(id) & mascara, hueco; (hueco = huecos.get(i)) != 0; i = (i + 1) & mascara) {
+            if (id.equals(tabla.ids.get(hueco - 1))) {
+                return hueco - 1;
+            }
+        }
+        return -1;
+    }
+    
+    private static void colocar(Tabla tabla, int handle, String id) {
+        AtomicIntegerArray huecos = tabla.huecos;
+        int mascara = huecos.length() - 1;
+        int i = dispersar(id) & mascara;
+        while (!huecos.compareAndSet(i, 0, handle + 1)) {
+            i = (i + 1) & mascara;
+        }
+    }
+    
+    private static int dispersar(String id) {
+        int hash = id.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
\ No newline at end of file
@@ -10,6 +10,7 @@ public class Usuario {
     private String telefono;
     private TipoUsuario tipo;
     private boolean activo;
+    private volatile ObservadorUsuario observador;
     
     public enum TipoUsuario {
         PACIENTE("Paciente"),
@@ -74,14 +75,18 @@ public class Usuario {
     }
     
     public void activar() {
+        boolean anterior = this.activo;
         this.activo = true;
+        notificarRol(tipo, anterior);
     }
     
     public void desactivar() {
         if (tipo == TipoUsuario.ADMINISTRADOR) {
             throw new IllegalStateException("No se puede desactivar un administrador");
         }
+        boolean anterior = this.activo;
         this.activo = false;
+        notificarRol(tipo, anterior);
     }
     
     public boolean puedeAgendarCitas() {
@@ -109,7 +114,10 @@ public class Usuario {
     }
     
     public void setNombre(String nombre) {
-        this.nombre = validarNombre(nombre);
+        String nuevo = validarNombre(nombre);
+        boolean cambia = !nuevo.equals(this.nombre);
+        this.nombre = nuevo;
+        notificarSi(cambia);
     }
     
     public String getApellido() {
@@ -117,7 +125,10 @@ public class Usuario {
     }
     
     public void setApellido(String apellido) {
-        this.apellido = validarNombre(apellido);
+        String nuevo = validarNombre(apellido);
+        boolean cambia = !nuevo.equals(this.apellido);
+        this.apellido = nuevo;
+        notificarSi(cambia);
     }
     
     public String getEmail() {
@@ -125,7 +136,10 @@ public class Usuario {
     }
     
     public void setEmail(String email) {
-        this.email = validarEmail(email);
+        String nuevo = validarEmail(email);
+        boolean cambia = !nuevo.equals(this.email);
+        this.email = nuevo;
+        notificarSi(cambia);
     }
     
     public String getTelefono() {
@@ -133,7 +147,9 @@ public class Usuario {
     }
     
     public void setTelefono(String telefono) {
+        boolean cambia = !Objects.equals(telefono, this.telefono);
         this.telefono = telefono;
+        notificarSi(cambia);
     }
     
     public TipoUsuario getTipo() {
@@ -141,13 +157,37 @@ public class Usuario {
     }
     
     public void setTipo(TipoUsuario tipo) {
+        TipoUsuario anterior = this.tipo;
         this.tipo = validarTipo(tipo);
+        notificarRol(anterior, activo);
     }
     
     public boolean isActivo() {
         return activo;
     }
     
+    public ObservadorUsuario getObservador() {
+        return observador;
+    }
+    
+    public void setObservador(ObservadorUsuario observador) {
+        this.observador = observador;
+    }
+    
+    private void notificarSi(boolean cambia) {
+        ObservadorUsuario actual = observador;
+        if (cambia && actual != null) {
+            actual.datosCambiados(this);
+        }
+    }
+    
+    private void notificarRol(TipoUsuario tipoAnterior, boolean activoAnterior) {
+        ObservadorUsuario actual = observador;
+        if (actual != null && (tipoAnterior != tipo || activoAnterior != activo)) {
+            actual.rolCambiado(this, tipoAnterior, activoAnterior);
+        }
+    }
+    
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,336 @@
+package persistencia;
+
+import modelo.Cita;
+import servicio.EventoAgenda;
+import servicio.ReglaHorario;
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+final class CodificadorEventos {
+    // Primer byte de la marca de punto de control: no es ningún tipo de evento
+    private static final byte PUNTO_DE_CONTROL = (byte) 0xFF;
+    private static final EventoAgenda.Tipo[] TIPOS = EventoAgenda.Tipo.values();
+    private static final Cita.EstadoCita[] ESTADOS = Cita.EstadoCita.values();
+    private static final DayOfWeek[] DIAS = DayOfWeek.values();
+    
+    private CodificadorEventos() {
+    }
+    
+    static byte[] codificar(EventoAgenda evento) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream salida = new DataOutputStream(bytes)) {
+            salida.writeByte(evento.getTipo().ordinal());
+            switch (evento.getTipo()) {
+                case HORARIOS_CONFIGURADOS:
+                case HORARIOS_AGREGADOS:
+                case HORARIOS_ELIMINADOS:
+                    escribirTexto(salida, evento.getProfesionalId());
+                    escribirHorarios(salida, evento.getHorarios());
+                    break;
+                case REGLAS_CONFIGURADAS:
+                    escribirTexto(salida, evento.getProfesionalId());
+                    escribirReglas(salida, evento.getReglas());
+                    break;
+                case RANGO_REEMPLAZADO:
+                    escribirTexto(salida, evento.getProfesionalId());
+                    salida.writeLong(evento.getDesde().toEpochDay());
+                    salida.writeLong(evento.getHasta().toEpochDay());
+                    escribirHorarios(salida, evento.getHorarios());
+                    break;
+                case ESTADO_AGENDA:
+                    escribirTexto(salida, evento.getProfesionalId());
+                    escribirReglas(salida, evento.getReglas());
+                    escribirFechas(salida, evento.getDiasExpandidos());
+                    escribirHorarios(salida, evento.getHorarios());
+                    break;
+                case CITA_AGENDADA:
+                    escribirCita(salida, evento.getCita());
+                    break;
+                case CITAS_AGENDADAS:
+                    escribirCitas(salida, evento.getCitas());
+                    break;
+                default:
+                    escribirTexto(salida, evento.getProfesionalId());
+                    escribirTexto(salida, evento.getCitaId());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    static byte[] codificarPuntoDeControl(long marca) {
+        return ByteBuffer.allocate(1 + Long.BYTES).put(PUNTO_DE_CONTROL).putLong(marca).array();
+    }
+    
+    // La marca del registro o 0 si es un evento
+    static long puntoDeControl(ByteBuffer registro) {
+        if (registro.remaining() != 1 + Long.BYTES || registro.get(registro.position()) != PUNTO_DE_CONTROL) {
+            return 0;
+        }
+        return registro.getLong(registro.position() + 1);
+    }
+    
+    static EventoAgenda decodificar(byte[] datos) throws IOException {
+        return decodificar(ByteBuffer.wrap(datos));
+    }
+    
+    static EventoAgenda decodificar(ByteBuffer entrada) throws IOException {
+        try {
+            return leerEvento(entrada);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException
+                 | IllegalArgumentException | DateTimeException e) {
+            throw new IOException("Registro de evento mal formado", e);
+        }
+    }
+    
+    private static EventoAgenda leerEvento(ByteBuffer entrada) throws IOException {
+        int ordinal = Byte.toUnsignedInt(entrada.get());
+        if (ordinal >= TIPOS.length) {
+            throw new IOException("Tipo de evento desconocido: " + ordinal);
+        }
+        EventoAgenda.Tipo tipo = TIPOS[ordinal];
+        switch (tipo) {
+            case HORARIOS_CONFIGURADOS:
+                return EventoAgenda.horariosConfigurados(leerTexto(entrada), leerHorarios(entrada));
+            case HORARIOS_AGREGADOS:
+                return EventoAgenda.horariosAgregados(leerTexto(entrada), leerHorarios(entrada));
+            case HORARIOS_ELIMINADOS:
+                return EventoAgenda.horariosEliminados(leerTexto(entrada), leerHorarios(entrada));
+            case REGLAS_CONFIGURADAS:
+                return EventoAgenda.reglasConfiguradas(leerTexto(entrada), leerReglas(entrada));
+            case RANGO_REEMPLAZADO:
+                return EventoAgenda.rangoReemplazado(leerTexto(entrada), LocalDate.ofEpochDay(entrada.getLong()),
+                    LocalDate.ofEpochDay(entrada.getLong()), leerHorarios(entrada));
+            case ESTADO_AGENDA:
+                return EventoAgenda.estadoAgenda(leerTexto(entrada), leerReglas(entrada),
+                    leerFechas(entrada), leerHorarios(entrada));
+            case CITA_AGENDADA:
+                return EventoAgenda.citaAgendada(leerCita(entrada));
+            case CITAS_AGENDADAS:
+                return EventoAgenda.citasAgendadas(leerCitas(entrada));
+            case CITA_CONFIRMADA:
+                return EventoAgenda.cambioDeEstado(leerTexto(entrada), leerTexto(entrada), Cita.EstadoCita.CONFIRMADA);
+            case CITA_CANCELADA:
+                return EventoAgenda.cambioDeEstado(leerTexto(entrada), leerTexto(entrada), Cita.EstadoCita.CANCELADA);
+            default:
+                return EventoAgenda.cambioDeEstado(leerTexto(entrada), leerTexto(entrada), Cita.EstadoCita.COMPLETADA);
+        }
+    }
+    
+    private static void escribirCita(DataOutputStream salida, Cita cita) throws IOException {
+        escribirTexto(salida, cita.getId());
+        escribirTexto(salida, cita.getPacienteId());
+        escribirTexto(salida, cita.getProfesionalId());
+        escribirFechaHora(salida, cita.getFechaHora());
+        salida.writeInt(cita.getFechaHora().getNano());
+        escribirTexto(salida, cita.getTipo());
+        salida.writeByte(cita.getEstado().ordinal());
+        salida.writeBoolean(cita.getMotivo() != null);
+        if (cita.getMotivo() != null) {
+            escribirTexto(salida, cita.getMotivo());
+        }
+    }
+    
+    private static Cita leerCita(ByteBuffer entrada) {
+        String id = leerTexto(entrada);
+        String pacienteId = leerTexto(entrada);
+        String profesionalId = leerTexto(entrada);
+        LocalDateTime fechaHora = leerFechaHora(entrada).withNano(entrada.getInt());
+        String tipo = leerTexto(entrada);
+        Cita.EstadoCita estado = ESTADOS[Byte.toUnsignedInt(entrada.get())];
+        Cita cita = Cita.restaurar(id, pacienteId, profesionalId, fechaHora, tipo, estado);
+        if (entrada.get() != 0) {
+            cita.setMotivo(leerTexto(entrada));
+        }
+        return cita;
+    }
+    
+    // Un bloque va por columnas: pacientes, profesionales, tipos y motivos como posiciones en un diccionario
+    // propio del bloque, que se escribe una vez; los segundos y nanos como enteros
+    private static void escribirCitas(DataOutputStream salida, List<Cita> citas) throws IOException {
+        Map<String, Integer> diccionario = new HashMap<>();
+        List<String> textos = new ArrayList<>();
+        int[] referencias = new int[citas.size() * 4];
+        for (int i = 0; i < citas.size(); i++) {
+            Cita cita = citas.get(i);
+            referencias[i * 4] = referenciar(diccionario, textos, cita.getPacienteId());
+            referencias[i * 4 + 1] = referenciar(diccionario, textos, cita.getProfesionalId());
+            referencias[i * 4 + 2] = referenciar(diccionario, textos, cita.getTipo());
+            referencias[i * 4 + 3] = cita.getMotivo() == null ? -1 : referenciar(diccionario, textos, cita.getMotivo());
+        }
+        salida.writeInt(textos.size());
+        for (String texto : textos) {
+            escribirTexto(salida, texto);
+        }
+        salida.writeInt(citas.size());
+        for (Cita cita : citas) {
+            escribirTexto(salida, cita.getId());
+        }
+        for (int referencia : referencias) {
+            salida.writeInt(referencia);
+        }
+        for (Cita cita : citas) {
+            escribirFechaHora(salida, cita.getFechaHora());
+        }
+        for (Cita cita : citas) {
+            salida.writeInt(cita.getFechaHora().getNano());
+        }
+        for (Cita cita : citas) {
+            salida.writeByte(cita.getEstado().ordinal());
+        }
+    }
+    
+    private static int referenciar(Map<String, Integer> diccionario, List<String> textos, String texto) {
+        return diccionario.computeIfAbsent(texto, nuevo -> {
+            textos.add(nuevo);
+            return textos.size() - 1;
+        });
+    }
+    
+    private static List<Cita> leerCitas(ByteBuffer entrada) {
+        String[] textos = new String[leerCantidad(entrada)];
+        for (int i = 0; i < textos.length; i++) {
+            textos[i] = leerTexto(entrada);
+        }
+        String[] ids = new String[leerCantidad(entrada)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = leerTexto(entrada);
+        }
+        int[] referencias = new int[ids.length * 4];
+        for (int i = 0; i < referencias.length; i++) {
+            referencias[i] = entrada.getInt();
+        }
+        long[] segundos = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            segundos[i] = entrada.getLong();
+        }
+        int[] nanos = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            nanos[i] = entrada.getInt();
+        }
+        
+        List<Cita> citas = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            Cita.EstadoCita estado = ESTADOS[Byte.toUnsignedInt(entrada.get())];
+            Cita cita = Cita.restaurar(ids[i], textos[referencias[i * 4]], textos[referencias[i * 4 + 1]],
+                LocalDateTime.ofEpochSecond(segundos[i], nanos[i], ZoneOffset.UTC), textos[referencias[i * 4 + 2]],
+                estado);
+            int motivo = referencias[i * 4 + 3];
+            if (motivo >= 0) {
+                cita.setMotivo(textos[motivo]);
+            }
+            citas.add(cita);
+        }
+        return citas;
+    }
+    
+    // Cada elemento ocupa al menos un byte: una cantidad mayor que lo que queda solo sale de un registro dañado
+    private static int leerCantidad(ByteBuffer entrada) {
+        int cantidad = entrada.getInt();
+        if (cantidad < 0 || cantidad > entrada.remaining()) {
+            throw new IllegalArgumentException("Cantidad fuera de rango: " + cantidad);
+        }
+        return cantidad;
+    }
+    
+    private static void escribirReglas(DataOutputStream salida, List<ReglaHorario> reglas) throws IOException {
+        salida.writeInt(reglas.size());
+        for (ReglaHorario regla : reglas) {
+            int dias = 0;
+            for (DayOfWeek dia : regla.getDiasSemana()) {
+                dias |= 1 << dia.ordinal();
+            }
+            salida.writeByte(dias);
+            salida.writeInt(regla.getInicio().toSecondOfDay());
+            salida.writeInt(regla.getFin().toSecondOfDay());
+            salida.writeLong(regla.getDesde().toEpochDay());
+            salida.writeLong(regla.getHasta().toEpochDay());
+            escribirFechas(salida, regla.getExcepciones());
+        }
+    }
+    
+    private static List<ReglaHorario> leerReglas(ByteBuffer entrada) {
+        int total = entrada.getInt();
+        List<ReglaHorario> reglas = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            int mascara = Byte.toUnsignedInt(entrada.get());
+            Set<DayOfWeek> dias = EnumSet.noneOf(DayOfWeek.class);
+            for (DayOfWeek dia : DIAS) {
+                if ((mascara & (1 << dia.ordinal())) != 0) {
+                    dias.add(dia);
+                }
+            }
+            LocalTime inicio = LocalTime.ofSecondOfDay(entrada.getInt());
+            LocalTime fin = LocalTime.ofSecondOfDay(entrada.getInt());
+            LocalDate desde = LocalDate.ofEpochDay(entrada.getLong());
+            LocalDate hasta = LocalDate.ofEpochDay(entrada.getLong());
+            reglas.add(new ReglaHorario(dias, inicio, fin, desde, hasta, new HashSet<>(leerFechas(entrada))));
+        }
+        return reglas;
+    }
+    
+    private static void escribirHorarios(DataOutputStream salida, Collection<LocalDateTime> horarios)
+            throws IOException {
+        salida.writeInt(horarios.size());
+        for (LocalDateTime horario : horarios) {
+            escribirFechaHora(salida, horario);
+        }
+    }
+    
+    private static List<LocalDateTime> leerHorarios(ByteBuffer entrada) {
+        int total = entrada.getInt();
+        List<LocalDateTime> horarios = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            horarios.add(leerFechaHora(entrada));
+        }
+        return horarios;
+    }
+    
+    private static void escribirFechas(DataOutputStream salida, Collection<LocalDate> fechas) throws IOException {
+        salida.writeInt(fechas.size());
+        for (LocalDate fecha : fechas) {
+            salida.writeLong(fecha.toEpochDay());
+        }
+    }
+    
+    private static List<LocalDate> leerFechas(ByteBuffer entrada) {
+        int total = entrada.getInt();
+        List<LocalDate> fechas = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            fechas.add(LocalDate.ofEpochDay(entrada.getLong()));
+        }
+        return fechas;
+    }
+    
+    private static void escribirTexto(DataOutputStream salida, String texto) throws IOException {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        salida.writeInt(bytes.length);
+        salida.write(bytes);
+    }
+    
+    private static String leerTexto(ByteBuffer entrada) {
+        int longitud = entrada.getInt();
+        String texto = new String(entrada.array(), entrada.arrayOffset() + entrada.position(), longitud,
+                                  StandardCharsets.UTF_8);
+        entrada.position(entrada.position() + longitud);
+        return texto;
+    }
+    
+    private static void escribirFechaHora(DataOutputStream salida, LocalDateTime fechaHora) throws IOException {
+        salida.writeLong(fechaHora.toEpochSecond(ZoneOffset.UTC));
+    }
+    
+    private static LocalDateTime leerFechaHora(ByteBuffer entrada) {
+        return LocalDateTime.ofEpochSecond(entrada.getLong(), 0, ZoneOffset.UTC);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,236 @@
+package persistencia;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+// Registro binario de solo anexado: [longitud][datos][crc32] por evento, con fsync agrupado
+public class DiarioEventos implements Closeable {
+    private static final int LONGITUD_MAXIMA = 1 << 30;
+    private static final int TAMANO_LECTURA = 1 << 20;
+    
+    interface LectorRegistros {
+        void leer(ByteBuffer registro) throws IOException;
+    }
+    
+    private final Path directorio;
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    private final Condition vaciado = cerrojo.newCondition();
+    private final ByteArrayOutputStream pendiente = new ByteArrayOutputStream(4096);
+    private FileChannel canal;
+    private long segmento;
+    private long ultimaSecuencia;
+    private long secuenciaDurable;
+    private boolean vaciando;
+    private IOException fallo;
+    
+    public DiarioEventos(Path directorio, long segmento) throws IOException {
+        this.directorio = directorio;
+        this.segmento = segmento;
+        this.canal = abrirSegmento(segmento);
+    }
+    
+    public void registrar(byte[] datos) throws IOException {
+        esperarDurabilidad(anotar(datos));
+    }
+    
+    public long anotar(byte[] datos) throws IOException {
+        if (datos == null || datos.length == 0) {
+            throw new IllegalArgumentException("El registro no puede ser nulo o vacío");
+        }
+        cerrojo.lock();
+        try {
+            comprobarAbierto();
+            escribirMarco(pendiente, datos);
+            return ++ultimaSecuencia;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+    
+    // El primero que llega vacía todo lo pendiente; los demás esperan a que su secuencia quede en disco
+    public void esperarDurabilidad(long secuencia) throws IOException {
+        cerrojo.lock();
+        try {
+            while (secuenciaDurable < secuencia) {
+                comprobarAbierto();
+                if (vaciando) {
+                    vaciado.awaitUninterruptibly();
+                    continue;
+                }
+                
+                vaciando = true;
+                byte[] lote = pendiente.toByteArray();
+                pendiente.reset();
+                long hasta = ultimaSecuencia;
+                FileChannel destino = canal;
+                cerrojo.unlock();
+                IOException error = null;
+                try {
+                    escribirYForzar(destino, lote);
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    cerrojo.lock();
+                }
+                
+                vaciando = false;
+                vaciado.signalAll();
+                if (error != null) {
+                    fallo = error;
+                    throw error;
+                }
+                secuenciaDurable = hasta;
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+    
+    // Cierra el segmento actual y abre el siguiente; devuelve el número del nuevo segmento
+    public long rotar() throws IOException {
+        cerrojo.lock();
+        try {
+            vaciarTodo();
+            canal.close();
+            canal = abrirSegmento(segmento + 1);
+            return ++segmento;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+    
+    public long getSegmento() {
+        cerrojo.lock();
+        try {
+            return segmento;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        cerrojo.lock();
+        try {
+            if (canal == null) {
+                return;
+            }
+            try {
+                vaciarTodo();
+            } finally {
+                canal.close();
+                canal = null;
+                vaciado.signalAll();
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+    
+    static Path rutaSegmento(Path directorio, long segmento) {
+        return directorio.resolve(String.format("eventos-%020d.log", segmento));
+    }
+    
+    // Lee registros hasta el final o hasta el primero incompleto o dañado; devuelve los bytes válidos
+    static long leer(Path archivo, LectorRegistros lector) throws IOException {
+        long validos = 0;
+        try (FileChannel entrada = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(TAMANO_LECTURA);
+            buffer.flip();
+            CRC32 crc = new CRC32();
+            boolean finDeArchivo = false;
+            while (true) {
+                int necesarios = 4;
+                if (buffer.remaining() >= 4) {
+                    int longitud = buffer.getInt(buffer.position());
+                    if (longitud <= 0 || longitud > LONGITUD_MAXIMA) {
+                        break;
+                    }
+                    necesarios = longitud + 8;
+                }
+                if (buffer.remaining() < necesarios) {
+                    if (finDeArchivo) {
+                        break;
+                    }
+                    if (buffer.capacity() < necesarios) {
+                        buffer = ByteBuffer.allocate(necesarios).put(buffer);
+                    } else {
+                        buffer.compact();
+                    }
+                    finDeArchivo = entrada.read(buffer) < 0;
+                    buffer.flip();
+                    continue;
+                }
+                
+                int inicio = buffer.position() + 4;
+                int longitud = necesarios - 8;
+                ByteBuffer registro = buffer.slice(inicio, longitud);
+                crc.reset();
+                crc.update(registro.duplicate());
+                if ((int) crc.getValue() != buffer.getInt(inicio + longitud)) {
+                    break;
+                }
+                lector.leer(registro);
+                buffer.position(inicio + longitud + 4);
+                validos += necesarios;
+            }
+        }
+        return validos;
+    }
+    
+    static void escribirMarco(OutputStream salida, byte[] datos) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(datos);
+        escribirEntero(salida, datos.length);
+        salida.write(datos);
+        escribirEntero(salida, (int) crc.getValue());
+    }
+    
+    private static void escribirEntero(OutputStream salida, int valor) throws IOException {
+        salida.write(valor >>> 24);
+        salida.write(valor >>> 16);
+        salida.write(valor >>> 8);
+        salida.write(valor);
+    }
+    
+    private void vaciarTodo() throws IOException {
+        while (vaciando) {
+            vaciado.awaitUninterruptibly();
+        }
+        comprobarAbierto();
+        escribirYForzar(canal, pendiente.toByteArray());
+        pendiente.reset();
+        secuenciaDurable = ultimaSecuencia;
+    }
+    
+    private void comprobarAbierto() throws IOException {
+        if (fallo != null) {
+            throw new IOException("El diario quedó inutilizable tras un error de escritura", fallo);
+        }
+        if (canal == null) {
+            throw new IOException("El diario está cerrado");
+        }
+    }
+    
+    private FileChannel abrirSegmento(long numero) throws IOException {
+        return FileChannel.open(rutaSegmento(directorio, numero),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+    
+    private static void escribirYForzar(FileChannel destino, byte[] lote) throws IOException {
+        if (lote.length == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lote);
+        while (buffer.hasRemaining()) {
+            destino.write(buffer);
+        }
+        destino.force(false);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,299 @@
+package persistencia;
+
+import servicio.EventoAgenda;
+import servicio.GestorDisponibilidad;
+import servicio.OyenteAgenda;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class PersistenciaAgenda implements OyenteAgenda, Closeable {
+    public static final long EVENTOS_ENTRE_INSTANTANEAS_POR_DEFECTO = 100_000;
+    private static final String PREFIJO_SEGMENTO = "eventos-";
+    private static final String PREFIJO_INSTANTANEA = "instantanea-";
+    
+    private final Path directorio;
+    private final GestorDisponibilidad gestor;
+    private final DiarioEventos diario;
+    private final long eventosEntreInstantaneas;
+    private final AtomicLong eventosDesdeInstantanea = new AtomicLong();
+    private final AtomicBoolean instantaneaProgramada = new AtomicBoolean();
+    private final ExecutorService ejecutor;
+    
+    private PersistenciaAgenda(Path directorio, GestorDisponibilidad gestor, DiarioEventos diario,
+                               long eventosEntreInstantaneas) {
+        this.directorio = directorio;
+        this.gestor = gestor;
+        this.diario = diario;
+        this.eventosEntreInstantaneas = eventosEntreInstantaneas;
+        this.ejecutor = Executors.newSingleThreadExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "instantaneas-agenda");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+    
+    public static PersistenciaAgenda abrir(Path directorio, GestorDisponibilidad gestor) throws IOException {
+        return abrir(directorio, gestor, EVENTOS_ENTRE_INSTANTANEAS_POR_DEFECTO);
+    }
+    
+    // Recupera el estado en el gestor (última instantánea más el diario posterior) y empieza a registrar
+    public static PersistenciaAgenda abrir(Path directorio, GestorDisponibilidad gestor,
+                                           long eventosEntreInstantaneas) throws IOException {
+        if (directorio == null || gestor == null) {
+            throw new IllegalArgumentException("El directorio y el gestor no pueden ser nulos");
+        }
+        if (eventosEntreInstantaneas < 1) {
+            throw new IllegalArgumentException("El intervalo entre instantáneas debe ser positivo");
+        }
+        
+        Files.createDirectories(directorio);
+        long siguienteSegmento = recuperar(directorio, gestor);
+        PersistenciaAgenda persistencia = new PersistenciaAgenda(directorio, gestor,
+            new DiarioEventos(directorio, siguienteSegmento), eventosEntreInstantaneas);
+        gestor.agregarOyente(persistencia);
+        return persistencia;
+    }
+    
+    @Override
+    public void eventoRegistrado(EventoAgenda evento) {
+        try {
+            diario.registrar(CodificadorEventos.codificar(evento));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo registrar el evento " + evento.getTipo(), e);
+        }
+        contarEventos(1);
+    }
+    
+    private void contarEventos(int eventos) {
+        if (eventosDesdeInstantanea.addAndGet(eventos) >= eventosEntreInstantaneas
+                && instantaneaProgramada.compareAndSet(false, true)) {
+            ejecutor.execute(() -> {
+                try {
+                    tomarInstantanea();
+                } catch (IOException e) {
+                    System.err.println("No se pudo tomar la instantánea: " + e.getMessage());
+                } finally {
+                    instantaneaProgramada.set(false);
+                }
+            });
+        }
+    }
+    
+    // Un lote se anota entero y espera un único fsync
+    @Override
+    public void eventosRegistrados(List<EventoAgenda> eventos) {
+        long ultima = 0;
+        try {
+            for (EventoAgenda evento : eventos) {
+                ultima = diario.anotar(CodificadorEventos.codificar(evento));
+            }
+            diario.esperarDurabilidad(ultima);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo registrar un lote de " + eventos.size() + " eventos", e);
+        }
+        contarEventos(eventos.size());
+    }
+    
+    // El evento queda en el búfer del diario; el fsync lo espera quien publica cuando ya soltó el cerrojo
+    @Override
+    public Runnable anotar(EventoAgenda evento) {
+        long secuencia;
+        try {
+            secuencia = diario.anotar(CodificadorEventos.codificar(evento));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo registrar el evento " + evento.getTipo(), e);
+        }
+        contarEventos(1);
+        return () -> esperar(secuencia, 1);
+    }
+    
+    @Override
+    public Runnable anotarLote(List<EventoAgenda> eventos) {
+        long ultima = 0;
+        try {
+            for (EventoAgenda evento : eventos) {
+                ultima = diario.anotar(CodificadorEventos.codificar(evento));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo registrar un lote de " + eventos.size() + " eventos", e);
+        }
+        contarEventos(eventos.size());
+        long secuencia = ultima;
+        return () -> esperar(secuencia, eventos.size());
+    }
+    
+    private void esperar(long secuencia, int eventos) {
+        try {
+            diario.esperarDurabilidad(secuencia);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudieron llevar a disco " + eventos + " eventos", e);
+        }
+    }
+    
+    // Los eventos anteriores al segmento nuevo quedan cubiertos por la instantánea y se descartan
+    public synchronized void tomarInstantanea() throws IOException {
+        long segmento = diario.rotar();
+        eventosDesdeInstantanea.set(0);
+        
+        Path temporal = directorio.resolve(PREFIJO_INSTANTANEA + segmento + ".tmp");
+        try (FileOutputStream archivo = new FileOutputStream(temporal.toFile());
+             BufferedOutputStream salida = new BufferedOutputStream(archivo, 1 << 16)) {
+            gestor.exportarEstado(evento -> {
+                try {
+                    DiarioEventos.escribirMarco(salida, CodificadorEventos.codificar(evento));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            salida.flush();
+            archivo.getFD().sync();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(temporal, rutaInstantanea(directorio, segmento),
+                   StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        
+        for (Path archivo : listar(directorio)) {
+            long numero = numeroDe(archivo);
+            if (numero >= 0 && numero < segmento) {
+                Files.deleteIfExists(archivo);
+            }
+        }
+    }
+    
+    // Con almacén de calendarios, un cierre limpio deja la misma marca al final del diario y en el almacén, con
+    // los mapas ya en disco: el próximo arranque los usa tal cual en vez de reconstruirlos
+    @Override
+    public void close() throws IOException {
+        gestor.quitarOyente(this);
+        ejecutor.shutdown();
+        try {
+            ejecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!gestor.usaAlmacenCalendarios()) {
+            diario.close();
+            return;
+        }
+        long marca = ThreadLocalRandom.current().nextLong() | 1;
+        diario.registrar(CodificadorEventos.codificarPuntoDeControl(marca));
+        diario.close();
+        gestor.guardarPuntoDeControlCalendarios(marca);
+    }
+    
+    static long recuperar(Path directorio, GestorDisponibilidad gestor) throws IOException {
+        long instantanea = -1;
+        TreeSet<Long> segmentos = new TreeSet<>();
+        for (Path archivo : listar(directorio)) {
+            String nombre = archivo.getFileName().toString();
+            if (nombre.endsWith(".tmp")) {
+                Files.delete(archivo);
+            } else if (nombre.startsWith(PREFIJO_INSTANTANEA)) {
+                instantanea = Math.max(instantanea, numeroDe(archivo));
+            } else if (nombre.startsWith(PREFIJO_SEGMENTO)) {
+                segmentos.add(numeroDe(archivo));
+            }
+        }
+        
+        // Los calendarios mapeados se conservan si su marca es el último registro del diario: nada cambió desde el
+        // cierre limpio que la dejó y sus eventos de horarios no hace falta reproducirlos. Si no, el diario manda:
+        // se vacían y se reconstruyen, para que ningún cambio sin evento duradero sobreviva
+        long marca = gestor.tomarPuntoDeControlCalendarios();
+        boolean calendariosAlDia = marca != 0 && marca == ultimaMarca(directorio, segmentos.tailSet(instantanea, true));
+        if (!calendariosAlDia) {
+            gestor.descartarCalendariosGuardados();
+        }
+        DiarioEventos.LectorRegistros aplicar = datos -> {
+            if (CodificadorEventos.puntoDeControl(datos) != 0) {
+                return;
+            }
+            EventoAgenda evento = CodificadorEventos.decodificar(datos);
+            if (!calendariosAlDia || !cambiaCalendario(evento.getTipo())) {
+                gestor.aplicarEvento(evento);
+            }
+        };
+        if (instantanea >= 0) {
+            Path ruta = rutaInstantanea(directorio, instantanea);
+            if (DiarioEventos.leer(ruta, aplicar) != Files.size(ruta)) {
+                throw new IOException("La instantánea " + ruta.getFileName() + " está dañada");
+            }
+        }
+        for (long segmento : segmentos.tailSet(instantanea, true)) {
+            Path ruta = DiarioEventos.rutaSegmento(directorio, segmento);
+            long validos = DiarioEventos.leer(ruta, aplicar);
+            if (validos < Files.size(ruta)) {
+                // Cola de una escritura interrumpida: se descarta para seguir anexando sobre datos íntegros
+                try (RandomAccessFile archivo = new RandomAccessFile(ruta.toFile(), "rw")) {
+                    archivo.setLength(validos);
+                }
+            }
+        }
+        
+        long ultimo = Math.max(instantanea, segmentos.isEmpty() ? 0 : segmentos.last());
+        return ultimo + 1;
+    }
+    
+    // La marca del último registro del diario, o 0 si ese registro es un evento
+    private static long ultimaMarca(Path directorio, NavigableSet<Long> segmentos) throws IOException {
+        for (long segmento : segmentos.descendingSet()) {
+            long[] ultima = new long[1];
+            boolean[] hayRegistros = new boolean[1];
+            DiarioEventos.leer(DiarioEventos.rutaSegmento(directorio, segmento), registro -> {
+                hayRegistros[0] = true;
+                ultima[0] = CodificadorEventos.puntoDeControl(registro);
+            });
+            if (hayRegistros[0]) {
+                return ultima[0];
+            }
+        }
+        return 0;
+    }
+    
+    private static boolean cambiaCalendario(EventoAgenda.Tipo tipo) {
+        switch (tipo) {
+            case HORARIOS_CONFIGURADOS:
+            case REGLAS_CONFIGURADAS:
+            case HORARIOS_AGREGADOS:
+            case HORARIOS_ELIMINADOS:
+            case RANGO_REEMPLAZADO:
+            case ESTADO_AGENDA:
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    private static Path rutaInstantanea(Path directorio, long segmento) {
+        return directorio.resolve(String.format(PREFIJO_INSTANTANEA + "%020d.bin", segmento));
+    }
+    
+    private static List<Path> listar(Path directorio) throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos.filter(archivo -> {
+                String nombre = archivo.getFileName().toString();
+                return nombre.startsWith(PREFIJO_SEGMENTO) || nombre.startsWith(PREFIJO_INSTANTANEA);
+            }).sorted().collect(Collectors.toList());
+        }
+    }
+    
+    private static long numeroDe(Path archivo) {
+        String nombre = archivo.getFileName().toString();
+        int inicio = nombre.indexOf('-') + 1;
+        int fin = nombre.indexOf('.', inicio);
+        try {
+            return Long.parseLong(nombre.substring(inicio, fin < 0 ? nombre.length() : fin));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,261 @@
+package servicio;
+
+import modelo.Cita;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Predicate;
+
+class AgendaProfesional {
+    static final long SEPARACION_MINUTOS = 30;
+    
+    private CalendarioSlots calendario;
+    private final NavigableMap<LocalDateTime, Cita> citasActivasPorInicio;
+    private final List<Cita> citas;
+    private final int[] citasPorEstado;
+    private final List<ReglaHorario> reglas;
+    private final Set<LocalDate> diasExpandidos;
+    private long slotsPendientesDeReglas;
+    
+    AgendaProfesional(int minutosPorSlot) {
+        this(new CalendarioSlots(minutosPorSlot));
+    }
+    
+    AgendaProfesional(CalendarioSlots calendario) {
+        this.calendario = calendario;
+        this.citasActivasPorInicio = new TreeMap<>();
+        this.citas = new ArrayList<>();
+        this.citasPorEstado = new int[Cita.EstadoCita.values().length];
+        this.reglas = new ArrayList<>();
+        this.diasExpandidos = new HashSet<>();
+        this.slotsPendientesDeReglas = 0;
+    }
+    
+    void instalarCalendario(CalendarioSlots nuevo) {
+        if (calendario.esPersistente()) {
+            calendario.reemplazarConfiguradosPor(nuevo);
+        } else {
+            nuevo.copiarOcupadosDe(calendario);
+            calendario = nuevo;
+        }
+        reglas.clear();
+        diasExpandidos.clear();
+        slotsPendientesDeReglas = 0;
+    }
+    
+    // Solo antes de reproducir un diario, cuando la agenda aún no tiene citas: el diario lo reconstruye entero
+    void vaciarCalendario() {
+        calendario.limpiarHorarios();
+        calendario.limpiarOcupados();
+    }
+    
+    void reemplazarReglas(List<ReglaHorario> nuevasReglas) {
+        instalarCalendario(new CalendarioSlots(calendario.getMinutosPorSlot()));
+        if (calendario.esPersistente()) {
+            // En un calendario mapeado las reglas se materializan enseguida para que sobrevivan al reinicio
+            for (ReglaHorario regla : nuevasReglas) {
+                for (LocalDate fecha = regla.getDesde(); !fecha.isAfter(regla.getHasta()); fecha = fecha.plusDays(1)) {
+                    regla.horariosDelDia(fecha, calendario.getMinutosPorSlot()).forEach(calendario::agregarHorario);
+                }
+            }
+            return;
+        }
+        for (ReglaHorario regla : nuevasReglas) {
+            reglas.add(regla);
+            slotsPendientesDeReglas += regla.contarDiasAplicables() * regla.slotsPorDia(calendario.getMinutosPorSlot());
+        }
+    }
+    
+    void agregarHorarios(Collection<LocalDateTime> horarios) {
+        for (LocalDateTime horario : horarios) {
+            expandirDia(horario.toLocalDate());
+            calendario.agregarHorario(horario);
+        }
+    }
+    
+    int eliminarHorarios(Collection<LocalDateTime> horarios) {
+        int eliminados = 0;
+        for (LocalDateTime horario : horarios) {
+            expandirDia(horario.toLocalDate());
+            if (calendario.quitarHorario(horario)) {
+                eliminados++;
+            }
+        }
+        return eliminados;
+    }
+    
+    void reemplazarRango(LocalDate desde, LocalDate hasta, Collection<LocalDateTime> horarios) {
+        if (!reglas.isEmpty()) {
+            for (LocalDate fecha = desde; !fecha.isAfter(hasta); fecha = fecha.plusDays(1)) {
+                expandirDia(fecha);
+            }
+        }
+        calendario.limpiarHorarios(desde, hasta);
+        for (LocalDateTime horario : horarios) {
+            calendario.agregarHorario(horario);
+        }
+    }
+    
+    void restaurarEstado(List<ReglaHorario> nuevasReglas, Collection<LocalDate> dias,
+                         Collection<LocalDateTime> horarios) {
+        reemplazarReglas(nuevasReglas);
+        int minutosPorSlot = calendario.getMinutosPorSlot();
+        for (LocalDate dia : dias) {
+            if (calendario.esPersistente()) {
+                calendario.limpiarHorarios(dia, dia);
+            } else if (diasExpandidos.add(dia)) {
+                for (ReglaHorario regla : reglas) {
+                    if (regla.aplicaA(dia)) {
+                        slotsPendientesDeReglas -= regla.slotsPorDia(minutosPorSlot);
+                    }
+                }
+            }
+        }
+        for (LocalDateTime horario : horarios) {
+            calendario.agregarHorario(horario);
+        }
+    }
+    
+    boolean estaConfigurado(LocalDateTime fechaHora) {
+        expandirDia(fechaHora.toLocalDate());
+        return calendario.estaConfigurado(fechaHora);
+    }
+    
+    boolean estaOcupado(LocalDateTime fechaHora) {
+        return calendario.estaOcupado(fechaHora);
+    }
+    
+    boolean estaLibre(LocalDateTime fechaHora) {
+        expandirDia(fechaHora.toLocalDate());
+        return calendario.estaLibre(fechaHora);
+    }
+    
+    boolean tieneConflicto(LocalDateTime fechaHora) {
+        return tieneConflicto(fechaHora, null);
+    }
+    
+    // Sin contar la cita indicada: al reprogramar, la original todavía ocupa su hora
+    boolean tieneConflicto(LocalDateTime fechaHora, Cita salvo) {
+        for (Cita cita : citasActivasPorInicio.subMap(fechaHora.minusMinutes(SEPARACION_MINUTOS), false,
+                                                      fechaHora.plusMinutes(SEPARACION_MINUTOS), false).values()) {
+            if (cita != salvo) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    Iterator<LocalDateTime> iniciosActivosEntre(LocalDateTime desde, LocalDateTime hasta) {
+        return citasActivasPorInicio.subMap(desde, true, hasta, true).keySet().iterator();
+    }
+    
+    List<LocalDateTime> horariosLibres(LocalDate fecha, LocalDateTime posteriorA) {
+        expandirDia(fecha);
+        return calendario.horariosLibres(fecha, posteriorA);
+    }
+    
+    void registrarCita(Cita cita) {
+        expandirDia(cita.getFechaHora().toLocalDate());
+        citas.add(cita);
+        citasPorEstado[cita.getEstado().ordinal()]++;
+        if (cita.getEstado() != Cita.EstadoCita.CANCELADA) {
+            citasActivasPorInicio.put(cita.getFechaHora(), cita);
+            calendario.marcarOcupado(cita.getFechaHora());
+        }
+    }
+    
+    // Una cita que entra ya archivada cuenta en las estadísticas y ocupa su horario, pero no está en la lista
+    void registrarArchivada(Cita cita) {
+        expandirDia(cita.getFechaHora().toLocalDate());
+        citasPorEstado[cita.getEstado().ordinal()]++;
+        if (cita.getEstado() != Cita.EstadoCita.CANCELADA) {
+            calendario.marcarOcupado(cita.getFechaHora());
+        }
+    }
+    
+    // Saca de la lista las citas cerradas anteriores al corte que el archivo acepte; el horario sigue ocupado
+    int archivarAnteriores(LocalDateTime antesDe, Predicate<Cita> archivar) {
+        int antes = citas.size();
+        citas.removeIf(cita -> {
+            if (!esHistorica(cita, antesDe) || !archivar.test(cita)) {
+                return false;
+            }
+            citasActivasPorInicio.remove(cita.getFechaHora(), cita);
+            return true;
+        });
+        return antes - citas.size();
+    }
+    
+    static boolean esHistorica(Cita cita, LocalDateTime antesDe) {
+        Cita.EstadoCita estado = cita.getEstado();
+        return (estado == Cita.EstadoCita.COMPLETADA || estado == Cita.EstadoCita.CANCELADA)
+            && cita.getFechaHora().isBefore(antesDe);
+    }
+    
+    void cambiarEstado(Cita cita, Cita.EstadoCita anterior, Cita.EstadoCita nuevo) {
+        citasPorEstado[anterior.ordinal()]--;
+        citasPorEstado[nuevo.ordinal()]++;
+        if (nuevo == Cita.EstadoCita.CANCELADA) {
+            liberarHorario(cita);
+        }
+    }
+    
+    void copiarConteoPorEstado(int[] destino) {
+        System.arraycopy(citasPorEstado, 0, destino, 0, citasPorEstado.length);
+    }
+    
+    private void liberarHorario(Cita cita) {
+        if (citasActivasPorInicio.remove(cita.getFechaHora(), cita)) {
+            calendario.liberar(cita.getFechaHora());
+        }
+    }
+    
+    List<ReglaHorario> getReglas() {
+        return reglas;
+    }
+    
+    Set<LocalDate> getDiasExpandidos() {
+        return diasExpandidos;
+    }
+    
+    List<LocalDateTime> horariosConfigurados() {
+        return calendario.horariosConfigurados();
+    }
+    
+    List<Cita> getCitas() {
+        return citas;
+    }
+    
+    int slotsPorDia() {
+        return 24 * 60 / calendario.getMinutosPorSlot();
+    }
+    
+    int getTotalHorarios() {
+        return (int) (calendario.contarConfigurados() + slotsPendientesDeReglas);
+    }
+    
+    int getTotalOcupados() {
+        return calendario.contarOcupados();
+    }
+    
+    private void expandirDia(LocalDate fecha) {
+        if (reglas.isEmpty() || diasExpandidos.contains(fecha)) {
+            return;
+        }
+        
+        boolean expandido = false;
+        for (ReglaHorario regla : reglas) {
+            if (regla.aplicaA(fecha)) {
+                List<LocalDateTime> horarios = regla.horariosDelDia(fecha, calendario.getMinutosPorSlot());
+                for (LocalDateTime horario : horarios) {
+                    calendario.agregarHorario(horario);
+                }
+                slotsPendientesDeReglas -= horarios.size();
+                expandido = true;
+            }
+        }
+        if (expandido) {
+            diasExpandidos.add(fecha);
+        }
+    }
+}
\ No newline at end of file
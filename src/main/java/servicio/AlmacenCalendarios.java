@@ -0,0 +1,108 @@
+package servicio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Un archivo mapeado por profesional; el nombre es el ID en Base64 para admitir cualquier carácter. Junto a
+// ellos, el punto de control: la marca que deja un cierre limpio con los mapas ya en disco
+public class AlmacenCalendarios implements Closeable {
+    private static final String EXTENSION = ".cal";
+    private static final String PUNTO_DE_CONTROL = "punto-de-control";
+    
+    private final Path directorio;
+    private final int minutosPorSlot;
+    private final Map<String, CalendarioMapeado> abiertos;
+    
+    public AlmacenCalendarios(Path directorio, int minutosPorSlot) throws IOException {
+        if (directorio == null) {
+            throw new IllegalArgumentException("El directorio no puede ser nulo");
+        }
+        this.directorio = Files.createDirectories(directorio);
+        this.minutosPorSlot = CalendarioSlots.validarMinutosPorSlot(minutosPorSlot);
+        this.abiertos = new ConcurrentHashMap<>();
+    }
+    
+    public List<String> profesionalesGuardados() throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos.map(archivo -> archivo.getFileName().toString())
+                .filter(nombre -> nombre.endsWith(EXTENSION))
+                .map(nombre -> new String(Base64.getUrlDecoder().decode(
+                    nombre.substring(0, nombre.length() - EXTENSION.length())), StandardCharsets.UTF_8))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+    
+    public CalendarioMapeado abrir(String profesionalId) {
+        return abiertos.computeIfAbsent(profesionalId, id -> {
+            String nombre = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(id.getBytes(StandardCharsets.UTF_8)) + EXTENSION;
+            try {
+                return CalendarioMapeado.abrir(directorio.resolve(nombre), minutosPorSlot);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo abrir el calendario de " + id, e);
+            }
+        });
+    }
+    
+    public int getMinutosPorSlot() {
+        return minutosPorSlot;
+    }
+    
+    public void forzar() {
+        abiertos.values().forEach(CalendarioMapeado::forzar);
+    }
+    
+    // Devuelve la marca guardada (0 si no hay) y la anula en disco antes de que nada vuelva a tocar los mapas:
+    // una caída posterior deja los calendarios sin punto de control
+    public long tomarPuntoDeControl() throws IOException {
+        Path archivo = directorio.resolve(PUNTO_DE_CONTROL);
+        if (!Files.exists(archivo)) {
+            return 0;
+        }
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer marca = ByteBuffer.allocate(Long.BYTES);
+            long leida = canal.read(marca, 0) == Long.BYTES ? marca.getLong(0) : 0;
+            canal.write(ByteBuffer.allocate(Long.BYTES), 0);
+            canal.force(true);
+            return leida;
+        }
+    }
+    
+    // Los mapas llegan a disco antes que la marca: si la marca está, los calendarios también
+    public void guardarPuntoDeControl(long marca) throws IOException {
+        forzar();
+        try (FileChannel canal = FileChannel.open(directorio.resolve(PUNTO_DE_CONTROL), StandardOpenOption.CREATE,
+                                                  StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.allocate(Long.BYTES).putLong(0, marca), 0);
+            canal.force(true);
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        IOException primerError = null;
+        for (CalendarioMapeado calendario : abiertos.values()) {
+            try {
+                calendario.close();
+            } catch (IOException e) {
+                primerError = primerError == null ? e : primerError;
+            }
+        }
+        abiertos.clear();
+        if (primerError != null) {
+            throw primerError;
+        }
+    }
+}
\ No newline at end of file
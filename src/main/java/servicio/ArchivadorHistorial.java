@@ -0,0 +1,46 @@
+package servicio;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Pasa al archivo las citas cerradas ya vencidas: una vez al arrancar y después cada periodo
+public class ArchivadorHistorial implements Closeable {
+    public static final Duration PERIODO_POR_DEFECTO = Duration.ofHours(1);
+    
+    private final ScheduledExecutorService ejecutor;
+    
+    private ArchivadorHistorial(ScheduledExecutorService ejecutor) {
+        this.ejecutor = ejecutor;
+    }
+    
+    public static ArchivadorHistorial iniciar(GestorDisponibilidad gestor, Duration periodo) {
+        if (gestor == null || periodo == null || periodo.isNegative() || periodo.isZero()) {
+            throw new IllegalArgumentException("El gestor y un periodo positivo son obligatorios");
+        }
+        
+        ScheduledExecutorService ejecutor = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "archivo-historial");
+            hilo.setDaemon(true);
+            hilo.setPriority(Thread.MIN_PRIORITY);
+            return hilo;
+        });
+        ejecutor.scheduleWithFixedDelay(() -> {
+            // Una excepción cancelaría las siguientes ejecuciones
+            try {
+                gestor.archivarHistorial(LocalDateTime.now());
+            } catch (RuntimeException e) {
+                System.err.println("No se pudo archivar el historial de citas: " + e.getMessage());
+            }
+        }, 0, periodo.toMillis(), TimeUnit.MILLISECONDS);
+        return new ArchivadorHistorial(ejecutor);
+    }
+    
+    @Override
+    public void close() {
+        ejecutor.shutdownNow();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,239 @@
+package servicio;
+
+import modelo.Cita;
+import modelo.RegistroIds;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Historial en columnas: una fila por cita archivada, con tipos primitivos. Paciente y profesional son handles
+// del registro de ids propio del archivo; tipos, motivos y prefijos de código van a pools propios. Un código
+// como "CIT-000123" se guarda como prefijo más número y ancho; otro código cualquiera va entero al pool de
+// prefijos. Una tabla de direccionamiento abierto sobre las filas resuelve el código sin guardar claves.
+// Solo se anexa y las altas pasan por el monitor del archivo. Cada alta publica una vista con las columnas y
+// el número de filas escritas: buscar un código, contar y recorrer leen esa vista sin el monitor, y las
+// filas que se crucen más allá de su tamaño se ignoran. Las filas archivadas no cambian
+final class ArchivoCitas {
+    private static final int CAPACIDAD_INICIAL = 1024;
+    private static final int MAXIMO_TIPOS = 256;
+    private static final int MAXIMO_DIGITOS = 18;
+    private static final Cita.EstadoCita[] ESTADOS = Cita.EstadoCita.values();
+    
+    private final RegistroIds ids = new RegistroIds();
+    private final PoolCadenas prefijosCodigo = new PoolCadenas();
+    private final PoolCadenas tipos = new PoolCadenas();
+    private final PoolCadenas motivos = new PoolCadenas();
+    
+    private int[] minutos = new int[CAPACIDAD_INICIAL];
+    private int[] profesionales = new int[CAPACIDAD_INICIAL];
+    private int[] pacientes = new int[CAPACIDAD_INICIAL];
+    private byte[] estados = new byte[CAPACIDAD_INICIAL];
+    private byte[] tiposCita = new byte[CAPACIDAD_INICIAL];
+    private int[] motivosCita = new int[CAPACIDAD_INICIAL];
+    private int[] prefijos = new int[CAPACIDAD_INICIAL];
+    private long[] numeros = new long[CAPACIDAD_INICIAL];
+    private byte[] anchos = new byte[CAPACIDAD_INICIAL];
+    // Fila + 1 de cada código; 0 es hueco libre
+    private int[] tablaCodigos = new int[CAPACIDAD_INICIAL * 2];
+    private int filas;
+    private volatile Vista vista = new Vista(this);
+    
+    private static final class Vista {
+        final int[] minutos;
+        final int[] profesionales;
+        final byte[] estados;
+        final int[] prefijos;
+        final long[] numeros;
+        final byte[] anchos;
+        final int[] tablaCodigos;
+        final int filas;
+        
+        Vista(ArchivoCitas archivo) {
+            minutos = archivo.minutos;
+            profesionales = archivo.profesionales;
+            estados = archivo.estados;
+            prefijos = archivo.prefijos;
+            numeros = archivo.numeros;
+            anchos = archivo.anchos;
+            tablaCodigos = archivo.tablaCodigos;
+            filas = archivo.filas;
+        }
+    }
+    
+    // Solo minutos exactos: la hora se guarda como minuto desde la época
+    static boolean esArchivable(Cita cita) {
+        LocalDateTime fechaHora = cita.getFechaHora();
+        return fechaHora.getSecond() == 0 && fechaHora.getNano() == 0;
+    }
+    
+    // Devuelve la fila o -1 si la cita no cabe en el formato (segundos, demasiados tipos distintos)
+    synchronized int archivar(Cita cita) {
+        if (!esArchivable(cita) || (tipos.buscar(cita.getTipo()) < 0 && tipos.tamano() == MAXIMO_TIPOS)) {
+            return -1;
+        }
+        if (filas == minutos.length) {
+            crecer();
+        }
+        
+        int fila = filas;
+        minutos[fila] = (int) (cita.getFechaHora().toEpochSecond(ZoneOffset.UTC) / 60);
+        profesionales[fila] = ids.registrar(cita.getProfesionalId());
+        pacientes[fila] = ids.registrar(cita.getPacienteId());
+        estados[fila] = (byte) cita.getEstado().ordinal();
+        tiposCita[fila] = (byte) tipos.internar(cita.getTipo());
+        motivosCita[fila] = cita.getMotivo() == null ? -1 : motivos.internar(cita.getMotivo());
+        String id = cita.getId();
+        int digitos = digitosFinales(id);
+        prefijos[fila] = prefijosCodigo.internar(id.substring(0, id.length() - digitos));
+        numeros[fila] = digitos == 0 ? 0 : Long.parseLong(id.substring(id.length() - digitos));
+        anchos[fila] = (byte) digitos;
+        filas++;
+        insertarEnTabla(fila);
+        vista = new Vista(this);
+        return fila;
+    }
+    
+    int buscarFila(String id) {
+        Vista actual = vista;
+        int digitos = digitosFinales(id);
+        int prefijo = prefijosCodigo.buscar(id.substring(0, id.length() - digitos));
+        if (prefijo < 0) {
+            return -1;
+        }
+        long numero = digitos == 0 ? 0 : Long.parseLong(id.substring(id.length() - digitos));
+        int[] tabla = actual.tablaCodigos;
+        int mascara = tabla.length - 1;
+        for (int i = dispersar(prefijo, numero, digitos) & mascara; tabla[i] != 0; i = (i + 1) & mascara) {
+            int fila = tabla[i] - 1;
+            if (fila < actual.filas && actual.prefijos[fila] == prefijo && actual.numeros[fila] == numero
+                    && actual.anchos[fila] == digitos) {
+                return fila;
+            }
+        }
+        return -1;
+    }
+    
+    boolean contiene(String id) {
+        return buscarFila(id) >= 0;
+    }
+    
+    int tamano() {
+        return vista.filas;
+    }
+    
+    // Una copia sin observador: cambiarle el estado no afecta al gestor
+    synchronized Cita materializar(int fila) {
+        if (fila < 0 || fila >= filas) {
+            throw new IndexOutOfBoundsException("Fila fuera del archivo: " + fila);
+        }
+        Cita cita = Cita.restaurar(codigo(fila), ids.id(pacientes[fila]), ids.id(profesionales[fila]),
+            LocalDateTime.ofEpochSecond(minutos[fila] * 60L, 0, ZoneOffset.UTC), tipos.obtener(tiposCita[fila] & 0xFF),
+            ESTADOS[estados[fila]]);
+        cita.setMotivo(motivosCita[fila] < 0 ? null : motivos.obtener(motivosCita[fila]));
+        return cita;
+    }
+    
+    List<Cita> citasDeProfesional(String profesionalId) {
+        return citasDeProfesional(profesionalId, vista.filas);
+    }
+    
+    // Solo las filas anteriores a hasta, para leer el archivo tal como estaba en un momento anterior
+    List<Cita> citasDeProfesional(String profesionalId, int hasta) {
+        List<Cita> citas = new ArrayList<>();
+        Vista actual = vista;
+        int profesional = ids.buscar(profesionalId);
+        for (int fila = 0; profesional >= 0 && fila < Math.min(hasta, actual.filas); fila++) {
+            if (actual.profesionales[fila] == profesional) {
+                citas.add(materializar(fila));
+            }
+        }
+        return citas;
+    }
+    
+    // Recorre solo las columnas de minuto, profesional y estado; nulo significa sin límite o todos
+    int[] contarPorEstado(String profesionalId, LocalDateTime desde, LocalDateTime hasta) {
+        Vista actual = vista;
+        int[] conteo = new int[ESTADOS.length];
+        int profesional = profesionalId == null ? -1 : ids.buscar(profesionalId);
+        if (profesionalId != null && profesional < 0) {
+            return conteo;
+        }
+        long minimo = desde == null ? Long.MIN_VALUE : Math.floorDiv(desde.toEpochSecond(ZoneOffset.UTC), 60);
+        long maximo = hasta == null ? Long.MAX_VALUE : Math.floorDiv(hasta.toEpochSecond(ZoneOffset.UTC) - 1, 60);
+        for (int fila = 0; fila < actual.filas; fila++) {
+            if ((profesional < 0 || actual.profesionales[fila] == profesional)
+                    && actual.minutos[fila] >= minimo && actual.minutos[fila] <= maximo) {
+                conteo[actual.estados[fila]]++;
+            }
+        }
+        return conteo;
+    }
+    
+    private String codigo(int fila) {
+        String prefijo = prefijosCodigo.obtener(prefijos[fila]);
+        int ancho = anchos[fila];
+        if (ancho == 0) {
+            return prefijo;
+        }
+        String numero = Long.toString(numeros[fila]);
+        StringBuilder codigo = new StringBuilder(prefijo.length() + ancho).append(prefijo);
+        for (int i = numero.length(); i < ancho; i++) {
+            codigo.append('0');
+        }
+        return codigo.append(numero).toString();
+    }
+    
+    private static int digitosFinales(String id) {
+        int digitos = 0;
+        while (digitos < id.length() && digitos < MAXIMO_DIGITOS
+                && Character.isDigit(id.charAt(id.length() - 1 - digitos))) {
+            digitos++;
+        }
+        // Un dígito más allá del máximo obligaría a partir el número: se guarda el código entero
+        if (digitos == MAXIMO_DIGITOS && digitos < id.length()
+                && Character.isDigit(id.charAt(id.length() - 1 - digitos))) {
+            return 0;
+        }
+        return digitos;
+    }
+    
+    private static int dispersar(int prefijo, long numero, int ancho) {
+        long mezcla = (numero * 0x9E3779B97F4A7C15L) ^ ((long) prefijo << 8 | ancho) * 0xC2B2AE3D27D4EB4FL;
+        return (int) (mezcla ^ (mezcla >>> 32));
+    }
+    
+    private void insertarEnTabla(int fila) {
+        if (filas * 2 > tablaCodigos.length) {
+            tablaCodigos = new int[tablaCodigos.length * 2];
+            for (int existente = 0; existente < filas; existente++) {
+                colocar(existente);
+            }
+        } else {
+            colocar(fila);
+        }
+    }
+    
+    private void colocar(int fila) {
+        int mascara = tablaCodigos.length - 1;
+        int i = dispersar(prefijos[fila], numeros[fila], anchos[fila]) & mascara;
+        while (tablaCodigos[i] != 0) {
+            i = (i + 1) & mascara;
+        }
+        tablaCodigos[i] = fila + 1;
+    }
+    
+    private void crecer() {
+        int capacidad = minutos.length * 2;
+        minutos = Arrays.copyOf(minutos, capacidad);
+        profesionales = Arrays.copyOf(profesionales, capacidad);
+        pacientes = Arrays.copyOf(pacientes, capacidad);
+        estados = Arrays.copyOf(estados, capacidad);
+        tiposCita = Arrays.copyOf(tiposCita, capacidad);
+        motivosCita = Arrays.copyOf(motivosCita, capacidad);
+        prefijos = Arrays.copyOf(prefijos, capacidad);
+        numeros = Arrays.copyOf(numeros, capacidad);
+        anchos = Arrays.copyOf(anchos, capacidad);
+    }
+}
\ No newline at end of file
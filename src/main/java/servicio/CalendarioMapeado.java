@@ -0,0 +1,155 @@
+package servicio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+// Calendario cuyos días viven en un archivo mapeado: [cabecera][día, palabras configuradas, palabras ocupadas]...
+public class CalendarioMapeado extends CalendarioSlots implements Closeable {
+    private static final long MAGICO = 0x43414C534C4F5431L;
+    private static final int VERSION = 1;
+    private static final int LONGS_CABECERA = 4;
+    private static final long DIA_LIBRE = Long.MIN_VALUE;
+    private static final int REGISTROS_INICIALES = 64;
+    
+    private final FileChannel canal;
+    private final int longsPorRegistro;
+    private final Map<Long, Integer> registroPorDia;
+    private final Deque<Integer> registrosLibres;
+    private MappedByteBuffer mapa;
+    private LongBuffer contenido;
+    private int capacidad;
+    private int siguienteRegistro;
+    
+    private CalendarioMapeado(int minutosPorSlot, FileChannel canal) {
+        super(minutosPorSlot);
+        this.canal = canal;
+        this.longsPorRegistro = 1 + palabrasPorDia * 2;
+        this.registroPorDia = new HashMap<>();
+        this.registrosLibres = new ArrayDeque<>();
+    }
+    
+    // Mapea el archivo (creándolo si no existe); los días guardados se leen del mapa sin copiarlos
+    public static CalendarioMapeado abrir(Path archivo, int minutosPorSlot) throws IOException {
+        validarMinutosPorSlot(minutosPorSlot);
+        FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                                             StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            CalendarioMapeado calendario = new CalendarioMapeado(minutosPorSlot, canal);
+            calendario.cargar();
+            return calendario;
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+    
+    public void forzar() {
+        mapa.force();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (canal.isOpen()) {
+            forzar();
+            canal.close();
+        }
+    }
+    
+    @Override
+    boolean esPersistente() {
+        return true;
+    }
+    
+    @Override
+    LongBuffer crearDia(long clave) {
+        Integer registro = registrosLibres.poll();
+        if (registro == null) {
+            if (siguienteRegistro == capacidad) {
+                crecer();
+            }
+            registro = siguienteRegistro++;
+        }
+        int inicio = LONGS_CABECERA + registro * longsPorRegistro;
+        contenido.put(inicio, clave);
+        registroPorDia.put(clave, registro);
+        return contenido.slice(inicio + 1, longsPorRegistro - 1);
+    }
+    
+    @Override
+    void diaDescartado(long clave) {
+        Integer registro = registroPorDia.remove(clave);
+        contenido.put(LONGS_CABECERA + registro * longsPorRegistro, DIA_LIBRE);
+        registrosLibres.push(registro);
+    }
+    
+    private void cargar() throws IOException {
+        long tamano = canal.size();
+        if (tamano == 0) {
+            capacidad = REGISTROS_INICIALES;
+            mapear();
+            contenido.put(0, MAGICO);
+            contenido.put(1, VERSION);
+            contenido.put(2, getMinutosPorSlot());
+            for (int registro = 0; registro < capacidad; registro++) {
+                contenido.put(LONGS_CABECERA + registro * longsPorRegistro, DIA_LIBRE);
+            }
+            return;
+        }
+        
+        capacidad = (int) ((tamano / Long.BYTES - LONGS_CABECERA) / longsPorRegistro);
+        mapear();
+        if (contenido.get(0) != MAGICO || contenido.get(1) != VERSION) {
+            throw new IOException("El archivo no contiene un calendario de slots válido");
+        }
+        if (contenido.get(2) != getMinutosPorSlot()) {
+            throw new IOException("El calendario guardado usa slots de " + contenido.get(2) + " minutos");
+        }
+        
+        for (int registro = 0; registro < capacidad; registro++) {
+            int inicio = LONGS_CABECERA + registro * longsPorRegistro;
+            long clave = contenido.get(inicio);
+            if (clave == DIA_LIBRE) {
+                registrosLibres.add(registro);
+            } else {
+                registroPorDia.put(clave, registro);
+                dias.put(clave, contenido.slice(inicio + 1, longsPorRegistro - 1));
+            }
+        }
+        siguienteRegistro = capacidad;
+        recontar();
+    }
+    
+    // Duplica el archivo y vuelve a mapearlo; los días ya cargados apuntan al mapa nuevo
+    private void crecer() {
+        int anterior = capacidad;
+        capacidad *= 2;
+        try {
+            mapear();
+        } catch (IOException e) {
+            capacidad = anterior;
+            throw new UncheckedIOException("No se pudo ampliar el calendario", e);
+        }
+        for (int registro = anterior; registro < capacidad; registro++) {
+            contenido.put(LONGS_CABECERA + registro * longsPorRegistro, DIA_LIBRE);
+        }
+        for (Map.Entry<Long, Integer> entrada : registroPorDia.entrySet()) {
+            int inicio = LONGS_CABECERA + entrada.getValue() * longsPorRegistro;
+            dias.put(entrada.getKey(), contenido.slice(inicio + 1, longsPorRegistro - 1));
+        }
+    }
+    
+    private void mapear() throws IOException {
+        long bytes = (LONGS_CABECERA + (long) capacidad * longsPorRegistro) * Long.BYTES;
+        mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        mapa.order(ByteOrder.LITTLE_ENDIAN);
+        contenido = mapa.asLongBuffer();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,339 @@
+package servicio;
+
+import java.nio.LongBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+public class CalendarioSlots {
+    public static final int MINUTOS_POR_SLOT_POR_DEFECTO = 30;
+    private static final int MINUTOS_POR_DIA = 24 * 60;
+    private static final long NANOS_POR_MINUTO = 60_000_000_000L;
+    
+    private final int minutosPorSlot;
+    final int palabrasPorDia;
+    final NavigableMap<Long, LongBuffer> dias;
+    private int totalConfigurados;
+    private int totalOcupados;
+    
+    public CalendarioSlots() {
+        this(MINUTOS_POR_SLOT_POR_DEFECTO);
+    }
+    
+    public CalendarioSlots(int minutosPorSlot) {
+        this.minutosPorSlot = validarMinutosPorSlot(minutosPorSlot);
+        this.palabrasPorDia = (MINUTOS_POR_DIA / minutosPorSlot + 63) / 64;
+        this.dias = new TreeMap<>();
+    }
+    
+    public boolean agregarHorario(LocalDateTime fechaHora) {
+        int slot = slotObligatorio(fechaHora);
+        LongBuffer dia = obtenerOCrearDia(fechaHora.toLocalDate().toEpochDay());
+        if (activarBit(dia, slot >>> 6, slot)) {
+            totalConfigurados++;
+            return true;
+        }
+        return false;
+    }
+    
+    public boolean quitarHorario(LocalDateTime fechaHora) {
+        int slot = indiceSlot(fechaHora);
+        long clave = fechaHora.toLocalDate().toEpochDay();
+        LongBuffer dia = slot < 0 ? null : dias.get(clave);
+        if (dia == null || !desactivarBit(dia, slot >>> 6, slot)) {
+            return false;
+        }
+        totalConfigurados--;
+        descartarSiVacio(clave, dia);
+        return true;
+    }
+    
+    public void limpiarHorarios() {
+        limpiarPalabras(dias, 0);
+    }
+    
+    public void limpiarHorarios(LocalDate desde, LocalDate hasta) {
+        limpiarPalabras(dias.subMap(desde.toEpochDay(), true, hasta.toEpochDay(), true), 0);
+    }
+    
+    public void limpiarOcupados() {
+        limpiarPalabras(dias, palabrasPorDia);
+    }
+    
+    public void copiarOcupadosDe(CalendarioSlots otro) {
+        copiarPalabrasDe(otro, palabrasPorDia);
+    }
+    
+    // Sustituye los horarios configurados por los de otro calendario, conservando los ocupados
+    public void reemplazarConfiguradosPor(CalendarioSlots otro) {
+        limpiarHorarios();
+        copiarPalabrasDe(otro, 0);
+    }
+    
+    public boolean estaConfigurado(LocalDateTime fechaHora) {
+        return leerBit(fechaHora, 0);
+    }
+    
+    public boolean estaOcupado(LocalDateTime fechaHora) {
+        return leerBit(fechaHora, palabrasPorDia);
+    }
+    
+    public boolean estaLibre(LocalDateTime fechaHora) {
+        int slot = indiceSlot(fechaHora);
+        LongBuffer dia = slot < 0 ? null : dias.get(fechaHora.toLocalDate().toEpochDay());
+        if (dia == null) {
+            return false;
+        }
+        int palabra = slot >>> 6;
+        return ((dia.get(palabra) & ~dia.get(palabrasPorDia + palabra)) & (1L << slot)) != 0;
+    }
+    
+    public boolean marcarOcupado(LocalDateTime fechaHora) {
+        int slot = slotObligatorio(fechaHora);
+        LongBuffer dia = obtenerOCrearDia(fechaHora.toLocalDate().toEpochDay());
+        if (activarBit(dia, palabrasPorDia + (slot >>> 6), slot)) {
+            totalOcupados++;
+            return true;
+        }
+        return false;
+    }
+    
+    public boolean liberar(LocalDateTime fechaHora) {
+        int slot = indiceSlot(fechaHora);
+        long clave = fechaHora.toLocalDate().toEpochDay();
+        LongBuffer dia = slot < 0 ? null : dias.get(clave);
+        if (dia == null) {
+            return false;
+        }
+        
+        if (!desactivarBit(dia, palabrasPorDia + (slot >>> 6), slot)) {
+            return false;
+        }
+        totalOcupados--;
+        descartarSiVacio(clave, dia);
+        return true;
+    }
+    
+    public List<LocalDateTime> horariosLibres(LocalDate fecha, LocalDateTime posteriorA) {
+        List<LocalDateTime> libres = new ArrayList<>();
+        LongBuffer dia = dias.get(fecha.toEpochDay());
+        if (dia == null) {
+            return libres;
+        }
+        
+        int primerSlot = primerSlotPosterior(fecha, posteriorA);
+        for (int palabra = 0; palabra < palabrasPorDia; palabra++) {
+            long bits = dia.get(palabra) & ~dia.get(palabrasPorDia + palabra) & mascaraDesde(palabra, primerSlot);
+            while (bits != 0) {
+                int slot = (palabra << 6) + Long.numberOfTrailingZeros(bits);
+                libres.add(fecha.atTime(LocalTime.ofSecondOfDay(slot * minutosPorSlot * 60L)));
+                bits &= bits - 1;
+            }
+        }
+        return libres;
+    }
+    
+    public List<LocalDateTime> horariosConfigurados() {
+        List<LocalDateTime> configurados = new ArrayList<>(totalConfigurados);
+        for (Map.Entry<Long, LongBuffer> entrada : dias.entrySet()) {
+            LocalDate fecha = LocalDate.ofEpochDay(entrada.getKey());
+            LongBuffer dia = entrada.getValue();
+            for (int palabra = 0; palabra < palabrasPorDia; palabra++) {
+                long bits = dia.get(palabra);
+                while (bits != 0) {
+                    int slot = (palabra << 6) + Long.numberOfTrailingZeros(bits);
+                    configurados.add(fecha.atTime(LocalTime.ofSecondOfDay(slot * minutosPorSlot * 60L)));
+                    bits &= bits - 1;
+                }
+            }
+        }
+        return configurados;
+    }
+    
+    public int contarLibres(LocalDate fecha) {
+        LongBuffer dia = dias.get(fecha.toEpochDay());
+        if (dia == null) {
+            return 0;
+        }
+        int libres = 0;
+        for (int palabra = 0; palabra < palabrasPorDia; palabra++) {
+            libres += Long.bitCount(dia.get(palabra) & ~dia.get(palabrasPorDia + palabra));
+        }
+        return libres;
+    }
+    
+    public int contarConfigurados() {
+        return totalConfigurados;
+    }
+    
+    public int contarOcupados() {
+        return totalOcupados;
+    }
+    
+    public int getMinutosPorSlot() {
+        return minutosPorSlot;
+    }
+    
+    boolean esPersistente() {
+        return false;
+    }
+    
+    LongBuffer crearDia(long clave) {
+        return LongBuffer.wrap(new long[palabrasPorDia * 2]);
+    }
+    
+    void diaDescartado(long clave) {
+    }
+    
+    void recontar() {
+        totalConfigurados = 0;
+        totalOcupados = 0;
+        for (LongBuffer dia : dias.values()) {
+            for (int palabra = 0; palabra < palabrasPorDia; palabra++) {
+                totalConfigurados += Long.bitCount(dia.get(palabra));
+                totalOcupados += Long.bitCount(dia.get(palabrasPorDia + palabra));
+            }
+        }
+    }
+    
+    static int validarMinutosPorSlot(int minutosPorSlot) {
+        if (minutosPorSlot != 15 && minutosPorSlot != 30 && minutosPorSlot != 60) {
+            throw new IllegalArgumentException("La duración del slot debe ser de 15, 30 o 60 minutos");
+        }
+        return minutosPorSlot;
+    }
+    
+    int indiceSlot(LocalDateTime fechaHora) {
+        if (fechaHora.getSecond() != 0 || fechaHora.getNano() != 0) {
+            return -1;
+        }
+        int minutoDelDia = fechaHora.getHour() * 60 + fechaHora.getMinute();
+        return minutoDelDia % minutosPorSlot == 0 ? minutoDelDia / minutosPorSlot : -1;
+    }
+    
+    private int slotObligatorio(LocalDateTime fechaHora) {
+        int slot = indiceSlot(fechaHora);
+        if (slot < 0) {
+            throw new IllegalArgumentException("El horario " + fechaHora
+                + " no coincide con slots de " + minutosPorSlot + " minutos");
+        }
+        return slot;
+    }
+    
+    private boolean leerBit(LocalDateTime fechaHora, int desplazamiento) {
+        int slot = indiceSlot(fechaHora);
+        LongBuffer dia = slot < 0 ? null : dias.get(fechaHora.toLocalDate().toEpochDay());
+        return dia != null && (dia.get(desplazamiento + (slot >>> 6)) & (1L << slot)) != 0;
+    }
+    
+    private LongBuffer obtenerOCrearDia(long clave) {
+        LongBuffer dia = dias.get(clave);
+        if (dia == null) {
+            dia = crearDia(clave);
+            dias.put(clave, dia);
+        }
+        return dia;
+    }
+    
+    private void descartarSiVacio(long clave, LongBuffer dia) {
+        if (diaVacio(dia)) {
+            dias.remove(clave);
+            diaDescartado(clave);
+        }
+    }
+    
+    private void copiarPalabrasDe(CalendarioSlots otro, int desde) {
+        if (otro.palabrasPorDia != palabrasPorDia) {
+            throw new IllegalArgumentException("Los calendarios deben tener la misma duración de slot");
+        }
+        for (Map.Entry<Long, LongBuffer> entrada : otro.dias.entrySet()) {
+            LongBuffer origen = entrada.getValue();
+            LongBuffer destino = null;
+            for (int palabra = desde; palabra < desde + palabrasPorDia; palabra++) {
+                long nuevos = origen.get(palabra);
+                if (nuevos == 0) {
+                    continue;
+                }
+                if (destino == null) {
+                    destino = obtenerOCrearDia(entrada.getKey());
+                }
+                int agregados = Long.bitCount(nuevos & ~destino.get(palabra));
+                if (desde == 0) {
+                    totalConfigurados += agregados;
+                } else {
+                    totalOcupados += agregados;
+                }
+                destino.put(palabra, destino.get(palabra) | nuevos);
+            }
+        }
+    }
+    
+    private void limpiarPalabras(Map<Long, LongBuffer> rango, int desde) {
+        Iterator<Map.Entry<Long, LongBuffer>> iterador = rango.entrySet().iterator();
+        while (iterador.hasNext()) {
+            Map.Entry<Long, LongBuffer> entrada = iterador.next();
+            LongBuffer dia = entrada.getValue();
+            for (int palabra = desde; palabra < desde + palabrasPorDia; palabra++) {
+                int limpiados = Long.bitCount(dia.get(palabra));
+                if (desde == 0) {
+                    totalConfigurados -= limpiados;
+                } else {
+                    totalOcupados -= limpiados;
+                }
+                dia.put(palabra, 0L);
+            }
+            if (diaVacio(dia)) {
+                iterador.remove();
+                diaDescartado(entrada.getKey());
+            }
+        }
+    }
+    
+    private static boolean desactivarBit(LongBuffer dia, int palabra, int slot) {
+        long mascara = 1L << slot;
+        long valor = dia.get(palabra);
+        if ((valor & mascara) == 0) {
+            return false;
+        }
+        dia.put(palabra, valor & ~mascara);
+        return true;
+    }
+    
+    private static boolean activarBit(LongBuffer dia, int palabra, int slot) {
+        long mascara = 1L << slot;
+        long valor = dia.get(palabra);
+        if ((valor & mascara) != 0) {
+            return false;
+        }
+        dia.put(palabra, valor | mascara);
+        return true;
+    }
+    
+    private int primerSlotPosterior(LocalDate fecha, LocalDateTime posteriorA) {
+        if (posteriorA == null || fecha.isAfter(posteriorA.toLocalDate())) {
+            return 0;
+        }
+        if (fecha.isBefore(posteriorA.toLocalDate())) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) (posteriorA.toLocalTime().toNanoOfDay() / (minutosPorSlot * NANOS_POR_MINUTO)) + 1;
+    }
+    
+    private static long mascaraDesde(int palabra, int primerSlot) {
+        int desplazamiento = primerSlot - (palabra << 6);
+        if (desplazamiento <= 0) {
+            return -1L;
+        }
+        return desplazamiento >= 64 ? 0L : -1L << desplazamiento;
+    }
+    
+    private static boolean diaVacio(LongBuffer dia) {
+        for (int palabra = 0; palabra < dia.limit(); palabra++) {
+            if (dia.get(palabra) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,159 @@
+package servicio;
+
+import modelo.Cita;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+public final class EventoAgenda {
+    public enum Tipo {
+        HORARIOS_CONFIGURADOS, REGLAS_CONFIGURADAS, HORARIOS_AGREGADOS, HORARIOS_ELIMINADOS,
+        RANGO_REEMPLAZADO, ESTADO_AGENDA, CITA_AGENDADA, CITA_CONFIRMADA, CITA_CANCELADA, CITA_COMPLETADA,
+        CITAS_AGENDADAS
+    }
+    
+    private final Tipo tipo;
+    private final String profesionalId;
+    private final String citaId;
+    private final Cita cita;
+    private final List<Cita> citas;
+    private final List<LocalDateTime> horarios;
+    private final List<ReglaHorario> reglas;
+    private final List<LocalDate> diasExpandidos;
+    private final LocalDate desde;
+    private final LocalDate hasta;
+    
+    private EventoAgenda(Tipo tipo, String profesionalId, String citaId, Cita cita,
+                         Collection<LocalDateTime> horarios, List<ReglaHorario> reglas,
+                         Collection<LocalDate> diasExpandidos, LocalDate desde, LocalDate hasta) {
+        this(tipo, profesionalId, citaId, cita, null, horarios, reglas, diasExpandidos, desde, hasta);
+    }
+    
+    private EventoAgenda(Tipo tipo, String profesionalId, String citaId, Cita cita, Collection<Cita> citas,
+                         Collection<LocalDateTime> horarios, List<ReglaHorario> reglas,
+                         Collection<LocalDate> diasExpandidos, LocalDate desde, LocalDate hasta) {
+        this.tipo = tipo;
+        this.profesionalId = profesionalId;
+        this.citaId = citaId;
+        this.cita = cita;
+        this.citas = inmutable(citas);
+        this.horarios = inmutable(horarios);
+        this.reglas = inmutable(reglas);
+        this.diasExpandidos = inmutable(diasExpandidos);
+        this.desde = desde;
+        this.hasta = hasta;
+    }
+    
+    public static EventoAgenda horariosConfigurados(String profesionalId, Collection<LocalDateTime> horarios) {
+        return deHorarios(Tipo.HORARIOS_CONFIGURADOS, profesionalId, horarios);
+    }
+    
+    public static EventoAgenda horariosAgregados(String profesionalId, Collection<LocalDateTime> horarios) {
+        return deHorarios(Tipo.HORARIOS_AGREGADOS, profesionalId, horarios);
+    }
+    
+    public static EventoAgenda horariosEliminados(String profesionalId, Collection<LocalDateTime> horarios) {
+        return deHorarios(Tipo.HORARIOS_ELIMINADOS, profesionalId, horarios);
+    }
+    
+    public static EventoAgenda reglasConfiguradas(String profesionalId, List<ReglaHorario> reglas) {
+        return new EventoAgenda(Tipo.REGLAS_CONFIGURADAS, profesionalId, null, null,
+                                null, reglas, null, null, null);
+    }
+    
+    public static EventoAgenda rangoReemplazado(String profesionalId, LocalDate desde, LocalDate hasta,
+                                                Collection<LocalDateTime> horarios) {
+        return new EventoAgenda(Tipo.RANGO_REEMPLAZADO, profesionalId, null, null,
+                                horarios, null, null, desde, hasta);
+    }
+    
+    public static EventoAgenda estadoAgenda(String profesionalId, List<ReglaHorario> reglas,
+                                            Collection<LocalDate> diasExpandidos,
+                                            Collection<LocalDateTime> horarios) {
+        return new EventoAgenda(Tipo.ESTADO_AGENDA, profesionalId, null, null,
+                                horarios, reglas, diasExpandidos, null, null);
+    }
+    
+    public static EventoAgenda citaAgendada(Cita cita) {
+        return new EventoAgenda(Tipo.CITA_AGENDADA, cita.getProfesionalId(), cita.getId(), cita,
+                                null, null, null, null, null);
+    }
+    
+    // Un bloque de citas de la instantánea, de uno o varios profesionales; se carga de una vez
+    public static EventoAgenda citasAgendadas(Collection<Cita> citas) {
+        return new EventoAgenda(Tipo.CITAS_AGENDADAS, null, null, null, citas, null, null, null, null, null);
+    }
+    
+    public static EventoAgenda cambioDeEstado(String profesionalId, String citaId, Cita.EstadoCita estado) {
+        Tipo tipo;
+        switch (estado) {
+            case CONFIRMADA:
+                tipo = Tipo.CITA_CONFIRMADA;
+                break;
+            case CANCELADA:
+                tipo = Tipo.CITA_CANCELADA;
+                break;
+            case COMPLETADA:
+                tipo = Tipo.CITA_COMPLETADA;
+                break;
+            default:
+                throw new IllegalArgumentException("Estado sin evento asociado: " + estado);
+        }
+        return new EventoAgenda(tipo, profesionalId, citaId, null, null, null, null, null, null);
+    }
+    
+    private static EventoAgenda deHorarios(Tipo tipo, String profesionalId, Collection<LocalDateTime> horarios) {
+        return new EventoAgenda(tipo, profesionalId, null, null, horarios, null, null, null, null);
+    }
+    
+    private static <T> List<T> inmutable(Collection<T> elementos) {
+        return elementos == null ? Collections.emptyList()
+            : Collections.unmodifiableList(new ArrayList<>(elementos));
+    }
+    
+    public Tipo getTipo() {
+        return tipo;
+    }
+    
+    public String getProfesionalId() {
+        return profesionalId;
+    }
+    
+    public String getCitaId() {
+        return citaId;
+    }
+    
+    public Cita getCita() {
+        return cita;
+    }
+    
+    public List<Cita> getCitas() {
+        return citas;
+    }
+    
+    public List<LocalDateTime> getHorarios() {
+        return horarios;
+    }
+    
+    public List<ReglaHorario> getReglas() {
+        return reglas;
+    }
+    
+    public List<LocalDate> getDiasExpandidos() {
+        return diasExpandidos;
+    }
+    
+    public LocalDate getDesde() {
+        return desde;
+    }
+    
+    public LocalDate getHasta() {
+        return hasta;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("EventoAgenda{tipo=%s, profesional='%s', cita='%s', horarios=%d, reglas=%d}",
+                           tipo, profesionalId, citaId, horarios.size(), reglas.size());
+    }
+}
\ No newline at end of file
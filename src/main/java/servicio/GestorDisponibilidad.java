@@ -1,18 +1,106 @@
 package servicio;
 
 import modelo.Cita;
+import modelo.ObservadorCita;
+import modelo.RegistroIds;
 import modelo.Usuario;
+import java.io.IOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class GestorDisponibilidad {
-    private final Map<String, List<Cita>> citasPorProfesional;
-    private final Map<String, Set<LocalDateTime>> horariosDisponibles;
+    private static final int NIVEL_CONCURRENCIA_POR_DEFECTO = 64;
+    private static final int CAPACIDAD_INICIAL_AGENDAS = 64;
+    private static final int CITAS_POR_BLOQUE = 4096;
+    
+    // Registros propios del gestor: los handles de profesionales solo cuentan profesionales con agenda, y un
+    // paciente solo entra al aceptarse su primera cita
+    private final RegistroIds profesionales = new RegistroIds();
+    private final RegistroIds pacientes = new RegistroIds();
+    // Agendas indexadas por el handle del profesional; crecen bajo su propio monitor
+    private volatile AtomicReferenceArray<AgendaProfesional> agendas;
+    private final Object creacionAgendas = new Object();
+    private final Map<String, Cita> citasPorId;
+    private final IndiceCitas citasEnOrden;
+    private final ArchivoCitas archivo;
+    private final ReentrantLock[] cerrojos;
+    private final AtomicIntegerArray citasPorEstado;
+    private final int minutosPorSlot;
+    private final AlmacenCalendarios almacen;
+    // Toda transición de una cita agendada, la lance quien la lance, pasa por el cerrojo de su profesional
+    private final ObservadorCita observadorCitas = new ObservadorCita() {
+        @Override
+        public void estadoCambiado(Cita cita, Cita.EstadoCita estadoAnterior) {
+            alCambiarEstadoCita(cita, estadoAnterior);
+        }
+        
+        @Override
+        public void enTransicion(Cita cita, Runnable transicion) {
+            conCerrojo(cita.getHandleProfesional(), () -> {
+                transicion.run();
+                return null;
+            });
+        }
+    };
+    private final List<OyenteAgenda> oyentes = new CopyOnWriteArrayList<>();
+    // Esperas de durabilidad anotadas bajo un cerrojo; se cumplen al soltarlo
+    private final ThreadLocal<List<Runnable>> esperasPendientes = ThreadLocal.withInitial(ArrayList::new);
+    private volatile MetricasAgenda metricas;
     
     public GestorDisponibilidad() {
-        this.citasPorProfesional = new HashMap<>();
-        this.horariosDisponibles = new HashMap<>();
+        this(NIVEL_CONCURRENCIA_POR_DEFECTO);
+    }
+    
+    public GestorDisponibilidad(int nivelConcurrencia) {
+        this(nivelConcurrencia, CalendarioSlots.MINUTOS_POR_SLOT_POR_DEFECTO);
+    }
+    
+    public GestorDisponibilidad(int nivelConcurrencia, int minutosPorSlot) {
+        this(nivelConcurrencia, minutosPorSlot, null);
+    }
+    
+    public GestorDisponibilidad(AlmacenCalendarios almacen) throws IOException {
+        this(NIVEL_CONCURRENCIA_POR_DEFECTO, almacen);
+    }
+    
+    // Con almacén, los calendarios de slots se leen y escriben directamente en archivos mapeados
+    public GestorDisponibilidad(int nivelConcurrencia, AlmacenCalendarios almacen) throws IOException {
+        this(nivelConcurrencia, minutosDe(almacen), almacen);
+        for (String profesionalId : almacen.profesionalesGuardados()) {
+            obtenerOCrearAgenda(profesionales.registrar(profesionalId));
+        }
+    }
+    
+    private GestorDisponibilidad(int nivelConcurrencia, int minutosPorSlot, AlmacenCalendarios almacen) {
+        if (nivelConcurrencia < 1) {
+            throw new IllegalArgumentException("El nivel de concurrencia debe ser positivo");
+        }
+        this.minutosPorSlot = CalendarioSlots.validarMinutosPorSlot(minutosPorSlot);
+        this.almacen = almacen;
+        this.agendas = new AtomicReferenceArray<>(CAPACIDAD_INICIAL_AGENDAS);
+        this.citasPorId = new ConcurrentHashMap<>();
+        this.archivo = new ArchivoCitas();
+        this.citasEnOrden = new IndiceCitas(archivo);
+        this.citasPorEstado = new AtomicIntegerArray(Cita.EstadoCita.values().length);
+        
+        int franjas = Integer.highestOneBit(nivelConcurrencia);
+        if (franjas < nivelConcurrencia) {
+            franjas <<= 1;
+        }
+        this.cerrojos = new ReentrantLock[franjas];
+        for (int i = 0; i < franjas; i++) {
+            cerrojos[i] = new ReentrantLock();
+        }
     }
     
     public void configurarHorarios(String profesionalId, Set<LocalDateTime> horarios) {
@@ -20,13 +108,107 @@ public class GestorDisponibilidad {
         if (horarios == null || horarios.isEmpty()) {
             throw new IllegalArgumentException("Los horarios no pueden ser nulos o vacíos");
         }
+        validarHorariosFuturos(horarios);
         
-        LocalDateTime ahora = LocalDateTime.now();
-        if (horarios.stream().anyMatch(h -> h.isBefore(ahora))) {
-            throw new IllegalArgumentException("No se pueden configurar horarios en el pasado");
+        CalendarioSlots nuevo = new CalendarioSlots(minutosPorSlot);
+        for (LocalDateTime horario : horarios) {
+            nuevo.agregarHorario(horario);
+        }
+        
+        int profesional = profesionales.registrar(profesionalId);
+        conCerrojo(profesional, () -> {
+            publicar(() -> EventoAgenda.horariosConfigurados(profesionalId, horarios));
+            obtenerOCrearAgenda(profesional).instalarCalendario(nuevo);
+            return null;
+        });
+    }
+    
+    public void agregarHorarios(String profesionalId, Set<LocalDateTime> horarios) {
+        validarIdNoVacio(profesionalId);
+        if (horarios == null || horarios.isEmpty()) {
+            throw new IllegalArgumentException("Los horarios no pueden ser nulos o vacíos");
+        }
+        validarHorariosFuturos(horarios);
+        validarAlineacion(horarios);
+        
+        int profesional = profesionales.registrar(profesionalId);
+        conCerrojo(profesional, () -> {
+            publicar(() -> EventoAgenda.horariosAgregados(profesionalId, horarios));
+            obtenerOCrearAgenda(profesional).agregarHorarios(horarios);
+            return null;
+        });
+    }
+    
+    public int eliminarHorarios(String profesionalId, Set<LocalDateTime> horarios) {
+        validarIdNoVacio(profesionalId);
+        if (horarios == null) {
+            throw new IllegalArgumentException("Los horarios no pueden ser nulos");
+        }
+        
+        int profesional = profesionales.buscar(profesionalId);
+        AgendaProfesional agenda = agenda(profesional);
+        if (agenda == null) {
+            return 0;
+        }
+        return conCerrojo(profesional, () -> {
+            publicar(() -> EventoAgenda.horariosEliminados(profesionalId, horarios));
+            return agenda.eliminarHorarios(horarios);
+        });
+    }
+    
+    public void reemplazarHorariosEnRango(String profesionalId, LocalDate desde, LocalDate hasta,
+                                          Set<LocalDateTime> horarios) {
+        validarIdNoVacio(profesionalId);
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("El rango de fechas no es válido");
+        }
+        if (horarios == null) {
+            throw new IllegalArgumentException("Los horarios no pueden ser nulos");
         }
+        if (horarios.stream().map(LocalDateTime::toLocalDate).anyMatch(d -> d.isBefore(desde) || d.isAfter(hasta))) {
+            throw new IllegalArgumentException("Los horarios deben estar dentro del rango de fechas");
+        }
+        validarHorariosFuturos(horarios);
+        validarAlineacion(horarios);
         
-        horariosDisponibles.put(profesionalId, new HashSet<>(horarios));
+        int profesional = profesionales.registrar(profesionalId);
+        conCerrojo(profesional, () -> {
+            publicar(() -> EventoAgenda.rangoReemplazado(profesionalId, desde, hasta, horarios));
+            obtenerOCrearAgenda(profesional).reemplazarRango(desde, hasta, horarios);
+            return null;
+        });
+    }
+    
+    public void configurarReglasHorario(String profesionalId, List<ReglaHorario> reglas) {
+        validarIdNoVacio(profesionalId);
+        if (reglas == null || reglas.isEmpty() || reglas.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Las reglas de horario no pueden ser nulas o vacías");
+        }
+        
+        LocalDate hoy = LocalDate.now();
+        for (int i = 0; i < reglas.size(); i++) {
+            ReglaHorario regla = reglas.get(i);
+            if (regla.getDesde().isBefore(hoy)) {
+                throw new IllegalArgumentException("No se pueden configurar horarios en el pasado");
+            }
+            if (!estaAlineada(regla.getInicio()) || !estaAlineada(regla.getFin())) {
+                throw new IllegalArgumentException("La franja " + regla.getInicio() + "-" + regla.getFin()
+                    + " no coincide con slots de " + minutosPorSlot + " minutos");
+            }
+            for (int j = 0; j < i; j++) {
+                if (regla.seSolapaCon(reglas.get(j))) {
+                    throw new IllegalArgumentException("Las reglas de horario no pueden solaparse");
+                }
+            }
+        }
+        
+        List<ReglaHorario> copia = new ArrayList<>(reglas);
+        int profesional = profesionales.registrar(profesionalId);
+        conCerrojo(profesional, () -> {
+            publicar(() -> EventoAgenda.reglasConfiguradas(profesionalId, copia));
+            obtenerOCrearAgenda(profesional).reemplazarReglas(copia);
+            return null;
+        });
     }
     
     public List<LocalDateTime> consultarDisponibilidad(String profesionalId, LocalDateTime fecha) {
@@ -35,24 +217,25 @@ public class GestorDisponibilidad {
             throw new IllegalArgumentException("La fecha no puede ser nula");
         }
         
-        Set<LocalDateTime> horariosDelProfesional = horariosDisponibles.get(profesionalId);
-        if (horariosDelProfesional == null) {
-            return new ArrayList<>();
+        MetricasAgenda medidor = metricas;
+        JfrOperacionAgenda evento = new JfrOperacionAgenda();
+        evento.begin();
+        long inicio = medidor == null ? 0 : System.nanoTime();
+        int profesional = profesionales.buscar(profesionalId);
+        AgendaProfesional agenda = agenda(profesional);
+        List<LocalDateTime> libres = agenda == null ? new ArrayList<>()
+            : conCerrojo(profesional, () -> agenda.horariosLibres(fecha.toLocalDate(), LocalDateTime.now()));
+        if (medidor != null) {
+            medidor.registrarConsulta(System.nanoTime() - inicio);
         }
-        
-        List<Cita> citasDelProfesional = citasPorProfesional.getOrDefault(profesionalId, new ArrayList<>());
-        Set<LocalDateTime> horariosOcupados = citasDelProfesional.stream()
-            .filter(cita -> cita.getEstado() != Cita.EstadoCita.CANCELADA)
-            .filter(cita -> cita.esEnFecha(fecha))
-            .map(Cita::getFechaHora)
-            .collect(Collectors.toSet());
-        
-        return horariosDelProfesional.stream()
-            .filter(horario -> horario.toLocalDate().equals(fecha.toLocalDate()))
-            .filter(horario -> !horariosOcupados.contains(horario))
-            .filter(horario -> horario.isAfter(LocalDateTime.now()))
-            .sorted()
-            .collect(Collectors.toList());
+        if (evento.shouldCommit()) {
+            evento.operacion = JfrOperacionAgenda.CONSULTA;
+            evento.profesionalId = profesionalId;
+            evento.slotsRevisados = agenda == null ? 0 : agenda.slotsPorDia();
+            evento.resultado = libres.size() + " libres";
+            evento.commit();
+        }
+        return libres;
     }
     
     public boolean estaDisponible(String profesionalId, LocalDateTime fechaHora) {
@@ -60,60 +243,323 @@ public class GestorDisponibilidad {
             return false;
         }
         
-        Set<LocalDateTime> horariosDelProfesional = horariosDisponibles.get(profesionalId);
-        if (horariosDelProfesional == null || !horariosDelProfesional.contains(fechaHora)) {
-            return false;
-        }
-        
-        List<Cita> citasDelProfesional = citasPorProfesional.getOrDefault(profesionalId, new ArrayList<>());
-        return citasDelProfesional.stream()
-            .filter(cita -> cita.getEstado() != Cita.EstadoCita.CANCELADA)
-            .noneMatch(cita -> cita.getFechaHora().equals(fechaHora));
+        int profesional = profesionales.buscar(profesionalId);
+        AgendaProfesional agenda = agenda(profesional);
+        return agenda != null && conCerrojo(profesional, () -> agenda.estaLibre(fechaHora));
     }
     
     public boolean agendarCita(Cita cita) {
+        return reservarCita(cita) == ResultadoReserva.AGENDADA;
+    }
+    
+    // Como agendarCita, pero con el motivo del rechazo; mide la latencia y emite el evento de cada reserva
+    public ResultadoReserva reservarCita(Cita cita) {
         if (cita == null) {
             throw new IllegalArgumentException("La cita no puede ser nula");
         }
         
-        String profesionalId = cita.getProfesionalId();
-        LocalDateTime fechaHora = cita.getFechaHora();
-        
-        if (!estaDisponible(profesionalId, fechaHora)) {
-            return false;
+        MetricasAgenda medidor = metricas;
+        JfrOperacionAgenda evento = new JfrOperacionAgenda();
+        evento.begin();
+        long inicio = medidor == null ? 0 : System.nanoTime();
+        ResultadoReserva resultado = intentarReserva(cita);
+        if (medidor != null) {
+            medidor.registrarReserva(resultado, System.nanoTime() - inicio);
+        }
+        if (evento.shouldCommit()) {
+            evento.operacion = JfrOperacionAgenda.RESERVA;
+            evento.profesionalId = cita.getProfesionalId();
+            evento.citaId = cita.getId();
+            evento.slotsRevisados = 1;
+            evento.resultado = resultado.name();
+            evento.commit();
+        }
+        return resultado;
+    }
+    
+    private ResultadoReserva intentarReserva(Cita cita) {
+        int profesional = profesionales.buscar(cita.getProfesionalId());
+        AgendaProfesional agenda = agenda(profesional);
+        if (agenda == null) {
+            return ResultadoReserva.NO_CONFIGURADO;
+        }
+        if (citasPorId.containsKey(cita.getId())) {
+            return ResultadoReserva.ID_DUPLICADO;
+        }
+        return conCerrojo(profesional, () -> reservar(profesional, agenda, cita));
+    }
+    
+    public List<ResultadoReserva> agendarCitas(List<Cita> citas) {
+        if (citas == null || citas.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Las citas no pueden ser nulas");
         }
         
-        List<Cita> citasDelProfesional = citasPorProfesional.getOrDefault(profesionalId, new ArrayList<>());
-        boolean hayConflicto = citasDelProfesional.stream()
-            .filter(citaExistente -> citaExistente.getEstado() != Cita.EstadoCita.CANCELADA)
-            .anyMatch(citaExistente -> citaExistente.tieneConflicto(fechaHora));
+        MetricasAgenda medidor = metricas;
+        JfrOperacionAgenda evento = new JfrOperacionAgenda();
+        evento.begin();
+        ResultadoReserva[] resultados = new ResultadoReserva[citas.size()];
+        // Cada cita mide su propia reserva: el histograma de agendar no depende de cómo llegaron agrupadas
+        long[] nanos = medidor == null ? null : new long[citas.size()];
+        long[] grupos = agruparPorProfesional(citas, false);
+        for (int desde = 0, hasta; desde < grupos.length; desde = hasta) {
+            hasta = finDeGrupo(grupos, desde);
+            int profesional = profesionalDe(grupos[desde]);
+            int primero = desde;
+            int ultimo = hasta;
+            AgendaProfesional agenda = agenda(profesional);
+            if (agenda == null) {
+                for (int i = primero; i < ultimo; i++) {
+                    resultados[posicionDe(grupos[i])] = ResultadoReserva.NO_CONFIGURADO;
+                }
+                continue;
+            }
+            conCerrojo(profesional, () -> {
+                for (int i = primero; i < ultimo; i++) {
+                    int posicion = posicionDe(grupos[i]);
+                    long inicio = nanos == null ? 0 : System.nanoTime();
+                    resultados[posicion] = reservar(profesional, agenda, citas.get(posicion));
+                    if (nanos != null) {
+                        nanos[posicion] = System.nanoTime() - inicio;
+                    }
+                }
+                return null;
+            });
+        }
+        if (medidor != null) {
+            for (int i = 0; i < resultados.length; i++) {
+                medidor.registrarReserva(resultados[i], nanos[i]);
+            }
+        }
+        confirmarLote(evento, JfrOperacionAgenda.RESERVA_EN_LOTE, resultados);
+        return Arrays.asList(resultados);
+    }
+    
+    // Carga masiva: sin validar fechas ni configuración; los solapes se detectan en un solo recorrido ordenado
+    public List<ResultadoReserva> cargarCitas(List<Cita> citas) {
+        if (citas == null || citas.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Las citas no pueden ser nulas");
+        }
         
-        if (hayConflicto) {
-            return false;
+        JfrOperacionAgenda evento = new JfrOperacionAgenda();
+        evento.begin();
+        ResultadoReserva[] resultados = new ResultadoReserva[citas.size()];
+        cargarPorProfesional(citas, resultados, false);
+        confirmarLote(evento, JfrOperacionAgenda.CARGA_MASIVA, resultados);
+        return Arrays.asList(resultados);
+    }
+    
+    private void cargarPorProfesional(List<Cita> citas, ResultadoReserva[] resultados, boolean restaurando) {
+        long[] grupos = agruparPorProfesional(citas, true);
+        for (int desde = 0, hasta; desde < grupos.length; desde = hasta) {
+            hasta = finDeGrupo(grupos, desde);
+            int profesional = profesionalDe(grupos[desde]);
+            int[] posiciones = new int[hasta - desde];
+            for (int i = 0; i < posiciones.length; i++) {
+                posiciones[i] = posicionDe(grupos[desde + i]);
+            }
+            conCerrojo(profesional, () -> {
+                cargarGrupo(profesional, obtenerOCrearAgenda(profesional), citas, posiciones, resultados, restaurando);
+                return null;
+            });
+        }
+    }
+    
+    private static void confirmarLote(JfrOperacionAgenda evento, String operacion, ResultadoReserva[] resultados) {
+        if (!evento.shouldCommit()) {
+            return;
+        }
+        int agendadas = 0;
+        for (ResultadoReserva resultado : resultados) {
+            if (resultado == ResultadoReserva.AGENDADA) {
+                agendadas++;
+            }
+        }
+        evento.operacion = operacion;
+        evento.slotsRevisados = resultados.length;
+        evento.resultado = agendadas + " de " + resultados.length + " " + ResultadoReserva.AGENDADA.name();
+        evento.commit();
+    }
+    
+    // Reprogramar es cancelar y volver a reservar: la cita nueva lleva otro id y la original queda cancelada en
+    // el historial. Si el horario nuevo no se puede reservar, la original no cambia
+    public ResultadoReserva reprogramarCita(String citaId, String nuevoId, LocalDateTime nuevaFechaHora) {
+        validarIdNoVacio(citaId);
+        Cita original = citasPorId.get(citaId);
+        if (original == null) {
+            throw new IllegalArgumentException("Cita no encontrada o ya archivada: " + citaId);
         }
+        Cita nueva = new Cita(nuevoId, original.getPacienteId(), original.getProfesionalId(), nuevaFechaHora,
+            original.getTipo());
+        nueva.setMotivo(original.getMotivo());
         
-        citasPorProfesional.computeIfAbsent(profesionalId, k -> new ArrayList<>()).add(cita);
-        return true;
+        int profesional = original.getHandleProfesional();
+        AgendaProfesional agenda = agenda(profesional);
+        return conCerrojo(profesional, () -> {
+            Cita.EstadoCita estado = original.getEstado();
+            if (estado == Cita.EstadoCita.CANCELADA || estado == Cita.EstadoCita.COMPLETADA) {
+                throw new IllegalStateException("Solo se pueden reprogramar citas pendientes o confirmadas");
+            }
+            if (!agenda.estaConfigurado(nuevaFechaHora)) {
+                return ResultadoReserva.NO_CONFIGURADO;
+            }
+            if (agenda.estaOcupado(nuevaFechaHora)) {
+                return ResultadoReserva.HORARIO_OCUPADO;
+            }
+            if (agenda.tieneConflicto(nuevaFechaHora, original)) {
+                return ResultadoReserva.CONFLICTO;
+            }
+            if (!reclamarId(profesional, nueva)) {
+                return ResultadoReserva.ID_DUPLICADO;
+            }
+            try {
+                original.cancelar();
+            } catch (RuntimeException e) {
+                citasPorId.remove(nueva.getId(), nueva);
+                throw e;
+            }
+            return admitir(agenda, nueva);
+        });
+    }
+    
+    // Una cita archivada se devuelve como copia de solo lectura: cambiarle el estado no afecta a la agenda
+    public Cita buscarCita(String citaId) {
+        validarIdNoVacio(citaId);
+        Cita cita = citasPorId.get(citaId);
+        return cita != null ? cita : buscarArchivada(citaId);
     }
     
     public boolean cancelarCita(String citaId) {
         validarIdNoVacio(citaId);
         
-        for (List<Cita> citas : citasPorProfesional.values()) {
-            for (Cita cita : citas) {
-                if (cita.getId().equals(citaId)) {
-                    cita.cancelar();
-                    return true;
-                }
-            }
+        MetricasAgenda medidor = metricas;
+        JfrOperacionAgenda evento = new JfrOperacionAgenda();
+        evento.begin();
+        long inicio = medidor == null ? 0 : System.nanoTime();
+        Cita viva = citasPorId.get(citaId);
+        Cita cita = viva != null ? viva : buscarArchivada(citaId);
+        if (viva != null) {
+            conCerrojo(cita.getHandleProfesional(), () -> {
+                cita.cancelar();
+                return null;
+            });
+        } else if (cita != null) {
+            // En el archivo solo hay citas cerradas: una cancelada no cambia y una completada lanza excepción
+            cita.cancelar();
         }
-        return false;
+        if (medidor != null) {
+            medidor.registrarCancelacion(System.nanoTime() - inicio);
+        }
+        if (evento.shouldCommit()) {
+            evento.operacion = JfrOperacionAgenda.CANCELACION;
+            evento.profesionalId = cita == null ? null : cita.getProfesionalId();
+            evento.citaId = citaId;
+            evento.slotsRevisados = cita == null ? 0 : 1;
+            evento.resultado = cita == null ? "NO_ENCONTRADA" : Cita.EstadoCita.CANCELADA.name();
+            evento.commit();
+        }
+        return cita != null;
+    }
+    
+    public List<Cita> obtenerTodasLasCitas() {
+        return citasEnOrden.copiar();
+    }
+    
+    // Recorre las citas en orden de alta sin copiarlas; no falla si se agendan otras mientras tanto
+    public Iterator<Cita> iterarCitas() {
+        return citasEnOrden.iterator();
+    }
+    
+    // Acceso por posición al orden de alta: una vista puede pedir solo las filas que muestra
+    public int contarCitasIndexadas() {
+        return citasEnOrden.tamano();
+    }
+    
+    public Cita citaEnPosicion(int posicion) {
+        return citasEnOrden.obtener(posicion);
+    }
+    
+    public int contarCitas() {
+        return citasPorId.size() + archivo.tamano();
+    }
+    
+    public int contarCitasArchivadas() {
+        return archivo.tamano();
+    }
+    
+    public int contarCitas(Cita.EstadoCita estado) {
+        if (estado == null) {
+            throw new IllegalArgumentException("El estado no puede ser nulo");
+        }
+        return citasPorEstado.get(estado.ordinal());
+    }
+    
+    public Map<Cita.EstadoCita, Integer> obtenerConteoPorEstado() {
+        Map<Cita.EstadoCita, Integer> conteo = new EnumMap<>(Cita.EstadoCita.class);
+        for (Cita.EstadoCita estado : Cita.EstadoCita.values()) {
+            conteo.put(estado, citasPorEstado.get(estado.ordinal()));
+        }
+        return conteo;
     }
     
     public List<Cita> obtenerCitasDeProfesional(String profesionalId) {
         validarIdNoVacio(profesionalId);
-        List<Cita> citas = citasPorProfesional.get(profesionalId);
-        return citas != null ? new ArrayList<>(citas) : new ArrayList<>();
+        int profesional = profesionales.buscar(profesionalId);
+        AgendaProfesional agenda = agenda(profesional);
+        if (agenda == null) {
+            return new ArrayList<>();
+        }
+        // Bajo el cerrojo nadie archiva citas de este profesional: las filas anteriores a la marca más la agenda
+        // son todas sus citas, sin huecos ni repetidas, y el archivo se recorre después de soltarlo
+        int[] archivadas = new int[1];
+        List<Cita> vivas = conCerrojo(profesional, () -> {
+            archivadas[0] = archivo.tamano();
+            return new ArrayList<>(agenda.getCitas());
+        });
+        List<Cita> citas = archivo.citasDeProfesional(profesionalId, archivadas[0]);
+        citas.addAll(vivas);
+        return citas;
+    }
+    
+    // Mueve al archivo las citas completadas o canceladas anteriores al corte. Los conteos no cambian y los
+    // horarios completados siguen ocupados; devuelve cuántas citas se archivaron
+    public int archivarHistorial(LocalDateTime antesDe) {
+        if (antesDe == null) {
+            throw new IllegalArgumentException("La fecha de corte no puede ser nula");
+        }
+        
+        Map<Cita, Integer> archivadas = new IdentityHashMap<>();
+        AgendaProfesional[] actuales = agendasActuales();
+        for (int profesional = 0; profesional < actuales.length; profesional++) {
+            AgendaProfesional agenda = actuales[profesional];
+            if (agenda == null) {
+                continue;
+            }
+            conCerrojo(profesional, () -> agenda.archivarAnteriores(antesDe, cita -> {
+                int fila = archivo.archivar(cita);
+                if (fila < 0) {
+                    return false;
+                }
+                cita.setObservador(null);
+                citasPorId.remove(cita.getId(), cita);
+                archivadas.put(cita, fila);
+                return true;
+            }));
+        }
+        if (!archivadas.isEmpty()) {
+            citasEnOrden.compactar(cita -> archivadas.getOrDefault(cita, -1));
+        }
+        return archivadas.size();
+    }
+    
+    // Cuenta por estado las citas archivadas con inicio en [desde, hasta); los nulos no acotan
+    public Map<Cita.EstadoCita, Integer> contarHistorial(String profesionalId, LocalDateTime desde,
+                                                          LocalDateTime hasta) {
+        int[] conteo = archivo.contarPorEstado(profesionalId, desde, hasta);
+        Map<Cita.EstadoCita, Integer> historial = new EnumMap<>(Cita.EstadoCita.class);
+        for (Cita.EstadoCita estado : Cita.EstadoCita.values()) {
+            historial.put(estado, conteo[estado.ordinal()]);
+        }
+        return historial;
     }
     
     public List<Cita> obtenerCitasActivasDeProfesional(String profesionalId) {
@@ -125,20 +571,547 @@ public class GestorDisponibilidad {
     public Map<String, Integer> obtenerEstadisticasDisponibilidad(String profesionalId) {
         Map<String, Integer> estadisticas = new HashMap<>();
         
-        Set<LocalDateTime> horariosTotal = horariosDisponibles.get(profesionalId);
-        List<Cita> citasActivas = obtenerCitasActivasDeProfesional(profesionalId);
+        validarIdNoVacio(profesionalId);
+        int profesional = profesionales.buscar(profesionalId);
+        AgendaProfesional agenda = agenda(profesional);
         
-        int horariosConfigurados = horariosTotal != null ? horariosTotal.size() : 0;
-        int horariosOcupados = citasActivas.size();
+        int[] conteo = new int[Cita.EstadoCita.values().length];
+        int horariosConfigurados = 0;
+        int horariosOcupados = 0;
+        if (agenda != null) {
+            int[] totales = conCerrojo(profesional, () -> {
+                agenda.copiarConteoPorEstado(conteo);
+                return new int[] {agenda.getTotalHorarios(), agenda.getTotalOcupados()};
+            });
+            horariosConfigurados = totales[0];
+            horariosOcupados = totales[1];
+        }
         int horariosLibres = horariosConfigurados - horariosOcupados;
         
         estadisticas.put("horariosConfigurados", horariosConfigurados);
         estadisticas.put("horariosOcupados", horariosOcupados);
         estadisticas.put("horariosLibres", Math.max(0, horariosLibres));
+        for (Cita.EstadoCita estado : Cita.EstadoCita.values()) {
+            estadisticas.put(claveEstadistica(estado), conteo[estado.ordinal()]);
+        }
         
         return estadisticas;
     }
     
+    // Sin métricas activas cada operación solo paga una lectura volátil
+    public void activarMetricas(MetricasAgenda metricas) {
+        this.metricas = metricas;
+    }
+    
+    public MetricasAgenda getMetricas() {
+        return metricas;
+    }
+    
+    public void agregarOyente(OyenteAgenda oyente) {
+        if (oyente == null) {
+            throw new IllegalArgumentException("El oyente no puede ser nulo");
+        }
+        oyentes.add(oyente);
+    }
+    
+    public void quitarOyente(OyenteAgenda oyente) {
+        oyentes.remove(oyente);
+    }
+    
+    // Reaplica un evento registrado sin validar fechas ni volver a publicarlo
+    public void aplicarEvento(EventoAgenda evento) {
+        if (evento == null) {
+            throw new IllegalArgumentException("El evento no puede ser nulo");
+        }
+        if (evento.getTipo() == EventoAgenda.Tipo.CITAS_AGENDADAS) {
+            List<Cita> sueltas = new ArrayList<>(evento.getCitas().size());
+            evento.getCitas().forEach(cita -> sueltas.add(suelta(cita)));
+            cargarPorProfesional(sueltas, new ResultadoReserva[sueltas.size()], true);
+            return;
+        }
+        
+        int profesional = profesionales.registrar(evento.getProfesionalId());
+        conCerrojo(profesional, () -> {
+            AgendaProfesional agenda = obtenerOCrearAgenda(profesional);
+            switch (evento.getTipo()) {
+                case HORARIOS_CONFIGURADOS:
+                    CalendarioSlots nuevo = new CalendarioSlots(minutosPorSlot);
+                    evento.getHorarios().forEach(nuevo::agregarHorario);
+                    agenda.instalarCalendario(nuevo);
+                    break;
+                case REGLAS_CONFIGURADAS:
+                    agenda.reemplazarReglas(evento.getReglas());
+                    break;
+                case HORARIOS_AGREGADOS:
+                    agenda.agregarHorarios(evento.getHorarios());
+                    break;
+                case HORARIOS_ELIMINADOS:
+                    agenda.eliminarHorarios(evento.getHorarios());
+                    break;
+                case RANGO_REEMPLAZADO:
+                    agenda.reemplazarRango(evento.getDesde(), evento.getHasta(), evento.getHorarios());
+                    break;
+                case ESTADO_AGENDA:
+                    agenda.restaurarEstado(evento.getReglas(), evento.getDiasExpandidos(), evento.getHorarios());
+                    break;
+                case CITA_AGENDADA:
+                    restaurarCita(profesional, agenda, evento.getCita());
+                    break;
+                default:
+                    reaplicarCambioDeEstado(evento);
+            }
+            return null;
+        });
+    }
+    
+    public boolean usaAlmacenCalendarios() {
+        return almacen != null;
+    }
+    
+    // Sin almacén no hay calendarios guardados ni marca: devuelve 0
+    public long tomarPuntoDeControlCalendarios() throws IOException {
+        return almacen == null ? 0 : almacen.tomarPuntoDeControl();
+    }
+    
+    // Solo al cerrar, con el diario ya en disco y sin más cambios: la marca dice que los mapas coinciden con él
+    public void guardarPuntoDeControlCalendarios(long marca) throws IOException {
+        if (almacen == null) {
+            throw new IllegalStateException("El gestor no usa un almacén de calendarios");
+        }
+        almacen.guardarPuntoDeControl(marca);
+    }
+    
+    // Sin punto de control, los mapas pueden traer horarios y ocupados que nunca llegaron al diario; antes de
+    // reproducirlo se vacían y el diario los reconstruye enteros
+    public void descartarCalendariosGuardados() {
+        if (contarCitas() > 0) {
+            throw new IllegalStateException("Solo se pueden descartar los calendarios de un gestor sin citas");
+        }
+        if (almacen == null) {
+            return;
+        }
+        AgendaProfesional[] actuales = agendasActuales();
+        for (int profesional = 0; profesional < actuales.length; profesional++) {
+            AgendaProfesional agenda = actuales[profesional];
+            if (agenda != null) {
+                conCerrojo(profesional, () -> {
+                    agenda.vaciarCalendario();
+                    return null;
+                });
+            }
+        }
+    }
+    
+    // Emite, profesional por profesional, los eventos que reconstruyen el estado actual. Bajo cada cerrojo solo
+    // se copia la agenda: el destino recibe los eventos con el cerrojo ya suelto y escribirlos no frena reservas
+    public void exportarEstado(OyenteAgenda destino) {
+        if (destino == null) {
+            throw new IllegalArgumentException("El destino no puede ser nulo");
+        }
+        
+        AgendaProfesional[] actuales = agendasActuales();
+        for (int profesional = 0; profesional < actuales.length; profesional++) {
+            AgendaProfesional agenda = actuales[profesional];
+            if (agenda == null) {
+                continue;
+            }
+            String profesionalId = profesionales.id(profesional);
+            List<Cita> citas = new ArrayList<>();
+            EventoAgenda estado = conCerrojo(profesional, () -> {
+                citas.addAll(agenda.getCitas());
+                return EventoAgenda.estadoAgenda(profesionalId, agenda.getReglas(), agenda.getDiasExpandidos(),
+                    agenda.horariosConfigurados());
+            });
+            destino.eventoRegistrado(estado);
+            for (int desde = 0; desde < citas.size(); desde += CITAS_POR_BLOQUE) {
+                int hasta = Math.min(citas.size(), desde + CITAS_POR_BLOQUE);
+                destino.eventoRegistrado(EventoAgenda.citasAgendadas(citas.subList(desde, hasta)));
+            }
+        }
+        // Por bloques, para no materializar todo el archivo de una vez
+        List<Cita> bloque = new ArrayList<>(CITAS_POR_BLOQUE);
+        for (int fila = 0, archivadas = archivo.tamano(); fila < archivadas; fila++) {
+            bloque.add(archivo.materializar(fila));
+            if (bloque.size() == CITAS_POR_BLOQUE || fila == archivadas - 1) {
+                destino.eventoRegistrado(EventoAgenda.citasAgendadas(bloque));
+                bloque.clear();
+            }
+        }
+    }
+    
+    static String claveEstadistica(Cita.EstadoCita estado) {
+        String nombre = estado.name().toLowerCase();
+        return "citas" + Character.toUpperCase(nombre.charAt(0)) + nombre.substring(1) + "s";
+    }
+    
+    private static int minutosDe(AlmacenCalendarios almacen) {
+        if (almacen == null) {
+            throw new IllegalArgumentException("El almacén de calendarios no puede ser nulo");
+        }
+        return almacen.getMinutosPorSlot();
+    }
+    
+    private AgendaProfesional agenda(int profesional) {
+        AtomicReferenceArray<AgendaProfesional> actuales = agendas;
+        return profesional >= 0 && profesional < actuales.length() ? actuales.get(profesional) : null;
+    }
+    
+    private AgendaProfesional obtenerOCrearAgenda(int profesional) {
+        AgendaProfesional agenda = agenda(profesional);
+        if (agenda != null) {
+            return agenda;
+        }
+        synchronized (creacionAgendas) {
+            AtomicReferenceArray<AgendaProfesional> actuales = agendas;
+            if (profesional < actuales.length() && actuales.get(profesional) != null) {
+                return actuales.get(profesional);
+            }
+            agenda = almacen == null ? new AgendaProfesional(minutosPorSlot)
+                : new AgendaProfesional(almacen.abrir(profesionales.id(profesional)));
+            if (profesional >= actuales.length()) {
+                AtomicReferenceArray<AgendaProfesional> mayores = new AtomicReferenceArray<>(
+                    Math.max(profesional + 1, actuales.length() * 2));
+                for (int i = 0; i < actuales.length(); i++) {
+                    mayores.set(i, actuales.get(i));
+                }
+                mayores.set(profesional, agenda);
+                agendas = mayores;
+            } else {
+                actuales.set(profesional, agenda);
+            }
+            return agenda;
+        }
+    }
+    
+    private AgendaProfesional[] agendasActuales() {
+        AtomicReferenceArray<AgendaProfesional> actuales = agendas;
+        AgendaProfesional[] copia = new AgendaProfesional[actuales.length()];
+        for (int i = 0; i < copia.length; i++) {
+            copia[i] = actuales.get(i);
+        }
+        return copia;
+    }
+    
+    private void validarHorariosFuturos(Set<LocalDateTime> horarios) {
+        LocalDateTime ahora = LocalDateTime.now();
+        if (horarios.stream().anyMatch(h -> h.isBefore(ahora))) {
+            throw new IllegalArgumentException("No se pueden configurar horarios en el pasado");
+        }
+    }
+    
+    private void validarAlineacion(Set<LocalDateTime> horarios) {
+        for (LocalDateTime horario : horarios) {
+            if (!estaAlineada(horario.toLocalTime())) {
+                throw new IllegalArgumentException("El horario " + horario
+                    + " no coincide con slots de " + minutosPorSlot + " minutos");
+            }
+        }
+    }
+    
+    private ResultadoReserva reservar(int profesional, AgendaProfesional agenda, Cita cita) {
+        LocalDateTime fechaHora = cita.getFechaHora();
+        if (!agenda.estaConfigurado(fechaHora)) {
+            return ResultadoReserva.NO_CONFIGURADO;
+        }
+        if (agenda.estaOcupado(fechaHora)) {
+            return ResultadoReserva.HORARIO_OCUPADO;
+        }
+        if (agenda.tieneConflicto(fechaHora)) {
+            return ResultadoReserva.CONFLICTO;
+        }
+        if (!reclamarId(profesional, cita)) {
+            return ResultadoReserva.ID_DUPLICADO;
+        }
+        return admitir(agenda, cita);
+    }
+    
+    // La cita ya tiene su id reclamado y su horario comprobado
+    private ResultadoReserva admitir(AgendaProfesional agenda, Cita cita) {
+        try {
+            publicar(() -> EventoAgenda.citaAgendada(cita));
+        } catch (RuntimeException e) {
+            citasPorId.remove(cita.getId(), cita);
+            throw e;
+        }
+        
+        agenda.registrarCita(cita);
+        citasEnOrden.agregar(cita);
+        citasPorEstado.incrementAndGet(cita.getEstado().ordinal());
+        cita.setObservador(observadorCitas);
+        return ResultadoReserva.AGENDADA;
+    }
+    
+    // Pares (handle + 1, posición) empaquetados en long y ordenados: cada profesional queda contiguo y sus citas
+    // en el orden del lote. Sin registrar, los profesionales desconocidos quedan juntos bajo el handle -1
+    private long[] agruparPorProfesional(List<Cita> citas, boolean registrar) {
+        long[] grupos = new long[citas.size()];
+        for (int i = 0; i < grupos.length; i++) {
+            String profesionalId = citas.get(i).getProfesionalId();
+            int profesional = registrar ? profesionales.registrar(profesionalId) : profesionales.buscar(profesionalId);
+            grupos[i] = (long) (profesional + 1) << 32 | i;
+        }
+        Arrays.sort(grupos);
+        return grupos;
+    }
+    
+    private static int finDeGrupo(long[] grupos, int desde) {
+        int hasta = desde + 1;
+        while (hasta < grupos.length && grupos[hasta] >>> 32 == grupos[desde] >>> 32) {
+            hasta++;
+        }
+        return hasta;
+    }
+    
+    private static int profesionalDe(long par) {
+        return (int) (par >>> 32) - 1;
+    }
+    
+    private static int posicionDe(long par) {
+        return (int) par;
+    }
+    
+    // Mezcla ascendente estable sobre un arreglo auxiliar: ordena las posiciones por fecha sin encajonarlas
+    private static void ordenarPorFecha(int[] posiciones, List<Cita> citas) {
+        int[] origen = posiciones;
+        int[] destino = new int[posiciones.length];
+        for (int ancho = 1; ancho < posiciones.length; ancho *= 2) {
+            for (int izquierda = 0; izquierda < posiciones.length; izquierda += 2 * ancho) {
+                int medio = Math.min(izquierda + ancho, posiciones.length);
+                int fin = Math.min(izquierda + 2 * ancho, posiciones.length);
+                int i = izquierda;
+                int j = medio;
+                for (int k = izquierda; k < fin; k++) {
+                    boolean tomarDerecha = j < fin && (i == medio
+                        || citas.get(origen[j]).getFechaHora().isBefore(citas.get(origen[i]).getFechaHora()));
+                    destino[k] = tomarDerecha ? origen[j++] : origen[i++];
+                }
+            }
+            int[] intercambio = origen;
+            origen = destino;
+            destino = intercambio;
+        }
+        if (origen != posiciones) {
+            System.arraycopy(origen, 0, posiciones, 0, posiciones.length);
+        }
+    }
+    
+    // Al restaurar una instantánea las citas ya se comprobaron al agendarlas: solo se reclaman sus ids y no se
+    // vuelven a publicar. Las aceptadas se registran en el orden del lote
+    private void cargarGrupo(int profesional, AgendaProfesional agenda, List<Cita> citas, int[] posiciones,
+                             ResultadoReserva[] resultados, boolean restaurando) {
+        if (restaurando) {
+            for (int posicion : posiciones) {
+                resultados[posicion] = reclamarId(profesional, citas.get(posicion))
+                    ? ResultadoReserva.AGENDADA : ResultadoReserva.ID_DUPLICADO;
+            }
+        } else {
+            comprobarGrupo(profesional, agenda, citas, posiciones.clone(), resultados);
+        }
+        List<Cita> aceptadas = new ArrayList<>();
+        for (int posicion : posiciones) {
+            if (resultados[posicion] == ResultadoReserva.AGENDADA) {
+                aceptadas.add(citas.get(posicion));
+            }
+        }
+        
+        if (!restaurando && !oyentes.isEmpty() && !aceptadas.isEmpty()) {
+            List<EventoAgenda> eventos = new ArrayList<>(aceptadas.size());
+            aceptadas.forEach(cita -> eventos.add(EventoAgenda.citaAgendada(cita)));
+            try {
+                for (OyenteAgenda oyente : oyentes) {
+                    pendiente(oyente.anotarLote(eventos));
+                }
+            } catch (RuntimeException e) {
+                aceptadas.forEach(cita -> citasPorId.remove(cita.getId(), cita));
+                throw e;
+            }
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        for (Cita cita : aceptadas) {
+            registrar(agenda, cita, ahora);
+        }
+    }
+    
+    // Recorre el grupo ordenado por fecha comparando cada cita con la anterior aceptada y con las ya agendadas
+    private void comprobarGrupo(int profesional, AgendaProfesional agenda, List<Cita> citas, int[] posiciones,
+                                ResultadoReserva[] resultados) {
+        ordenarPorFecha(posiciones, citas);
+        LocalDateTime primera = citas.get(posiciones[0]).getFechaHora();
+        LocalDateTime ultima = citas.get(posiciones[posiciones.length - 1]).getFechaHora();
+        Iterator<LocalDateTime> existentes = agenda.iniciosActivosEntre(
+            primera.minusMinutes(AgendaProfesional.SEPARACION_MINUTOS),
+            ultima.plusMinutes(AgendaProfesional.SEPARACION_MINUTOS));
+        LocalDateTime siguienteExistente = existentes.hasNext() ? existentes.next() : null;
+        LocalDateTime anterior = null;
+        
+        for (int posicion : posiciones) {
+            Cita cita = citas.get(posicion);
+            LocalDateTime fechaHora = cita.getFechaHora();
+            boolean activa = cita.getEstado() != Cita.EstadoCita.CANCELADA;
+            while (siguienteExistente != null && !siguienteExistente.isAfter(fechaHora)) {
+                anterior = anterior == null || siguienteExistente.isAfter(anterior) ? siguienteExistente : anterior;
+                siguienteExistente = existentes.hasNext() ? existentes.next() : null;
+            }
+            
+            ResultadoReserva resultado = null;
+            if (!estaAlineada(fechaHora.toLocalTime())) {
+                resultado = ResultadoReserva.NO_CONFIGURADO;
+            } else if (activa && (fechaHora.equals(anterior) || agenda.estaOcupado(fechaHora))) {
+                resultado = ResultadoReserva.HORARIO_OCUPADO;
+            } else if (activa && (estaCerca(anterior, fechaHora) || estaCerca(fechaHora, siguienteExistente))) {
+                resultado = ResultadoReserva.CONFLICTO;
+            } else if (!reclamarId(profesional, cita)) {
+                resultado = ResultadoReserva.ID_DUPLICADO;
+            } else {
+                resultado = ResultadoReserva.AGENDADA;
+                if (activa) {
+                    anterior = fechaHora;
+                }
+            }
+            resultados[posicion] = resultado;
+        }
+    }
+    
+    // La cita se vincula antes de entrar en el mapa, que es donde otros hilos pueden empezar a verla. El archivo
+    // se escribe antes de quitar el id del mapa: en todo momento el id está en uno de los dos
+    private boolean reclamarId(int profesional, Cita cita) {
+        cita.vincular(profesional, pacientes, profesionales);
+        if (citasPorId.putIfAbsent(cita.getId(), cita) != null) {
+            return false;
+        }
+        if (archivo.contiene(cita.getId())) {
+            citasPorId.remove(cita.getId(), cita);
+            return false;
+        }
+        return true;
+    }
+    
+    // Una cita histórica cargada o recuperada va directa al archivo
+    private void registrar(AgendaProfesional agenda, Cita cita, LocalDateTime archivarAntesDe) {
+        int fila = AgendaProfesional.esHistorica(cita, archivarAntesDe) ? archivo.archivar(cita) : -1;
+        if (fila >= 0) {
+            agenda.registrarArchivada(cita);
+            citasEnOrden.agregarArchivada(fila);
+            citasPorId.remove(cita.getId(), cita);
+        } else {
+            agenda.registrarCita(cita);
+            citasEnOrden.agregar(cita);
+            cita.setObservador(observadorCitas);
+        }
+        citasPorEstado.incrementAndGet(cita.getEstado().ordinal());
+    }
+    
+    private Cita buscarArchivada(String citaId) {
+        int fila = archivo.buscarFila(citaId);
+        return fila < 0 ? null : archivo.materializar(fila);
+    }
+    
+    private static boolean estaCerca(LocalDateTime antes, LocalDateTime despues) {
+        return antes != null && despues != null
+            && ChronoUnit.MINUTES.between(antes, despues) < AgendaProfesional.SEPARACION_MINUTOS;
+    }
+    
+    private void restaurarCita(int profesional, AgendaProfesional agenda, Cita cita) {
+        Cita restaurada = suelta(cita);
+        if (reclamarId(profesional, restaurada)) {
+            registrar(agenda, restaurada, LocalDateTime.now());
+        }
+    }
+    
+    // Un evento en memoria puede traer la cita viva de otro gestor: se restaura una copia suelta
+    private static Cita suelta(Cita cita) {
+        if (cita.getObservador() == null) {
+            return cita;
+        }
+        Cita copia = Cita.restaurar(cita.getId(), cita.getPacienteId(), cita.getProfesionalId(), cita.getFechaHora(),
+            cita.getTipo(), cita.getEstado());
+        copia.setMotivo(cita.getMotivo());
+        return copia;
+    }
+    
+    private void reaplicarCambioDeEstado(EventoAgenda evento) {
+        Cita cita = citasPorId.get(evento.getCitaId());
+        if (cita == null) {
+            return;
+        }
+        try {
+            switch (evento.getTipo()) {
+                case CITA_CONFIRMADA:
+                    cita.confirmar();
+                    break;
+                case CITA_CANCELADA:
+                    cita.cancelar();
+                    break;
+                default:
+                    cita.completar();
+            }
+        } catch (IllegalStateException e) {
+            // La instantánea ya recoge un estado posterior; los eventos siguientes fijan el definitivo
+        }
+    }
+    
+    private void publicar(Supplier<EventoAgenda> evento) {
+        if (oyentes.isEmpty()) {
+            return;
+        }
+        EventoAgenda publicado = evento.get();
+        for (OyenteAgenda oyente : oyentes) {
+            pendiente(oyente.anotar(publicado));
+        }
+    }
+    
+    private void pendiente(Runnable espera) {
+        if (espera != OyenteAgenda.SIN_ESPERA) {
+            esperasPendientes.get().add(espera);
+        }
+    }
+    
+    // Si falla, el cambio ya está aplicado en memoria pero no consta en disco: el llamador recibe la excepción
+    // y el diario queda marcado como fallido, así que las operaciones siguientes se rechazan al anotar
+    private void cumplirEsperas() {
+        List<Runnable> esperas = esperasPendientes.get();
+        if (esperas.isEmpty()) {
+            return;
+        }
+        List<Runnable> copia = new ArrayList<>(esperas);
+        esperas.clear();
+        for (Runnable espera : copia) {
+            espera.run();
+        }
+    }
+    
+    private boolean estaAlineada(LocalTime hora) {
+        return hora.getSecond() == 0 && hora.getNano() == 0
+            && (hora.getHour() * 60 + hora.getMinute()) % minutosPorSlot == 0;
+    }
+    
+    private void alCambiarEstadoCita(Cita cita, Cita.EstadoCita estadoAnterior) {
+        Cita.EstadoCita estadoNuevo = cita.getEstado();
+        int profesional = cita.getHandleProfesional();
+        AgendaProfesional agenda = agenda(profesional);
+        conCerrojo(profesional, () -> {
+            citasPorEstado.decrementAndGet(estadoAnterior.ordinal());
+            citasPorEstado.incrementAndGet(estadoNuevo.ordinal());
+            agenda.cambiarEstado(cita, estadoAnterior, estadoNuevo);
+            publicar(() -> EventoAgenda.cambioDeEstado(cita.getProfesionalId(), cita.getId(), estadoNuevo));
+            return null;
+        });
+    }
+    
+    // Los handles son consecutivos: tomarlos módulo el número de franjas ya reparte los profesionales
+    private <T> T conCerrojo(int profesional, Supplier<T> accion) {
+        ReentrantLock cerrojo = cerrojos[profesional & (cerrojos.length - 1)];
+        cerrojo.lock();
+        try {
+            return accion.get();
+        } finally {
+            cerrojo.unlock();
+            if (!cerrojo.isHeldByCurrentThread()) {
+                cumplirEsperas();
+            }
+        }
+    }
+    
     private void validarIdNoVacio(String id) {
         if (id == null || id.trim().isEmpty()) {
             throw new IllegalArgumentException("El ID del profesional no puede ser nulo o vacío");
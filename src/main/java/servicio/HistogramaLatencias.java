@@ -0,0 +1,84 @@
+package servicio;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Cubetas log-lineales fijas: 16 subdivisiones lineales por cada potencia de dos, error relativo menor al 6,25 %.
+// Registrar es un único incremento atómico, sin reservar memoria ni bloquear
+public class HistogramaLatencias {
+    private static final int BITS_SUBCUBETA = 4;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    static final int CUBETAS = (64 - BITS_SUBCUBETA) * SUBCUBETAS;
+    
+    private final AtomicLongArray cuentas = new AtomicLongArray(CUBETAS);
+    
+    public void registrar(long valor) {
+        cuentas.incrementAndGet(cubeta(Math.max(0, valor)));
+    }
+    
+    public long contar() {
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            total += cuentas.get(i);
+        }
+        return total;
+    }
+    
+    // Devuelve el límite superior de la cubeta que contiene el percentil: nunca subestima
+    public long percentil(double fraccion) {
+        if (fraccion < 0 || fraccion > 1) {
+            throw new IllegalArgumentException("La fracción debe estar entre 0 y 1");
+        }
+        long[] copia = new long[CUBETAS];
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = cuentas.get(i);
+            total += copia[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        
+        long rango = Math.max(1, (long) Math.ceil(fraccion * total));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= rango) {
+                return limiteSuperior(i);
+            }
+        }
+        return limiteSuperior(CUBETAS - 1);
+    }
+    
+    public long maximo() {
+        for (int i = CUBETAS - 1; i >= 0; i--) {
+            if (cuentas.get(i) > 0) {
+                return limiteSuperior(i);
+            }
+        }
+        return 0;
+    }
+    
+    public void reiniciar() {
+        for (int i = 0; i < CUBETAS; i++) {
+            cuentas.set(i, 0);
+        }
+    }
+    
+    static int cubeta(long valor) {
+        if (valor < SUBCUBETAS) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        int subcubeta = (int) (valor >>> (exponente - BITS_SUBCUBETA)) - SUBCUBETAS;
+        return ((exponente - BITS_SUBCUBETA + 1) << BITS_SUBCUBETA) | subcubeta;
+    }
+    
+    static long limiteSuperior(int cubeta) {
+        if (cubeta < SUBCUBETAS) {
+            return cubeta;
+        }
+        int exponente = (cubeta >>> BITS_SUBCUBETA) + BITS_SUBCUBETA - 1;
+        long inferior = (long) (SUBCUBETAS + (cubeta & (SUBCUBETAS - 1))) << (exponente - BITS_SUBCUBETA);
+        return inferior + (1L << (exponente - BITS_SUBCUBETA)) - 1;
+    }
+}
\ No newline at end of file
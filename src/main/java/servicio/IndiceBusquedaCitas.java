@@ -0,0 +1,158 @@
+package servicio;
+
+import modelo.Cita;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+// Índice de búsqueda sobre las posiciones del gestor: un bitmap por estado y listas de posiciones por token
+// del código, el nombre del profesional y el motivo. Un texto filtra por prefijos de token, todos a la vez.
+// Sincronizar y buscar se llaman desde un único hilo (el EDT); solo la cola de cambios recibe otros hilos
+public class IndiceBusquedaCitas implements OyenteAgenda {
+    private final GestorDisponibilidad gestor;
+    private final Function<String, String> nombreProfesional;
+    private final BitSet[] posicionesPorEstado;
+    private final NavigableMap<String, ListaPosiciones> posicionesPorToken;
+    private final Map<String, Integer> posicionPorCita;
+    private final Queue<String> cambiosPendientes;
+    private int indexadas;
+    
+    public IndiceBusquedaCitas(GestorDisponibilidad gestor, Function<String, String> nombreProfesional) {
+        if (gestor == null || nombreProfesional == null) {
+            throw new IllegalArgumentException("El gestor y los nombres de profesionales no pueden ser nulos");
+        }
+        this.gestor = gestor;
+        this.nombreProfesional = nombreProfesional;
+        this.posicionesPorEstado = new BitSet[Cita.EstadoCita.values().length];
+        for (int i = 0; i < posicionesPorEstado.length; i++) {
+            posicionesPorEstado[i] = new BitSet();
+        }
+        this.posicionesPorToken = new TreeMap<>();
+        this.posicionPorCita = new HashMap<>();
+        this.cambiosPendientes = new ConcurrentLinkedQueue<>();
+        this.indexadas = 0;
+    }
+    
+    @Override
+    public void eventoRegistrado(EventoAgenda evento) {
+        switch (evento.getTipo()) {
+            case CITA_CONFIRMADA:
+            case CITA_CANCELADA:
+            case CITA_COMPLETADA:
+                cambiosPendientes.add(evento.getCitaId());
+                break;
+            default:
+                break;
+        }
+    }
+    
+    // Indexa las citas agendadas desde la última vez y aplica los cambios de estado recibidos
+    public void sincronizar() {
+        int total = gestor.contarCitasIndexadas();
+        for (; indexadas < total; indexadas++) {
+            Cita cita = gestor.citaEnPosicion(indexadas);
+            posicionPorCita.put(cita.getId(), indexadas);
+            posicionesPorEstado[cita.getEstado().ordinal()].set(indexadas);
+            indexarTexto(cita.getId(), indexadas);
+            indexarTexto(nombreProfesional.apply(cita.getProfesionalId()), indexadas);
+            indexarTexto(cita.getMotivo(), indexadas);
+        }
+        
+        // El estado ya está aplicado cuando se publica el evento: basta con releerlo
+        String citaId;
+        while ((citaId = cambiosPendientes.poll()) != null) {
+            Integer posicion = posicionPorCita.get(citaId);
+            if (posicion != null) {
+                Cita.EstadoCita estado = gestor.citaEnPosicion(posicion).getEstado();
+                for (BitSet posiciones : posicionesPorEstado) {
+                    posiciones.clear(posicion);
+                }
+                posicionesPorEstado[estado.ordinal()].set(posicion);
+            }
+        }
+    }
+    
+    public int contarIndexadas() {
+        return indexadas;
+    }
+    
+    // Devuelve las posiciones en orden de alta; texto vacío y estado nulo no filtran
+    public int[] buscar(String texto, Cita.EstadoCita estado) {
+        BitSet resultado = null;
+        for (String prefijo : tokens(texto)) {
+            BitSet coincidencias = new BitSet(indexadas);
+            for (Map.Entry<String, ListaPosiciones> entrada : posicionesPorToken.tailMap(prefijo, true).entrySet()) {
+                if (!entrada.getKey().startsWith(prefijo)) {
+                    break;
+                }
+                entrada.getValue().marcarEn(coincidencias);
+            }
+            if (resultado == null) {
+                resultado = coincidencias;
+            } else {
+                resultado.and(coincidencias);
+            }
+        }
+        if (estado != null) {
+            if (resultado == null) {
+                resultado = (BitSet) posicionesPorEstado[estado.ordinal()].clone();
+            } else {
+                resultado.and(posicionesPorEstado[estado.ordinal()]);
+            }
+        }
+        if (resultado == null) {
+            int[] todas = new int[indexadas];
+            for (int i = 0; i < indexadas; i++) {
+                todas[i] = i;
+            }
+            return todas;
+        }
+        return resultado.stream().toArray();
+    }
+    
+    private void indexarTexto(String texto, int posicion) {
+        for (String token : tokens(texto)) {
+            posicionesPorToken.computeIfAbsent(token, clave -> new ListaPosiciones()).agregar(posicion);
+        }
+    }
+    
+    static List<String> tokens(String texto) {
+        List<String> tokens = new ArrayList<>();
+        if (texto == null) {
+            return tokens;
+        }
+        int inicio = -1;
+        for (int i = 0; i <= texto.length(); i++) {
+            boolean letraODigito = i < texto.length() && Character.isLetterOrDigit(texto.charAt(i));
+            if (letraODigito && inicio < 0) {
+                inicio = i;
+            } else if (!letraODigito && inicio >= 0) {
+                tokens.add(texto.substring(inicio, i).toLowerCase(Locale.ROOT));
+                inicio = -1;
+            }
+        }
+        return tokens;
+    }
+    
+    // Las posiciones llegan en orden creciente, así que la lista queda ordenada sin esfuerzo
+    private static final class ListaPosiciones {
+        private int[] posiciones = new int[2];
+        private int tamano;
+        
+        void agregar(int posicion) {
+            if (tamano > 0 && posiciones[tamano - 1] == posicion) {
+                return;
+            }
+            if (tamano == posiciones.length) {
+                posiciones = Arrays.copyOf(posiciones, tamano * 2);
+            }
+            posiciones[tamano++] = posicion;
+        }
+        
+        void marcarEn(BitSet destino) {
+            for (int i = 0; i < tamano; i++) {
+                destino.set(posiciones[i]);
+            }
+        }
+    }
+}
\ No newline at end of file
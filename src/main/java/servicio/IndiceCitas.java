@@ -0,0 +1,150 @@
+package servicio;
+
+import modelo.Cita;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ToIntFunction;
+
+// Citas en orden de alta, solo se anexa. Cada alta reserva su posición con un contador atómico y la publica
+// avanzando el tamaño volátil en orden, así que ni anexar ni leer por posición toman el monitor; este queda
+// solo para compactar. Una celda compactada queda vacía y guarda en su lugar la fila del archivo.
+// El bloque k tiene TAMANO_PRIMER_BLOQUE << k posiciones: el directorio es fijo y nunca se copia
+final class IndiceCitas implements Iterable<Cita> {
+    private static final int BITS_PRIMER_BLOQUE = 12;
+    private static final int TAMANO_PRIMER_BLOQUE = 1 << BITS_PRIMER_BLOQUE;
+    private static final int BLOQUES = 31 - BITS_PRIMER_BLOQUE;
+    
+    private final ArchivoCitas archivo;
+    private final AtomicReferenceArray<AtomicReferenceArray<Cita>> citas = new AtomicReferenceArray<>(BLOQUES);
+    private final AtomicReferenceArray<AtomicIntegerArray> filasArchivadas = new AtomicReferenceArray<>(BLOQUES);
+    private final AtomicInteger reservadas = new AtomicInteger();
+    private volatile int tamano;
+    
+    IndiceCitas(ArchivoCitas archivo) {
+        this.archivo = archivo;
+    }
+    
+    void agregar(Cita cita) {
+        int posicion = reservadas.getAndIncrement();
+        int bloque = bloqueDe(posicion);
+        bloqueDeCitas(bloque).lazySet(celdaDe(posicion, bloque), cita);
+        publicar(posicion);
+    }
+    
+    void agregarArchivada(int fila) {
+        int posicion = reservadas.getAndIncrement();
+        int bloque = bloqueDe(posicion);
+        bloqueDeFilas(bloque).lazySet(celdaDe(posicion, bloque), fila);
+        publicar(posicion);
+    }
+    
+    // Las posiciones se publican en orden: quien reservó después espera a que las anteriores estén escritas,
+    // que es solo el tiempo de guardar una referencia
+    private void publicar(int posicion) {
+        while (tamano != posicion) {
+            Thread.onSpinWait();
+        }
+        tamano = posicion + 1;
+    }
+    
+    // Vacía las celdas cuyas citas ya están en el archivo; filaDe devuelve -1 para las que siguen vivas
+    synchronized int compactar(ToIntFunction<Cita> filaDe) {
+        int compactadas = 0;
+        int total = tamano;
+        for (int posicion = 0; posicion < total; posicion++) {
+            int bloque = bloqueDe(posicion);
+            AtomicReferenceArray<Cita> deCitas = citas.get(bloque);
+            int celda = celdaDe(posicion, bloque);
+            Cita cita = deCitas == null ? null : deCitas.get(celda);
+            int fila = cita == null ? -1 : filaDe.applyAsInt(cita);
+            if (fila >= 0) {
+                // La fila se escribe antes de vaciar la celda: quien vea la celda vacía ya ve la fila
+                bloqueDeFilas(bloque).set(celda, fila);
+                deCitas.set(celda, null);
+                compactadas++;
+            }
+        }
+        return compactadas;
+    }
+    
+    int tamano() {
+        return tamano;
+    }
+    
+    Cita obtener(int posicion) {
+        if (posicion < 0 || posicion >= tamano) {
+            throw new IndexOutOfBoundsException("Posición fuera del índice de citas: " + posicion);
+        }
+        int bloque = bloqueDe(posicion);
+        int celda = celdaDe(posicion, bloque);
+        AtomicReferenceArray<Cita> deCitas = citas.get(bloque);
+        Cita cita = deCitas == null ? null : deCitas.get(celda);
+        if (cita != null) {
+            return cita;
+        }
+        return archivo.materializar(filasArchivadas.get(bloque).get(celda));
+    }
+    
+    private static int bloqueDe(int posicion) {
+        return 31 - Integer.numberOfLeadingZeros(posicion + TAMANO_PRIMER_BLOQUE) - BITS_PRIMER_BLOQUE;
+    }
+    
+    private static int celdaDe(int posicion, int bloque) {
+        return posicion + TAMANO_PRIMER_BLOQUE - (TAMANO_PRIMER_BLOQUE << bloque);
+    }
+    
+    // Si dos altas crean el mismo bloque a la vez gana una y la otra descarta el suyo
+    private AtomicReferenceArray<Cita> bloqueDeCitas(int bloque) {
+        AtomicReferenceArray<Cita> actual = citas.get(bloque);
+        if (actual == null) {
+            citas.compareAndSet(bloque, null, new AtomicReferenceArray<>(TAMANO_PRIMER_BLOQUE << bloque));
+            actual = citas.get(bloque);
+        }
+        return actual;
+    }
+    
+    private AtomicIntegerArray bloqueDeFilas(int bloque) {
+        AtomicIntegerArray actual = filasArchivadas.get(bloque);
+        if (actual == null) {
+            filasArchivadas.compareAndSet(bloque, null, new AtomicIntegerArray(TAMANO_PRIMER_BLOQUE << bloque));
+            actual = filasArchivadas.get(bloque);
+        }
+        return actual;
+    }
+    
+    List<Cita> copiar() {
+        int total = tamano;
+        List<Cita> copia = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            copia.add(obtener(i));
+        }
+        return copia;
+    }
+    
+    // Recorre las citas que había al crearlo; las que se agenden después no se ven
+    @Override
+    public Iterator<Cita> iterator() {
+        int total = tamano;
+        return new Iterator<>() {
+            private int siguiente;
+            
+            @Override
+            public boolean hasNext() {
+                return siguiente < total;
+            }
+            
+            @Override
+            public Cita next() {
+                if (siguiente >= total) {
+                    throw new NoSuchElementException();
+                }
+                return obtener(siguiente++);
+            }
+        };
+    }
+}
\ No newline at end of file
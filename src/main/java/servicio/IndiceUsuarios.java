@@ -0,0 +1,183 @@
+package servicio;
+
+import modelo.ObservadorUsuario;
+import modelo.Usuario;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+// Índice de trigramas sobre nombre, apellido, email y teléfono. Cada palabra se indexa con dos espacios
+// delante y uno detrás, así una consulta de una o dos letras usa los trigramas de inicio de palabra.
+// Buscar cuenta, por usuario, cuántos trigramas distintos de la consulta contiene: puede faltar hasta un
+// tercio, lo que tolera erratas, y se devuelven los mejores ordenados por coincidencias y orden de alta
+public class IndiceUsuarios implements ObservadorUsuario {
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    
+    private final List<Usuario> usuarios = new ArrayList<>();
+    private final List<String> textosIndexados = new ArrayList<>();
+    private final Map<String, Integer> posicionPorId = new HashMap<>();
+    private final Map<Long, ListaPosiciones> posicionesPorTrigrama = new HashMap<>();
+    private int[] puntos = new int[0];
+    
+    public synchronized boolean agregar(Usuario usuario) {
+        if (usuario == null) {
+            throw new IllegalArgumentException("El usuario no puede ser nulo");
+        }
+        int posicion = usuarios.size();
+        if (posicionPorId.putIfAbsent(usuario.getId(), posicion) != null) {
+            return false;
+        }
+        String texto = textoIndexable(usuario);
+        usuarios.add(usuario);
+        textosIndexados.add(texto);
+        for (long trigrama : trigramas(texto, true)) {
+            posicionesPorTrigrama.computeIfAbsent(trigrama, clave -> new ListaPosiciones()).agregar(posicion);
+        }
+        usuario.setObservador(this);
+        return true;
+    }
+    
+    // Solo se tocan las listas de los trigramas que aparecen o desaparecen con el cambio
+    @Override
+    public synchronized void datosCambiados(Usuario usuario) {
+        Integer posicion = posicionPorId.get(usuario.getId());
+        if (posicion == null || usuarios.get(posicion) != usuario) {
+            return;
+        }
+        String nuevo = textoIndexable(usuario);
+        Set<Long> antes = trigramas(textosIndexados.get(posicion), true);
+        Set<Long> despues = trigramas(nuevo, true);
+        for (long trigrama : antes) {
+            if (!despues.contains(trigrama)) {
+                ListaPosiciones lista = posicionesPorTrigrama.get(trigrama);
+                lista.quitar(posicion);
+                if (lista.estaVacia()) {
+                    posicionesPorTrigrama.remove(trigrama);
+                }
+            }
+        }
+        for (long trigrama : despues) {
+            if (!antes.contains(trigrama)) {
+                posicionesPorTrigrama.computeIfAbsent(trigrama, clave -> new ListaPosiciones()).agregar(posicion);
+            }
+        }
+        textosIndexados.set(posicion, nuevo);
+    }
+    
+    public synchronized int contar() {
+        return usuarios.size();
+    }
+    
+    public synchronized int contarTrigramas() {
+        return posicionesPorTrigrama.size();
+    }
+    
+    public synchronized List<Usuario> todos() {
+        return new ArrayList<>(usuarios);
+    }
+    
+    public synchronized List<Usuario> buscar(String consulta, int maximo) {
+        if (maximo <= 0) {
+            throw new IllegalArgumentException("El máximo de resultados debe ser positivo");
+        }
+        Set<Long> buscados = trigramas(consulta, false);
+        if (buscados.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        int total = usuarios.size();
+        if (puntos.length < total) {
+            puntos = new int[total];
+        }
+        for (long trigrama : buscados) {
+            ListaPosiciones lista = posicionesPorTrigrama.get(trigrama);
+            if (lista != null) {
+                for (int i = 0; i < lista.tamano; i++) {
+                    puntos[lista.posiciones[i]]++;
+                }
+            }
+        }
+        
+        // Las puntuaciones no pasan del número de trigramas buscados: con un histograma se halla la nota de
+        // corte de los k mejores y un recorrido en orden de alta los recoge sin ordenar a todos los candidatos
+        int minimo = buscados.size() - buscados.size() / 3;
+        int[] porPuntuacion = new int[buscados.size() + 1];
+        for (int posicion = 0; posicion < total; posicion++) {
+            porPuntuacion[puntos[posicion]]++;
+        }
+        int corte = buscados.size();
+        int porEncima = 0;
+        while (corte > minimo && porEncima + porPuntuacion[corte] < maximo) {
+            porEncima += porPuntuacion[corte];
+            corte--;
+        }
+        int cupoEnCorte = maximo - porEncima;
+        
+        List<Integer> elegidas = new ArrayList<>(Math.min(maximo, total));
+        for (int posicion = 0; posicion < total; posicion++) {
+            if (puntos[posicion] > corte || (puntos[posicion] == corte && cupoEnCorte-- > 0)) {
+                elegidas.add(posicion);
+            }
+        }
+        int[] puntosBusqueda = puntos;
+        elegidas.sort(Comparator.comparingInt(posicion -> -puntosBusqueda[posicion]));
+        List<Usuario> resultado = new ArrayList<>(elegidas.size());
+        for (int posicion : elegidas) {
+            resultado.add(usuarios.get(posicion));
+        }
+        Arrays.fill(puntos, 0, total, 0);
+        return resultado;
+    }
+    
+    private static String textoIndexable(Usuario usuario) {
+        String telefono = usuario.getTelefono() == null ? "" : usuario.getTelefono().replaceAll("\\D", "");
+        return usuario.getNombre() + " " + usuario.getApellido() + " " + usuario.getEmail() + " " + telefono;
+    }
+    
+    // En el índice cada palabra cierra con un espacio; en la consulta no, porque puede estar a medio escribir
+    static Set<Long> trigramas(String texto, boolean cerrarPalabras) {
+        Set<Long> trigramas = new HashSet<>();
+        if (texto == null) {
+            return trigramas;
+        }
+        String normalizado = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("")
+            .toLowerCase(Locale.ROOT);
+        for (String palabra : normalizado.split("[^\\p{L}\\p{N}]+")) {
+            if (palabra.isEmpty()) {
+                continue;
+            }
+            String rodeada = "  " + palabra + (cerrarPalabras ? " " : "");
+            for (int i = 0; i + 3 <= rodeada.length(); i++) {
+                trigramas.add(((long) rodeada.charAt(i) << 32) | ((long) rodeada.charAt(i + 1) << 16)
+                    | rodeada.charAt(i + 2));
+            }
+        }
+        return trigramas;
+    }
+    
+    private static final class ListaPosiciones {
+        private int[] posiciones = new int[2];
+        private int tamano;
+        
+        void agregar(int posicion) {
+            if (tamano == posiciones.length) {
+                posiciones = Arrays.copyOf(posiciones, tamano * 2);
+            }
+            posiciones[tamano++] = posicion;
+        }
+        
+        // El orden no importa: se rellena el hueco con la última
+        void quitar(int posicion) {
+            for (int i = 0; i < tamano; i++) {
+                if (posiciones[i] == posicion) {
+                    posiciones[i] = posiciones[--tamano];
+                    return;
+                }
+            }
+        }
+        
+        boolean estaVacia() {
+            return tamano == 0;
+        }
+    }
+}
\ No newline at end of file
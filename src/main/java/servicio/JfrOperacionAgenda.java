@@ -0,0 +1,37 @@
+package servicio;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Un único tipo de evento para las operaciones del gestor; el campo operacion permite filtrarlas en JMC
+@Name("citas.OperacionAgenda")
+@Label("Operación de agenda")
+@Description("Consulta, reserva, cancelación o carga masiva sobre GestorDisponibilidad")
+@Category({"Citas", "Agenda"})
+@StackTrace(false)
+final class JfrOperacionAgenda extends jdk.jfr.Event {
+    static final String CONSULTA = "consultarDisponibilidad";
+    static final String RESERVA = "agendarCita";
+    static final String RESERVA_EN_LOTE = "agendarCitas";
+    static final String CANCELACION = "cancelarCita";
+    static final String CARGA_MASIVA = "cargarCitas";
+    
+    @Label("Operación")
+    String operacion;
+    
+    @Label("Profesional")
+    String profesionalId;
+    
+    @Label("Cita")
+    String citaId;
+    
+    @Label("Slots revisados")
+    @Description("Slots del día recorridos en una consulta o citas procesadas en un lote")
+    int slotsRevisados;
+    
+    @Label("Resultado")
+    String resultado;
+}
\ No newline at end of file
@@ -0,0 +1,184 @@
+package servicio;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class MetricasAgenda implements MetricasAgendaMBean {
+    private static final double NANOS_POR_MICRO = 1_000.0;
+    
+    private final LongAdder[] reservasPorResultado;
+    private final LongAdder consultas = new LongAdder();
+    private final LongAdder cancelaciones = new LongAdder();
+    private final HistogramaLatencias agendar = new HistogramaLatencias();
+    private final HistogramaLatencias consultar = new HistogramaLatencias();
+    private final HistogramaLatencias cancelar = new HistogramaLatencias();
+    
+    public MetricasAgenda() {
+        reservasPorResultado = new LongAdder[ResultadoReserva.values().length];
+        for (int i = 0; i < reservasPorResultado.length; i++) {
+            reservasPorResultado[i] = new LongAdder();
+        }
+    }
+    
+    public ObjectName registrarEnPlataforma(String nombre) throws JMException {
+        ObjectName objeto = new ObjectName("citas:type=MetricasAgenda,name=" + ObjectName.quote(nombre));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objeto);
+        return objeto;
+    }
+    
+    public static void retirarDePlataforma(ObjectName objeto) throws JMException {
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        if (servidor.isRegistered(objeto)) {
+            servidor.unregisterMBean(objeto);
+        }
+    }
+    
+    void contarReserva(ResultadoReserva resultado) {
+        reservasPorResultado[resultado.ordinal()].increment();
+    }
+    
+    void registrarReserva(ResultadoReserva resultado, long nanos) {
+        contarReserva(resultado);
+        agendar.registrar(nanos);
+    }
+    
+    void registrarConsulta(long nanos) {
+        consultas.increment();
+        consultar.registrar(nanos);
+    }
+    
+    void registrarCancelacion(long nanos) {
+        cancelaciones.increment();
+        cancelar.registrar(nanos);
+    }
+    
+    public HistogramaLatencias getHistogramaAgendar() {
+        return agendar;
+    }
+    
+    public HistogramaLatencias getHistogramaConsultar() {
+        return consultar;
+    }
+    
+    public HistogramaLatencias getHistogramaCancelar() {
+        return cancelar;
+    }
+    
+    @Override
+    public long getReservasAgendadas() {
+        return reservas(ResultadoReserva.AGENDADA);
+    }
+    
+    @Override
+    public long getReservasHorarioOcupado() {
+        return reservas(ResultadoReserva.HORARIO_OCUPADO);
+    }
+    
+    @Override
+    public long getReservasEnConflicto() {
+        return reservas(ResultadoReserva.CONFLICTO);
+    }
+    
+    @Override
+    public long getReservasNoConfiguradas() {
+        return reservas(ResultadoReserva.NO_CONFIGURADO);
+    }
+    
+    @Override
+    public long getReservasIdDuplicado() {
+        return reservas(ResultadoReserva.ID_DUPLICADO);
+    }
+    
+    @Override
+    public long getConsultas() {
+        return consultas.sum();
+    }
+    
+    @Override
+    public long getCancelaciones() {
+        return cancelaciones.sum();
+    }
+    
+    @Override
+    public double getAgendarCitaP50Micros() {
+        return micros(agendar.percentil(0.50));
+    }
+    
+    @Override
+    public double getAgendarCitaP99Micros() {
+        return micros(agendar.percentil(0.99));
+    }
+    
+    @Override
+    public double getAgendarCitaP999Micros() {
+        return micros(agendar.percentil(0.999));
+    }
+    
+    @Override
+    public double getAgendarCitaMaxMicros() {
+        return micros(agendar.maximo());
+    }
+    
+    @Override
+    public double getConsultarDisponibilidadP50Micros() {
+        return micros(consultar.percentil(0.50));
+    }
+    
+    @Override
+    public double getConsultarDisponibilidadP99Micros() {
+        return micros(consultar.percentil(0.99));
+    }
+    
+    @Override
+    public double getConsultarDisponibilidadP999Micros() {
+        return micros(consultar.percentil(0.999));
+    }
+    
+    @Override
+    public double getConsultarDisponibilidadMaxMicros() {
+        return micros(consultar.maximo());
+    }
+    
+    @Override
+    public double getCancelarCitaP50Micros() {
+        return micros(cancelar.percentil(0.50));
+    }
+    
+    @Override
+    public double getCancelarCitaP99Micros() {
+        return micros(cancelar.percentil(0.99));
+    }
+    
+    @Override
+    public double getCancelarCitaP999Micros() {
+        return micros(cancelar.percentil(0.999));
+    }
+    
+    @Override
+    public double getCancelarCitaMaxMicros() {
+        return micros(cancelar.maximo());
+    }
+    
+    @Override
+    public void reiniciar() {
+        for (LongAdder contador : reservasPorResultado) {
+            contador.reset();
+        }
+        consultas.reset();
+        cancelaciones.reset();
+        agendar.reiniciar();
+        consultar.reiniciar();
+        cancelar.reiniciar();
+    }
+    
+    private long reservas(ResultadoReserva resultado) {
+        return reservasPorResultado[resultado.ordinal()].sum();
+    }
+    
+    private static double micros(long nanos) {
+        return nanos / NANOS_POR_MICRO;
+    }
+}
\ No newline at end of file
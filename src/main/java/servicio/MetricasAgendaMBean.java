@@ -0,0 +1,43 @@
+package servicio;
+
+public interface MetricasAgendaMBean {
+    long getReservasAgendadas();
+    
+    long getReservasHorarioOcupado();
+    
+    long getReservasEnConflicto();
+    
+    long getReservasNoConfiguradas();
+    
+    long getReservasIdDuplicado();
+    
+    long getConsultas();
+    
+    long getCancelaciones();
+    
+    double getAgendarCitaP50Micros();
+    
+    double getAgendarCitaP99Micros();
+    
+    double getAgendarCitaP999Micros();
+    
+    double getAgendarCitaMaxMicros();
+    
+    double getConsultarDisponibilidadP50Micros();
+    
+    double getConsultarDisponibilidadP99Micros();
+    
+    double getConsultarDisponibilidadP999Micros();
+    
+    double getConsultarDisponibilidadMaxMicros();
+    
+    double getCancelarCitaP50Micros();
+    
+    double getCancelarCitaP99Micros();
+    
+    double getCancelarCitaP999Micros();
+    
+    double getCancelarCitaMaxMicros();
+    
+    void reiniciar();
+}
\ No newline at end of file
@@ -0,0 +1,27 @@
+package servicio;
+
+import java.util.List;
+
+public interface OyenteAgenda {
+    Runnable SIN_ESPERA = () -> { };
+    
+    void eventoRegistrado(EventoAgenda evento);
+    
+    default void eventosRegistrados(List<EventoAgenda> eventos) {
+        for (EventoAgenda evento : eventos) {
+            eventoRegistrado(evento);
+        }
+    }
+    
+    // El gestor anota bajo el cerrojo del profesional y ejecuta la espera devuelta ya sin él, para que un
+    // fsync no bloquee al resto de la franja. Por defecto el evento se registra entero y no queda nada que esperar
+    default Runnable anotar(EventoAgenda evento) {
+        eventoRegistrado(evento);
+        return SIN_ESPERA;
+    }
+    
+    default Runnable anotarLote(List<EventoAgenda> eventos) {
+        eventosRegistrados(eventos);
+        return SIN_ESPERA;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,36 @@
+package servicio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Cada cadena distinta se guarda una vez y se referencia por su posición. Internar y obtener van bajo el
+// monitor del dueño; buscar se puede llamar sin él
+final class PoolCadenas {
+    private final Map<String, Integer> posiciones = new ConcurrentHashMap<>();
+    private final List<String> cadenas = new ArrayList<>();
+    
+    int internar(String cadena) {
+        Integer posicion = posiciones.get(cadena);
+        if (posicion != null) {
+            return posicion;
+        }
+        cadenas.add(cadena);
+        posiciones.put(cadena, cadenas.size() - 1);
+        return cadenas.size() - 1;
+    }
+    
+    int buscar(String cadena) {
+        Integer posicion = posiciones.get(cadena);
+        return posicion == null ? -1 : posicion;
+    }
+    
+    String obtener(int posicion) {
+        return cadenas.get(posicion);
+    }
+    
+    int tamano() {
+        return cadenas.size();
+    }
+}
\ No newline at end of file
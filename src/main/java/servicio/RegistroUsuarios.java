@@ -0,0 +1,89 @@
+package servicio;
+
+import modelo.ObservadorUsuario;
+import modelo.Usuario;
+import java.util.*;
+
+// Usuarios por id con índices secundarios por rol, partidos en activos e inactivos: listar los médicos
+// activos recorre solo esos médicos. Observa a cada usuario para mover su entrada cuando cambia de rol o
+// de estado y reenvía los cambios de datos al índice de texto
+public class RegistroUsuarios implements ObservadorUsuario {
+    private final Map<String, Usuario> usuarios = new HashMap<>();
+    private final Map<Usuario.TipoUsuario, Map<String, Usuario>> activosPorTipo =
+        new EnumMap<>(Usuario.TipoUsuario.class);
+    private final Map<Usuario.TipoUsuario, Map<String, Usuario>> inactivosPorTipo =
+        new EnumMap<>(Usuario.TipoUsuario.class);
+    private final IndiceUsuarios indiceTexto = new IndiceUsuarios();
+    
+    public RegistroUsuarios() {
+        for (Usuario.TipoUsuario tipo : Usuario.TipoUsuario.values()) {
+            activosPorTipo.put(tipo, new LinkedHashMap<>());
+            inactivosPorTipo.put(tipo, new LinkedHashMap<>());
+        }
+    }
+    
+    public synchronized boolean registrar(Usuario usuario) {
+        if (usuario == null) {
+            throw new IllegalArgumentException("El usuario no puede ser nulo");
+        }
+        if (usuarios.putIfAbsent(usuario.getId(), usuario) != null) {
+            return false;
+        }
+        particion(usuario.getTipo(), usuario.isActivo()).put(usuario.getId(), usuario);
+        indiceTexto.agregar(usuario);
+        usuario.setObservador(this);
+        return true;
+    }
+    
+    public synchronized Usuario buscarPorId(String id) {
+        return usuarios.get(id);
+    }
+    
+    public synchronized boolean contiene(String id) {
+        return usuarios.containsKey(id);
+    }
+    
+    public synchronized int contar() {
+        return usuarios.size();
+    }
+    
+    public synchronized int contar(Usuario.TipoUsuario tipo, boolean activos) {
+        return particion(tipo, activos).size();
+    }
+    
+    public synchronized List<Usuario> listar(Usuario.TipoUsuario tipo, boolean activos) {
+        return new ArrayList<>(particion(tipo, activos).values());
+    }
+    
+    // En orden de alta
+    public List<Usuario> todos() {
+        return indiceTexto.todos();
+    }
+    
+    public List<Usuario> buscar(String consulta, int maximo) {
+        return indiceTexto.buscar(consulta, maximo);
+    }
+    
+    @Override
+    public synchronized void datosCambiados(Usuario usuario) {
+        if (usuarios.get(usuario.getId()) == usuario) {
+            indiceTexto.datosCambiados(usuario);
+        }
+    }
+    
+    @Override
+    public synchronized void rolCambiado(Usuario usuario, Usuario.TipoUsuario tipoAnterior, boolean activoAnterior) {
+        if (usuarios.get(usuario.getId()) != usuario) {
+            return;
+        }
+        particion(tipoAnterior, activoAnterior).remove(usuario.getId());
+        particion(usuario.getTipo(), usuario.isActivo()).put(usuario.getId(), usuario);
+    }
+    
+    private Map<String, Usuario> particion(Usuario.TipoUsuario tipo, boolean activos) {
+        if (tipo == null) {
+            throw new IllegalArgumentException("El tipo de usuario no puede ser nulo");
+        }
+        return (activos ? activosPorTipo : inactivosPorTipo).get(tipo);
+    }
+}
\ No newline at end of file
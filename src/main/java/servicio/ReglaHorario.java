@@ -0,0 +1,120 @@
+package servicio;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+public class ReglaHorario {
+    private final Set<DayOfWeek> diasSemana;
+    private final LocalTime inicio;
+    private final LocalTime fin;
+    private final LocalDate desde;
+    private final LocalDate hasta;
+    private final Set<LocalDate> excepciones;
+    
+    public ReglaHorario(Set<DayOfWeek> diasSemana, LocalTime inicio, LocalTime fin,
+                        LocalDate desde, LocalDate hasta) {
+        this(diasSemana, inicio, fin, desde, hasta, Collections.emptySet());
+    }
+    
+    public ReglaHorario(Set<DayOfWeek> diasSemana, LocalTime inicio, LocalTime fin,
+                        LocalDate desde, LocalDate hasta, Set<LocalDate> excepciones) {
+        if (diasSemana == null || diasSemana.isEmpty()) {
+            throw new IllegalArgumentException("Los días de la semana no pueden ser nulos o vacíos");
+        }
+        if (inicio == null || fin == null || fin.isBefore(inicio)) {
+            throw new IllegalArgumentException("La franja horaria no es válida");
+        }
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("El rango de fechas no es válido");
+        }
+        this.diasSemana = Collections.unmodifiableSet(EnumSet.copyOf(diasSemana));
+        this.inicio = inicio;
+        this.fin = fin;
+        this.desde = desde;
+        this.hasta = hasta;
+        this.excepciones = excepciones == null ? Collections.emptySet()
+            : Collections.unmodifiableSet(new HashSet<>(excepciones));
+    }
+    
+    public boolean aplicaA(LocalDate fecha) {
+        return !fecha.isBefore(desde) && !fecha.isAfter(hasta)
+            && diasSemana.contains(fecha.getDayOfWeek())
+            && !excepciones.contains(fecha);
+    }
+    
+    public boolean seSolapaCon(ReglaHorario otra) {
+        return !inicio.isAfter(otra.fin) && !otra.inicio.isAfter(fin)
+            && !desde.isAfter(otra.hasta) && !otra.desde.isAfter(hasta)
+            && !Collections.disjoint(diasSemana, otra.diasSemana);
+    }
+    
+    public List<LocalDateTime> horariosDelDia(LocalDate fecha, int minutosPorSlot) {
+        List<LocalDateTime> horarios = new ArrayList<>();
+        if (!aplicaA(fecha)) {
+            return horarios;
+        }
+        for (LocalTime hora = inicio; !hora.isAfter(fin); hora = hora.plusMinutes(minutosPorSlot)) {
+            horarios.add(fecha.atTime(hora));
+            if (hora.plusMinutes(minutosPorSlot).isBefore(hora)) {
+                break;
+            }
+        }
+        return horarios;
+    }
+    
+    public int slotsPorDia(int minutosPorSlot) {
+        return (int) (ChronoUnit.MINUTES.between(inicio, fin) / minutosPorSlot) + 1;
+    }
+    
+    public long contarDiasAplicables() {
+        long totalDias = ChronoUnit.DAYS.between(desde, hasta) + 1;
+        long dias = (totalDias / 7) * diasSemana.size();
+        LocalDate fecha = desde.plusDays((totalDias / 7) * 7);
+        for (; !fecha.isAfter(hasta); fecha = fecha.plusDays(1)) {
+            if (diasSemana.contains(fecha.getDayOfWeek())) {
+                dias++;
+            }
+        }
+        for (LocalDate excepcion : excepciones) {
+            if (!excepcion.isBefore(desde) && !excepcion.isAfter(hasta)
+                    && diasSemana.contains(excepcion.getDayOfWeek())) {
+                dias--;
+            }
+        }
+        return dias;
+    }
+    
+    public Set<DayOfWeek> getDiasSemana() {
+        return diasSemana;
+    }
+    
+    public LocalTime getInicio() {
+        return inicio;
+    }
+    
+    public LocalTime getFin() {
+        return fin;
+    }
+    
+    public LocalDate getDesde() {
+        return desde;
+    }
+    
+    public LocalDate getHasta() {
+        return hasta;
+    }
+    
+    public Set<LocalDate> getExcepciones() {
+        return excepciones;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("ReglaHorario{dias=%s, franja=%s-%s, vigencia=%s..%s, excepciones=%d}",
+                           diasSemana, inicio, fin, desde, hasta, excepciones.size());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,9 @@
+package servicio;
+
+public enum ResultadoReserva {
+    AGENDADA,
+    HORARIO_OCUPADO,
+    CONFLICTO,
+    NO_CONFIGURADO,
+    ID_DUPLICADO
+}
\ No newline at end of file
@@ -0,0 +1,324 @@
+package servidor;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import modelo.Cita;
+import servicio.GestorDisponibilidad;
+import servicio.ResultadoReserva;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Expone el gestor por HTTP; cada petición se atiende en un hilo del pool y el bloqueo por profesional
+// lo resuelve el propio gestor
+public class ServidorReservas implements Closeable {
+    public static final int HILOS_POR_DEFECTO = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+    private static final int COLA_DE_CONEXIONES = 1024;
+    private static final String PREFIJO_ID = "WEB-";
+    
+    private final GestorDisponibilidad gestor;
+    private final HttpServer servidor;
+    private final ExecutorService ejecutor;
+    private final AtomicLong secuencia;
+    
+    private ServidorReservas(GestorDisponibilidad gestor, HttpServer servidor, ExecutorService ejecutor) {
+        this.gestor = gestor;
+        this.servidor = servidor;
+        this.ejecutor = ejecutor;
+        this.secuencia = new AtomicLong(gestor.contarCitas());
+    }
+    
+    public static ServidorReservas iniciar(GestorDisponibilidad gestor, InetSocketAddress direccion,
+                                           int hilos) throws IOException {
+        if (gestor == null || direccion == null) {
+            throw new IllegalArgumentException("El gestor y la dirección no pueden ser nulos");
+        }
+        if (hilos <= 0) {
+            throw new IllegalArgumentException("El número de hilos debe ser positivo");
+        }
+        
+        AtomicInteger contador = new AtomicInteger();
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, "servidor-reservas-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        HttpServer servidor;
+        try {
+            servidor = HttpServer.create(direccion, COLA_DE_CONEXIONES);
+        } catch (IOException e) {
+            ejecutor.shutdown();
+            throw e;
+        }
+        
+        ServidorReservas reservas = new ServidorReservas(gestor, servidor, ejecutor);
+        servidor.createContext("/disponibilidad", intercambio -> reservas.atender(intercambio, "GET",
+            reservas::disponibilidad));
+        servidor.createContext("/citas", reservas::citas);
+        servidor.createContext("/estadisticas", intercambio -> reservas.atender(intercambio, "GET",
+            reservas::estadisticas));
+        servidor.setExecutor(ejecutor);
+        servidor.start();
+        return reservas;
+    }
+    
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+    
+    @Override
+    public void close() {
+        servidor.stop(0);
+        ejecutor.shutdown();
+        try {
+            ejecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private interface Manejador {
+        Respuesta manejar(HttpExchange intercambio) throws IOException;
+    }
+    
+    private static final class Respuesta {
+        private final int codigo;
+        private final String cuerpo;
+        
+        Respuesta(int codigo, String cuerpo) {
+            this.codigo = codigo;
+            this.cuerpo = cuerpo;
+        }
+    }
+    
+    private void citas(HttpExchange intercambio) throws IOException {
+        String id = intercambio.getRequestURI().getPath().substring("/citas".length());
+        if (id.isEmpty() || id.equals("/")) {
+            atender(intercambio, "POST", this::agendar);
+            return;
+        }
+        String citaId = URLDecoder.decode(id.substring(1), StandardCharsets.UTF_8);
+        if (intercambio.getRequestMethod().equals("DELETE")) {
+            atender(intercambio, "DELETE", ignorado -> cancelar(citaId));
+        } else {
+            atender(intercambio, "GET", ignorado -> consultarCita(citaId));
+        }
+    }
+    
+    private void atender(HttpExchange intercambio, String metodo, Manejador manejador) throws IOException {
+        Respuesta respuesta;
+        try {
+            if (!esRutaDelContexto(intercambio)) {
+                respuesta = error(404, "Recurso no encontrado");
+            } else if (!intercambio.getRequestMethod().equals(metodo)) {
+                intercambio.getResponseHeaders().set("Allow", metodo);
+                respuesta = error(405, "Método no permitido");
+            } else {
+                respuesta = manejador.manejar(intercambio);
+            }
+        } catch (IllegalArgumentException | DateTimeException e) {
+            respuesta = error(400, e.getMessage());
+        } catch (IllegalStateException e) {
+            respuesta = error(409, e.getMessage());
+        } catch (UncheckedIOException e) {
+            respuesta = error(503, "No se pudo registrar la operación: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // Sin respuesta el cliente esperaría hasta agotar su tiempo de espera; el detalle solo va al registro
+            System.err.println("Error interno en " + intercambio.getRequestMethod() + " "
+                + intercambio.getRequestURI().getPath() + ": " + e);
+            e.printStackTrace();
+            respuesta = error(500, "Error interno");
+        }
+        
+        byte[] cuerpo = respuesta.cuerpo.getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        intercambio.sendResponseHeaders(respuesta.codigo, cuerpo.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(cuerpo);
+        }
+    }
+    
+    // HttpServer elige el contexto por prefijo de texto: "/citasXYZ" llegaría al de "/citas" sin esta comprobación
+    private static boolean esRutaDelContexto(HttpExchange intercambio) {
+        String ruta = intercambio.getRequestURI().getPath();
+        String contexto = intercambio.getHttpContext().getPath();
+        return ruta.equals(contexto) || ruta.startsWith(contexto + "/");
+    }
+    
+    private Respuesta disponibilidad(HttpExchange intercambio) throws IOException {
+        Map<String, String> parametros = parametros(intercambio);
+        String profesional = obligatorio(parametros, "profesional");
+        String fechaHora = parametros.get("fechaHora");
+        if (fechaHora != null) {
+            boolean disponible = gestor.estaDisponible(profesional, LocalDateTime.parse(fechaHora));
+            return new Respuesta(200, new Json().campo("profesional", profesional).campo("fechaHora", fechaHora)
+                .campo("disponible", disponible).cerrar());
+        }
+        
+        LocalDate fecha = LocalDate.parse(obligatorio(parametros, "fecha"));
+        List<LocalDateTime> horarios = gestor.consultarDisponibilidad(profesional, fecha.atStartOfDay());
+        return new Respuesta(200, new Json().campo("profesional", profesional).campo("fecha", fecha.toString())
+            .lista("horarios", horarios).cerrar());
+    }
+    
+    private Respuesta agendar(HttpExchange intercambio) throws IOException {
+        Map<String, String> parametros = parametros(intercambio);
+        String idSolicitado = parametros.get("id");
+        while (true) {
+            String id = idSolicitado != null ? idSolicitado : PREFIJO_ID + secuencia.incrementAndGet();
+            Cita cita = new Cita(id, obligatorio(parametros, "paciente"), obligatorio(parametros, "profesional"),
+                LocalDateTime.parse(obligatorio(parametros, "fechaHora")), obligatorio(parametros, "tipo"));
+            cita.setMotivo(parametros.get("motivo"));
+            
+            ResultadoReserva resultado = gestor.reservarCita(cita);
+            // Un id generado puede coincidir con uno importado o recuperado: se prueba el siguiente
+            if (resultado == ResultadoReserva.ID_DUPLICADO && idSolicitado == null) {
+                continue;
+            }
+            Json json = new Json().campo("resultado", resultado.name());
+            if (resultado == ResultadoReserva.AGENDADA) {
+                return new Respuesta(201, json.campo("id", id).cerrar());
+            }
+            return new Respuesta(409, json.cerrar());
+        }
+    }
+    
+    private Respuesta consultarCita(String citaId) {
+        Cita cita = gestor.buscarCita(citaId);
+        if (cita == null) {
+            return error(404, "Cita no encontrada: " + citaId);
+        }
+        return new Respuesta(200, new Json().campo("id", cita.getId()).campo("paciente", cita.getPacienteId())
+            .campo("profesional", cita.getProfesionalId()).campo("fechaHora", cita.getFechaHora().toString())
+            .campo("tipo", cita.getTipo()).campo("motivo", cita.getMotivo())
+            .campo("estado", cita.getEstado().name()).cerrar());
+    }
+    
+    private Respuesta cancelar(String citaId) {
+        if (!gestor.cancelarCita(citaId)) {
+            return error(404, "Cita no encontrada: " + citaId);
+        }
+        return new Respuesta(200, new Json().campo("id", citaId)
+            .campo("estado", Cita.EstadoCita.CANCELADA.name()).cerrar());
+    }
+    
+    private Respuesta estadisticas(HttpExchange intercambio) throws IOException {
+        String profesional = parametros(intercambio).get("profesional");
+        Json json = new Json();
+        if (profesional != null) {
+            json.campo("profesional", profesional);
+            new TreeMap<>(gestor.obtenerEstadisticasDisponibilidad(profesional)).forEach(json::campo);
+        } else {
+            json.campo("totalCitas", gestor.contarCitas());
+            gestor.obtenerConteoPorEstado().forEach((estado, total) -> json.campo(estado.name(), total));
+        }
+        return new Respuesta(200, json.cerrar());
+    }
+    
+    private static Respuesta error(int codigo, String mensaje) {
+        return new Respuesta(codigo, new Json().campo("error", mensaje).cerrar());
+    }
+    
+    // Junta los parámetros de la URL y, en un POST, los del cuerpo application/x-www-form-urlencoded
+    private static Map<String, String> parametros(HttpExchange intercambio) throws IOException {
+        Map<String, String> parametros = new HashMap<>();
+        leerParametros(intercambio.getRequestURI().getRawQuery(), parametros);
+        if (intercambio.getRequestMethod().equals("POST")) {
+            try (InputStream entrada = intercambio.getRequestBody()) {
+                leerParametros(new String(entrada.readAllBytes(), StandardCharsets.UTF_8), parametros);
+            }
+        }
+        return parametros;
+    }
+    
+    private static void leerParametros(String texto, Map<String, String> parametros) {
+        if (texto == null || texto.isEmpty()) {
+            return;
+        }
+        for (String par : texto.split("&")) {
+            int igual = par.indexOf('=');
+            String clave = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            parametros.put(URLDecoder.decode(clave, StandardCharsets.UTF_8),
+                           URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+    }
+    
+    private static String obligatorio(Map<String, String> parametros, String nombre) {
+        String valor = parametros.get(nombre);
+        if (valor == null || valor.isBlank()) {
+            throw new IllegalArgumentException("Falta el parámetro " + nombre);
+        }
+        return valor;
+    }
+    
+    private static final class Json {
+        private final StringBuilder texto = new StringBuilder("{");
+        
+        Json campo(String nombre, Object valor) {
+            clave(nombre);
+            if (valor == null) {
+                texto.append("null");
+            } else if (valor instanceof Boolean || valor instanceof Number) {
+                texto.append(valor);
+            } else {
+                cadena(valor.toString());
+            }
+            return this;
+        }
+        
+        Json lista(String nombre, List<?> valores) {
+            clave(nombre);
+            texto.append('[');
+            for (int i = 0; i < valores.size(); i++) {
+                if (i > 0) {
+                    texto.append(',');
+                }
+                cadena(valores.get(i).toString());
+            }
+            texto.append(']');
+            return this;
+        }
+        
+        String cerrar() {
+            return texto.append('}').toString();
+        }
+        
+        private void clave(String nombre) {
+            if (texto.length() > 1) {
+                texto.append(',');
+            }
+            cadena(nombre);
+            texto.append(':');
+        }
+        
+        private void cadena(String valor) {
+            texto.append('"');
+            for (int i = 0; i < valor.length(); i++) {
+                char c = valor.charAt(i);
+                if (c == '"' || c == '\\') {
+                    texto.append('\\').append(c);
+                } else if (c < 0x20) {
+                    texto.append(String.format("\\u%04x", (int) c));
+                } else {
+                    texto.append(c);
+                }
+            }
+            texto.append('"');
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,169 @@
+package simulacion;
+
+import java.util.Locale;
+
+public class ConfiguracionSimulacion {
+    private int profesionales = 20;
+    private int pacientes = 2_000;
+    private int dias = 30;
+    private double tasaPorSegundo = 2_000;
+    private double duracionSegundos = 10;
+    private long semilla = 42;
+    private int hilos = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private double proporcionConsultas = 0.70;
+    private double proporcionReservas = 0.20;
+    private double proporcionCancelaciones = 0.10;
+    
+    // Acepta argumentos --clave=valor con los mismos nombres que los setters
+    public static ConfiguracionSimulacion desdeArgumentos(String[] argumentos) {
+        ConfiguracionSimulacion configuracion = new ConfiguracionSimulacion();
+        for (String argumento : argumentos) {
+            int igual = argumento.indexOf('=');
+            if (!argumento.startsWith("--") || igual < 0) {
+                throw new IllegalArgumentException("Argumento no válido: " + argumento);
+            }
+            String clave = argumento.substring(2, igual);
+            String valor = argumento.substring(igual + 1);
+            try {
+                switch (clave) {
+                    case "profesionales":
+                        configuracion.setProfesionales(Integer.parseInt(valor));
+                        break;
+                    case "pacientes":
+                        configuracion.setPacientes(Integer.parseInt(valor));
+                        break;
+                    case "dias":
+                        configuracion.setDias(Integer.parseInt(valor));
+                        break;
+                    case "tasa":
+                        configuracion.setTasaPorSegundo(Double.parseDouble(valor));
+                        break;
+                    case "duracion":
+                        configuracion.setDuracionSegundos(Double.parseDouble(valor));
+                        break;
+                    case "semilla":
+                        configuracion.setSemilla(Long.parseLong(valor));
+                        break;
+                    case "hilos":
+                        configuracion.setHilos(Integer.parseInt(valor));
+                        break;
+                    case "proporciones":
+                        String[] partes = valor.split(":");
+                        if (partes.length != 3) {
+                            throw new IllegalArgumentException("Las proporciones deben ser consultas:reservas:cancelaciones");
+                        }
+                        configuracion.setProporciones(Double.parseDouble(partes[0]), Double.parseDouble(partes[1]),
+                                                      Double.parseDouble(partes[2]));
+                        break;
+                    case "salida":
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Opción desconocida: " + clave);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Valor numérico no válido en " + argumento, e);
+            }
+        }
+        return configuracion;
+    }
+    
+    public int getProfesionales() {
+        return profesionales;
+    }
+    
+    public void setProfesionales(int profesionales) {
+        this.profesionales = positivo(profesionales, "profesionales");
+    }
+    
+    public int getPacientes() {
+        return pacientes;
+    }
+    
+    public void setPacientes(int pacientes) {
+        this.pacientes = positivo(pacientes, "pacientes");
+    }
+    
+    public int getDias() {
+        return dias;
+    }
+    
+    public void setDias(int dias) {
+        this.dias = positivo(dias, "dias");
+    }
+    
+    public double getTasaPorSegundo() {
+        return tasaPorSegundo;
+    }
+    
+    public void setTasaPorSegundo(double tasaPorSegundo) {
+        if (!(tasaPorSegundo > 0) || Double.isInfinite(tasaPorSegundo)) {
+            throw new IllegalArgumentException("La tasa debe ser positiva");
+        }
+        this.tasaPorSegundo = tasaPorSegundo;
+    }
+    
+    public double getDuracionSegundos() {
+        return duracionSegundos;
+    }
+    
+    public void setDuracionSegundos(double duracionSegundos) {
+        if (!(duracionSegundos > 0) || Double.isInfinite(duracionSegundos)) {
+            throw new IllegalArgumentException("La duración debe ser positiva");
+        }
+        this.duracionSegundos = duracionSegundos;
+    }
+    
+    public long getSemilla() {
+        return semilla;
+    }
+    
+    public void setSemilla(long semilla) {
+        this.semilla = semilla;
+    }
+    
+    public int getHilos() {
+        return hilos;
+    }
+    
+    public void setHilos(int hilos) {
+        this.hilos = positivo(hilos, "hilos");
+    }
+    
+    public double getProporcionConsultas() {
+        return proporcionConsultas;
+    }
+    
+    public double getProporcionReservas() {
+        return proporcionReservas;
+    }
+    
+    public double getProporcionCancelaciones() {
+        return proporcionCancelaciones;
+    }
+    
+    // Se normalizan para que sumen 1: 7:2:1 equivale a 0.7, 0.2 y 0.1
+    public void setProporciones(double consultas, double reservas, double cancelaciones) {
+        double total = consultas + reservas + cancelaciones;
+        if (consultas < 0 || reservas < 0 || cancelaciones < 0 || !(total > 0) || Double.isInfinite(total)) {
+            throw new IllegalArgumentException("Las proporciones deben ser no negativas y sumar más de cero");
+        }
+        this.proporcionConsultas = consultas / total;
+        this.proporcionReservas = reservas / total;
+        this.proporcionCancelaciones = cancelaciones / total;
+    }
+    
+    private static int positivo(int valor, String nombre) {
+        if (valor <= 0) {
+            throw new IllegalArgumentException("El valor de " + nombre + " debe ser positivo");
+        }
+        return valor;
+    }
+    
+    String aJson() {
+        return String.format(Locale.ROOT, "{\"profesionales\":%d,\"pacientes\":%d,\"dias\":%d,\"tasaPorSegundo\":%s,"
+            + "\"duracionSegundos\":%s,\"semilla\":%d,\"hilos\":%d,\"proporcionConsultas\":%s,"
+            + "\"proporcionReservas\":%s,\"proporcionCancelaciones\":%s}",
+            profesionales, pacientes, dias, tasaPorSegundo, duracionSegundos, semilla, hilos,
+            proporcionConsultas, proporcionReservas, proporcionCancelaciones);
+    }
+}
\ No newline at end of file
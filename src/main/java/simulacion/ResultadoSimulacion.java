@@ -0,0 +1,138 @@
+package simulacion;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+public class ResultadoSimulacion {
+    private static final double[] PERCENTILES = {0.50, 0.99, 0.999};
+    private static final String[] NOMBRES_PERCENTILES = {"p50", "p99", "p999"};
+    
+    private final ConfiguracionSimulacion configuracion;
+    private final long duracionNanos;
+    private final int totalOperaciones;
+    private final Map<SimuladorCarga.Operacion, Estadistica> porOperacion;
+    
+    public static final class Estadistica {
+        private final int total;
+        private final int exitosas;
+        private final long[] latenciasOrdenadas;
+        
+        Estadistica(long[] latencias, int exitosas) {
+            this.total = latencias.length;
+            this.exitosas = exitosas;
+            this.latenciasOrdenadas = latencias;
+            Arrays.sort(latenciasOrdenadas);
+        }
+        
+        public int getTotal() {
+            return total;
+        }
+        
+        public int getExitosas() {
+            return exitosas;
+        }
+        
+        // Rango más cercano: el menor valor que deja por debajo al menos la fracción pedida
+        public long percentilNanos(double fraccion) {
+            if (total == 0) {
+                return 0;
+            }
+            int posicion = (int) Math.ceil(fraccion * total) - 1;
+            return latenciasOrdenadas[Math.max(0, Math.min(total - 1, posicion))];
+        }
+        
+        public long maximoNanos() {
+            return total == 0 ? 0 : latenciasOrdenadas[total - 1];
+        }
+    }
+    
+    ResultadoSimulacion(ConfiguracionSimulacion configuracion, SimuladorCarga.Operacion[] operaciones,
+                        long[] latencias, boolean[] exitos, long duracionNanos) {
+        this.configuracion = configuracion;
+        this.duracionNanos = duracionNanos;
+        this.totalOperaciones = operaciones.length;
+        this.porOperacion = new EnumMap<>(SimuladorCarga.Operacion.class);
+        for (SimuladorCarga.Operacion operacion : SimuladorCarga.Operacion.values()) {
+            int total = 0;
+            int exitosas = 0;
+            for (int i = 0; i < operaciones.length; i++) {
+                if (operaciones[i] == operacion) {
+                    total++;
+                }
+            }
+            long[] propias = new long[total];
+            int siguiente = 0;
+            for (int i = 0; i < operaciones.length; i++) {
+                if (operaciones[i] == operacion) {
+                    propias[siguiente++] = latencias[i];
+                    if (exitos[i]) {
+                        exitosas++;
+                    }
+                }
+            }
+            porOperacion.put(operacion, new Estadistica(propias, exitosas));
+        }
+    }
+    
+    public Estadistica getEstadistica(SimuladorCarga.Operacion operacion) {
+        return porOperacion.get(operacion);
+    }
+    
+    public int getTotalOperaciones() {
+        return totalOperaciones;
+    }
+    
+    public double getDuracionSegundos() {
+        return duracionNanos / 1e9;
+    }
+    
+    public double rendimientoPorSegundo(int operaciones) {
+        return duracionNanos == 0 ? 0 : operaciones / getDuracionSegundos();
+    }
+    
+    public String aJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"configuracion\":").append(configuracion.aJson())
+            .append(",\"duracionSegundos\":").append(formatear(getDuracionSegundos()))
+            .append(",\"operaciones\":").append(totalOperaciones)
+            .append(",\"rendimientoPorSegundo\":").append(formatear(rendimientoPorSegundo(totalOperaciones)))
+            .append(",\"porOperacion\":{");
+        boolean primera = true;
+        for (Map.Entry<SimuladorCarga.Operacion, Estadistica> entrada : porOperacion.entrySet()) {
+            Estadistica estadistica = entrada.getValue();
+            if (!primera) {
+                json.append(',');
+            }
+            primera = false;
+            json.append('"').append(entrada.getKey().name()).append("\":{\"total\":").append(estadistica.total)
+                .append(",\"exitosas\":").append(estadistica.exitosas)
+                .append(",\"rendimientoPorSegundo\":").append(formatear(rendimientoPorSegundo(estadistica.total)))
+                .append(",\"latenciaMicros\":{");
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                json.append('"').append(NOMBRES_PERCENTILES[i]).append("\":")
+                    .append(formatear(estadistica.percentilNanos(PERCENTILES[i]) / 1e3)).append(',');
+            }
+            json.append("\"max\":").append(formatear(estadistica.maximoNanos() / 1e3)).append("}}");
+        }
+        return json.append("}}").toString();
+    }
+    
+    public void imprimirResumen(PrintStream salida) {
+        salida.printf(Locale.ROOT, "%d operaciones en %.2f s (%.0f op/s)%n", totalOperaciones,
+                      getDuracionSegundos(), rendimientoPorSegundo(totalOperaciones));
+        for (Map.Entry<SimuladorCarga.Operacion, Estadistica> entrada : porOperacion.entrySet()) {
+            Estadistica estadistica = entrada.getValue();
+            salida.printf(Locale.ROOT, "%-12s total=%d exitosas=%d p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus%n",
+                          entrada.getKey(), estadistica.total, estadistica.exitosas,
+                          estadistica.percentilNanos(0.50) / 1e3, estadistica.percentilNanos(0.99) / 1e3,
+                          estadistica.percentilNanos(0.999) / 1e3, estadistica.maximoNanos() / 1e3);
+        }
+    }
+    
+    private static String formatear(double valor) {
+        return String.format(Locale.ROOT, "%.3f", valor);
+    }
+}
\ No newline at end of file
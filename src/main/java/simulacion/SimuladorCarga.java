@@ -0,0 +1,207 @@
+package simulacion;
+
+import modelo.Cita;
+import servicio.GestorDisponibilidad;
+import servicio.ReglaHorario;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Carga de lazo abierto: las llegadas de cada operación siguen un proceso de Poisson generado con la semilla,
+// y la latencia se mide desde el instante programado de llegada, así que incluye la espera en cola
+public class SimuladorCarga {
+    public enum Operacion {
+        CONSULTA,
+        RESERVA,
+        CANCELACION
+    }
+    
+    static final LocalTime INICIO_JORNADA = LocalTime.of(8, 0);
+    static final LocalTime FIN_JORNADA = LocalTime.of(17, 30);
+    static final int MINUTOS_POR_SLOT = 30;
+    static final int SLOTS_POR_JORNADA = 20;
+    private static final long ESPERA_ACTIVA_NANOS = 50_000;
+    
+    private final ConfiguracionSimulacion configuracion;
+    private final LocalDate primerDia;
+    
+    public SimuladorCarga(ConfiguracionSimulacion configuracion) {
+        if (configuracion == null) {
+            throw new IllegalArgumentException("La configuración no puede ser nula");
+        }
+        this.configuracion = configuracion;
+        // Siempre el próximo lunes: con la regla de lunes a viernes, el día en que se lanza no cambia qué días
+        // del plan tienen horario, y la misma semilla da el mismo reparto de éxitos y fallos
+        this.primerDia = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+    }
+    
+    LocalDate getPrimerDia() {
+        return primerDia;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        String salida = null;
+        for (String argumento : args) {
+            if (argumento.startsWith("--salida=")) {
+                salida = argumento.substring("--salida=".length());
+            }
+        }
+        ResultadoSimulacion resultado = new SimuladorCarga(ConfiguracionSimulacion.desdeArgumentos(args)).ejecutar();
+        if (salida == null) {
+            System.out.println(resultado.aJson());
+        } else {
+            Files.writeString(Paths.get(salida), resultado.aJson() + "\n", StandardCharsets.UTF_8);
+            resultado.imprimirResumen(System.out);
+        }
+    }
+    
+    // Todo lo aleatorio se decide aquí, antes de medir: con la misma semilla el plan es idéntico
+    static final class Plan {
+        final long[] llegadasNanos;
+        final Operacion[] operaciones;
+        final int[] profesionales;
+        final int[] pacientes;
+        final int[] dias;
+        final int[] slots;
+        final int[] reservasObjetivo;
+        
+        Plan(int total) {
+            llegadasNanos = new long[total];
+            operaciones = new Operacion[total];
+            profesionales = new int[total];
+            pacientes = new int[total];
+            dias = new int[total];
+            slots = new int[total];
+            reservasObjetivo = new int[total];
+        }
+        
+        int getTotal() {
+            return operaciones.length;
+        }
+    }
+    
+    Plan planificar() {
+        SplittableRandom azar = new SplittableRandom(configuracion.getSemilla());
+        double mediaEntreLlegadasNanos = 1e9 / configuracion.getTasaPorSegundo();
+        long horizonteNanos = (long) (configuracion.getDuracionSegundos() * 1e9);
+        
+        List<Long> llegadas = new ArrayList<>();
+        for (double instante = siguienteIntervalo(azar, mediaEntreLlegadasNanos); instante < horizonteNanos;
+                instante += siguienteIntervalo(azar, mediaEntreLlegadasNanos)) {
+            llegadas.add((long) instante);
+        }
+        
+        Plan plan = new Plan(llegadas.size());
+        int[] reservasPrevias = new int[llegadas.size()];
+        int totalReservas = 0;
+        for (int i = 0; i < plan.getTotal(); i++) {
+            plan.llegadasNanos[i] = llegadas.get(i);
+            double eleccion = azar.nextDouble();
+            Operacion operacion = eleccion < configuracion.getProporcionConsultas() ? Operacion.CONSULTA
+                : eleccion < configuracion.getProporcionConsultas() + configuracion.getProporcionReservas()
+                    ? Operacion.RESERVA : Operacion.CANCELACION;
+            plan.operaciones[i] = operacion;
+            plan.profesionales[i] = azar.nextInt(configuracion.getProfesionales());
+            plan.pacientes[i] = azar.nextInt(configuracion.getPacientes());
+            plan.dias[i] = azar.nextInt(configuracion.getDias());
+            plan.slots[i] = azar.nextInt(SLOTS_POR_JORNADA);
+            plan.reservasObjetivo[i] = operacion == Operacion.CANCELACION && totalReservas > 0
+                ? reservasPrevias[azar.nextInt(totalReservas)] : -1;
+            if (operacion == Operacion.RESERVA) {
+                reservasPrevias[totalReservas++] = i;
+            }
+        }
+        return plan;
+    }
+    
+    // Intervalos exponenciales: la superposición de las tres operaciones es también un proceso de Poisson
+    private static double siguienteIntervalo(SplittableRandom azar, double media) {
+        return -Math.log(1.0 - azar.nextDouble()) * media;
+    }
+    
+    GestorDisponibilidad prepararGestor() {
+        GestorDisponibilidad gestor = new GestorDisponibilidad(64, MINUTOS_POR_SLOT);
+        List<ReglaHorario> jornada = List.of(new ReglaHorario(
+            EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), INICIO_JORNADA, FIN_JORNADA,
+            primerDia, primerDia.plusDays(configuracion.getDias() - 1L)));
+        for (int p = 0; p < configuracion.getProfesionales(); p++) {
+            gestor.configurarReglasHorario(profesionalId(p), jornada);
+        }
+        return gestor;
+    }
+    
+    public ResultadoSimulacion ejecutar() throws InterruptedException {
+        Plan plan = planificar();
+        GestorDisponibilidad gestor = prepararGestor();
+        long[] latencias = new long[plan.getTotal()];
+        boolean[] exitos = new boolean[plan.getTotal()];
+        
+        ExecutorService ejecutor = Executors.newFixedThreadPool(configuracion.getHilos());
+        long inicio = System.nanoTime();
+        try {
+            for (int i = 0; i < plan.getTotal(); i++) {
+                long llegada = inicio + plan.llegadasNanos[i];
+                esperarHasta(llegada);
+                int indice = i;
+                ejecutor.execute(() -> {
+                    exitos[indice] = ejecutarOperacion(gestor, plan, indice);
+                    latencias[indice] = System.nanoTime() - llegada;
+                });
+            }
+        } finally {
+            ejecutor.shutdown();
+            ejecutor.awaitTermination(1, TimeUnit.HOURS);
+        }
+        long transcurrido = System.nanoTime() - inicio;
+        return new ResultadoSimulacion(configuracion, plan.operaciones, latencias, exitos, transcurrido);
+    }
+    
+    private static void esperarHasta(long instante) {
+        long falta;
+        while ((falta = instante - System.nanoTime()) > 0) {
+            if (falta > ESPERA_ACTIVA_NANOS) {
+                LockSupport.parkNanos(falta - ESPERA_ACTIVA_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+    
+    boolean ejecutarOperacion(GestorDisponibilidad gestor, Plan plan, int i) {
+        String profesional = profesionalId(plan.profesionales[i]);
+        LocalDate dia = primerDia.plusDays(plan.dias[i]);
+        try {
+            switch (plan.operaciones[i]) {
+                case CONSULTA:
+                    return !gestor.consultarDisponibilidad(profesional, dia.atStartOfDay()).isEmpty();
+                case RESERVA:
+                    LocalDateTime horario = dia.atTime(INICIO_JORNADA)
+                        .plusMinutes((long) plan.slots[i] * MINUTOS_POR_SLOT);
+                    return gestor.agendarCita(new Cita(citaId(i), "PAC-" + plan.pacientes[i], profesional,
+                                                       horario, "Consulta general"));
+                default:
+                    return plan.reservasObjetivo[i] >= 0 && gestor.cancelarCita(citaId(plan.reservasObjetivo[i]));
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return false;
+        }
+    }
+    
+    private static String profesionalId(int indice) {
+        return "DOC-" + indice;
+    }
+    
+    private static String citaId(int indice) {
+        return "SIM-" + indice;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,115 @@
+package vista;
+
+import modelo.Cita;
+import javax.swing.table.AbstractTableModel;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+
+// Lee las citas por posición del índice del gestor: la tabla solo pide las celdas de las filas visibles y
+// una actualización anexa las filas nuevas sin reconstruir las anteriores. Con filtro, las filas son las
+// posiciones que devolvió la búsqueda
+public class ModeloTablaCitas extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMNAS = {
+        "Codigo", "Fecha", "Hora", "Profesional", "Tipo", "Motivo", "Estado"
+    };
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm");
+    
+    private IntSupplier totalCitas = () -> 0;
+    private IntFunction<Cita> citaEnPosicion;
+    private Function<String, String> nombreProfesional = Function.identity();
+    private final Map<String, String> nombresPorProfesional = new HashMap<>();
+    private int[] filtro;
+    private int filas;
+    
+    public void conectar(IntSupplier totalCitas, IntFunction<Cita> citaEnPosicion,
+                         Function<String, String> nombreProfesional) {
+        this.totalCitas = totalCitas;
+        this.citaEnPosicion = citaEnPosicion;
+        this.nombreProfesional = nombreProfesional;
+        nombresPorProfesional.clear();
+        filtro = null;
+        filas = 0;
+        fireTableDataChanged();
+        sincronizar();
+    }
+    
+    public void sincronizar() {
+        if (filtro != null) {
+            return;
+        }
+        int total = totalCitas.getAsInt();
+        if (total > filas) {
+            int primera = filas;
+            filas = total;
+            fireTableRowsInserted(primera, total - 1);
+        }
+    }
+    
+    public void actualizarFilas(int primera, int ultima) {
+        if (filas > 0 && primera <= ultima) {
+            fireTableRowsUpdated(Math.max(0, primera), Math.min(ultima, filas - 1));
+        }
+    }
+    
+    public void filtrar(int[] posiciones) {
+        filtro = posiciones;
+        filas = posiciones == null ? 0 : posiciones.length;
+        fireTableDataChanged();
+        sincronizar();
+    }
+    
+    public boolean estaFiltrado() {
+        return filtro != null;
+    }
+    
+    public void olvidarNombres() {
+        nombresPorProfesional.clear();
+        fireTableDataChanged();
+    }
+    
+    public Cita getCita(int fila) {
+        return citaEnPosicion.apply(filtro == null ? fila : filtro[fila]);
+    }
+    
+    @Override
+    public int getRowCount() {
+        return filas;
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return COLUMNAS.length;
+    }
+    
+    @Override
+    public String getColumnName(int columna) {
+        return COLUMNAS[columna];
+    }
+    
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        Cita cita = getCita(fila);
+        switch (columna) {
+            case 0:
+                return cita.getId();
+            case 1:
+                return cita.getFechaHora().format(FORMATO_FECHA);
+            case 2:
+                return cita.getFechaHora().format(FORMATO_HORA);
+            case 3:
+                return nombresPorProfesional.computeIfAbsent(cita.getProfesionalId(), nombreProfesional);
+            case 4:
+                return "Consulta";
+            case 5:
+                return cita.getMotivo();
+            default:
+                return cita.getEstado().toString();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+package vista;
+
+import modelo.Usuario;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.List;
+
+// Muestra la lista que se le entrega (todos o el resultado de una búsqueda) sin copiar sus datos en filas
+public class ModeloTablaUsuarios extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMNAS = {
+        "ID", "Nombre", "Apellido", "Email", "Tipo", "Estado"
+    };
+    
+    private List<Usuario> usuarios = new ArrayList<>();
+    
+    public void mostrar(List<Usuario> usuarios) {
+        this.usuarios = usuarios;
+        fireTableDataChanged();
+    }
+    
+    public Usuario getUsuario(int fila) {
+        return usuarios.get(fila);
+    }
+    
+    @Override
+    public int getRowCount() {
+        return usuarios.size();
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return COLUMNAS.length;
+    }
+    
+    @Override
+    public String getColumnName(int columna) {
+        return COLUMNAS[columna];
+    }
+    
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        Usuario usuario = usuarios.get(fila);
+        switch (columna) {
+            case 0:
+                return usuario.getId();
+            case 1:
+                return usuario.getNombre();
+            case 2:
+                return usuario.getApellido();
+            case 3:
+                return usuario.getEmail();
+            case 4:
+                return usuario.getTipo().getDescripcion();
+            default:
+                return usuario.isActivo() ? "Activo" : "Inactivo";
+        }
+    }
+}
\ No newline at end of file
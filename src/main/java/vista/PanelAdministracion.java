@@ -1,5 +1,7 @@
 package vista;
 
+import exportacion.ExportadorDatos;
+
 import javax.swing.*;
 import java.awt.*;
 
@@ -14,7 +16,11 @@ public class PanelAdministracion extends JPanel {
     private final JLabel lblEficienciaSistema;
     private final JButton btnGenerarReporte;
     private final JButton btnExportarDatos;
+    private final JButton btnImportarDatos;
     private final JButton btnConfiguracion;
+    private final JComboBox<ExportadorDatos.Formato> comboFormato;
+    private final JCheckBox chkComprimir;
+    private final JProgressBar barraProgreso;
     private final JTextArea textAreaReporte;
     
     public PanelAdministracion() {
@@ -28,8 +34,15 @@ public class PanelAdministracion extends JPanel {
         
         btnGenerarReporte = new JButton("Generar Reporte");
         btnExportarDatos = new JButton("Exportar Datos");
+        btnImportarDatos = new JButton("Importar Datos");
         btnConfiguracion = new JButton("Configuracion");
         
+        comboFormato = new JComboBox<>(ExportadorDatos.Formato.values());
+        chkComprimir = new JCheckBox("Comprimir (GZIP)");
+        barraProgreso = new JProgressBar(0, 100);
+        barraProgreso.setStringPainted(true);
+        barraProgreso.setString("");
+        
         textAreaReporte = new JTextArea(10, 30);
         textAreaReporte.setEditable(false);
         
@@ -59,7 +72,11 @@ public class PanelAdministracion extends JPanel {
         JPanel panelBotones = new JPanel(new FlowLayout());
         panelBotones.add(btnGenerarReporte);
         panelBotones.add(btnExportarDatos);
+        panelBotones.add(btnImportarDatos);
         panelBotones.add(btnConfiguracion);
+        panelBotones.add(comboFormato);
+        panelBotones.add(chkComprimir);
+        panelBotones.add(barraProgreso);
         panelSuperior.add(panelBotones, BorderLayout.SOUTH);
         
         add(panelSuperior, BorderLayout.NORTH);
@@ -107,15 +124,37 @@ public class PanelAdministracion extends JPanel {
         return btnExportarDatos;
     }
     
+    public JButton getBtnImportarDatos() {
+        return btnImportarDatos;
+    }
+    
     public JButton getBtnConfiguracion() {
         return btnConfiguracion;
     }
     
+    public JComboBox<ExportadorDatos.Formato> getComboFormato() {
+        return comboFormato;
+    }
+    
+    public JCheckBox getChkComprimir() {
+        return chkComprimir;
+    }
+    
+    public JProgressBar getBarraProgreso() {
+        return barraProgreso;
+    }
+    
+    public void mostrarProgresoExportacion(long exportadas, long total) {
+        int porcentaje = total > 0 ? (int) (exportadas * 100 / total) : 100;
+        barraProgreso.setValue(porcentaje);
+        barraProgreso.setString(exportadas + " / " + total);
+    }
+    
     public JTextArea getTextAreaReporte() {
         return textAreaReporte;
     }
     
-    public void actualizarEstadisticas(int totalCitas, int confirmadas, int pendientes, 
+    public void actualizarEstadisticas(int totalCitas, int confirmadas, int pendientes,
                                      int canceladas, int totalUsuarios, int doctoresActivos, double eficiencia) {
         lblTotalCitas.setText("Total Citas: " + totalCitas);
         lblCitasConfirmadas.setText("Confirmadas: " + confirmadas);
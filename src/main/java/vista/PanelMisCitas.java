@@ -1,17 +1,14 @@
 package vista;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 
 public class PanelMisCitas extends JPanel {
     
-    private static final String[] COLUMNAS = {
-        "Codigo", "Fecha", "Hora", "Profesional", "Tipo", "Motivo", "Estado"
-    };
-    
     private final JTable tablaCitas;
-    private final DefaultTableModel modeloTabla;
+    private final ModeloTablaCitas modeloTabla;
     private final JButton btnActualizar;
     private final JButton btnCancelarCita;
     private final JButton btnReprogramarCita;
@@ -19,12 +16,7 @@ public class PanelMisCitas extends JPanel {
     private final JComboBox<String> comboFiltroEstado;
     
     public PanelMisCitas() {
-        modeloTabla = new DefaultTableModel(COLUMNAS, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        modeloTabla = new ModeloTablaCitas();
         
         tablaCitas = new JTable(modeloTabla);
         tablaCitas.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -78,7 +70,7 @@ public class PanelMisCitas extends JPanel {
         return tablaCitas;
     }
     
-    public DefaultTableModel getModeloTabla() {
+    public ModeloTablaCitas getModeloTabla() {
         return modeloTabla;
     }
     
@@ -102,18 +94,39 @@ public class PanelMisCitas extends JPanel {
         return comboFiltroEstado;
     }
     
-    public void agregarCita(Object[] datosCita) {
-        modeloTabla.addRow(datosCita);
+    public void alCambiarFiltro(Runnable accion) {
+        comboFiltroEstado.addActionListener(e -> accion.run());
+        txtFiltro.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                accion.run();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                accion.run();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                accion.run();
+            }
+        });
     }
     
-    public void limpiarTabla() {
-        modeloTabla.setRowCount(0);
+    // Anexa las citas nuevas y repinta solo las filas a la vista, por si alguna cambió de estado
+    public void actualizarCitas() {
+        modeloTabla.sincronizar();
+        Rectangle visible = tablaCitas.getVisibleRect();
+        int primera = tablaCitas.rowAtPoint(visible.getLocation());
+        int ultima = tablaCitas.rowAtPoint(new Point(visible.x, visible.y + visible.height - 1));
+        modeloTabla.actualizarFilas(Math.max(primera, 0), ultima < 0 ? modeloTabla.getRowCount() - 1 : ultima);
     }
     
     public String getCitaSeleccionada() {
         int filaSeleccionada = tablaCitas.getSelectedRow();
         if (filaSeleccionada != -1) {
-            return (String) modeloTabla.getValueAt(filaSeleccionada, 0);
+            return modeloTabla.getCita(filaSeleccionada).getId();
         }
         return null;
     }
@@ -1,29 +1,21 @@
 package vista;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 
 public class PanelUsuarios extends JPanel {
     
-    private static final String[] COLUMNAS = {
-        "ID", "Nombre", "Apellido", "Email", "Tipo", "Estado"
-    };
-    
     private final JTable tablaUsuarios;
-    private final DefaultTableModel modeloTabla;
+    private final ModeloTablaUsuarios modeloTabla;
     private final JButton btnAgregarUsuario;
     private final JButton btnEditarUsuario;
     private final JButton btnEliminarUsuario;
     private final JTextField txtBuscar;
     
     public PanelUsuarios() {
-        modeloTabla = new DefaultTableModel(COLUMNAS, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        modeloTabla = new ModeloTablaUsuarios();
         
         tablaUsuarios = new JTable(modeloTabla);
         tablaUsuarios.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -74,7 +66,7 @@ public class PanelUsuarios extends JPanel {
         return tablaUsuarios;
     }
     
-    public DefaultTableModel getModeloTabla() {
+    public ModeloTablaUsuarios getModeloTabla() {
         return modeloTabla;
     }
     
@@ -93,4 +85,23 @@ public class PanelUsuarios extends JPanel {
     public JTextField getTxtBuscar() {
         return txtBuscar;
     }
+    
+    public void alCambiarBusqueda(Runnable accion) {
+        txtBuscar.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                accion.run();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                accion.run();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                accion.run();
+            }
+        });
+    }
 }
\ No newline at end of file
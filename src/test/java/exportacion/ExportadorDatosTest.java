@@ -0,0 +1,164 @@
+package exportacion;
+
+import modelo.Cita;
+import modelo.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+class ExportadorDatosTest {
+    
+    @TempDir
+    Path directorio;
+    
+    private LocalDateTime fechaHora;
+    private Cita cita;
+    private Usuario usuario;
+    
+    @BeforeEach
+    void setUp() {
+        fechaHora = LocalDateTime.now().plusDays(1).withHour(9).withMinute(0).withSecond(0).withNano(0);
+        cita = new Cita("CIT-001", "PAC-001", "DOC-001", fechaHora, "Consulta general");
+        cita.setMotivo("Dolor, \"agudo\"\nde cabeza");
+        usuario = new Usuario("PAC-001", "Juan", "Perez", "juan@email.com", Usuario.TipoUsuario.PACIENTE);
+    }
+    
+    private static List<String> leerLineas(Path archivo, boolean comprimido) throws IOException {
+        InputStream entrada = Files.newInputStream(archivo);
+        if (comprimido) {
+            entrada = new GZIPInputStream(entrada);
+        }
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            List<String> lineas = new ArrayList<>();
+            for (String linea = lector.readLine(); linea != null; linea = lector.readLine()) {
+                lineas.add(linea);
+            }
+            return lineas;
+        }
+    }
+    
+    @Test
+    @DisplayName("CSV escribe encabezado y entrecomilla los campos especiales")
+    void testExportarCitasCsv() throws IOException {
+        ExportadorDatos exportador = new ExportadorDatos(ExportadorDatos.Formato.CSV, false);
+        Path destino = directorio.resolve(exportador.nombreArchivo("citas"));
+        
+        long filas = exportador.exportarCitas(List.of(cita).iterator(), 1, destino, null);
+        
+        assertEquals(1, filas);
+        assertEquals("citas.csv", destino.getFileName().toString());
+        assertEquals("id,pacienteId,profesionalId,fechaHora,tipo,motivo,estado\n"
+            + "CIT-001,PAC-001,DOC-001," + fechaHora + ",Consulta general,\"Dolor, \"\"agudo\"\"\nde cabeza\",PENDIENTE\n",
+            Files.readString(destino));
+    }
+    
+    @Test
+    @DisplayName("JSON Lines escribe un objeto por linea con texto escapado")
+    void testExportarJsonLines() throws IOException {
+        ExportadorDatos exportador = new ExportadorDatos(ExportadorDatos.Formato.JSON_LINES, false);
+        usuario.setTelefono(null);
+        Path citas = directorio.resolve(exportador.nombreArchivo("citas"));
+        Path usuarios = directorio.resolve(exportador.nombreArchivo("usuarios"));
+        
+        exportador.exportarCitas(List.of(cita).iterator(), 1, citas, null);
+        exportador.exportarUsuarios(List.of(usuario).iterator(), 1, usuarios, null);
+        
+        assertEquals(List.of("{\"id\":\"CIT-001\",\"pacienteId\":\"PAC-001\",\"profesionalId\":\"DOC-001\","
+            + "\"fechaHora\":\"" + fechaHora + "\",\"tipo\":\"Consulta general\","
+            + "\"motivo\":\"Dolor, \\\"agudo\\\"\\nde cabeza\",\"estado\":\"PENDIENTE\"}"), leerLineas(citas, false));
+        assertEquals(List.of("{\"id\":\"PAC-001\",\"nombre\":\"Juan\",\"apellido\":\"Perez\","
+            + "\"email\":\"juan@email.com\",\"telefono\":null,\"tipo\":\"PACIENTE\",\"activo\":true}"),
+            leerLineas(usuarios, false));
+    }
+    
+    @Test
+    @DisplayName("Caracteres de control se escapan en JSON")
+    void testEscapesJson() throws IOException {
+        StringWriter salida = new StringWriter();
+        ExportadorDatos.escribirObjetoJson(salida, new String[] {"a", "b"}, new Object[] {"x\\y\t\r\u0001", 5});
+        
+        assertEquals("{\"a\":\"x\\\\y\\t\\r\\u0001\",\"b\":5}\n", salida.toString());
+    }
+    
+    @Test
+    @DisplayName("La salida comprimida se puede leer con GZIP")
+    void testExportarComprimido() throws IOException {
+        ExportadorDatos exportador = new ExportadorDatos(ExportadorDatos.Formato.CSV, true);
+        Path destino = directorio.resolve(exportador.nombreArchivo("usuarios"));
+        
+        exportador.exportarUsuarios(List.of(usuario).iterator(), 1, destino, null);
+        
+        assertEquals("usuarios.csv.gz", destino.getFileName().toString());
+        assertEquals(List.of("id,nombre,apellido,email,telefono,tipo,activo",
+                             "PAC-001,Juan,Perez,juan@email.com,,PACIENTE,true"), leerLineas(destino, true));
+    }
+    
+    @Test
+    @DisplayName("El progreso se informa por lotes y al terminar")
+    void testProgresoPorLotes() throws IOException {
+        int total = ExportadorDatos.FILAS_POR_AVISO * 2 + 5;
+        cita.setMotivo(null);
+        Iterator<Cita> citas = new Iterator<>() {
+            private int generadas;
+            
+            @Override
+            public boolean hasNext() {
+                return generadas < total;
+            }
+            
+            @Override
+            public Cita next() {
+                generadas++;
+                return cita;
+            }
+        };
+        List<Long> avances = new ArrayList<>();
+        ExportadorDatos exportador = new ExportadorDatos(ExportadorDatos.Formato.CSV, true);
+        
+        long filas = exportador.exportarCitas(citas, 0, directorio.resolve("citas.csv.gz"),
+                                              (exportadas, totalInformado) -> avances.add(exportadas));
+        
+        assertEquals(total, filas);
+        assertEquals(List.of((long) ExportadorDatos.FILAS_POR_AVISO, 2L * ExportadorDatos.FILAS_POR_AVISO,
+                             (long) total), avances);
+        assertEquals(total + 1, leerLineas(directorio.resolve("citas.csv.gz"), true).size());
+    }
+    
+    @Test
+    @DisplayName("Interrumpir el hilo cancela la exportacion con error de E/S")
+    void testCancelarExportacion() {
+        ExportadorDatos exportador = new ExportadorDatos(ExportadorDatos.Formato.JSON_LINES, false);
+        List<Cita> muchas = Collections.nCopies(ExportadorDatos.FILAS_POR_AVISO, cita);
+        
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(IOException.class, () -> exportador.exportarCitas(muchas.iterator(),
+                muchas.size(), directorio.resolve("citas.jsonl"), null));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+    
+    @Test
+    @DisplayName("Argumentos invalidos lanzan excepcion")
+    void testArgumentosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> new ExportadorDatos(null, false));
+        ExportadorDatos exportador = new ExportadorDatos(ExportadorDatos.Formato.CSV, false);
+        assertThrows(IllegalArgumentException.class, () -> exportador.exportarCitas(null, 0, directorio, null));
+        assertThrows(IllegalArgumentException.class,
+            () -> exportador.exportarUsuarios(List.of(usuario).iterator(), 1, null, null));
+        assertEquals("JSON Lines", ExportadorDatos.Formato.JSON_LINES.toString());
+        assertEquals(".jsonl", ExportadorDatos.Formato.JSON_LINES.getExtension());
+        assertEquals("CSV", ExportadorDatos.Formato.CSV.getDescripcion());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,198 @@
+package importacion;
+
+import exportacion.ExportadorDatos;
+import modelo.Cita;
+import modelo.Usuario;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import servicio.GestorDisponibilidad;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPOutputStream;
+
+class ImportadorDatosTest {
+    
+    @TempDir
+    Path directorio;
+    
+    private ForkJoinPool pool;
+    private GestorDisponibilidad gestor;
+    private LocalDateTime pasado;
+    
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        gestor = new GestorDisponibilidad();
+        pasado = LocalDateTime.now().minusDays(30).withHour(8).withMinute(0).withSecond(0).withNano(0);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+    
+    private Path escribir(String nombre, String contenido) throws IOException {
+        Path archivo = directorio.resolve(nombre);
+        Files.writeString(archivo, contenido, StandardCharsets.UTF_8);
+        return archivo;
+    }
+    
+    @Test
+    @DisplayName("CSV importa citas validas y reporta las filas rechazadas con su linea")
+    void testImportarCitasCsv() throws IOException {
+        Path origen = escribir("citas.csv",
+            "estado,id,pacienteId,profesionalId,fechaHora,tipo,motivo\n"
+            + "COMPLETADA,CIT-001,PAC-001,DOC-001," + pasado + ",Consulta general,\"Dolor, \"\"agudo\"\"\nde cabeza\"\n"
+            + "\n"
+            + "PENDIENTE,CIT-002,PAC-001,DOC-001," + pasado + ",Seguimiento,\n"
+            + "PENDIENTE,CIT-003,PAC-001,DOC-001,ayer,Seguimiento,\n"
+            + "RARO,CIT-004,PAC-001,DOC-001," + pasado.plusHours(1) + ",Seguimiento,\n"
+            + ",CIT-005,PAC-001,DOC-001," + pasado.plusHours(2) + ",Cirugia,\n"
+            + ",CIT-006,PAC-001,DOC-002," + pasado.plusHours(2) + ",Examenes,\n"
+            + "CANCELADA,CIT-007,PAC-001,DOC-002,,Examenes,\n");
+        
+        ResultadoImportacion resultado = new ImportadorDatos(ExportadorDatos.Formato.CSV, pool, 2)
+            .importarCitas(origen, gestor);
+        
+        assertEquals(2, resultado.getImportadas());
+        assertEquals(5, resultado.getRechazadas());
+        List<Long> lineas = new ArrayList<>();
+        resultado.getErrores().forEach(error -> lineas.add(error.getLinea()));
+        assertEquals(List.of(5L, 6L, 7L, 8L, 10L), lineas);
+        assertTrue(resultado.getErrores().get(0).getMotivo().contains("HORARIO_OCUPADO"));
+        assertTrue(resultado.getErrores().get(4).getMotivo().contains("fechaHora"));
+        assertTrue(resultado.getErrores().get(0).toString().startsWith("Línea 5"));
+        
+        Cita importada = gestor.buscarCita("CIT-001");
+        assertEquals(Cita.EstadoCita.COMPLETADA, importada.getEstado());
+        assertEquals("Dolor, \"agudo\"\nde cabeza", importada.getMotivo());
+        assertEquals(Cita.EstadoCita.PENDIENTE, gestor.buscarCita("CIT-006").getEstado());
+        assertTrue(resultado.toString().contains("rechazadas=5"));
+    }
+    
+    @Test
+    @DisplayName("Lo exportado en JSON Lines comprimido se vuelve a importar igual")
+    void testIdaYVueltaJsonLines() throws IOException {
+        List<Cita> citas = new ArrayList<>();
+        for (int i = 0; i < 2_500; i++) {
+            Cita cita = Cita.restaurar(String.format("CIT-%05d", i), "PAC-" + (i % 7), "DOC-" + (i % 5),
+                pasado.plusHours(i), "Especialista", Cita.EstadoCita.values()[i % 4]);
+            cita.setMotivo(i % 3 == 0 ? null : "Motivo \"" + i + "\"\t\\ \u00e1");
+            citas.add(cita);
+        }
+        ExportadorDatos exportador = new ExportadorDatos(ExportadorDatos.Formato.JSON_LINES, true);
+        Path archivo = directorio.resolve(exportador.nombreArchivo("citas"));
+        exportador.exportarCitas(citas.iterator(), citas.size(), archivo, null);
+        
+        ResultadoImportacion resultado = new ImportadorDatos(ExportadorDatos.Formato.JSON_LINES, pool, 300)
+            .importarCitas(archivo, gestor);
+        
+        assertEquals(citas.size(), resultado.getImportadas());
+        assertTrue(resultado.getErrores().isEmpty());
+        for (Cita original : citas) {
+            Cita importada = gestor.buscarCita(original.getId());
+            assertEquals(original.getFechaHora(), importada.getFechaHora());
+            assertEquals(original.getEstado(), importada.getEstado());
+            assertEquals(original.getMotivo(), importada.getMotivo());
+        }
+        assertEquals(625, gestor.contarCitas(Cita.EstadoCita.CANCELADA));
+    }
+    
+    @Test
+    @DisplayName("Usuarios se entregan en orden y los duplicados quedan en el reporte")
+    void testImportarUsuarios() throws IOException {
+        Path origen = escribir("usuarios.csv",
+            "id,nombre,apellido,email,telefono,tipo,activo\r\n"
+            + "PAC-001,Juan,Perez,juan@email.com,555,PACIENTE,true\r\n"
+            + "PAC-002,Maria,Garcia,maria@email.com,,paciente,false\r\n"
+            + "PAC-001,Juan,Perez,otro@email.com,,PACIENTE,true\r\n"
+            + "ADM-001,Ana,Lopez,ana@email.com,,ADMINISTRADOR,false\r\n"
+            + "PAC-003,J,Perez,j@email.com,,PACIENTE,true\r\n"
+            + "PAC-004,Luis,Ruiz,luis@email.com,,,true\r\n"
+            + "PAC-005,\"Luis,Ruiz\r\n");
+        Map<String, Usuario> usuarios = new LinkedHashMap<>();
+        
+        ResultadoImportacion resultado = new ImportadorDatos(ExportadorDatos.Formato.CSV, pool, 3)
+            .importarUsuarios(origen, usuario -> usuarios.putIfAbsent(usuario.getId(), usuario) == null);
+        
+        assertEquals(List.of("PAC-001", "PAC-002"), new ArrayList<>(usuarios.keySet()));
+        assertEquals("555", usuarios.get("PAC-001").getTelefono());
+        assertNull(usuarios.get("PAC-002").getTelefono());
+        assertFalse(usuarios.get("PAC-002").isActivo());
+        assertEquals(2, resultado.getImportadas());
+        assertEquals(5, resultado.getRechazadas());
+        assertEquals("Usuario duplicado", resultado.getErrores().get(0).getMotivo());
+        assertEquals("Comillas sin cerrar", resultado.getErrores().get(4).getMotivo());
+        
+        Path reporte = directorio.resolve("errores.csv");
+        resultado.escribirReporte(reporte);
+        List<String> lineas = Files.readAllLines(reporte);
+        assertEquals("linea,motivo,contenido", lineas.get(0));
+        assertTrue(lineas.get(1).startsWith("4,Usuario duplicado,\"PAC-001,"));
+    }
+    
+    @Test
+    @DisplayName("Sin cabecera o sin columnas obligatorias la importacion falla")
+    void testCabeceraInvalida() throws IOException {
+        ImportadorDatos importador = new ImportadorDatos(ExportadorDatos.Formato.CSV);
+        Path vacio = escribir("vacio.csv", "");
+        Path incompleto = escribir("incompleto.csv", "id,pacienteId\nCIT-001,PAC-001\n");
+        
+        assertThrows(IOException.class, () -> importador.importarCitas(vacio, gestor));
+        IOException error = assertThrows(IOException.class, () -> importador.importarCitas(incompleto, gestor));
+        assertTrue(error.getMessage().contains("profesionalId"));
+        assertEquals(0, new ImportadorDatos(ExportadorDatos.Formato.JSON_LINES)
+            .importarCitas(vacio, gestor).getImportadas());
+    }
+    
+    @Test
+    @DisplayName("Un hilo interrumpido cancela la importacion")
+    void testImportacionCancelada() throws IOException {
+        Path origen = directorio.resolve("citas.csv.gz");
+        try (Writer salida = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(origen)),
+                StandardCharsets.UTF_8)) {
+            salida.write("id,pacienteId,profesionalId,fechaHora,tipo,motivo,estado\n");
+            for (int i = 0; i < 50; i++) {
+                salida.write("CIT-" + i + ",PAC-001,DOC-001," + pasado.plusHours(i) + ",Seguimiento,,\n");
+            }
+        }
+        ImportadorDatos importador = new ImportadorDatos(ExportadorDatos.Formato.CSV, pool, 10);
+        
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(InterruptedIOException.class, () -> importador.importarCitas(origen, gestor));
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(50, importador.importarCitas(origen, new GestorDisponibilidad()).getImportadas());
+    }
+    
+    @Test
+    @DisplayName("Argumentos invalidos lanzan excepcion")
+    void testArgumentosInvalidos() {
+        Path origen = directorio.resolve("citas.csv");
+        ImportadorDatos importador = new ImportadorDatos(ExportadorDatos.Formato.CSV);
+        
+        assertThrows(IllegalArgumentException.class, () -> new ImportadorDatos(null));
+        assertThrows(IllegalArgumentException.class,
+            () -> new ImportadorDatos(ExportadorDatos.Formato.CSV, null, 10));
+        assertThrows(IllegalArgumentException.class,
+            () -> new ImportadorDatos(ExportadorDatos.Formato.CSV, pool, 0));
+        assertThrows(IllegalArgumentException.class, () -> importador.importarCitas(origen, null));
+        assertThrows(IllegalArgumentException.class, () -> importador.importarCitas(null, gestor));
+        assertThrows(IllegalArgumentException.class, () -> importador.importarUsuarios(origen, null));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package importacion;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+
+class LectorJsonTest {
+    
+    @Test
+    @DisplayName("Lee textos con escapes, numeros, booleanos y null")
+    void testLeerObjeto() {
+        Map<String, String> objeto = LectorJson.leerObjeto(
+            " { \"a\" : \"x\\\"y\\\\z\\/\\n\\r\\t\\b\\f\\u00e1\", \"n\": -1.5e3, \"b\":true, \"nulo\":null } ");
+        
+        assertEquals("x\"y\\z/\n\r\t\b\f\u00e1", objeto.get("a"));
+        assertEquals("-1.5e3", objeto.get("n"));
+        assertEquals("true", objeto.get("b"));
+        assertTrue(objeto.containsKey("nulo"));
+        assertNull(objeto.get("nulo"));
+        assertTrue(LectorJson.leerObjeto("{}").isEmpty());
+    }
+    
+    @Test
+    @DisplayName("JSON mal formado lanza excepcion")
+    void testJsonInvalido() {
+        for (String invalido : new String[] {"", "[]", "{\"a\":}", "{\"a\":1", "{\"a\":1} x", "{\"a\":\"sin cerrar",
+                "{\"a\":\"\\u12\"}", "{\"a\":\"\\", "{a:1}"}) {
+            assertThrows(IllegalArgumentException.class, () -> LectorJson.leerObjeto(invalido), invalido);
+        }
+    }
+}
\ No newline at end of file
@@ -6,6 +6,10 @@ import org.junit.jupiter.api.DisplayName;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class CitaTest {
     
@@ -211,6 +215,10 @@ class CitaTest {
         LocalDateTime nuevaFecha = LocalDateTime.now().plusDays(2);
         cita.setFechaHora(nuevaFecha);
         assertEquals(nuevaFecha, cita.getFechaHora());
+        
+        cita.setObservador((c, anterior) -> { });
+        assertThrows(IllegalStateException.class, () -> cita.setFechaHora(nuevaFecha.plusDays(1)));
+        assertEquals(nuevaFecha, cita.getFechaHora());
     }
     
     @Test
@@ -251,4 +259,102 @@ class CitaTest {
         Cita otraCita = new Cita("CIT-001", "PAC-002", "DOC-002", fechaHora, "Consulta General");
         assertEquals(cita.hashCode(), otraCita.hashCode());
     }
+    
+    @Test
+    @DisplayName("Observador recibe cada cambio de estado")
+    void testObservadorRecibeCambios() {
+        List<String> cambios = new ArrayList<>();
+        ObservadorCita observador = (c, anterior) -> cambios.add(anterior + "->" + c.getEstado());
+        cita.setObservador(observador);
+        
+        cita.confirmar();
+        cita.confirmar();
+        cita.completar();
+        
+        assertSame(observador, cita.getObservador());
+        assertEquals(List.of("PENDIENTE->CONFIRMADA", "CONFIRMADA->COMPLETADA"), cambios);
+    }
+    
+    @Test
+    @DisplayName("Cancelar notifica al observador una sola vez")
+    void testObservadorCancelacion() {
+        List<Cita.EstadoCita> anteriores = new ArrayList<>();
+        cita.setObservador((c, anterior) -> anteriores.add(anterior));
+        
+        cita.cancelar();
+        cita.cancelar();
+        
+        assertEquals(List.of(Cita.EstadoCita.PENDIENTE), anteriores);
+    }
+    
+    @Test
+    @DisplayName("Restaurar admite fechas pasadas y conserva el estado")
+    void testRestaurarCitaPasada() {
+        LocalDateTime ayer = LocalDateTime.now().minusDays(1);
+        Cita restaurada = Cita.restaurar("CIT-002", "PAC-001", "DOC-001", ayer, "Seguimiento",
+                                         Cita.EstadoCita.COMPLETADA);
+        
+        assertEquals(ayer, restaurada.getFechaHora());
+        assertEquals(Cita.EstadoCita.COMPLETADA, restaurada.getEstado());
+        assertThrows(IllegalArgumentException.class, () -> Cita.restaurar("CIT-002", "PAC-001", "DOC-001",
+            null, "Seguimiento", Cita.EstadoCita.PENDIENTE));
+        assertThrows(IllegalArgumentException.class, () -> Cita.restaurar("CIT-002", "PAC-001", "DOC-001",
+            ayer, "Seguimiento", null));
+        assertThrows(IllegalArgumentException.class, () -> Cita.restaurar("CIT-002", "PAC-001", "DOC-001",
+            ayer, "Otro", Cita.EstadoCita.PENDIENTE));
+    }
+    
+    @Test
+    @DisplayName("Vincular comparte las cadenas del registro y guarda el handle del profesional")
+    void testVincular() {
+        RegistroIds pacientes = new RegistroIds();
+        RegistroIds profesionales = new RegistroIds();
+        Cita otra = new Cita("CIT-002", new String("PAC-001"), " DOC-001 ", fechaHora.plusHours(1), "Seguimiento");
+        assertNotSame(cita.getPacienteId(), otra.getPacienteId());
+        assertEquals(-1, cita.getHandleProfesional());
+        int profesional = profesionales.registrar("DOC-001");
+        
+        cita.vincular(profesional, pacientes, profesionales);
+        otra.vincular(profesional, pacientes, profesionales);
+        
+        assertSame(cita.getPacienteId(), otra.getPacienteId());
+        assertSame(cita.getProfesionalId(), otra.getProfesionalId());
+        assertEquals("PAC-001", otra.getPacienteId());
+        assertEquals(profesional, otra.getHandleProfesional());
+        assertEquals(-1, pacientes.buscar("DOC-001"));
+        int ajeno = profesionales.registrar("DOC-002");
+        assertThrows(IllegalArgumentException.class, () -> cita.vincular(ajeno, pacientes, profesionales));
+        cita.setObservador((c, anterior) -> { });
+        assertThrows(IllegalStateException.class, () -> cita.vincular(profesional, pacientes, profesionales));
+    }
+    
+    @Test
+    @DisplayName("Confirmaciones simultaneas avisan al observador una sola vez")
+    void testTransicionesSimultaneas() throws InterruptedException {
+        AtomicInteger avisos = new AtomicInteger();
+        cita.setObservador((c, anterior) -> {
+            assertEquals(Cita.EstadoCita.PENDIENTE, anterior);
+            avisos.incrementAndGet();
+        });
+        CountDownLatch salida = new CountDownLatch(1);
+        Thread[] hilos = new Thread[8];
+        for (int i = 0; i < hilos.length; i++) {
+            hilos[i] = new Thread(() -> {
+                try {
+                    salida.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                cita.confirmar();
+            });
+            hilos[i].start();
+        }
+        salida.countDown();
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+        
+        assertEquals(1, avisos.get());
+        assertEquals(Cita.EstadoCita.CONFIRMADA, cita.getEstado());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package modelo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class JfrTransicionCitaTest {
+    
+    @TempDir
+    Path directorio;
+    
+    @Test
+    @DisplayName("Confirmar, completar y cancelar emiten eventos de transicion")
+    void testTransiciones() throws IOException {
+        Cita primera = new Cita("CIT-001", "PAC-001", "DOC-001", LocalDateTime.now().plusDays(1), "Consulta general");
+        Cita segunda = new Cita("CIT-002", "PAC-002", "DOC-002", LocalDateTime.now().plusDays(2), "Seguimiento");
+        Path archivo = directorio.resolve("citas.jfr");
+        try (Recording grabacion = new Recording()) {
+            grabacion.enable("citas.TransicionCita");
+            grabacion.start();
+            primera.confirmar();
+            primera.completar();
+            segunda.cancelar();
+            grabacion.stop();
+            grabacion.dump(archivo);
+        }
+        
+        List<RecordedEvent> eventos = RecordingFile.readAllEvents(archivo).stream()
+            .filter(evento -> evento.getEventType().getName().equals("citas.TransicionCita"))
+            .collect(Collectors.toList());
+        assertEquals(3, eventos.size());
+        assertEquals("CIT-001", eventos.get(0).getString("citaId"));
+        assertEquals("DOC-001", eventos.get(0).getString("profesionalId"));
+        assertEquals("PENDIENTE", eventos.get(0).getString("estadoAnterior"));
+        assertEquals("CONFIRMADA", eventos.get(0).getString("estadoNuevo"));
+        assertEquals("COMPLETADA", eventos.get(1).getString("estadoNuevo"));
+        assertEquals("CIT-002", eventos.get(2).getString("citaId"));
+        assertEquals("CANCELADA", eventos.get(2).getString("estadoNuevo"));
+    }
+}
\ No newline at end of file
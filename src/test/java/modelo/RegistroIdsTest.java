@@ -0,0 +1,103 @@
+package modelo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+class RegistroIdsTest {
+    
+    @Test
+    @DisplayName("Asigna handles densos y estables a traves del crecimiento de la tabla")
+    void testRegistrar() {
+        RegistroIds registro = new RegistroIds();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, registro.registrar("USR-" + i));
+        }
+        
+        assertEquals(1000, registro.tamano());
+        assertEquals(0, registro.registrar(new String("USR-0")));
+        assertEquals(999, registro.buscar("USR-999"));
+        assertEquals("USR-512", registro.id(512));
+        assertEquals(-1, registro.buscar("USR-1000"));
+        assertEquals(-1, registro.buscar(null));
+        assertEquals(1000, registro.tamano());
+        assertThrows(IllegalArgumentException.class, () -> registro.id(1000));
+        assertThrows(IllegalArgumentException.class, () -> registro.id(-1));
+        assertThrows(IllegalArgumentException.class, () -> registro.registrar(null));
+    }
+    
+    @Test
+    @DisplayName("Devuelve siempre la misma copia de cada id")
+    void testCanonico() {
+        RegistroIds registro = new RegistroIds();
+        String original = registro.canonico("DOC-001");
+        
+        assertSame(original, registro.canonico(new String("DOC-001")));
+        assertNotSame(original, registro.canonico("DOC-002"));
+    }
+    
+    @Test
+    @DisplayName("Registros concurrentes del mismo id reciben el mismo handle")
+    void testRegistroConcurrente() throws InterruptedException {
+        RegistroIds registro = new RegistroIds();
+        Thread[] hilos = new Thread[4];
+        int[][] handles = new int[hilos.length][5000];
+        for (int h = 0; h < hilos.length; h++) {
+            int hilo = h;
+            hilos[h] = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    handles[hilo][i] = registro.registrar("PAC-" + i);
+                }
+            });
+            hilos[h].start();
+        }
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+        
+        assertEquals(5000, registro.tamano());
+        Set<Integer> distintos = new HashSet<>();
+        for (int i = 0; i < 5000; i++) {
+            for (int[] deHilo : handles) {
+                assertEquals(handles[0][i], deHilo[i]);
+            }
+            assertEquals("PAC-" + i, registro.id(handles[0][i]));
+            distintos.add(handles[0][i]);
+        }
+        assertEquals(5000, distintos.size());
+    }
+    
+    @Test
+    @DisplayName("Altas concurrentes de ids distintos durante el crecimiento dan handles densos")
+    void testAltasConcurrentesDistintas() throws InterruptedException {
+        RegistroIds registro = new RegistroIds();
+        Thread[] hilos = new Thread[8];
+        int[][] handles = new int[hilos.length][2000];
+        for (int h = 0; h < hilos.length; h++) {
+            int hilo = h;
+            hilos[h] = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    handles[hilo][i] = registro.registrar("USR-" + hilo + "-" + i);
+                    assertEquals(handles[hilo][i], registro.buscar("USR-" + hilo + "-" + i));
+                }
+            });
+            hilos[h].start();
+        }
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+        
+        assertEquals(16000, registro.tamano());
+        boolean[] vistos = new boolean[16000];
+        for (int h = 0; h < hilos.length; h++) {
+            for (int i = 0; i < 2000; i++) {
+                assertFalse(vistos[handles[h][i]]);
+                vistos[handles[h][i]] = true;
+                assertEquals("USR-" + h + "-" + i, registro.id(handles[h][i]));
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -5,6 +5,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.List;
+
 class UsuarioTest {
     
     private Usuario usuario;
@@ -307,4 +310,61 @@ class UsuarioTest {
     void testDescripcionTipoAdministrador() {
         assertEquals("Administrador", Usuario.TipoUsuario.ADMINISTRADOR.getDescripcion());
     }
+    
+    @Test
+    @DisplayName("El observador recibe solo los cambios reales de datos")
+    void testObservadorDatos() {
+        List<String> avisos = new ArrayList<>();
+        ObservadorUsuario observador = u -> avisos.add(u.getNombre() + "|" + u.getEmail() + "|" + u.getTelefono());
+        usuario.setObservador(observador);
+        assertSame(observador, usuario.getObservador());
+        
+        usuario.setNombre(usuario.getNombre());
+        usuario.setNombre("Pedro");
+        usuario.setApellido(usuario.getApellido());
+        usuario.setApellido("Ruiz");
+        usuario.setEmail(usuario.getEmail().toUpperCase());
+        usuario.setEmail("pedro@email.com");
+        usuario.setTelefono(null);
+        usuario.setTelefono("600");
+        assertThrows(IllegalArgumentException.class, () -> usuario.setNombre(""));
+        
+        assertEquals(4, avisos.size());
+        assertEquals("Pedro|pedro@email.com|600", avisos.get(3));
+        
+        usuario.setObservador(null);
+        usuario.setTelefono("601");
+        assertEquals(4, avisos.size());
+    }
+    
+    @Test
+    @DisplayName("El observador recibe los cambios de tipo y de estado con sus valores anteriores")
+    void testObservadorRol() {
+        List<String> avisos = new ArrayList<>();
+        usuario.setObservador(new ObservadorUsuario() {
+            @Override
+            public void datosCambiados(Usuario u) {
+                fail("No se esperaban cambios de datos");
+            }
+            
+            @Override
+            public void rolCambiado(Usuario u, Usuario.TipoUsuario tipoAnterior, boolean activoAnterior) {
+                avisos.add(tipoAnterior + "/" + activoAnterior + "->" + u.getTipo() + "/" + u.isActivo());
+            }
+        });
+        
+        usuario.activar();
+        usuario.desactivar();
+        usuario.desactivar();
+        usuario.setTipo(Usuario.TipoUsuario.PACIENTE);
+        usuario.setTipo(Usuario.TipoUsuario.RECEPCIONISTA);
+        usuario.activar();
+        
+        assertEquals(List.of("PACIENTE/true->PACIENTE/false", "PACIENTE/false->RECEPCIONISTA/false",
+                             "RECEPCIONISTA/false->RECEPCIONISTA/true"), avisos);
+        
+        // Sin sobrescribir rolCambiado no pasa nada
+        usuario.setObservador(u -> fail("No se esperaban cambios de datos"));
+        usuario.desactivar();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,149 @@
+package persistencia;
+
+import modelo.Cita;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import servicio.EventoAgenda;
+import servicio.ReglaHorario;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+class CodificadorEventosTest {
+    
+    private final LocalDate dia = LocalDate.now().plusDays(1);
+    
+    private static EventoAgenda idaYVuelta(EventoAgenda evento) throws IOException {
+        return CodificadorEventos.decodificar(CodificadorEventos.codificar(evento));
+    }
+    
+    @Test
+    @DisplayName("Eventos de horarios conservan profesional y horarios")
+    void testEventosDeHorarios() throws IOException {
+        List<LocalDateTime> horarios = List.of(dia.atTime(9, 0), dia.atTime(9, 30));
+        
+        for (EventoAgenda evento : List.of(EventoAgenda.horariosConfigurados("DOC-001", horarios),
+                                           EventoAgenda.horariosAgregados("DOC-001", horarios),
+                                           EventoAgenda.horariosEliminados("DOC-001", horarios))) {
+            EventoAgenda leido = idaYVuelta(evento);
+            assertEquals(evento.getTipo(), leido.getTipo());
+            assertEquals("DOC-001", leido.getProfesionalId());
+            assertEquals(horarios, leido.getHorarios());
+        }
+    }
+    
+    @Test
+    @DisplayName("Rango reemplazado conserva sus limites")
+    void testRangoReemplazado() throws IOException {
+        EventoAgenda leido = idaYVuelta(EventoAgenda.rangoReemplazado("DOC-001", dia, dia.plusDays(2),
+                                                                      List.of(dia.atTime(10, 0))));
+        
+        assertEquals(EventoAgenda.Tipo.RANGO_REEMPLAZADO, leido.getTipo());
+        assertEquals(dia, leido.getDesde());
+        assertEquals(dia.plusDays(2), leido.getHasta());
+        assertEquals(List.of(dia.atTime(10, 0)), leido.getHorarios());
+    }
+    
+    @Test
+    @DisplayName("Reglas y estado de agenda se reconstruyen completos")
+    void testReglasYEstadoAgenda() throws IOException {
+        ReglaHorario regla = new ReglaHorario(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.SUNDAY),
+            LocalTime.of(9, 0), LocalTime.of(11, 30), dia, dia.plusMonths(1), Set.of(dia.plusDays(7)));
+        
+        EventoAgenda reglas = idaYVuelta(EventoAgenda.reglasConfiguradas("DOC-001", List.of(regla)));
+        ReglaHorario leida = reglas.getReglas().get(0);
+        assertEquals(regla.getDiasSemana(), leida.getDiasSemana());
+        assertEquals(regla.getInicio(), leida.getInicio());
+        assertEquals(regla.getFin(), leida.getFin());
+        assertEquals(regla.getDesde(), leida.getDesde());
+        assertEquals(regla.getHasta(), leida.getHasta());
+        assertEquals(regla.getExcepciones(), leida.getExcepciones());
+        
+        EventoAgenda estado = idaYVuelta(EventoAgenda.estadoAgenda("DOC-001", List.of(regla),
+            List.of(dia), List.of(dia.atTime(12, 0))));
+        assertEquals(EventoAgenda.Tipo.ESTADO_AGENDA, estado.getTipo());
+        assertEquals(1, estado.getReglas().size());
+        assertEquals(List.of(dia), estado.getDiasExpandidos());
+        assertEquals(List.of(dia.atTime(12, 0)), estado.getHorarios());
+    }
+    
+    @Test
+    @DisplayName("Cita agendada conserva datos, estado y motivo")
+    void testCitaAgendada() throws IOException {
+        LocalDateTime fechaHora = LocalDateTime.now().plusDays(1);
+        Cita cita = new Cita("CIT-001", "PAC-001", "DOC-001", fechaHora, "Especialista");
+        cita.confirmar();
+        cita.setMotivo("Control anual");
+        
+        Cita leida = idaYVuelta(EventoAgenda.citaAgendada(cita)).getCita();
+        
+        assertEquals("CIT-001", leida.getId());
+        assertEquals("PAC-001", leida.getPacienteId());
+        assertEquals("DOC-001", leida.getProfesionalId());
+        assertEquals(fechaHora, leida.getFechaHora());
+        assertEquals("Especialista", leida.getTipo());
+        assertEquals(Cita.EstadoCita.CONFIRMADA, leida.getEstado());
+        assertEquals("Control anual", leida.getMotivo());
+        
+        Cita sinMotivo = new Cita("CIT-002", "PAC-001", "DOC-001", fechaHora, "Seguimiento");
+        assertNull(idaYVuelta(EventoAgenda.citaAgendada(sinMotivo)).getCita().getMotivo());
+    }
+    
+    @Test
+    @DisplayName("Un bloque de citas conserva cada cita y comparte los textos repetidos")
+    void testCitasAgendadas() throws IOException {
+        LocalDateTime fechaHora = LocalDateTime.now().plusDays(1);
+        Cita primera = new Cita("CIT-001", "PAC-001", "DOC-001", fechaHora, "Especialista");
+        primera.setMotivo("Control anual");
+        Cita segunda = Cita.restaurar("CIT-002", "PAC-001", "DOC-002", fechaHora.minusDays(3).withNano(0),
+                                      "Seguimiento", Cita.EstadoCita.COMPLETADA);
+        
+        EventoAgenda leido = idaYVuelta(EventoAgenda.citasAgendadas(List.of(primera, segunda)));
+        
+        assertEquals(EventoAgenda.Tipo.CITAS_AGENDADAS, leido.getTipo());
+        assertEquals(2, leido.getCitas().size());
+        Cita uno = leido.getCitas().get(0);
+        Cita dos = leido.getCitas().get(1);
+        assertEquals("CIT-001", uno.getId());
+        assertEquals(fechaHora, uno.getFechaHora());
+        assertEquals("Especialista", uno.getTipo());
+        assertEquals("Control anual", uno.getMotivo());
+        assertEquals(Cita.EstadoCita.PENDIENTE, uno.getEstado());
+        assertEquals("DOC-002", dos.getProfesionalId());
+        assertEquals(Cita.EstadoCita.COMPLETADA, dos.getEstado());
+        assertNull(dos.getMotivo());
+        assertSame(uno.getPacienteId(), dos.getPacienteId());
+        assertTrue(idaYVuelta(EventoAgenda.citasAgendadas(List.of())).getCitas().isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Un bloque con una cantidad imposible se rechaza como mal formado")
+    void testCitasAgendadasDanadas() {
+        byte[] datos = {(byte) EventoAgenda.Tipo.CITAS_AGENDADAS.ordinal(), (byte) 0x7F, 0, 0, 0};
+        assertThrows(IOException.class, () -> CodificadorEventos.decodificar(datos));
+    }
+    
+    @Test
+    @DisplayName("Cambios de estado conservan tipo y cita")
+    void testCambiosDeEstado() throws IOException {
+        for (Cita.EstadoCita estado : List.of(Cita.EstadoCita.CONFIRMADA, Cita.EstadoCita.CANCELADA,
+                                              Cita.EstadoCita.COMPLETADA)) {
+            EventoAgenda evento = EventoAgenda.cambioDeEstado("DOC-001", "CIT-001", estado);
+            EventoAgenda leido = idaYVuelta(evento);
+            assertEquals(evento.getTipo(), leido.getTipo());
+            assertEquals("CIT-001", leido.getCitaId());
+            assertEquals("DOC-001", leido.getProfesionalId());
+        }
+    }
+    
+    @Test
+    @DisplayName("Tipo de evento desconocido lanza excepcion")
+    void testTipoDesconocido() {
+        assertThrows(IOException.class, () -> CodificadorEventos.decodificar(new byte[] {(byte) 200}));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,145 @@
+package persistencia;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+class DiarioEventosTest {
+    
+    @TempDir
+    Path directorio;
+    
+    private DiarioEventos diario;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        diario = new DiarioEventos(directorio, 1);
+    }
+    
+    private List<String> leerSegmento(long segmento) throws IOException {
+        List<String> registros = new ArrayList<>();
+        DiarioEventos.leer(DiarioEventos.rutaSegmento(directorio, segmento),
+                           datos -> registros.add(StandardCharsets.UTF_8.decode(datos).toString()));
+        return registros;
+    }
+    
+    private static byte[] bytes(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Test
+    @DisplayName("Registrar deja los eventos en disco en orden")
+    void testRegistrarEnOrden() throws IOException {
+        diario.registrar(bytes("uno"));
+        diario.registrar(bytes("dos"));
+        
+        assertEquals(List.of("uno", "dos"), leerSegmento(1));
+    }
+    
+    @Test
+    @DisplayName("Registro nulo o vacio lanza excepcion")
+    void testRegistroInvalido() {
+        assertThrows(IllegalArgumentException.class, () -> diario.registrar(null));
+        assertThrows(IllegalArgumentException.class, () -> diario.registrar(new byte[0]));
+    }
+    
+    @Test
+    @DisplayName("Un solo vaciado cubre todos los registros anotados antes")
+    void testVaciadoAgrupado() throws IOException {
+        long primera = diario.anotar(bytes("a"));
+        long segunda = diario.anotar(bytes("b"));
+        
+        diario.esperarDurabilidad(segunda);
+        diario.esperarDurabilidad(primera);
+        
+        assertEquals(List.of("a", "b"), leerSegmento(1));
+    }
+    
+    @Test
+    @DisplayName("Registros concurrentes quedan todos en disco")
+    void testRegistroConcurrente() throws Exception {
+        int hilos = 8;
+        int porHilo = 200;
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            int hilo = h;
+            tareas.add(ejecutor.submit(() -> {
+                for (int i = 0; i < porHilo; i++) {
+                    diario.registrar(bytes(hilo + "-" + i));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get(30, TimeUnit.SECONDS);
+        }
+        ejecutor.shutdown();
+        
+        List<String> registros = leerSegmento(1);
+        assertEquals(hilos * porHilo, registros.size());
+        assertEquals(hilos * porHilo, new HashSet<>(registros).size());
+    }
+    
+    @Test
+    @DisplayName("Rotar vacia el segmento actual y abre el siguiente")
+    void testRotar() throws IOException {
+        diario.anotar(bytes("antes"));
+        
+        assertEquals(2, diario.rotar());
+        assertEquals(2, diario.getSegmento());
+        diario.registrar(bytes("despues"));
+        
+        assertEquals(List.of("antes"), leerSegmento(1));
+        assertEquals(List.of("despues"), leerSegmento(2));
+    }
+    
+    @Test
+    @DisplayName("Cerrar vacia lo pendiente y rechaza nuevos registros")
+    void testCerrar() throws IOException {
+        diario.anotar(bytes("pendiente"));
+        diario.close();
+        diario.close();
+        
+        assertEquals(List.of("pendiente"), leerSegmento(1));
+        assertThrows(IOException.class, () -> diario.anotar(bytes("tarde")));
+    }
+    
+    @Test
+    @DisplayName("La lectura se detiene en una cola incompleta o dañada")
+    void testLecturaConColaDanada() throws IOException {
+        diario.registrar(bytes("integro"));
+        diario.close();
+        Path segmento = DiarioEventos.rutaSegmento(directorio, 1);
+        long tamanoIntegro = Files.size(segmento);
+        
+        Files.write(segmento, new byte[] {0, 0, 0, 9, 1, 2}, StandardOpenOption.APPEND);
+        assertEquals(tamanoIntegro, DiarioEventos.leer(segmento, datos -> { }));
+        
+        Files.write(segmento, new byte[] {(byte) 0xFF, 0, 0, 0}, StandardOpenOption.APPEND);
+        assertEquals(List.of("integro"), leerSegmento(1));
+    }
+    
+    @Test
+    @DisplayName("Suma de verificacion incorrecta invalida el registro")
+    void testSumaIncorrecta() throws IOException {
+        diario.registrar(bytes("abc"));
+        diario.close();
+        Path segmento = DiarioEventos.rutaSegmento(directorio, 1);
+        byte[] contenido = Files.readAllBytes(segmento);
+        contenido[contenido.length - 1] ^= 1;
+        Files.write(segmento, contenido);
+        
+        assertEquals(0, DiarioEventos.leer(segmento, datos -> fail("No debe leerse")));
+    }
+}
\ No newline at end of file
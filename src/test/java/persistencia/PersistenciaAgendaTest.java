@@ -0,0 +1,338 @@
+package persistencia;
+
+import modelo.Cita;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import servicio.AlmacenCalendarios;
+import servicio.GestorDisponibilidad;
+import servicio.ReglaHorario;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+class PersistenciaAgendaTest {
+    
+    @TempDir
+    Path directorio;
+    
+    private LocalDate dia;
+    
+    @BeforeEach
+    void setUp() {
+        dia = LocalDate.now().plusDays(1);
+    }
+    
+    private List<String> archivos() throws IOException {
+        try (Stream<Path> lista = Files.list(directorio)) {
+            return lista.map(ruta -> ruta.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+    
+    private void poblar(GestorDisponibilidad gestor) {
+        gestor.configurarReglasHorario("DOC-001", List.of(new ReglaHorario(EnumSet.allOf(DayOfWeek.class),
+            LocalTime.of(9, 0), LocalTime.of(11, 30), dia, dia.plusDays(30))));
+        gestor.agregarHorarios("DOC-001", Set.of(dia.atTime(18, 0)));
+        gestor.eliminarHorarios("DOC-001", Set.of(dia.atTime(11, 30)));
+        gestor.configurarHorarios("DOC-002", Set.of(dia.atTime(9, 0), dia.atTime(10, 0), dia.atTime(11, 0)));
+        gestor.reemplazarHorariosEnRango("DOC-002", dia, dia, Set.of(dia.atTime(10, 0), dia.atTime(12, 0)));
+        
+        Cita confirmada = new Cita("CIT-001", "PAC-001", "DOC-001", dia.atTime(9, 0), "Consulta General");
+        Cita cancelada = new Cita("CIT-002", "PAC-001", "DOC-001", dia.atTime(10, 0), "Consulta General");
+        Cita completada = new Cita("CIT-003", "PAC-002", "DOC-002", dia.atTime(10, 0), "Especialista");
+        Cita pendiente = new Cita("CIT-004", "PAC-002", "DOC-002", dia.atTime(12, 0), "Seguimiento");
+        gestor.agendarCitas(List.of(confirmada, cancelada, completada, pendiente));
+        confirmada.confirmar();
+        gestor.cancelarCita("CIT-002");
+        completada.confirmar();
+        completada.completar();
+    }
+    
+    private void verificarPoblado(GestorDisponibilidad gestor) {
+        assertEquals(4, gestor.contarCitas());
+        assertEquals(Cita.EstadoCita.CONFIRMADA, gestor.buscarCita("CIT-001").getEstado());
+        assertEquals(Cita.EstadoCita.CANCELADA, gestor.buscarCita("CIT-002").getEstado());
+        assertEquals(Cita.EstadoCita.COMPLETADA, gestor.buscarCita("CIT-003").getEstado());
+        assertEquals(Cita.EstadoCita.PENDIENTE, gestor.buscarCita("CIT-004").getEstado());
+        assertEquals(1, gestor.contarCitas(Cita.EstadoCita.CANCELADA));
+        
+        assertFalse(gestor.estaDisponible("DOC-001", dia.atTime(9, 0)));
+        assertTrue(gestor.estaDisponible("DOC-001", dia.atTime(10, 0)));
+        assertFalse(gestor.estaDisponible("DOC-001", dia.atTime(11, 30)));
+        assertTrue(gestor.estaDisponible("DOC-001", dia.atTime(18, 0)));
+        assertTrue(gestor.estaDisponible("DOC-001", dia.plusDays(5).atTime(11, 30)));
+        assertFalse(gestor.estaDisponible("DOC-002", dia.atTime(11, 0)));
+        assertFalse(gestor.estaDisponible("DOC-002", dia.atTime(12, 0)));
+        
+        Map<String, Integer> estadisticas = gestor.obtenerEstadisticasDisponibilidad("DOC-001");
+        assertEquals(6 * 31 - 1 + 1, estadisticas.get("horariosConfigurados"));
+        assertEquals(1, estadisticas.get("horariosOcupados"));
+        assertEquals(2, gestor.obtenerEstadisticasDisponibilidad("DOC-002").get("horariosConfigurados"));
+    }
+    
+    @Test
+    @DisplayName("Reabrir reconstruye el estado a partir del diario")
+    void testRecuperarDesdeDiario() throws IOException {
+        GestorDisponibilidad original = new GestorDisponibilidad();
+        try (PersistenciaAgenda persistencia = PersistenciaAgenda.abrir(directorio, original)) {
+            poblar(original);
+        }
+        
+        GestorDisponibilidad recuperado = new GestorDisponibilidad();
+        try (PersistenciaAgenda persistencia = PersistenciaAgenda.abrir(directorio, recuperado)) {
+            verificarPoblado(recuperado);
+            
+            recuperado.buscarCita("CIT-004").confirmar();
+        }
+        
+        GestorDisponibilidad otraVez = new GestorDisponibilidad();
+        PersistenciaAgenda.abrir(directorio, otraVez).close();
+        assertEquals(Cita.EstadoCita.CONFIRMADA, otraVez.buscarCita("CIT-004").getEstado());
+    }
+    
+    @Test
+    @DisplayName("La carga masiva se registra en lote y se recupera al reabrir")
+    void testCargaMasivaRecuperable() throws IOException {
+        LocalDateTime pasado = LocalDateTime.now().minusDays(2).withHour(9).withMinute(0).withSecond(0).withNano(0);
+        GestorDisponibilidad original = new GestorDisponibilidad();
+        try (PersistenciaAgenda persistencia = PersistenciaAgenda.abrir(directorio, original, 3)) {
+            List<Cita> lote = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                lote.add(Cita.restaurar("CIT-" + i, "PAC-001", "DOC-001", pasado.plusHours(i), "Seguimiento",
+                    Cita.EstadoCita.COMPLETADA));
+            }
+            original.cargarCitas(lote);
+        }
+        
+        GestorDisponibilidad recuperado = new GestorDisponibilidad();
+        PersistenciaAgenda.abrir(directorio, recuperado).close();
+        assertEquals(5, recuperado.contarCitas(Cita.EstadoCita.COMPLETADA));
+        assertEquals(pasado.plusHours(4), recuperado.buscarCita("CIT-4").getFechaHora());
+    }
+    
+    @Test
+    @DisplayName("La instantanea compacta el diario y sigue reproduciendo lo posterior")
+    void testInstantaneaYCompactacion() throws IOException {
+        GestorDisponibilidad original = new GestorDisponibilidad();
+        try (PersistenciaAgenda persistencia = PersistenciaAgenda.abrir(directorio, original)) {
+            poblar(original);
+            persistencia.tomarInstantanea();
+            original.buscarCita("CIT-004").cancelar();
+        }
+        
+        assertEquals(List.of("eventos-00000000000000000002.log", "instantanea-00000000000000000002.bin"),
+                     archivos());
+        
+        GestorDisponibilidad recuperado = new GestorDisponibilidad();
+        try (PersistenciaAgenda persistencia = PersistenciaAgenda.abrir(directorio, recuperado)) {
+            assertEquals(Cita.EstadoCita.CANCELADA, recuperado.buscarCita("CIT-004").getEstado());
+            assertTrue(recuperado.estaDisponible("DOC-002", dia.atTime(12, 0)));
+            assertEquals(2, recuperado.contarCitas(Cita.EstadoCita.CANCELADA));
+        }
+    }
+    
+    @Test
+    @DisplayName("Recuperar aplica la instantanea aunque las fechas ya hayan pasado")
+    void testInstantaneaConDiasExpandidos() throws IOException {
+        GestorDisponibilidad original = new GestorDisponibilidad();
+        try (PersistenciaAgenda persistencia = PersistenciaAgenda.abrir(directorio, original)) {
+            poblar(original);
+            original.consultarDisponibilidad("DOC-001", dia.plusDays(3).atStartOfDay());
+            persistencia.tomarInstantanea();
+        }
+        
+        GestorDisponibilidad recuperado = new GestorDisponibilidad();
+        PersistenciaAgenda.abrir(directorio, recuperado).close();
+        verificarPoblado(recuperado);
+    }
+    
+    @Test
+    @DisplayName("Una cola de escritura interrumpida se descarta al recuperar")
+    void testColaInterrumpida() throws IOException {
+        GestorDisponibilidad original = new GestorDisponibilidad();
+        try (PersistenciaAgenda persistencia = PersistenciaAgenda.abrir(directorio, original)) {
+            poblar(original);
+        }
+        Path segmento = DiarioEventos.rutaSegmento(directorio, 1);
+        long tamano = Files.size(segmento);
+        Files.write(segmento, new byte[] {0, 0, 1, 0, 7}, StandardOpenOption.APPEND);
+        
+        GestorDisponibilidad recuperado = new GestorDisponibilidad();
+        PersistenciaAgenda.abrir(directorio, recuperado).close();
+        
+        verificarPoblado(recuperado);
+        assertEquals(tamano, Files.size(segmento));
+    }
+    
+    @Test
+    @DisplayName("Instantanea dañada impide la recuperacion")
+    void testInstantaneaDanada() throws IOException {
+        GestorDisponibilidad original = new GestorDisponibilidad();
+        try (PersistenciaAgenda persistencia = PersistenciaAgenda.abrir(directorio, original)) {
+            poblar(original);
+            persistencia.tomarInstantanea();
+        }
+        Path instantanea = directorio.resolve("instantanea-00000000000000000002.bin");
+        Files.write(instantanea, new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+        
+        assertThrows(IOException.class, () -> PersistenciaAgenda.abrir(directorio, new GestorDisponibilidad()));
+    }
+    
+    @Test
+    @DisplayName("Instantanea a medio escribir se ignora y se borra")
+    void testInstantaneaTemporal() throws IOException {
+        GestorDisponibilidad original = new GestorDisponibilidad();
+        try (PersistenciaAgenda persistencia = PersistenciaAgenda.abrir(directorio, original)) {
+            poblar(original);
+        }
+        Files.write(directorio.resolve("instantanea-2.tmp"), new byte[] {9, 9});
+        
+        GestorDisponibilidad recuperado = new GestorDisponibilidad();
+        PersistenciaAgenda.abrir(directorio, recuperado).close();
+        
+        verificarPoblado(recuperado);
+        assertFalse(Files.exists(directorio.resolve("instantanea-2.tmp")));
+    }
+    
+    @Test
+    @DisplayName("Se toma una instantanea automatica al superar el umbral de eventos")
+    void testInstantaneaAutomatica() throws Exception {
+        GestorDisponibilidad gestor = new GestorDisponibilidad();
+        try (PersistenciaAgenda persistencia = PersistenciaAgenda.abrir(directorio, gestor, 3)) {
+            poblar(gestor);
+            long limite = System.currentTimeMillis() + 10_000;
+            while (archivos().stream().noneMatch(nombre -> nombre.endsWith(".bin"))
+                    && System.currentTimeMillis() < limite) {
+                Thread.sleep(10);
+            }
+        }
+        assertTrue(archivos().stream().anyMatch(nombre -> nombre.endsWith(".bin")));
+        
+        GestorDisponibilidad recuperado = new GestorDisponibilidad();
+        PersistenciaAgenda.abrir(directorio, recuperado).close();
+        verificarPoblado(recuperado);
+    }
+    
+    @Test
+    @DisplayName("Al cerrar deja de registrar eventos")
+    void testCerrarQuitaOyente() throws IOException {
+        GestorDisponibilidad gestor = new GestorDisponibilidad();
+        PersistenciaAgenda.abrir(directorio, gestor).close();
+        
+        gestor.configurarHorarios("DOC-001", Set.of(dia.atTime(9, 0)));
+        
+        GestorDisponibilidad recuperado = new GestorDisponibilidad();
+        PersistenciaAgenda.abrir(directorio, recuperado).close();
+        assertEquals(0, recuperado.obtenerEstadisticasDisponibilidad("DOC-001").get("horariosConfigurados"));
+    }
+    
+    @Test
+    @DisplayName("Argumentos invalidos lanzan excepcion")
+    void testArgumentosInvalidos() {
+        GestorDisponibilidad gestor = new GestorDisponibilidad();
+        assertThrows(IllegalArgumentException.class, () -> PersistenciaAgenda.abrir(null, gestor));
+        assertThrows(IllegalArgumentException.class, () -> PersistenciaAgenda.abrir(directorio, null));
+        assertThrows(IllegalArgumentException.class, () -> PersistenciaAgenda.abrir(directorio, gestor, 0));
+    }
+    
+    @Test
+    @DisplayName("Una reserva mapeada que no llego al diario queda libre al reabrir")
+    void testOcupadoMapeadoSinDiario() throws IOException {
+        Path calendarios = directorio.resolve("calendarios");
+        Path diario = directorio.resolve("diario");
+        try (AlmacenCalendarios almacen = new AlmacenCalendarios(calendarios, 30)) {
+            GestorDisponibilidad gestor = new GestorDisponibilidad(4, almacen);
+            try (PersistenciaAgenda persistencia = PersistenciaAgenda.abrir(diario, gestor)) {
+                gestor.configurarHorarios("DOC-001", Set.of(dia.atTime(9, 0), dia.atTime(10, 0)));
+                assertTrue(gestor.agendarCita(new Cita("CIT-001", "PAC-001", "DOC-001", dia.atTime(9, 0),
+                    "Consulta General")));
+                // El bit ocupado llega al archivo mapeado pero el evento no al diario
+                gestor.quitarOyente(persistencia);
+                assertTrue(gestor.agendarCita(new Cita("CIT-002", "PAC-002", "DOC-001", dia.atTime(10, 0),
+                    "Consulta General")));
+            }
+        }
+        simularCaida(calendarios);
+        
+        try (AlmacenCalendarios almacen = new AlmacenCalendarios(calendarios, 30)) {
+            GestorDisponibilidad gestor = new GestorDisponibilidad(4, almacen);
+            assertFalse(gestor.estaDisponible("DOC-001", dia.atTime(10, 0)));
+            PersistenciaAgenda.abrir(diario, gestor).close();
+            
+            assertEquals(1, gestor.contarCitas());
+            assertFalse(gestor.estaDisponible("DOC-001", dia.atTime(9, 0)));
+            assertTrue(gestor.estaDisponible("DOC-001", dia.atTime(10, 0)));
+            assertEquals(1, gestor.obtenerEstadisticasDisponibilidad("DOC-001").get("horariosOcupados"));
+            assertThrows(IllegalStateException.class, gestor::descartarCalendariosGuardados);
+        }
+    }
+    
+    @Test
+    @DisplayName("Tras un cierre limpio se reutilizan los calendarios mapeados y tras una caida se rehacen")
+    void testPuntoDeControlCalendarios() throws IOException {
+        Path calendarios = directorio.resolve("calendarios");
+        Path diario = directorio.resolve("diario");
+        try (AlmacenCalendarios almacen = new AlmacenCalendarios(calendarios, 30)) {
+            GestorDisponibilidad gestor = new GestorDisponibilidad(4, almacen);
+            try (PersistenciaAgenda persistencia = PersistenciaAgenda.abrir(diario, gestor)) {
+                gestor.configurarHorarios("DOC-001", Set.of(dia.atTime(9, 0), dia.atTime(10, 0)));
+                assertTrue(gestor.agendarCita(new Cita("CIT-001", "PAC-001", "DOC-001", dia.atTime(9, 0),
+                    "Consulta General")));
+            }
+        }
+        // Un horario escrito solo en el mapa: si aparece al reabrir, el mapa no se rehizo desde el diario
+        try (AlmacenCalendarios almacen = new AlmacenCalendarios(calendarios, 30)) {
+            assertTrue(almacen.abrir("DOC-001").agregarHorario(dia.atTime(11, 0)));
+        }
+        
+        try (AlmacenCalendarios almacen = new AlmacenCalendarios(calendarios, 30)) {
+            GestorDisponibilidad gestor = new GestorDisponibilidad(4, almacen);
+            try (PersistenciaAgenda persistencia = PersistenciaAgenda.abrir(diario, gestor)) {
+                assertEquals(1, gestor.contarCitas());
+                assertFalse(gestor.estaDisponible("DOC-001", dia.atTime(9, 0)));
+                assertTrue(gestor.estaDisponible("DOC-001", dia.atTime(10, 0)));
+                assertTrue(gestor.estaDisponible("DOC-001", dia.atTime(11, 0)));
+                assertTrue(gestor.agendarCita(new Cita("CIT-002", "PAC-002", "DOC-001", dia.atTime(10, 0),
+                    "Consulta General")));
+            }
+        }
+        simularCaida(calendarios);
+        
+        try (AlmacenCalendarios almacen = new AlmacenCalendarios(calendarios, 30)) {
+            GestorDisponibilidad gestor = new GestorDisponibilidad(4, almacen);
+            PersistenciaAgenda.abrir(diario, gestor).close();
+            
+            assertEquals(2, gestor.contarCitas());
+            assertFalse(gestor.estaDisponible("DOC-001", dia.atTime(9, 0)));
+            assertFalse(gestor.estaDisponible("DOC-001", dia.atTime(10, 0)));
+            assertEquals(2, gestor.obtenerEstadisticasDisponibilidad("DOC-001").get("horariosConfigurados"));
+        }
+    }
+    
+    @Test
+    @DisplayName("Sin almacen mapeado no hay punto de control que guardar")
+    void testPuntoDeControlSinAlmacen() throws IOException {
+        GestorDisponibilidad gestor = new GestorDisponibilidad();
+        assertEquals(0, gestor.tomarPuntoDeControlCalendarios());
+        assertThrows(IllegalStateException.class, () -> gestor.guardarPuntoDeControlCalendarios(1));
+        assertDoesNotThrow(gestor::descartarCalendariosGuardados);
+    }
+    
+    // Tras una caída el punto de control queda anulado: el arranque lo tomó y el cierre nunca lo repuso
+    private static void simularCaida(Path calendarios) throws IOException {
+        try (AlmacenCalendarios almacen = new AlmacenCalendarios(calendarios, 30)) {
+            almacen.tomarPuntoDeControl();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+package servicio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+class AlmacenCalendariosTest {
+    
+    @TempDir
+    Path directorio;
+    
+    @Test
+    @DisplayName("Lista los profesionales guardados con cualquier caracter en el ID")
+    void testProfesionalesGuardados() throws IOException {
+        try (AlmacenCalendarios almacen = new AlmacenCalendarios(directorio.resolve("cal"), 30)) {
+            assertSame(almacen.abrir("DOC/001"), almacen.abrir("DOC/001"));
+            almacen.abrir("Dra. Núñez");
+            almacen.forzar();
+        }
+        Files.write(directorio.resolve("cal").resolve("otro.txt"), new byte[] {1});
+        
+        try (AlmacenCalendarios almacen = new AlmacenCalendarios(directorio.resolve("cal"), 30)) {
+            assertEquals(List.of("DOC/001", "Dra. Núñez"), almacen.profesionalesGuardados());
+            assertEquals(30, almacen.getMinutosPorSlot());
+        }
+    }
+    
+    @Test
+    @DisplayName("Un calendario incompatible se informa al abrirlo")
+    void testCalendarioIncompatible() throws IOException {
+        LocalDateTime horario = LocalDateTime.now().plusDays(1).withHour(9).withMinute(0).withSecond(0).withNano(0);
+        try (AlmacenCalendarios almacen = new AlmacenCalendarios(directorio, 30)) {
+            almacen.abrir("DOC-001").agregarHorario(horario);
+        }
+        
+        try (AlmacenCalendarios almacen = new AlmacenCalendarios(directorio, 60)) {
+            assertThrows(UncheckedIOException.class, () -> almacen.abrir("DOC-001"));
+        }
+    }
+    
+    @Test
+    @DisplayName("Argumentos invalidos lanzan excepcion")
+    void testArgumentosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> new AlmacenCalendarios(null, 30));
+        assertThrows(IllegalArgumentException.class, () -> new AlmacenCalendarios(directorio, 45));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package servicio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class ArchivadorHistorialTest {
+    
+    @Test
+    @DisplayName("Archiva al arrancar y en cada periodo aunque una pasada falle")
+    void testArchivadoPeriodico() throws InterruptedException {
+        CountDownLatch pasadas = new CountDownLatch(3);
+        GestorDisponibilidad gestor = new GestorDisponibilidad() {
+            @Override
+            public int archivarHistorial(LocalDateTime antesDe) {
+                pasadas.countDown();
+                if (pasadas.getCount() == 2) {
+                    throw new IllegalStateException("Fallo simulado");
+                }
+                return super.archivarHistorial(antesDe);
+            }
+        };
+        
+        try (ArchivadorHistorial archivador = ArchivadorHistorial.iniciar(gestor, Duration.ofMillis(10))) {
+            assertTrue(pasadas.await(5, TimeUnit.SECONDS));
+        }
+        assertThrows(IllegalArgumentException.class, () -> ArchivadorHistorial.iniciar(null, Duration.ofHours(1)));
+        assertThrows(IllegalArgumentException.class, () -> ArchivadorHistorial.iniciar(gestor, null));
+        assertThrows(IllegalArgumentException.class, () -> ArchivadorHistorial.iniciar(gestor, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> ArchivadorHistorial.iniciar(gestor, Duration.ofMillis(-1)));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,160 @@
+package servicio;
+
+import modelo.Cita;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+class ArchivoCitasTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2023, 3, 1, 9, 0);
+    
+    private static Cita cita(String id, String profesionalId, LocalDateTime fechaHora, Cita.EstadoCita estado) {
+        return Cita.restaurar(id, "PAC-001", profesionalId, fechaHora, "Consulta general", estado);
+    }
+    
+    // Variantes de mayúsculas de un mismo tipo válido: cada una ocupa su propia entrada en el pool de tipos
+    private static String mayusculas(int variante) {
+        char[] letras = "seguimiento".toCharArray();
+        for (int i = 0; i < letras.length; i++) {
+            if ((variante >>> i & 1) != 0) {
+                letras[i] = Character.toUpperCase(letras[i]);
+            }
+        }
+        return new String(letras);
+    }
+    
+    @Test
+    @DisplayName("Una cita archivada se reconstruye con todos sus datos")
+    void testMaterializar() {
+        ArchivoCitas archivo = new ArchivoCitas();
+        Cita original = Cita.restaurar("CIT-000123", "PAC-007", "DOC-002", BASE, "Especialista",
+                                       Cita.EstadoCita.COMPLETADA);
+        original.setMotivo("Control anual");
+        
+        int fila = archivo.archivar(original);
+        Cita copia = archivo.materializar(fila);
+        
+        assertEquals(0, fila);
+        assertEquals("CIT-000123", copia.getId());
+        assertEquals("PAC-007", copia.getPacienteId());
+        assertEquals("DOC-002", copia.getProfesionalId());
+        assertEquals(BASE, copia.getFechaHora());
+        assertEquals("Especialista", copia.getTipo());
+        assertEquals("Control anual", copia.getMotivo());
+        assertEquals(Cita.EstadoCita.COMPLETADA, copia.getEstado());
+        assertNull(copia.getObservador());
+        assertNull(archivo.materializar(archivo.archivar(cita("CIT-2", "DOC-002", BASE, Cita.EstadoCita.CANCELADA)))
+            .getMotivo());
+        assertThrows(IndexOutOfBoundsException.class, () -> archivo.materializar(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> archivo.materializar(-1));
+    }
+    
+    @Test
+    @DisplayName("Busca por codigo sin confundir ceros a la izquierda ni codigos sin numero")
+    void testBuscarFila() {
+        ArchivoCitas archivo = new ArchivoCitas();
+        String[] ids = {"CIT-7", "CIT-007", "CIT-0", "ABC", "12345", "X-1234567890123456789012", "WEB-"};
+        for (String id : ids) {
+            archivo.archivar(cita(id, "DOC-001", BASE, Cita.EstadoCita.COMPLETADA));
+        }
+        
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(i, archivo.buscarFila(ids[i]), ids[i]);
+            assertEquals(ids[i], archivo.materializar(i).getId());
+        }
+        assertEquals(-1, archivo.buscarFila("CIT-07"));
+        assertEquals(-1, archivo.buscarFila("CIT-8"));
+        assertEquals(-1, archivo.buscarFila("OTRO-7"));
+        assertFalse(archivo.contiene("ABD"));
+        assertTrue(archivo.contiene("12345"));
+    }
+    
+    @Test
+    @DisplayName("Crece mas alla de la capacidad inicial y conserva las busquedas")
+    void testCrecimiento() {
+        ArchivoCitas archivo = new ArchivoCitas();
+        for (int i = 0; i < 5000; i++) {
+            archivo.archivar(cita("CIT-" + i, "DOC-" + (i % 7), BASE.plusMinutes(30L * i), Cita.EstadoCita.COMPLETADA));
+        }
+        
+        assertEquals(5000, archivo.tamano());
+        for (int i = 0; i < 5000; i += 37) {
+            assertEquals(i, archivo.buscarFila("CIT-" + i));
+        }
+        assertEquals(BASE.plusMinutes(30L * 4999), archivo.materializar(4999).getFechaHora());
+        
+        List<Cita> delDoctor = archivo.citasDeProfesional("DOC-3");
+        assertEquals(714, delDoctor.size());
+        assertEquals("CIT-3", delDoctor.get(0).getId());
+        assertTrue(archivo.citasDeProfesional("DOC-99").isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Buscar, contar y recorrer no esperan a las altas")
+    void testLecturasSinMonitor() throws Exception {
+        ArchivoCitas archivo = new ArchivoCitas();
+        archivo.archivar(cita("CIT-1", "DOC-001", BASE, Cita.EstadoCita.COMPLETADA));
+        archivo.archivar(cita("CIT-2", "DOC-001", BASE.plusHours(1), Cita.EstadoCita.CANCELADA));
+        int[] leidas = new int[4];
+        Thread lector = new Thread(() -> {
+            leidas[0] = archivo.buscarFila("CIT-2");
+            leidas[1] = archivo.contiene("CIT-3") ? 1 : 0;
+            leidas[2] = archivo.contarPorEstado("DOC-001", null, null)[Cita.EstadoCita.CANCELADA.ordinal()];
+            leidas[3] = archivo.tamano();
+        });
+        
+        synchronized (archivo) {
+            lector.start();
+            lector.join(5_000);
+            assertFalse(lector.isAlive());
+        }
+        assertArrayEquals(new int[] {1, 0, 1, 2}, leidas);
+        assertEquals(1, archivo.citasDeProfesional("DOC-001", 1).size());
+        assertEquals(2, archivo.citasDeProfesional("DOC-001").size());
+    }
+    
+    @Test
+    @DisplayName("Cuenta por estado filtrando por profesional y rango")
+    void testContarPorEstado() {
+        ArchivoCitas archivo = new ArchivoCitas();
+        archivo.archivar(cita("CIT-1", "DOC-001", BASE, Cita.EstadoCita.COMPLETADA));
+        archivo.archivar(cita("CIT-2", "DOC-001", BASE.plusHours(1), Cita.EstadoCita.CANCELADA));
+        archivo.archivar(cita("CIT-3", "DOC-001", BASE.plusDays(1), Cita.EstadoCita.COMPLETADA));
+        archivo.archivar(cita("CIT-4", "DOC-002", BASE, Cita.EstadoCita.COMPLETADA));
+        
+        int completada = Cita.EstadoCita.COMPLETADA.ordinal();
+        int cancelada = Cita.EstadoCita.CANCELADA.ordinal();
+        int[] todas = archivo.contarPorEstado(null, null, null);
+        assertEquals(3, todas[completada]);
+        assertEquals(1, todas[cancelada]);
+        
+        int[] primerDia = archivo.contarPorEstado("DOC-001", BASE, BASE.plusDays(1));
+        assertEquals(1, primerDia[completada]);
+        assertEquals(1, primerDia[cancelada]);
+        assertEquals(1, archivo.contarPorEstado("DOC-001", BASE.plusMinutes(61), null)[completada]);
+        assertEquals(0, archivo.contarPorEstado("DOC-001", BASE.plusMinutes(61), null)[cancelada]);
+        assertArrayEquals(new int[4], archivo.contarPorEstado("DOC-404", null, null));
+    }
+    
+    @Test
+    @DisplayName("Rechaza citas con segundos o con demasiados tipos distintos")
+    void testNoArchivables() {
+        ArchivoCitas archivo = new ArchivoCitas();
+        assertFalse(ArchivoCitas.esArchivable(cita("CIT-1", "DOC-001", BASE.plusSeconds(5), Cita.EstadoCita.COMPLETADA)));
+        assertEquals(-1, archivo.archivar(cita("CIT-1", "DOC-001", BASE.plusSeconds(5), Cita.EstadoCita.COMPLETADA)));
+        
+        for (int i = 0; i < 256; i++) {
+            assertEquals(i, archivo.archivar(Cita.restaurar("CIT-" + i, "PAC-001", "DOC-001", BASE, mayusculas(i),
+                Cita.EstadoCita.COMPLETADA)));
+        }
+        assertEquals(-1, archivo.archivar(Cita.restaurar("CIT-900", "PAC-001", "DOC-001", BASE, mayusculas(256),
+            Cita.EstadoCita.COMPLETADA)));
+        assertEquals(256, archivo.archivar(Cita.restaurar("CIT-901", "PAC-001", "DOC-001", BASE, mayusculas(255),
+            Cita.EstadoCita.COMPLETADA)));
+        assertEquals(mayusculas(255), archivo.materializar(256).getTipo());
+        assertFalse(archivo.contiene("CIT-1x"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,114 @@
+package servicio;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+class CalendarioMapeadoTest {
+    
+    @TempDir
+    Path directorio;
+    
+    private Path archivo;
+    private LocalDate dia;
+    
+    @BeforeEach
+    void setUp() {
+        archivo = directorio.resolve("DOC-001.cal");
+        dia = LocalDate.now().plusDays(1);
+    }
+    
+    @Test
+    @DisplayName("Los slots configurados y ocupados sobreviven al reabrir")
+    void testReabrirConservaSlots() throws IOException {
+        try (CalendarioMapeado calendario = CalendarioMapeado.abrir(archivo, 30)) {
+            calendario.agregarHorario(dia.atTime(9, 0));
+            calendario.agregarHorario(dia.atTime(9, 30));
+            calendario.agregarHorario(dia.plusDays(1).atTime(10, 0));
+            calendario.marcarOcupado(dia.atTime(9, 0));
+        }
+        
+        try (CalendarioMapeado calendario = CalendarioMapeado.abrir(archivo, 30)) {
+            assertTrue(calendario.esPersistente());
+            assertEquals(3, calendario.contarConfigurados());
+            assertEquals(1, calendario.contarOcupados());
+            assertFalse(calendario.estaLibre(dia.atTime(9, 0)));
+            assertEquals(List.of(dia.atTime(9, 30)), calendario.horariosLibres(dia, null));
+            assertTrue(calendario.estaConfigurado(dia.plusDays(1).atTime(10, 0)));
+        }
+    }
+    
+    @Test
+    @DisplayName("El archivo crece al superar los dias reservados y reutiliza los liberados")
+    void testCrecerYReutilizarRegistros() throws IOException {
+        try (CalendarioMapeado calendario = CalendarioMapeado.abrir(archivo, 15)) {
+            for (int d = 0; d < 200; d++) {
+                calendario.agregarHorario(dia.plusDays(d).atTime(23, 45));
+            }
+            long tamano = Files.size(archivo);
+            
+            calendario.quitarHorario(dia.atTime(23, 45));
+            calendario.limpiarHorarios(dia.plusDays(1), dia.plusDays(9));
+            calendario.agregarHorario(dia.plusDays(500).atTime(8, 0));
+            
+            assertEquals(tamano, Files.size(archivo));
+            assertEquals(191, calendario.contarConfigurados());
+        }
+        
+        try (CalendarioMapeado calendario = CalendarioMapeado.abrir(archivo, 15)) {
+            assertEquals(191, calendario.contarConfigurados());
+            assertFalse(calendario.estaConfigurado(dia.atTime(23, 45)));
+            assertTrue(calendario.estaConfigurado(dia.plusDays(199).atTime(23, 45)));
+            assertTrue(calendario.estaConfigurado(dia.plusDays(500).atTime(8, 0)));
+        }
+    }
+    
+    @Test
+    @DisplayName("Reemplazar configurados conserva los ocupados")
+    void testReemplazarConfigurados() throws IOException {
+        try (CalendarioMapeado calendario = CalendarioMapeado.abrir(archivo, 30)) {
+            calendario.agregarHorario(dia.atTime(9, 0));
+            calendario.marcarOcupado(dia.atTime(9, 0));
+            CalendarioSlots nuevo = new CalendarioSlots(30);
+            nuevo.agregarHorario(dia.atTime(11, 0));
+            
+            calendario.reemplazarConfiguradosPor(nuevo);
+            
+            assertFalse(calendario.estaConfigurado(dia.atTime(9, 0)));
+            assertTrue(calendario.estaOcupado(dia.atTime(9, 0)));
+            assertTrue(calendario.estaLibre(dia.atTime(11, 0)));
+            assertEquals(1, calendario.contarConfigurados());
+            assertEquals(1, calendario.contarOcupados());
+        }
+    }
+    
+    @Test
+    @DisplayName("Abrir con otra duracion de slot o un archivo ajeno falla")
+    void testArchivoIncompatible() throws IOException {
+        CalendarioMapeado.abrir(archivo, 30).close();
+        assertThrows(IOException.class, () -> CalendarioMapeado.abrir(archivo, 60));
+        
+        Path ajeno = directorio.resolve("ajeno.cal");
+        Files.write(ajeno, new byte[64]);
+        assertThrows(IOException.class, () -> CalendarioMapeado.abrir(ajeno, 30));
+        assertThrows(IllegalArgumentException.class, () -> CalendarioMapeado.abrir(archivo, 20));
+    }
+    
+    @Test
+    @DisplayName("Cerrar dos veces no falla")
+    void testCerrarDosVeces() throws IOException {
+        CalendarioMapeado calendario = CalendarioMapeado.abrir(archivo, 30);
+        calendario.agregarHorario(dia.atTime(9, 0));
+        calendario.close();
+        assertDoesNotThrow(calendario::close);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,241 @@
+package servicio;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+class CalendarioSlotsTest {
+    
+    private CalendarioSlots calendario;
+    private LocalDate dia;
+    
+    @BeforeEach
+    void setUp() {
+        calendario = new CalendarioSlots();
+        dia = LocalDate.now().plusDays(1);
+    }
+    
+    @Test
+    @DisplayName("Duracion de slot invalida lanza excepcion")
+    void testDuracionInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> new CalendarioSlots(20));
+        assertEquals(30, calendario.getMinutosPorSlot());
+        assertEquals(15, new CalendarioSlots(15).getMinutosPorSlot());
+        assertEquals(60, new CalendarioSlots(60).getMinutosPorSlot());
+    }
+    
+    @Test
+    @DisplayName("Agregar horario activa el bit una sola vez")
+    void testAgregarHorario() {
+        LocalDateTime horario = dia.atTime(9, 0);
+        
+        assertTrue(calendario.agregarHorario(horario));
+        assertFalse(calendario.agregarHorario(horario));
+        assertTrue(calendario.estaConfigurado(horario));
+        assertTrue(calendario.estaLibre(horario));
+        assertFalse(calendario.estaOcupado(horario));
+        assertEquals(1, calendario.contarConfigurados());
+    }
+    
+    @Test
+    @DisplayName("Horario desalineado no es un slot valido")
+    void testHorarioDesalineado() {
+        assertThrows(IllegalArgumentException.class, () -> calendario.agregarHorario(dia.atTime(9, 10)));
+        assertThrows(IllegalArgumentException.class, () -> calendario.agregarHorario(dia.atTime(9, 0, 30)));
+        assertThrows(IllegalArgumentException.class, () -> calendario.marcarOcupado(dia.atTime(9, 0, 0, 1)));
+        assertFalse(calendario.estaConfigurado(dia.atTime(9, 10)));
+        assertFalse(calendario.estaLibre(dia.atTime(9, 10)));
+        assertFalse(calendario.liberar(dia.atTime(9, 10)));
+    }
+    
+    @Test
+    @DisplayName("Ocupar y liberar slots actualiza contadores")
+    void testOcuparYLiberar() {
+        LocalDateTime horario = dia.atTime(10, 30);
+        calendario.agregarHorario(horario);
+        
+        assertTrue(calendario.marcarOcupado(horario));
+        assertFalse(calendario.marcarOcupado(horario));
+        assertTrue(calendario.estaOcupado(horario));
+        assertFalse(calendario.estaLibre(horario));
+        assertEquals(1, calendario.contarOcupados());
+        assertEquals(0, calendario.contarLibres(dia));
+        
+        assertTrue(calendario.liberar(horario));
+        assertFalse(calendario.liberar(horario));
+        assertFalse(calendario.liberar(dia.plusDays(5).atTime(10, 30)));
+        assertEquals(0, calendario.contarOcupados());
+        assertEquals(1, calendario.contarLibres(dia));
+        assertEquals(0, calendario.contarLibres(dia.plusDays(3)));
+    }
+    
+    @Test
+    @DisplayName("Liberar el ultimo bit de un dia sin horarios elimina el dia")
+    void testLiberarDiaVacio() {
+        LocalDateTime horario = dia.atTime(8, 0);
+        calendario.marcarOcupado(horario);
+        
+        assertTrue(calendario.liberar(horario));
+        assertTrue(calendario.horariosLibres(dia, null).isEmpty());
+        assertFalse(calendario.estaOcupado(horario));
+    }
+    
+    @Test
+    @DisplayName("Limpiar horarios conserva los slots ocupados")
+    void testLimpiarHorariosConservaOcupados() {
+        LocalDateTime ocupado = dia.atTime(9, 0);
+        LocalDateTime libre = dia.plusDays(1).atTime(9, 0);
+        calendario.agregarHorario(ocupado);
+        calendario.agregarHorario(libre);
+        calendario.marcarOcupado(ocupado);
+        
+        calendario.limpiarHorarios();
+        
+        assertEquals(0, calendario.contarConfigurados());
+        assertEquals(1, calendario.contarOcupados());
+        assertTrue(calendario.estaOcupado(ocupado));
+        assertFalse(calendario.estaConfigurado(libre));
+    }
+    
+    @Test
+    @DisplayName("Limpiar ocupados conserva los horarios configurados")
+    void testLimpiarOcupadosConservaHorarios() {
+        LocalDateTime configurado = dia.atTime(9, 0);
+        LocalDateTime soloOcupado = dia.plusDays(1).atTime(9, 0);
+        calendario.agregarHorario(configurado);
+        calendario.marcarOcupado(configurado);
+        calendario.marcarOcupado(soloOcupado);
+        
+        calendario.limpiarOcupados();
+        
+        assertEquals(1, calendario.contarConfigurados());
+        assertEquals(0, calendario.contarOcupados());
+        assertTrue(calendario.estaLibre(configurado));
+        assertFalse(calendario.estaOcupado(soloOcupado));
+    }
+    
+    @Test
+    @DisplayName("Horarios libres salen ordenados y excluyen ocupados")
+    void testHorariosLibresOrdenados() {
+        calendario.agregarHorario(dia.atTime(16, 30));
+        calendario.agregarHorario(dia.atTime(9, 0));
+        calendario.agregarHorario(dia.atTime(11, 30));
+        calendario.agregarHorario(dia.atTime(0, 0));
+        calendario.marcarOcupado(dia.atTime(11, 30));
+        
+        assertEquals(List.of(dia.atTime(0, 0), dia.atTime(9, 0), dia.atTime(16, 30)),
+            calendario.horariosLibres(dia, null));
+        assertTrue(calendario.horariosLibres(dia.plusDays(1), null).isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Horarios libres respetan el instante de referencia")
+    void testHorariosLibresPosteriores() {
+        calendario.agregarHorario(dia.atTime(9, 0));
+        calendario.agregarHorario(dia.atTime(9, 30));
+        calendario.agregarHorario(dia.atTime(23, 30));
+        
+        assertEquals(List.of(dia.atTime(9, 30), dia.atTime(23, 30)), calendario.horariosLibres(dia, dia.atTime(9, 0)));
+        assertEquals(List.of(dia.atTime(9, 30), dia.atTime(23, 30)), calendario.horariosLibres(dia, dia.atTime(9, 10)));
+        assertEquals(3, calendario.horariosLibres(dia, dia.minusDays(1).atTime(23, 0)).size());
+        assertTrue(calendario.horariosLibres(dia, dia.plusDays(1).atTime(0, 0)).isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Slots de 15 minutos usan dos palabras por dia")
+    void testSlotsQuinceMinutos() {
+        CalendarioSlots fino = new CalendarioSlots(15);
+        fino.agregarHorario(dia.atTime(8, 45));
+        fino.agregarHorario(dia.atTime(17, 15));
+        fino.agregarHorario(dia.atTime(23, 45));
+        fino.marcarOcupado(dia.atTime(23, 45));
+        
+        assertEquals(List.of(dia.atTime(8, 45), dia.atTime(17, 15)), fino.horariosLibres(dia, null));
+        assertEquals(List.of(dia.atTime(17, 15)), fino.horariosLibres(dia, dia.atTime(17, 0)));
+        assertTrue(fino.horariosLibres(dia, dia.atTime(20, 0)).isEmpty());
+        assertEquals(2, fino.contarLibres(dia));
+        assertTrue(fino.estaOcupado(dia.atTime(23, 45)));
+    }
+    
+    @Test
+    @DisplayName("Slots de 60 minutos rechazan medias horas")
+    void testSlotsSesentaMinutos() {
+        CalendarioSlots grueso = new CalendarioSlots(60);
+        
+        assertTrue(grueso.agregarHorario(dia.atTime(14, 0)));
+        assertThrows(IllegalArgumentException.class, () -> grueso.agregarHorario(dia.atTime(14, 30)));
+        assertEquals(List.of(dia.atTime(14, 0)), grueso.horariosLibres(dia, null));
+    }
+    
+    @Test
+    @DisplayName("Quitar horario desactiva solo el slot configurado")
+    void testQuitarHorario() {
+        LocalDateTime horario = dia.atTime(9, 0);
+        calendario.agregarHorario(horario);
+        calendario.agregarHorario(dia.atTime(9, 30));
+        
+        assertTrue(calendario.quitarHorario(horario));
+        assertFalse(calendario.quitarHorario(horario));
+        assertFalse(calendario.quitarHorario(dia.atTime(9, 10)));
+        assertFalse(calendario.quitarHorario(dia.plusDays(4).atTime(9, 0)));
+        assertEquals(1, calendario.contarConfigurados());
+        
+        assertTrue(calendario.quitarHorario(dia.atTime(9, 30)));
+        assertTrue(calendario.horariosLibres(dia, null).isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Limpiar un rango solo afecta a los dias del rango")
+    void testLimpiarHorariosEnRango() {
+        for (int i = 0; i < 5; i++) {
+            calendario.agregarHorario(dia.plusDays(i).atTime(9, 0));
+        }
+        calendario.marcarOcupado(dia.plusDays(2).atTime(9, 0));
+        
+        calendario.limpiarHorarios(dia.plusDays(1), dia.plusDays(3));
+        
+        assertEquals(2, calendario.contarConfigurados());
+        assertTrue(calendario.estaConfigurado(dia.atTime(9, 0)));
+        assertFalse(calendario.estaConfigurado(dia.plusDays(2).atTime(9, 0)));
+        assertTrue(calendario.estaOcupado(dia.plusDays(2).atTime(9, 0)));
+        assertTrue(calendario.estaConfigurado(dia.plusDays(4).atTime(9, 0)));
+    }
+    
+    @Test
+    @DisplayName("Copiar ocupados traslada las reservas a un calendario nuevo")
+    void testCopiarOcupadosDe() {
+        calendario.agregarHorario(dia.atTime(9, 0));
+        calendario.agregarHorario(dia.plusDays(1).atTime(9, 0));
+        calendario.marcarOcupado(dia.atTime(9, 0));
+        calendario.marcarOcupado(dia.plusDays(2).atTime(10, 0));
+        
+        CalendarioSlots nuevo = new CalendarioSlots();
+        nuevo.agregarHorario(dia.atTime(9, 0));
+        nuevo.marcarOcupado(dia.atTime(9, 0));
+        nuevo.copiarOcupadosDe(calendario);
+        
+        assertEquals(2, nuevo.contarOcupados());
+        assertEquals(1, nuevo.contarConfigurados());
+        assertTrue(nuevo.estaOcupado(dia.plusDays(2).atTime(10, 0)));
+        assertFalse(nuevo.estaOcupado(dia.plusDays(1).atTime(9, 0)));
+        assertThrows(IllegalArgumentException.class, () -> new CalendarioSlots(15).copiarOcupadosDe(calendario));
+    }
+    
+    @Test
+    @DisplayName("Listar horarios configurados recorre todos los dias en orden")
+    void testHorariosConfigurados() {
+        CalendarioSlots quinceMinutos = new CalendarioSlots(15);
+        quinceMinutos.agregarHorario(dia.plusDays(1).atTime(8, 0));
+        quinceMinutos.agregarHorario(dia.atTime(23, 45));
+        quinceMinutos.agregarHorario(dia.atTime(0, 0));
+        quinceMinutos.marcarOcupado(dia.atTime(12, 0));
+        
+        assertEquals(List.of(dia.atTime(0, 0), dia.atTime(23, 45), dia.plusDays(1).atTime(8, 0)),
+                     quinceMinutos.horariosConfigurados());
+    }
+}
\ No newline at end of file
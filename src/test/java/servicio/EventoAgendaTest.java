@@ -0,0 +1,55 @@
+package servicio;
+
+import modelo.Cita;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+class EventoAgendaTest {
+    
+    private final LocalDate dia = LocalDate.now().plusDays(1);
+    
+    @Test
+    @DisplayName("Los horarios del evento son una copia inmutable")
+    void testHorariosInmutables() {
+        List<LocalDateTime> horarios = new ArrayList<>(List.of(dia.atTime(9, 0)));
+        EventoAgenda evento = EventoAgenda.horariosAgregados("DOC-001", horarios);
+        horarios.add(dia.atTime(10, 0));
+        
+        assertEquals(1, evento.getHorarios().size());
+        assertThrows(UnsupportedOperationException.class, () -> evento.getHorarios().add(dia.atTime(11, 0)));
+        assertTrue(evento.getReglas().isEmpty());
+        assertTrue(evento.getDiasExpandidos().isEmpty());
+        assertNull(evento.getCita());
+        assertNull(evento.getDesde());
+    }
+    
+    @Test
+    @DisplayName("Cada estado final tiene su tipo de evento")
+    void testCambioDeEstado() {
+        assertEquals(EventoAgenda.Tipo.CITA_CONFIRMADA,
+            EventoAgenda.cambioDeEstado("DOC-001", "CIT-001", Cita.EstadoCita.CONFIRMADA).getTipo());
+        assertEquals(EventoAgenda.Tipo.CITA_CANCELADA,
+            EventoAgenda.cambioDeEstado("DOC-001", "CIT-001", Cita.EstadoCita.CANCELADA).getTipo());
+        assertEquals(EventoAgenda.Tipo.CITA_COMPLETADA,
+            EventoAgenda.cambioDeEstado("DOC-001", "CIT-001", Cita.EstadoCita.COMPLETADA).getTipo());
+        assertThrows(IllegalArgumentException.class,
+            () -> EventoAgenda.cambioDeEstado("DOC-001", "CIT-001", Cita.EstadoCita.PENDIENTE));
+    }
+    
+    @Test
+    @DisplayName("Cita agendada toma profesional e id de la cita")
+    void testCitaAgendada() {
+        Cita cita = new Cita("CIT-001", "PAC-001", "DOC-001", dia.atTime(9, 0), "Consulta general");
+        EventoAgenda evento = EventoAgenda.citaAgendada(cita);
+        
+        assertEquals("DOC-001", evento.getProfesionalId());
+        assertEquals("CIT-001", evento.getCitaId());
+        assertTrue(evento.toString().contains("CITA_AGENDADA"));
+    }
+}
\ No newline at end of file
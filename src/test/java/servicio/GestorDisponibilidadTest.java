@@ -5,13 +5,29 @@ import modelo.Usuario;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 class GestorDisponibilidadTest {
     
@@ -330,7 +346,7 @@ class GestorDisponibilidadTest {
         
         gestor.configurarHorarios("DOC-001", horarios);
         
-        Cita cita = new Cita("CIT-001", "PAC-001", "DOC-001", 
+        Cita cita = new Cita("CIT-001", "PAC-001", "DOC-001",
             fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0), "Consulta general");
         gestor.agendarCita(cita);
         
@@ -350,4 +366,974 @@ class GestorDisponibilidadTest {
         assertEquals(0, estadisticas.get("horariosOcupados"));
         assertEquals(0, estadisticas.get("horariosLibres"));
     }
+    
+    @Test
+    @DisplayName("Consultar disponibilidad retorna horarios ordenados del dia")
+    void testConsultarDisponibilidadOrdenada() {
+        Set<LocalDateTime> horarios = new HashSet<>();
+        LocalDateTime horario1 = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        LocalDateTime horario2 = fechaPrueba.withHour(11).withMinute(30).withSecond(0).withNano(0);
+        LocalDateTime horario3 = fechaPrueba.withHour(14).withMinute(0).withSecond(0).withNano(0);
+        LocalDateTime horarioOtroDia = horario1.plusDays(1);
+        horarios.add(horario3);
+        horarios.add(horarioOtroDia);
+        horarios.add(horario1);
+        horarios.add(horario2);
+        
+        gestor.configurarHorarios("DOC-001", horarios);
+        
+        assertEquals(List.of(horario1, horario2, horario3), gestor.consultarDisponibilidad("DOC-001", fechaPrueba));
+        assertEquals(List.of(horarioOtroDia), gestor.consultarDisponibilidad("DOC-001", horarioOtroDia));
+    }
+    
+    @Test
+    @DisplayName("Reconfigurar horarios reemplaza el indice por dia")
+    void testReconfigurarHorariosReemplazaIndice() {
+        LocalDateTime horario1 = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        LocalDateTime horario2 = fechaPrueba.plusDays(2).withHour(10).withMinute(0).withSecond(0).withNano(0);
+        
+        gestor.configurarHorarios("DOC-001", Set.of(horario1));
+        gestor.configurarHorarios("DOC-001", Set.of(horario2));
+        
+        assertTrue(gestor.consultarDisponibilidad("DOC-001", horario1).isEmpty());
+        assertFalse(gestor.estaDisponible("DOC-001", horario1));
+        assertTrue(gestor.estaDisponible("DOC-001", horario2));
+        assertEquals(1, gestor.obtenerEstadisticasDisponibilidad("DOC-001").get("horariosConfigurados"));
+    }
+    
+    @Test
+    @DisplayName("Cancelar una de varias citas del dia solo libera su horario")
+    void testCancelarCitaLiberaSoloSuHorario() {
+        LocalDateTime horario1 = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        LocalDateTime horario2 = fechaPrueba.withHour(10).withMinute(0).withSecond(0).withNano(0);
+        gestor.configurarHorarios("DOC-001", Set.of(horario1, horario2));
+        
+        gestor.agendarCita(new Cita("CIT-001", "PAC-001", "DOC-001", horario1, "Consulta general"));
+        gestor.agendarCita(new Cita("CIT-002", "PAC-002", "DOC-001", horario2, "Consulta general"));
+        gestor.cancelarCita("CIT-001");
+        
+        assertEquals(List.of(horario1), gestor.consultarDisponibilidad("DOC-001", fechaPrueba));
+        assertFalse(gestor.estaDisponible("DOC-001", horario2));
+    }
+    
+    @Test
+    @DisplayName("Conflicto solo considera citas activas dentro de 30 minutos")
+    void testConflictoVentanaTreintaMinutos() {
+        gestor = new GestorDisponibilidad(16, 15);
+        LocalDateTime base = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        Set<LocalDateTime> horarios = new HashSet<>();
+        for (int minutos = 0; minutos <= 90; minutos += 15) {
+            horarios.add(base.plusMinutes(minutos));
+        }
+        gestor.configurarHorarios("DOC-001", horarios);
+        
+        assertTrue(gestor.agendarCita(new Cita("CIT-001", "PAC-001", "DOC-001", base.plusMinutes(30), "Consulta general")));
+        assertFalse(gestor.agendarCita(new Cita("CIT-002", "PAC-002", "DOC-001", base.plusMinutes(15), "Consulta general")));
+        assertFalse(gestor.agendarCita(new Cita("CIT-003", "PAC-002", "DOC-001", base.plusMinutes(45), "Consulta general")));
+        assertTrue(gestor.agendarCita(new Cita("CIT-004", "PAC-002", "DOC-001", base, "Consulta general")));
+        assertTrue(gestor.agendarCita(new Cita("CIT-005", "PAC-002", "DOC-001", base.plusMinutes(60), "Consulta general")));
+        
+        gestor.cancelarCita("CIT-001");
+        gestor.cancelarCita("CIT-005");
+        assertTrue(gestor.agendarCita(new Cita("CIT-006", "PAC-003", "DOC-001", base.plusMinutes(45), "Consulta general")));
+    }
+    
+    @Test
+    @DisplayName("Cita cancelada fuera del gestor no bloquea el horario")
+    void testCitaCanceladaExternamenteNoBloquea() {
+        LocalDateTime horario = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        gestor.configurarHorarios("DOC-001", Set.of(horario));
+        
+        Cita cita = new Cita("CIT-001", "PAC-001", "DOC-001", horario, "Consulta general");
+        gestor.agendarCita(cita);
+        cita.cancelar();
+        
+        assertTrue(gestor.estaDisponible("DOC-001", horario));
+        assertTrue(gestor.agendarCita(new Cita("CIT-002", "PAC-002", "DOC-001", horario, "Consulta general")));
+        assertFalse(gestor.estaDisponible("DOC-001", horario));
+    }
+    
+    @Test
+    @DisplayName("Buscar cita por ID usa el indice global")
+    void testBuscarCitaPorId() {
+        LocalDateTime horario = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        gestor.configurarHorarios("DOC-001", Set.of(horario));
+        Cita cita = new Cita("CIT-001", "PAC-001", "DOC-001", horario, "Consulta general");
+        gestor.agendarCita(cita);
+        
+        assertSame(cita, gestor.buscarCita("CIT-001"));
+        assertNull(gestor.buscarCita("CIT-999"));
+        assertThrows(IllegalArgumentException.class, () -> gestor.buscarCita(" "));
+    }
+    
+    @Test
+    @DisplayName("Agendar cita con ID repetido es rechazado")
+    void testAgendarCitaIdDuplicado() {
+        LocalDateTime horario1 = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        LocalDateTime horario2 = fechaPrueba.withHour(10).withMinute(0).withSecond(0).withNano(0);
+        gestor.configurarHorarios("DOC-001", Set.of(horario1, horario2));
+        
+        assertTrue(gestor.agendarCita(new Cita("CIT-001", "PAC-001", "DOC-001", horario1, "Consulta general")));
+        assertFalse(gestor.agendarCita(new Cita("CIT-001", "PAC-002", "DOC-001", horario2, "Consulta general")));
+        assertTrue(gestor.estaDisponible("DOC-001", horario2));
+        assertEquals(1, gestor.contarCitas());
+    }
+    
+    @Test
+    @DisplayName("Obtener todas las citas respeta el orden de agendamiento")
+    void testObtenerTodasLasCitas() {
+        LocalDateTime horario = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        gestor.configurarHorarios("DOC-001", Set.of(horario));
+        gestor.configurarHorarios("DOC-002", Set.of(horario));
+        Cita cita1 = new Cita("CIT-002", "PAC-001", "DOC-002", horario, "Consulta general");
+        Cita cita2 = new Cita("CIT-001", "PAC-002", "DOC-001", horario, "Consulta general");
+        gestor.agendarCita(cita1);
+        gestor.agendarCita(cita2);
+        gestor.cancelarCita("CIT-002");
+        
+        assertEquals(List.of(cita1, cita2), gestor.obtenerTodasLasCitas());
+        assertEquals(2, gestor.contarCitas());
+        assertTrue(gestor.estaDisponible("DOC-002", horario));
+    }
+    
+    @Test
+    @DisplayName("Nivel de concurrencia invalido lanza excepcion")
+    void testNivelConcurrenciaInvalido() {
+        assertThrows(IllegalArgumentException.class, () -> new GestorDisponibilidad(0));
+        assertDoesNotThrow(() -> new GestorDisponibilidad(3));
+    }
+    
+    @Test
+    @DisplayName("Reservas concurrentes del mismo horario solo agendan una cita")
+    void testReservasConcurrentesMismoHorario() throws Exception {
+        LocalDateTime horario = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        gestor.configurarHorarios("DOC-001", Set.of(horario));
+        
+        int hilos = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch inicio = new CountDownLatch(1);
+        AtomicInteger exitosas = new AtomicInteger();
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < hilos; i++) {
+            Cita cita = new Cita("CIT-" + i, "PAC-" + i, "DOC-001", horario, "Consulta general");
+            tareas.add(executor.submit(() -> {
+                inicio.await();
+                if (gestor.agendarCita(cita)) {
+                    exitosas.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        inicio.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        assertEquals(1, exitosas.get());
+        assertEquals(1, gestor.contarCitas());
+        assertEquals(1, gestor.obtenerCitasActivasDeProfesional("DOC-001").size());
+    }
+    
+    @Test
+    @DisplayName("Configurar horario que no coincide con el slot lanza excepcion")
+    void testConfigurarHorarioDesalineado() {
+        LocalDateTime desalineado = fechaPrueba.withHour(9).withMinute(15).withSecond(0).withNano(0);
+        
+        assertThrows(IllegalArgumentException.class, () -> gestor.configurarHorarios("DOC-001", Set.of(desalineado)));
+        assertThrows(IllegalArgumentException.class, () -> new GestorDisponibilidad(4, 20));
+        assertFalse(gestor.estaDisponible("DOC-001", desalineado));
+    }
+    
+    @Test
+    @DisplayName("Estadisticas de ocupacion provienen del calendario de bits")
+    void testEstadisticasDesdeCalendario() {
+        LocalDateTime horario1 = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        LocalDateTime horario2 = fechaPrueba.withHour(10).withMinute(0).withSecond(0).withNano(0);
+        gestor.configurarHorarios("DOC-001", Set.of(horario1, horario2));
+        Cita cita = new Cita("CIT-001", "PAC-001", "DOC-001", horario1, "Consulta general");
+        gestor.agendarCita(cita);
+        
+        gestor.configurarHorarios("DOC-001", Set.of(horario1, horario2));
+        assertEquals(1, gestor.obtenerEstadisticasDisponibilidad("DOC-001").get("horariosOcupados"));
+        assertFalse(gestor.estaDisponible("DOC-001", horario1));
+        
+        cita.cancelar();
+        assertEquals(0, gestor.obtenerEstadisticasDisponibilidad("DOC-001").get("horariosOcupados"));
+        assertEquals(2, gestor.obtenerEstadisticasDisponibilidad("DOC-001").get("horariosLibres"));
+    }
+    
+    @Test
+    @DisplayName("Reglas semanales se expanden al consultar la fecha")
+    void testReglasHorarioExpansionPerezosa() {
+        LocalDate desde = fechaPrueba.toLocalDate();
+        LocalDate feriado = desde.plusDays(7);
+        ReglaHorario manana = new ReglaHorario(EnumSet.allOf(DayOfWeek.class), LocalTime.of(9, 0), LocalTime.of(10, 0),
+            desde, desde.plusYears(1), Set.of(feriado));
+        ReglaHorario tarde = new ReglaHorario(EnumSet.allOf(DayOfWeek.class), LocalTime.of(14, 0), LocalTime.of(14, 30),
+            desde, desde.plusYears(1), Set.of(feriado));
+        
+        gestor.configurarReglasHorario("DOC-001", List.of(manana, tarde));
+        int configurados = gestor.obtenerEstadisticasDisponibilidad("DOC-001").get("horariosConfigurados");
+        assertEquals(5 * manana.contarDiasAplicables(), configurados);
+        
+        LocalDateTime nueve = desde.atTime(9, 0);
+        assertEquals(List.of(nueve, desde.atTime(9, 30), desde.atTime(10, 0), desde.atTime(14, 0), desde.atTime(14, 30)),
+            gestor.consultarDisponibilidad("DOC-001", nueve));
+        assertTrue(gestor.consultarDisponibilidad("DOC-001", feriado.atStartOfDay()).isEmpty());
+        assertTrue(gestor.consultarDisponibilidad("DOC-001", nueve.plusYears(2)).isEmpty());
+        assertEquals(configurados, gestor.obtenerEstadisticasDisponibilidad("DOC-001").get("horariosConfigurados"));
+        
+        LocalDateTime lejano = desde.plusMonths(6).atTime(14, 30);
+        assertTrue(gestor.agendarCita(new Cita("CIT-001", "PAC-001", "DOC-001", lejano, "Consulta general")));
+        assertFalse(gestor.estaDisponible("DOC-001", lejano));
+        assertEquals(configurados, gestor.obtenerEstadisticasDisponibilidad("DOC-001").get("horariosConfigurados"));
+        assertEquals(configurados - 1, gestor.obtenerEstadisticasDisponibilidad("DOC-001").get("horariosLibres"));
+    }
+    
+    @Test
+    @DisplayName("Configurar horarios explicitos reemplaza las reglas")
+    void testConfigurarHorariosReemplazaReglas() {
+        LocalDate desde = fechaPrueba.toLocalDate();
+        gestor.configurarReglasHorario("DOC-001", List.of(new ReglaHorario(EnumSet.allOf(DayOfWeek.class),
+            LocalTime.of(9, 0), LocalTime.of(11, 0), desde, desde.plusDays(30))));
+        LocalDateTime explicito = desde.atTime(16, 0);
+        
+        gestor.configurarHorarios("DOC-001", Set.of(explicito));
+        
+        assertEquals(List.of(explicito), gestor.consultarDisponibilidad("DOC-001", explicito));
+        assertEquals(1, gestor.obtenerEstadisticasDisponibilidad("DOC-001").get("horariosConfigurados"));
+    }
+    
+    @Test
+    @DisplayName("Reglas de horario invalidas lanzan excepcion")
+    void testReglasHorarioInvalidas() {
+        LocalDate desde = fechaPrueba.toLocalDate();
+        Set<DayOfWeek> dias = EnumSet.allOf(DayOfWeek.class);
+        ReglaHorario valida = new ReglaHorario(dias, LocalTime.of(9, 0), LocalTime.of(11, 0), desde, desde.plusDays(7));
+        ReglaHorario solapada = new ReglaHorario(dias, LocalTime.of(10, 0), LocalTime.of(12, 0), desde, desde.plusDays(7));
+        ReglaHorario pasada = new ReglaHorario(dias, LocalTime.of(9, 0), LocalTime.of(11, 0), desde.minusDays(3), desde);
+        ReglaHorario desalineadaInicio = new ReglaHorario(dias, LocalTime.of(9, 10), LocalTime.of(11, 0), desde, desde);
+        ReglaHorario desalineadaFin = new ReglaHorario(dias, LocalTime.of(9, 0), LocalTime.of(11, 0, 30), desde, desde);
+        List<ReglaHorario> conNula = new ArrayList<>();
+        conNula.add(null);
+        
+        assertThrows(IllegalArgumentException.class, () -> gestor.configurarReglasHorario("DOC-001", null));
+        assertThrows(IllegalArgumentException.class, () -> gestor.configurarReglasHorario("DOC-001", List.of()));
+        assertThrows(IllegalArgumentException.class, () -> gestor.configurarReglasHorario("DOC-001", conNula));
+        assertThrows(IllegalArgumentException.class, () -> gestor.configurarReglasHorario("DOC-001", List.of(valida, solapada)));
+        assertThrows(IllegalArgumentException.class, () -> gestor.configurarReglasHorario("DOC-001", List.of(pasada)));
+        assertThrows(IllegalArgumentException.class, () -> gestor.configurarReglasHorario("DOC-001", List.of(desalineadaInicio)));
+        assertThrows(IllegalArgumentException.class, () -> gestor.configurarReglasHorario("DOC-001", List.of(desalineadaFin)));
+        assertThrows(IllegalArgumentException.class, () -> gestor.configurarReglasHorario(" ", List.of(valida)));
+    }
+    
+    @Test
+    @DisplayName("Agendar lote devuelve un resultado por cita sin detenerse")
+    void testAgendarCitasEnLote() {
+        LocalDateTime nueve = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        LocalDateTime nueveYMedia = nueve.plusMinutes(30);
+        LocalDateTime diez = nueve.plusHours(1);
+        gestor = new GestorDisponibilidad(16, 15);
+        gestor.configurarHorarios("DOC-001", Set.of(nueve, nueve.plusMinutes(15), nueveYMedia, diez));
+        gestor.configurarHorarios("DOC-002", Set.of(nueve));
+        
+        List<Cita> lote = List.of(
+            new Cita("CIT-001", "PAC-001", "DOC-001", nueve, "Consulta general"),
+            new Cita("CIT-002", "PAC-002", "DOC-002", nueve, "Consulta general"),
+            new Cita("CIT-003", "PAC-003", "DOC-001", nueve, "Consulta general"),
+            new Cita("CIT-004", "PAC-004", "DOC-001", nueve.plusMinutes(15), "Consulta general"),
+            new Cita("CIT-005", "PAC-005", "DOC-003", nueve, "Consulta general"),
+            new Cita("CIT-006", "PAC-006", "DOC-001", nueve.plusHours(3), "Consulta general"),
+            new Cita("CIT-001", "PAC-007", "DOC-001", diez, "Consulta general"),
+            new Cita("CIT-008", "PAC-008", "DOC-001", nueveYMedia, "Consulta general"));
+        
+        List<ResultadoReserva> resultados = gestor.agendarCitas(lote);
+        
+        assertEquals(List.of(
+            ResultadoReserva.AGENDADA,
+            ResultadoReserva.AGENDADA,
+            ResultadoReserva.HORARIO_OCUPADO,
+            ResultadoReserva.CONFLICTO,
+            ResultadoReserva.NO_CONFIGURADO,
+            ResultadoReserva.NO_CONFIGURADO,
+            ResultadoReserva.ID_DUPLICADO,
+            ResultadoReserva.AGENDADA), resultados);
+        assertEquals(3, gestor.contarCitas());
+        assertTrue(gestor.estaDisponible("DOC-001", diez));
+    }
+    
+    @Test
+    @DisplayName("Agendar lote nulo o con elementos nulos lanza excepcion")
+    void testAgendarCitasLoteInvalido() {
+        List<Cita> conNula = new ArrayList<>();
+        conNula.add(null);
+        
+        assertThrows(IllegalArgumentException.class, () -> gestor.agendarCitas(null));
+        assertThrows(IllegalArgumentException.class, () -> gestor.agendarCitas(conNula));
+        assertTrue(gestor.agendarCitas(List.of()).isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Agregar y eliminar horarios de forma incremental")
+    void testAgregarYEliminarHorarios() {
+        LocalDateTime nueve = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        LocalDateTime diez = nueve.plusHours(1);
+        
+        gestor.agregarHorarios("DOC-001", Set.of(nueve));
+        gestor.agregarHorarios("DOC-001", Set.of(diez));
+        assertEquals(List.of(nueve, diez), gestor.consultarDisponibilidad("DOC-001", nueve));
+        
+        gestor.agendarCita(new Cita("CIT-001", "PAC-001", "DOC-001", diez, "Consulta general"));
+        assertEquals(2, gestor.eliminarHorarios("DOC-001", Set.of(nueve, diez, nueve.plusDays(3))));
+        assertEquals(0, gestor.eliminarHorarios("DOC-999", Set.of(nueve)));
+        assertTrue(gestor.consultarDisponibilidad("DOC-001", nueve).isEmpty());
+        assertEquals(1, gestor.obtenerEstadisticasDisponibilidad("DOC-001").get("horariosOcupados"));
+        
+        assertThrows(IllegalArgumentException.class, () -> gestor.agregarHorarios("DOC-001", null));
+        assertThrows(IllegalArgumentException.class, () -> gestor.agregarHorarios("DOC-001", Set.of()));
+        assertThrows(IllegalArgumentException.class, () -> gestor.agregarHorarios("DOC-001", Set.of(nueve.plusMinutes(10))));
+        assertThrows(IllegalArgumentException.class, () -> gestor.agregarHorarios("DOC-001", Set.of(LocalDateTime.now().minusDays(1))));
+        assertThrows(IllegalArgumentException.class, () -> gestor.eliminarHorarios("DOC-001", null));
+    }
+    
+    @Test
+    @DisplayName("Edicion incremental respeta las reglas semanales")
+    void testEdicionIncrementalConReglas() {
+        LocalDate desde = fechaPrueba.toLocalDate();
+        gestor.configurarReglasHorario("DOC-001", List.of(new ReglaHorario(EnumSet.allOf(DayOfWeek.class),
+            LocalTime.of(9, 0), LocalTime.of(10, 0), desde, desde.plusDays(9))));
+        assertEquals(30, gestor.obtenerEstadisticasDisponibilidad("DOC-001").get("horariosConfigurados"));
+        
+        gestor.eliminarHorarios("DOC-001", Set.of(desde.atTime(9, 0)));
+        gestor.agregarHorarios("DOC-001", Set.of(desde.plusDays(1).atTime(16, 0)));
+        assertEquals(30, gestor.obtenerEstadisticasDisponibilidad("DOC-001").get("horariosConfigurados"));
+        assertEquals(List.of(desde.atTime(9, 30), desde.atTime(10, 0)),
+            gestor.consultarDisponibilidad("DOC-001", desde.atTime(9, 0)));
+        
+        gestor.reemplazarHorariosEnRango("DOC-001", desde.plusDays(2), desde.plusDays(4),
+            Set.of(desde.plusDays(3).atTime(15, 0)));
+        assertEquals(22, gestor.obtenerEstadisticasDisponibilidad("DOC-001").get("horariosConfigurados"));
+        assertTrue(gestor.consultarDisponibilidad("DOC-001", desde.plusDays(2).atStartOfDay()).isEmpty());
+        assertEquals(List.of(desde.plusDays(3).atTime(15, 0)),
+            gestor.consultarDisponibilidad("DOC-001", desde.plusDays(3).atStartOfDay()));
+        assertEquals(3, gestor.consultarDisponibilidad("DOC-001", desde.plusDays(5).atStartOfDay()).size());
+    }
+    
+    @Test
+    @DisplayName("Reemplazar rango sin reglas y con parametros invalidos")
+    void testReemplazarHorariosEnRango() {
+        LocalDate dia = fechaPrueba.toLocalDate();
+        gestor.configurarHorarios("DOC-001", Set.of(dia.atTime(9, 0), dia.plusDays(1).atTime(9, 0)));
+        
+        gestor.reemplazarHorariosEnRango("DOC-001", dia, dia, Set.of());
+        assertEquals(1, gestor.obtenerEstadisticasDisponibilidad("DOC-001").get("horariosConfigurados"));
+        
+        assertThrows(IllegalArgumentException.class, () -> gestor.reemplazarHorariosEnRango("DOC-001", null, dia, Set.of()));
+        assertThrows(IllegalArgumentException.class, () -> gestor.reemplazarHorariosEnRango("DOC-001", dia, null, Set.of()));
+        assertThrows(IllegalArgumentException.class, () -> gestor.reemplazarHorariosEnRango("DOC-001", dia, dia.minusDays(1), Set.of()));
+        assertThrows(IllegalArgumentException.class, () -> gestor.reemplazarHorariosEnRango("DOC-001", dia, dia, null));
+        assertThrows(IllegalArgumentException.class, () -> gestor.reemplazarHorariosEnRango("DOC-001", dia, dia,
+            Set.of(dia.plusDays(1).atTime(9, 0))));
+        assertThrows(IllegalArgumentException.class, () -> gestor.reemplazarHorariosEnRango("DOC-001", dia, dia,
+            Set.of(dia.minusDays(1).atTime(9, 0))));
+    }
+    
+    @Test
+    @DisplayName("Reemplazo completo conserva reservas mientras se consulta en paralelo")
+    void testReemplazoCompletoAtomico() throws Exception {
+        LocalDate dia = fechaPrueba.toLocalDate();
+        Set<LocalDateTime> horarios = new HashSet<>();
+        for (int i = 0; i < 48; i++) {
+            horarios.add(dia.atTime(0, 0).plusMinutes(30L * i));
+        }
+        gestor.configurarHorarios("DOC-001", horarios);
+        gestor.agendarCita(new Cita("CIT-001", "PAC-001", "DOC-001", dia.atTime(12, 0), "Consulta general"));
+        
+        ExecutorService lector = Executors.newSingleThreadExecutor();
+        Future<Boolean> consistente = lector.submit(() -> {
+            for (int i = 0; i < 2000; i++) {
+                int libres = gestor.consultarDisponibilidad("DOC-001", dia.atStartOfDay()).size();
+                if (libres != 47) {
+                    return false;
+                }
+            }
+            return true;
+        });
+        for (int i = 0; i < 200; i++) {
+            gestor.configurarHorarios("DOC-001", horarios);
+        }
+        
+        assertTrue(consistente.get(30, TimeUnit.SECONDS));
+        lector.shutdown();
+        assertFalse(gestor.estaDisponible("DOC-001", dia.atTime(12, 0)));
+    }
+    
+    @Test
+    @DisplayName("Contadores por estado se actualizan en cada transicion")
+    void testContadoresPorEstado() {
+        LocalDateTime nueve = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        LocalDateTime diez = nueve.plusHours(1);
+        gestor.configurarHorarios("DOC-001", Set.of(nueve, diez));
+        gestor.configurarHorarios("DOC-002", Set.of(nueve));
+        Cita cita1 = new Cita("CIT-001", "PAC-001", "DOC-001", nueve, "Consulta general");
+        Cita cita2 = new Cita("CIT-002", "PAC-002", "DOC-001", diez, "Consulta general");
+        Cita cita3 = new Cita("CIT-003", "PAC-003", "DOC-002", nueve, "Consulta general");
+        cita3.confirmar();
+        gestor.agendarCitas(List.of(cita1, cita2, cita3));
+        
+        cita1.confirmar();
+        cita1.completar();
+        gestor.cancelarCita("CIT-002");
+        
+        assertEquals(3, gestor.contarCitas());
+        assertEquals(0, gestor.contarCitas(Cita.EstadoCita.PENDIENTE));
+        assertEquals(1, gestor.contarCitas(Cita.EstadoCita.CONFIRMADA));
+        assertEquals(1, gestor.contarCitas(Cita.EstadoCita.CANCELADA));
+        assertEquals(1, gestor.contarCitas(Cita.EstadoCita.COMPLETADA));
+        assertEquals(Map.of(Cita.EstadoCita.PENDIENTE, 0, Cita.EstadoCita.CONFIRMADA, 1,
+            Cita.EstadoCita.CANCELADA, 1, Cita.EstadoCita.COMPLETADA, 1), gestor.obtenerConteoPorEstado());
+        assertThrows(IllegalArgumentException.class, () -> gestor.contarCitas(null));
+        
+        Map<String, Integer> doc1 = gestor.obtenerEstadisticasDisponibilidad("DOC-001");
+        assertEquals(0, doc1.get("citasPendientes"));
+        assertEquals(0, doc1.get("citasConfirmadas"));
+        assertEquals(1, doc1.get("citasCanceladas"));
+        assertEquals(1, doc1.get("citasCompletadas"));
+        assertEquals(1, doc1.get("horariosOcupados"));
+        assertEquals(1, gestor.obtenerEstadisticasDisponibilidad("DOC-002").get("citasConfirmadas"));
+        assertEquals(0, gestor.obtenerEstadisticasDisponibilidad("DOC-999").get("citasPendientes"));
+    }
+    
+    @Test
+    @DisplayName("Los oyentes reciben cada cambio en orden")
+    void testOyentesRecibenEventos() {
+        LocalDateTime nueve = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        LocalDate dia = nueve.toLocalDate();
+        List<EventoAgenda> eventos = new ArrayList<>();
+        OyenteAgenda oyente = eventos::add;
+        gestor.agregarOyente(oyente);
+        
+        gestor.configurarHorarios("DOC-001", Set.of(nueve));
+        gestor.agregarHorarios("DOC-001", Set.of(nueve.plusHours(1)));
+        gestor.eliminarHorarios("DOC-001", Set.of(nueve.plusHours(1)));
+        gestor.reemplazarHorariosEnRango("DOC-001", dia, dia, Set.of(nueve));
+        gestor.configurarReglasHorario("DOC-002", List.of(new ReglaHorario(EnumSet.allOf(DayOfWeek.class),
+            LocalTime.of(9, 0), LocalTime.of(10, 0), dia, dia)));
+        Cita cita = new Cita("CIT-001", "PAC-001", "DOC-001", nueve, "Consulta general");
+        gestor.agendarCita(cita);
+        cita.confirmar();
+        cita.completar();
+        gestor.quitarOyente(oyente);
+        gestor.eliminarHorarios("DOC-999", Set.of(nueve));
+        gestor.agregarHorarios("DOC-001", Set.of(nueve.plusHours(2)));
+        
+        List<EventoAgenda.Tipo> tipos = new ArrayList<>();
+        eventos.forEach(evento -> tipos.add(evento.getTipo()));
+        assertEquals(List.of(EventoAgenda.Tipo.HORARIOS_CONFIGURADOS, EventoAgenda.Tipo.HORARIOS_AGREGADOS,
+            EventoAgenda.Tipo.HORARIOS_ELIMINADOS, EventoAgenda.Tipo.RANGO_REEMPLAZADO,
+            EventoAgenda.Tipo.REGLAS_CONFIGURADAS, EventoAgenda.Tipo.CITA_AGENDADA,
+            EventoAgenda.Tipo.CITA_CONFIRMADA, EventoAgenda.Tipo.CITA_COMPLETADA), tipos);
+        assertSame(cita, eventos.get(5).getCita());
+        assertEquals("CIT-001", eventos.get(7).getCitaId());
+        assertThrows(IllegalArgumentException.class, () -> gestor.agregarOyente(null));
+    }
+    
+    @Test
+    @DisplayName("Si un oyente falla la cita no queda agendada")
+    void testOyenteFallaAlAgendar() {
+        LocalDateTime nueve = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        gestor.configurarHorarios("DOC-001", Set.of(nueve));
+        gestor.agregarOyente(evento -> {
+            throw new IllegalStateException("disco lleno");
+        });
+        
+        Cita cita = new Cita("CIT-001", "PAC-001", "DOC-001", nueve, "Consulta general");
+        assertThrows(IllegalStateException.class, () -> gestor.agendarCita(cita));
+        
+        assertNull(gestor.buscarCita("CIT-001"));
+        assertEquals(0, gestor.contarCitas());
+        assertTrue(gestor.estaDisponible("DOC-001", nueve));
+    }
+    
+    @Test
+    @DisplayName("Exportar y reaplicar reconstruye el estado aunque se repitan eventos")
+    void testExportarYReaplicarEventos() {
+        LocalDateTime nueve = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        LocalDate dia = nueve.toLocalDate();
+        List<EventoAgenda> diario = new ArrayList<>();
+        gestor.agregarOyente(diario::add);
+        gestor.configurarReglasHorario("DOC-001", List.of(new ReglaHorario(EnumSet.allOf(DayOfWeek.class),
+            LocalTime.of(9, 0), LocalTime.of(11, 0), dia, dia.plusDays(9))));
+        gestor.configurarHorarios("DOC-002", Set.of(nueve, nueve.plusHours(1)));
+        Cita primera = new Cita("CIT-001", "PAC-001", "DOC-001", nueve, "Consulta general");
+        Cita segunda = new Cita("CIT-002", "PAC-001", "DOC-001", nueve.plusHours(1), "Consulta general");
+        Cita tercera = new Cita("CIT-003", "PAC-001", "DOC-002", nueve, "Consulta general");
+        gestor.agendarCitas(List.of(primera, segunda, tercera));
+        primera.confirmar();
+        primera.completar();
+        gestor.cancelarCita("CIT-002");
+        tercera.confirmar();
+        gestor.eliminarHorarios("DOC-001", Set.of(dia.plusDays(2).atTime(10, 0)));
+        
+        List<EventoAgenda> instantanea = new ArrayList<>();
+        gestor.exportarEstado(instantanea::add);
+        GestorDisponibilidad recuperado = new GestorDisponibilidad();
+        instantanea.forEach(recuperado::aplicarEvento);
+        diario.forEach(recuperado::aplicarEvento);
+        
+        assertEquals(3, recuperado.contarCitas());
+        assertEquals(gestor.obtenerConteoPorEstado(), recuperado.obtenerConteoPorEstado());
+        assertEquals(Cita.EstadoCita.COMPLETADA, recuperado.buscarCita("CIT-001").getEstado());
+        assertEquals(Cita.EstadoCita.CANCELADA, recuperado.buscarCita("CIT-002").getEstado());
+        assertEquals(gestor.obtenerEstadisticasDisponibilidad("DOC-001"),
+                     recuperado.obtenerEstadisticasDisponibilidad("DOC-001"));
+        assertEquals(gestor.obtenerEstadisticasDisponibilidad("DOC-002"),
+                     recuperado.obtenerEstadisticasDisponibilidad("DOC-002"));
+        assertTrue(recuperado.estaDisponible("DOC-001", nueve.plusHours(1)));
+        assertFalse(recuperado.estaDisponible("DOC-001", dia.plusDays(2).atTime(10, 0)));
+        assertFalse(recuperado.estaDisponible("DOC-002", nueve));
+        
+        recuperado.aplicarEvento(EventoAgenda.cambioDeEstado("DOC-001", "CIT-999", Cita.EstadoCita.CANCELADA));
+        assertThrows(IllegalArgumentException.class, () -> recuperado.aplicarEvento(null));
+        assertThrows(IllegalArgumentException.class, () -> recuperado.exportarEstado(null));
+    }
+    
+    @Test
+    @DisplayName("Reaplicar eventos de horarios no valida fechas pasadas")
+    void testAplicarEventosDeHorariosPasados() {
+        LocalDate ayer = LocalDate.now().minusDays(1);
+        LocalDateTime nueve = ayer.atTime(9, 0);
+        
+        gestor.aplicarEvento(EventoAgenda.horariosConfigurados("DOC-001", List.of(nueve, nueve.plusHours(1))));
+        gestor.aplicarEvento(EventoAgenda.horariosAgregados("DOC-001", List.of(nueve.plusHours(2))));
+        gestor.aplicarEvento(EventoAgenda.horariosEliminados("DOC-001", List.of(nueve)));
+        gestor.aplicarEvento(EventoAgenda.rangoReemplazado("DOC-002", ayer, ayer, List.of(nueve)));
+        gestor.aplicarEvento(EventoAgenda.citaAgendada(Cita.restaurar("CIT-001", "PAC-001", "DOC-001",
+            nueve.plusHours(1), "Consulta general", Cita.EstadoCita.CONFIRMADA)));
+        
+        Map<String, Integer> estadisticas = gestor.obtenerEstadisticasDisponibilidad("DOC-001");
+        assertEquals(2, estadisticas.get("horariosConfigurados"));
+        assertEquals(1, estadisticas.get("horariosOcupados"));
+        assertEquals(1, estadisticas.get("citasConfirmadas"));
+        assertEquals(1, gestor.obtenerEstadisticasDisponibilidad("DOC-002").get("horariosConfigurados"));
+    }
+    
+    @Test
+    @DisplayName("Con almacen mapeado la disponibilidad sobrevive al reinicio")
+    void testAlmacenMapeadoSobreviveReinicio(@TempDir Path directorio) throws IOException {
+        LocalDateTime nueve = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        LocalDate dia = nueve.toLocalDate();
+        try (AlmacenCalendarios almacen = new AlmacenCalendarios(directorio, 30)) {
+            GestorDisponibilidad persistente = new GestorDisponibilidad(4, almacen);
+            persistente.configurarReglasHorario("DOC-001", List.of(new ReglaHorario(EnumSet.allOf(DayOfWeek.class),
+                LocalTime.of(9, 0), LocalTime.of(10, 30), dia, dia.plusDays(9))));
+            persistente.eliminarHorarios("DOC-001", Set.of(dia.plusDays(1).atTime(9, 0)));
+            persistente.configurarHorarios("DOC-002", Set.of(nueve));
+            persistente.configurarHorarios("DOC-002", Set.of(nueve.plusHours(1)));
+            assertTrue(persistente.agendarCita(new Cita("CIT-001", "PAC-001", "DOC-001", nueve, "Consulta general")));
+        }
+        
+        try (AlmacenCalendarios almacen = new AlmacenCalendarios(directorio, 30)) {
+            GestorDisponibilidad reabierto = new GestorDisponibilidad(4, almacen);
+            Map<String, Integer> estadisticas = reabierto.obtenerEstadisticasDisponibilidad("DOC-001");
+            assertEquals(39, estadisticas.get("horariosConfigurados"));
+            assertEquals(1, estadisticas.get("horariosOcupados"));
+            assertFalse(reabierto.estaDisponible("DOC-001", nueve));
+            assertFalse(reabierto.estaDisponible("DOC-001", dia.plusDays(1).atTime(9, 0)));
+            assertTrue(reabierto.estaDisponible("DOC-001", dia.plusDays(9).atTime(10, 30)));
+            assertFalse(reabierto.estaDisponible("DOC-002", nueve));
+            assertTrue(reabierto.estaDisponible("DOC-002", nueve.plusHours(1)));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new GestorDisponibilidad(4, (AlmacenCalendarios) null));
+    }
+    
+    @Test
+    @DisplayName("Restaurar estado sobre almacen mapeado respeta los dias ya editados")
+    void testRestaurarEstadoEnAlmacenMapeado(@TempDir Path directorio) throws IOException {
+        LocalDate dia = fechaPrueba.toLocalDate();
+        ReglaHorario regla = new ReglaHorario(EnumSet.allOf(DayOfWeek.class),
+            LocalTime.of(9, 0), LocalTime.of(10, 0), dia, dia.plusDays(2));
+        try (AlmacenCalendarios almacen = new AlmacenCalendarios(directorio, 30)) {
+            GestorDisponibilidad persistente = new GestorDisponibilidad(4, almacen);
+            persistente.aplicarEvento(EventoAgenda.estadoAgenda("DOC-001", List.of(regla),
+                List.of(dia), List.of(dia.atTime(9, 30))));
+            
+            assertEquals(7, persistente.obtenerEstadisticasDisponibilidad("DOC-001").get("horariosConfigurados"));
+            assertFalse(persistente.estaDisponible("DOC-001", dia.atTime(9, 0)));
+            assertTrue(persistente.estaDisponible("DOC-001", dia.atTime(9, 30)));
+        }
+    }
+    
+    @Test
+    @DisplayName("Iterar citas recorre el orden de alta sin permitir modificaciones")
+    void testIterarCitas() {
+        LocalDateTime nueve = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        gestor.configurarHorarios("DOC-001", Set.of(nueve, nueve.plusHours(1)));
+        gestor.agendarCita(new Cita("CIT-002", "PAC-001", "DOC-001", nueve.plusHours(1), "Consulta general"));
+        gestor.agendarCita(new Cita("CIT-001", "PAC-001", "DOC-001", nueve, "Consulta general"));
+        
+        java.util.Iterator<Cita> iterador = gestor.iterarCitas();
+        assertEquals("CIT-002", iterador.next().getId());
+        assertThrows(UnsupportedOperationException.class, iterador::remove);
+        assertEquals("CIT-001", iterador.next().getId());
+        assertFalse(iterador.hasNext());
+        
+        assertEquals(2, gestor.contarCitasIndexadas());
+        assertEquals("CIT-002", gestor.citaEnPosicion(0).getId());
+        assertThrows(IndexOutOfBoundsException.class, () -> gestor.citaEnPosicion(2));
+    }
+    
+    @Test
+    @DisplayName("Carga masiva acepta citas pasadas y detecta solapes y duplicados")
+    void testCargarCitas() {
+        gestor = new GestorDisponibilidad(16, 15);
+        LocalDateTime pasado = LocalDateTime.now().minusDays(10).withHour(9).withMinute(0).withSecond(0).withNano(0);
+        gestor.configurarHorarios("DOC-001", Set.of(fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0)));
+        Cita existente = new Cita("CIT-000", "PAC-001", "DOC-001",
+            fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0), "Consulta general");
+        assertTrue(gestor.agendarCita(existente));
+        
+        List<Cita> lote = List.of(
+            Cita.restaurar("CIT-001", "PAC-001", "DOC-001", pasado, "Consulta general", Cita.EstadoCita.COMPLETADA),
+            Cita.restaurar("CIT-002", "PAC-002", "DOC-001", pasado.plusMinutes(15), "Seguimiento", Cita.EstadoCita.PENDIENTE),
+            Cita.restaurar("CIT-003", "PAC-002", "DOC-001", pasado, "Seguimiento", Cita.EstadoCita.CANCELADA),
+            Cita.restaurar("CIT-004", "PAC-003", "DOC-001", pasado, "Seguimiento", Cita.EstadoCita.PENDIENTE),
+            Cita.restaurar("CIT-005", "PAC-003", "DOC-001", existente.getFechaHora().minusMinutes(15), "Seguimiento",
+                Cita.EstadoCita.PENDIENTE),
+            Cita.restaurar("CIT-006", "PAC-003", "DOC-001", existente.getFechaHora(), "Seguimiento",
+                Cita.EstadoCita.PENDIENTE),
+            Cita.restaurar("CIT-000", "PAC-003", "DOC-002", pasado, "Seguimiento", Cita.EstadoCita.PENDIENTE),
+            Cita.restaurar("CIT-007", "PAC-003", "DOC-002", pasado.plusMinutes(7), "Seguimiento", Cita.EstadoCita.PENDIENTE),
+            Cita.restaurar("CIT-008", "PAC-003", "DOC-002", pasado.plusHours(1), "Seguimiento", Cita.EstadoCita.CONFIRMADA));
+        
+        List<ResultadoReserva> resultados = gestor.cargarCitas(lote);
+        
+        assertEquals(List.of(ResultadoReserva.AGENDADA, ResultadoReserva.CONFLICTO, ResultadoReserva.AGENDADA,
+            ResultadoReserva.HORARIO_OCUPADO, ResultadoReserva.CONFLICTO, ResultadoReserva.HORARIO_OCUPADO,
+            ResultadoReserva.ID_DUPLICADO, ResultadoReserva.NO_CONFIGURADO, ResultadoReserva.AGENDADA), resultados);
+        assertEquals(4, gestor.contarCitas());
+        assertEquals(1, gestor.contarCitas(Cita.EstadoCita.COMPLETADA));
+        assertEquals(1, gestor.contarCitas(Cita.EstadoCita.CANCELADA));
+        assertEquals(1, gestor.contarCitas(Cita.EstadoCita.CONFIRMADA));
+        assertEquals("DOC-001", gestor.buscarCita("CIT-000").getProfesionalId());
+        
+        assertEquals(2, gestor.contarCitasArchivadas());
+        assertEquals(Cita.EstadoCita.COMPLETADA, gestor.buscarCita("CIT-001").getEstado());
+        assertEquals(List.of(ResultadoReserva.ID_DUPLICADO), gestor.cargarCitas(List.of(Cita.restaurar("CIT-003",
+            "PAC-002", "DOC-003", pasado, "Seguimiento", Cita.EstadoCita.CANCELADA))));
+        
+        gestor.buscarCita("CIT-008").cancelar();
+        assertEquals(2, gestor.contarCitas(Cita.EstadoCita.CANCELADA));
+        assertThrows(IllegalArgumentException.class, () -> gestor.cargarCitas(null));
+        assertThrows(IllegalArgumentException.class, () -> gestor.cargarCitas(Arrays.asList((Cita) null)));
+    }
+    
+    @Test
+    @DisplayName("Carga masiva publica un solo lote por profesional y revierte si el oyente falla")
+    void testCargarCitasPublicaLote() {
+        LocalDateTime pasado = LocalDateTime.now().minusDays(3).withHour(8).withMinute(0).withSecond(0).withNano(0);
+        List<Integer> lotes = new ArrayList<>();
+        OyenteAgenda oyente = new OyenteAgenda() {
+            @Override
+            public void eventoRegistrado(EventoAgenda evento) {
+                fail("Se esperaba un lote");
+            }
+            
+            @Override
+            public void eventosRegistrados(List<EventoAgenda> eventos) {
+                lotes.add(eventos.size());
+            }
+        };
+        gestor.agregarOyente(oyente);
+        
+        gestor.cargarCitas(List.of(
+            Cita.restaurar("CIT-001", "PAC-001", "DOC-001", pasado, "Seguimiento", Cita.EstadoCita.PENDIENTE),
+            Cita.restaurar("CIT-002", "PAC-001", "DOC-001", pasado.plusHours(1), "Seguimiento", Cita.EstadoCita.PENDIENTE),
+            Cita.restaurar("CIT-003", "PAC-001", "DOC-002", pasado, "Seguimiento", Cita.EstadoCita.PENDIENTE)));
+        assertEquals(List.of(2, 1), lotes);
+        
+        gestor.quitarOyente(oyente);
+        List<EventoAgenda> recibidos = new ArrayList<>();
+        gestor.agregarOyente(evento -> {
+            recibidos.add(evento);
+            throw new IllegalStateException("Disco lleno");
+        });
+        Cita fallida = Cita.restaurar("CIT-004", "PAC-001", "DOC-003", pasado, "Seguimiento", Cita.EstadoCita.PENDIENTE);
+        assertThrows(IllegalStateException.class, () -> gestor.cargarCitas(List.of(fallida)));
+        assertEquals(1, recibidos.size());
+        assertNull(gestor.buscarCita("CIT-004"));
+        assertEquals(3, gestor.contarCitas());
+    }
+    
+    @Test
+    @DisplayName("Archivar historial conserva busquedas, conteos y horarios ocupados")
+    void testArchivarHistorial() {
+        LocalDateTime nueve = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        gestor.configurarHorarios("DOC-001", Set.of(nueve, nueve.plusHours(1), nueve.plusHours(2)));
+        Cita primera = new Cita("CIT-001", "PAC-001", "DOC-001", nueve, "Consulta general");
+        Cita segunda = new Cita("CIT-002", "PAC-001", "DOC-001", nueve.plusHours(1), "Consulta general");
+        Cita tercera = new Cita("CIT-003", "PAC-001", "DOC-001", nueve.plusHours(2), "Consulta general");
+        gestor.agendarCitas(List.of(primera, segunda, tercera));
+        primera.confirmar();
+        primera.completar();
+        gestor.cancelarCita("CIT-002");
+        Map<Cita.EstadoCita, Integer> conteo = gestor.obtenerConteoPorEstado();
+        Map<String, Integer> estadisticas = gestor.obtenerEstadisticasDisponibilidad("DOC-001");
+        
+        assertEquals(2, gestor.archivarHistorial(nueve.plusDays(1)));
+        assertEquals(0, gestor.archivarHistorial(nueve.plusDays(1)));
+        
+        assertEquals(3, gestor.contarCitas());
+        assertEquals(2, gestor.contarCitasArchivadas());
+        assertEquals(conteo, gestor.obtenerConteoPorEstado());
+        assertEquals(estadisticas, gestor.obtenerEstadisticasDisponibilidad("DOC-001"));
+        assertNotSame(primera, gestor.buscarCita("CIT-001"));
+        assertEquals(Cita.EstadoCita.COMPLETADA, gestor.buscarCita("CIT-001").getEstado());
+        assertNull(gestor.buscarCita("CIT-404"));
+        assertEquals("CIT-001", gestor.citaEnPosicion(0).getId());
+        assertSame(tercera, gestor.citaEnPosicion(2));
+        assertEquals(List.of("CIT-001", "CIT-002", "CIT-003"), gestor.obtenerCitasDeProfesional("DOC-001").stream()
+            .map(Cita::getId).collect(Collectors.toList()));
+        assertFalse(gestor.estaDisponible("DOC-001", nueve));
+        assertTrue(gestor.estaDisponible("DOC-001", nueve.plusHours(1)));
+        
+        assertFalse(gestor.agendarCita(new Cita("CIT-001", "PAC-002", "DOC-001", nueve.plusHours(1), "Especialista")));
+        assertTrue(gestor.cancelarCita("CIT-002"));
+        assertThrows(IllegalStateException.class, () -> gestor.cancelarCita("CIT-001"));
+        primera.confirmar();
+        assertEquals(conteo, gestor.obtenerConteoPorEstado());
+        
+        Map<Cita.EstadoCita, Integer> historial = gestor.contarHistorial("DOC-001", null, null);
+        assertEquals(1, historial.get(Cita.EstadoCita.COMPLETADA));
+        assertEquals(1, historial.get(Cita.EstadoCita.CANCELADA));
+        assertEquals(0, gestor.contarHistorial("DOC-001", nueve.plusDays(1), null).get(Cita.EstadoCita.COMPLETADA));
+        assertThrows(IllegalArgumentException.class, () -> gestor.archivarHistorial(null));
+    }
+    
+    @Test
+    @DisplayName("La instantanea incluye el historial y al recuperar las citas vencidas van al archivo")
+    void testRecuperarHistorial() {
+        LocalDateTime pasado = LocalDateTime.now().minusDays(5).withHour(9).withMinute(0).withSecond(0).withNano(0);
+        gestor.cargarCitas(List.of(
+            Cita.restaurar("CIT-001", "PAC-001", "DOC-001", pasado, "Seguimiento", Cita.EstadoCita.COMPLETADA),
+            Cita.restaurar("CIT-002", "PAC-001", "DOC-001", pasado.plusHours(1), "Seguimiento", Cita.EstadoCita.PENDIENTE)));
+        assertEquals(1, gestor.contarCitasArchivadas());
+        
+        List<EventoAgenda> instantanea = new ArrayList<>();
+        gestor.exportarEstado(instantanea::add);
+        GestorDisponibilidad recuperado = new GestorDisponibilidad();
+        instantanea.forEach(recuperado::aplicarEvento);
+        instantanea.forEach(recuperado::aplicarEvento);
+        
+        assertEquals(2, recuperado.contarCitas());
+        assertEquals(1, recuperado.contarCitasArchivadas());
+        assertEquals(gestor.obtenerConteoPorEstado(), recuperado.obtenerConteoPorEstado());
+        assertEquals(Cita.EstadoCita.COMPLETADA, recuperado.buscarCita("CIT-001").getEstado());
+        
+        // Con segundos no cabe en el archivo y se queda entre las citas vivas
+        Cita conSegundos = Cita.restaurar("CIT-003", "PAC-001", "DOC-001", pasado.plusSeconds(90), "Seguimiento",
+                                          Cita.EstadoCita.CANCELADA);
+        recuperado.aplicarEvento(EventoAgenda.citaAgendada(conSegundos));
+        assertSame(conSegundos, recuperado.buscarCita("CIT-003"));
+        assertEquals(1, recuperado.contarCitasArchivadas());
+    }
+    
+    @Test
+    @DisplayName("La instantanea va por bloques y se escribe sin el cerrojo del profesional")
+    void testExportarEnBloquesSinCerrojo() throws Exception {
+        LocalDateTime nueve = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        gestor.configurarHorarios("DOC-001", Set.of(nueve, nueve.plusHours(1)));
+        gestor.agendarCita(new Cita("CIT-001", "PAC-001", "DOC-001", nueve, "Consulta general"));
+        List<EventoAgenda> instantanea = new ArrayList<>();
+        ExecutorService otro = Executors.newSingleThreadExecutor();
+        try {
+            gestor.exportarEstado(evento -> {
+                instantanea.add(evento);
+                // Una reserva del mismo profesional desde otro hilo solo termina si el cerrojo está libre
+                Future<ResultadoReserva> reserva = otro.submit(() -> gestor.reservarCita(
+                    new Cita("CIT-" + (instantanea.size() + 1), "PAC-002", "DOC-001", nueve.plusHours(1),
+                             "Consulta general")));
+                assertDoesNotThrow(() -> reserva.get(5, TimeUnit.SECONDS));
+            });
+        } finally {
+            otro.shutdownNow();
+        }
+        
+        assertEquals(List.of(EventoAgenda.Tipo.ESTADO_AGENDA, EventoAgenda.Tipo.CITAS_AGENDADAS),
+                     instantanea.stream().map(EventoAgenda::getTipo).collect(Collectors.toList()));
+        assertEquals(List.of("CIT-001"), instantanea.get(1).getCitas().stream().map(Cita::getId)
+            .collect(Collectors.toList()));
+        
+        GestorDisponibilidad recuperado = new GestorDisponibilidad();
+        instantanea.forEach(recuperado::aplicarEvento);
+        instantanea.forEach(recuperado::aplicarEvento);
+        assertEquals(1, recuperado.contarCitas());
+        assertNotSame(gestor.buscarCita("CIT-001"), recuperado.buscarCita("CIT-001"));
+        assertFalse(recuperado.estaDisponible("DOC-001", nueve));
+    }
+    
+    @Test
+    @DisplayName("La espera de durabilidad de una reserva no retiene el cerrojo del profesional")
+    void testEsperaDeDurabilidadFueraDelCerrojo() throws Exception {
+        LocalDateTime nueve = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        gestor.configurarHorarios("DOC-001", Set.of(nueve, nueve.plusHours(1)));
+        CountDownLatch enEspera = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        AtomicInteger anotados = new AtomicInteger();
+        gestor.agregarOyente(new OyenteAgenda() {
+            @Override
+            public void eventoRegistrado(EventoAgenda evento) {
+                fail("Se esperaba anotar");
+            }
+            
+            @Override
+            public Runnable anotar(EventoAgenda evento) {
+                if (anotados.incrementAndGet() > 1) {
+                    return SIN_ESPERA;
+                }
+                return () -> {
+                    enEspera.countDown();
+                    try {
+                        liberar.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                };
+            }
+        });
+        
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Boolean> primera = executor.submit(() ->
+            gestor.agendarCita(new Cita("CIT-001", "PAC-001", "DOC-001", nueve, "Consulta general")));
+        assertTrue(enEspera.await(5, TimeUnit.SECONDS));
+        
+        assertTrue(gestor.agendarCita(new Cita("CIT-002", "PAC-002", "DOC-001", nueve.plusHours(1), "Consulta general")));
+        assertFalse(primera.isDone());
+        liberar.countDown();
+        assertTrue(primera.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+    
+    @Test
+    @DisplayName("Las citas aceptadas de un mismo paciente comparten la cadena del id")
+    void testCitasAceptadasCompartenIds() {
+        LocalDateTime nueve = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        gestor.configurarHorarios("DOC-001", Set.of(nueve, nueve.plusHours(1)));
+        Cita rechazada = new Cita("CIT-000", new String("PAC-001"), "DOC-002", nueve, "Consulta general");
+        Cita primera = new Cita("CIT-001", new String("PAC-001"), new String("DOC-001"), nueve, "Consulta general");
+        Cita segunda = new Cita("CIT-002", new String("PAC-001"), new String("DOC-001"), nueve.plusHours(1),
+            "Seguimiento");
+        
+        assertEquals(ResultadoReserva.NO_CONFIGURADO, gestor.reservarCita(rechazada));
+        assertTrue(gestor.agendarCitas(List.of(primera, segunda)).stream()
+            .allMatch(resultado -> resultado == ResultadoReserva.AGENDADA));
+        assertSame(primera.getPacienteId(), segunda.getPacienteId());
+        assertSame(primera.getProfesionalId(), segunda.getProfesionalId());
+        assertNotSame(rechazada.getPacienteId(), primera.getPacienteId());
+    }
+    
+    @Test
+    @DisplayName("Cargar un lote desordenado de varios profesionales agrupa y ordena cada agenda")
+    void testCargarLoteDesordenadoVariosProfesionales() {
+        LocalDateTime base = fechaPrueba.withHour(0).withMinute(0).withSecond(0).withNano(0);
+        List<Cita> lote = new ArrayList<>();
+        for (int i = 99; i >= 0; i--) {
+            lote.add(Cita.restaurar("CIT-" + i, "PAC-" + i, "DOC-" + (i % 3), base.plusHours(i), "Seguimiento",
+                Cita.EstadoCita.PENDIENTE));
+        }
+        lote.add(Cita.restaurar("CIT-100", "PAC-100", "DOC-1", base.plusHours(4), "Seguimiento",
+            Cita.EstadoCita.PENDIENTE));
+        
+        List<ResultadoReserva> resultados = gestor.cargarCitas(lote);
+        
+        assertEquals(100, resultados.stream().filter(resultado -> resultado == ResultadoReserva.AGENDADA).count());
+        assertEquals(ResultadoReserva.HORARIO_OCUPADO, resultados.get(100));
+        assertEquals(34, gestor.obtenerCitasDeProfesional("DOC-0").size());
+        assertEquals(33, gestor.obtenerCitasDeProfesional("DOC-1").size());
+        assertEquals(33, gestor.obtenerCitasDeProfesional("DOC-2").size());
+    }
+    
+    @Test
+    @DisplayName("Reprogramar cancela la cita original y reserva la nueva en el mismo paso")
+    void testReprogramarCita() {
+        gestor = new GestorDisponibilidad(16, 15);
+        LocalDateTime nueve = fechaPrueba.withHour(9).withMinute(0).withSecond(0).withNano(0);
+        gestor.configurarHorarios("DOC-001", Set.of(nueve, nueve.plusMinutes(15), nueve.plusHours(1)));
+        Cita original = new Cita("CIT-001", "PAC-001", "DOC-001", nueve, "Especialista");
+        original.setMotivo("Control");
+        assertTrue(gestor.agendarCita(original));
+        assertTrue(gestor.agendarCita(new Cita("CIT-002", "PAC-002", "DOC-001", nueve.plusHours(1), "Seguimiento")));
+        
+        assertEquals(ResultadoReserva.NO_CONFIGURADO, gestor.reprogramarCita("CIT-001", "CIT-003", nueve.plusHours(2)));
+        assertEquals(ResultadoReserva.HORARIO_OCUPADO,
+            gestor.reprogramarCita("CIT-001", "CIT-003", nueve.plusHours(1)));
+        assertEquals(ResultadoReserva.ID_DUPLICADO, gestor.reprogramarCita("CIT-001", "CIT-002", nueve.plusMinutes(15)));
+        assertEquals(Cita.EstadoCita.PENDIENTE, original.getEstado());
+        assertFalse(gestor.estaDisponible("DOC-001", nueve));
+        
+        // A 15 minutos de la original: solo choca con ella misma, que se cancela al reprogramar
+        assertEquals(ResultadoReserva.AGENDADA, gestor.reprogramarCita("CIT-001", "CIT-003", nueve.plusMinutes(15)));
+        assertEquals(Cita.EstadoCita.CANCELADA, original.getEstado());
+        assertTrue(gestor.estaDisponible("DOC-001", nueve));
+        Cita nueva = gestor.buscarCita("CIT-003");
+        assertEquals(nueve.plusMinutes(15), nueva.getFechaHora());
+        assertEquals("PAC-001", nueva.getPacienteId());
+        assertEquals("Control", nueva.getMotivo());
+        assertEquals(1, gestor.contarCitas(Cita.EstadoCita.CANCELADA));
+        assertEquals(2, gestor.contarCitas(Cita.EstadoCita.PENDIENTE));
+        
+        assertThrows(IllegalStateException.class, () -> gestor.reprogramarCita("CIT-001", "CIT-004", nueve));
+        assertThrows(IllegalArgumentException.class, () -> gestor.reprogramarCita("CIT-999", "CIT-004", nueve));
+        assertThrows(IllegalStateException.class, () -> nueva.setFechaHora(nueve.plusHours(1)));
+    }
+    
+    @Test
+    @DisplayName("Transiciones simultaneas desde fuera del gestor mantienen los conteos por estado")
+    void testTransicionesSimultaneasMantienenConteos() throws Exception {
+        LocalDateTime base = fechaPrueba.withHour(0).withMinute(0).withSecond(0).withNano(0);
+        Set<LocalDateTime> horarios = new HashSet<>();
+        for (int i = 0; i < 40; i++) {
+            horarios.add(base.plusHours(i));
+        }
+        gestor.configurarHorarios("DOC-001", horarios);
+        List<Cita> citas = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Cita cita = new Cita("CIT-" + i, "PAC-" + i, "DOC-001", base.plusHours(i), "Seguimiento");
+            assertTrue(gestor.agendarCita(cita));
+            citas.add(cita);
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (Cita cita : citas) {
+            for (int h = 0; h < 4; h++) {
+                boolean cancelar = h % 2 == 0;
+                tareas.add(executor.submit(() -> {
+                    try {
+                        if (cancelar) {
+                            cita.cancelar();
+                        } else {
+                            cita.confirmar();
+                        }
+                    } catch (IllegalStateException e) {
+                        // Confirmar una cita ya cancelada es un rechazo esperado
+                    }
+                }));
+            }
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        Map<Cita.EstadoCita, Long> reales = citas.stream()
+            .collect(Collectors.groupingBy(Cita::getEstado, Collectors.counting()));
+        for (Cita.EstadoCita estado : Cita.EstadoCita.values()) {
+            assertEquals(reales.getOrDefault(estado, 0L).intValue(), gestor.contarCitas(estado));
+            assertEquals(reales.getOrDefault(estado, 0L).intValue(), gestor.obtenerEstadisticasDisponibilidad("DOC-001")
+                .get(GestorDisponibilidad.claveEstadistica(estado)));
+        }
+        assertEquals(40, citas.stream().filter(cita -> cita.getEstado() == Cita.EstadoCita.CANCELADA).count());
+    }
 }
\ No newline at end of file
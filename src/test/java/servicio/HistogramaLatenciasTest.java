@@ -0,0 +1,48 @@
+package servicio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramaLatenciasTest {
+    
+    @Test
+    @DisplayName("Cada valor cae en una cubeta cuyo limite superior lo acota con error menor al 6.25%")
+    void testCubetas() {
+        for (long valor : new long[] {0, 1, 15, 16, 17, 31, 32, 33, 1_000, 123_456, 1L << 40, Long.MAX_VALUE}) {
+            int cubeta = HistogramaLatencias.cubeta(valor);
+            long limite = HistogramaLatencias.limiteSuperior(cubeta);
+            assertTrue(cubeta < HistogramaLatencias.CUBETAS);
+            assertTrue(limite >= valor, "valor " + valor);
+            assertTrue(limite - valor <= valor / 16, "valor " + valor);
+            assertTrue(cubeta == 0 || HistogramaLatencias.limiteSuperior(cubeta - 1) < valor, "valor " + valor);
+        }
+        assertEquals(HistogramaLatencias.CUBETAS - 1, HistogramaLatencias.cubeta(Long.MAX_VALUE));
+    }
+    
+    @Test
+    @DisplayName("Percentiles, maximo y reinicio")
+    void testPercentiles() {
+        HistogramaLatencias histograma = new HistogramaLatencias();
+        assertEquals(0, histograma.percentil(0.5));
+        assertEquals(0, histograma.maximo());
+        
+        for (int i = 1; i <= 1_000; i++) {
+            histograma.registrar(i * 1_000L);
+        }
+        histograma.registrar(-5);
+        
+        assertEquals(1_001, histograma.contar());
+        assertEquals(500_000, histograma.percentil(0.50), 500_000 / 16.0);
+        assertEquals(990_000, histograma.percentil(0.99), 990_000 / 16.0);
+        assertTrue(histograma.percentil(0.999) >= 999_000);
+        assertEquals(0, histograma.percentil(0.0));
+        assertTrue(histograma.maximo() >= 1_000_000);
+        assertEquals(histograma.maximo(), histograma.percentil(1.0));
+        assertThrows(IllegalArgumentException.class, () -> histograma.percentil(1.5));
+        assertThrows(IllegalArgumentException.class, () -> histograma.percentil(-0.1));
+        
+        histograma.reiniciar();
+        assertEquals(0, histograma.contar());
+    }
+}
\ No newline at end of file
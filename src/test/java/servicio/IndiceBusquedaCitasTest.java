@@ -0,0 +1,110 @@
+package servicio;
+
+import modelo.Cita;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+class IndiceBusquedaCitasTest {
+    
+    private GestorDisponibilidad gestor;
+    private IndiceBusquedaCitas indice;
+    private LocalDateTime base;
+    
+    @BeforeEach
+    void setUp() {
+        gestor = new GestorDisponibilidad(16, 15);
+        Map<String, String> nombres = Map.of("DOC-001", "Dra. Ana Martinez", "DOC-002", "Dr. Carlos Lopez");
+        indice = new IndiceBusquedaCitas(gestor, id -> nombres.getOrDefault(id, id));
+        gestor.agregarOyente(indice);
+        base = LocalDateTime.now().minusDays(3).withHour(9).withMinute(0).withSecond(0).withNano(0);
+        gestor.cargarCitas(List.of(
+            cita("CIT-001", "DOC-001", 0, "Control de presion"),
+            cita("CIT-002", "DOC-001", 1, "Control anual"),
+            cita("CIT-003", "DOC-002", 0, "Dolor de cabeza"),
+            cita("CIT-104", "DOC-009", 0, null)));
+    }
+    
+    private Cita cita(String id, String profesionalId, int horas, String motivo) {
+        Cita cita = Cita.restaurar(id, "PAC-001", profesionalId, base.plusHours(horas), "Consulta general",
+                                   Cita.EstadoCita.PENDIENTE);
+        cita.setMotivo(motivo);
+        return cita;
+    }
+    
+    @Test
+    @DisplayName("Sin sincronizar el indice esta vacio y sin filtros devuelve todas las posiciones")
+    void testSincronizar() {
+        assertEquals(0, indice.contarIndexadas());
+        assertArrayEquals(new int[0], indice.buscar("", null));
+        
+        indice.sincronizar();
+        assertEquals(4, indice.contarIndexadas());
+        assertArrayEquals(new int[] {0, 1, 2, 3}, indice.buscar("  ", null));
+        assertArrayEquals(new int[] {0, 1, 2, 3}, indice.buscar(null, null));
+    }
+    
+    @Test
+    @DisplayName("Busca por prefijos de codigo, nombre del profesional y motivo, combinando tokens")
+    void testBuscarPorPrefijos() {
+        indice.sincronizar();
+        
+        assertArrayEquals(new int[] {0, 1}, indice.buscar("contr", null));
+        assertArrayEquals(new int[] {0, 1}, indice.buscar("MART", null));
+        assertArrayEquals(new int[] {1}, indice.buscar("control anu", null));
+        assertArrayEquals(new int[] {1}, indice.buscar("cit-002", null));
+        assertArrayEquals(new int[] {3}, indice.buscar("cit-1", null));
+        assertArrayEquals(new int[] {3}, indice.buscar("10", null));
+        assertArrayEquals(new int[] {3}, indice.buscar("doc-009", null));
+        assertArrayEquals(new int[0], indice.buscar("cabeza martinez", null));
+        assertArrayEquals(new int[0], indice.buscar("zzz", null));
+    }
+    
+    @Test
+    @DisplayName("Los bitmaps por estado siguen los cambios de estado publicados por el gestor")
+    void testFiltrarPorEstado() {
+        indice.sincronizar();
+        assertArrayEquals(new int[] {0, 1, 2, 3}, indice.buscar("", Cita.EstadoCita.PENDIENTE));
+        
+        gestor.buscarCita("CIT-003").confirmar();
+        assertTrue(gestor.cancelarCita("CIT-002"));
+        gestor.cargarCitas(List.of(cita("CIT-005", "DOC-002", 3, "Control")));
+        indice.sincronizar();
+        
+        assertArrayEquals(new int[] {0, 3, 4}, indice.buscar("", Cita.EstadoCita.PENDIENTE));
+        assertArrayEquals(new int[] {2}, indice.buscar(null, Cita.EstadoCita.CONFIRMADA));
+        assertArrayEquals(new int[] {1}, indice.buscar("control", Cita.EstadoCita.CANCELADA));
+        assertArrayEquals(new int[] {0, 4}, indice.buscar("control", Cita.EstadoCita.PENDIENTE));
+        assertArrayEquals(new int[0], indice.buscar("", Cita.EstadoCita.COMPLETADA));
+    }
+    
+    @Test
+    @DisplayName("Ignora eventos que no son cambios de estado y citas ajenas al indice")
+    void testEventosIgnorados() {
+        indice.eventoRegistrado(EventoAgenda.horariosConfigurados("DOC-001", List.of(base)));
+        indice.eventoRegistrado(EventoAgenda.cambioDeEstado("DOC-001", "CIT-999", Cita.EstadoCita.CANCELADA));
+        indice.sincronizar();
+        assertArrayEquals(new int[] {0, 1, 2, 3}, indice.buscar("", Cita.EstadoCita.PENDIENTE));
+    }
+    
+    @Test
+    @DisplayName("Divide el texto en tokens alfanumericos en minusculas")
+    void testTokens() {
+        assertEquals(List.of("cit", "001", "ñandú", "x2"), IndiceBusquedaCitas.tokens("CIT-001  Ñandú,x2"));
+        assertEquals(new ArrayList<String>(), IndiceBusquedaCitas.tokens(null));
+        assertEquals(List.of(), IndiceBusquedaCitas.tokens(" - "));
+    }
+    
+    @Test
+    @DisplayName("No admite gestor ni nombres nulos")
+    void testArgumentosNulos() {
+        assertThrows(IllegalArgumentException.class, () -> new IndiceBusquedaCitas(null, id -> id));
+        assertThrows(IllegalArgumentException.class, () -> new IndiceBusquedaCitas(gestor, null));
+    }
+}
\ No newline at end of file
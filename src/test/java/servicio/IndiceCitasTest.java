@@ -0,0 +1,124 @@
+package servicio;
+
+import modelo.Cita;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+class IndiceCitasTest {
+    
+    private static Cita cita(int numero) {
+        return Cita.restaurar("CIT-" + numero, "PAC-001", "DOC-001", LocalDateTime.of(2024, 1, 1, 9, 0),
+                              "Consulta general", Cita.EstadoCita.PENDIENTE);
+    }
+    
+    @Test
+    @DisplayName("Conserva el orden de alta por posicion a traves de varios bloques")
+    void testPosiciones() {
+        IndiceCitas indice = new IndiceCitas(new ArchivoCitas());
+        List<Cita> esperadas = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            Cita cita = cita(i);
+            esperadas.add(cita);
+            indice.agregar(cita);
+        }
+        
+        assertEquals(100_000, indice.tamano());
+        assertSame(esperadas.get(0), indice.obtener(0));
+        assertSame(esperadas.get(4096), indice.obtener(4096));
+        assertSame(esperadas.get(99_999), indice.obtener(99_999));
+        assertEquals(esperadas, indice.copiar());
+        assertThrows(IndexOutOfBoundsException.class, () -> indice.obtener(100_000));
+        assertThrows(IndexOutOfBoundsException.class, () -> indice.obtener(-1));
+    }
+    
+    @Test
+    @DisplayName("El iterador recorre solo las citas existentes al crearlo")
+    void testIterador() {
+        IndiceCitas indice = new IndiceCitas(new ArchivoCitas());
+        indice.agregar(cita(1));
+        Iterator<Cita> iterador = indice.iterator();
+        indice.agregar(cita(2));
+        
+        assertEquals("CIT-1", iterador.next().getId());
+        assertFalse(iterador.hasNext());
+        assertThrows(NoSuchElementException.class, iterador::next);
+        assertThrows(UnsupportedOperationException.class, iterador::remove);
+        assertEquals(2, indice.tamano());
+    }
+    
+    @Test
+    @DisplayName("Altas concurrentes no pierden citas")
+    void testAltasConcurrentes() throws InterruptedException {
+        IndiceCitas indice = new IndiceCitas(new ArchivoCitas());
+        Thread[] hilos = new Thread[4];
+        for (int h = 0; h < hilos.length; h++) {
+            int base = h * 10_000;
+            hilos[h] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    indice.agregar(cita(base + i));
+                }
+            });
+            hilos[h].start();
+        }
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+        
+        assertEquals(40_000, indice.tamano());
+        assertEquals(40_000, indice.copiar().stream().map(Cita::getId).distinct().count());
+    }
+    
+    @Test
+    @DisplayName("Anexar y leer no esperan al monitor de compactar")
+    void testAltasSinMonitor() throws Exception {
+        IndiceCitas indice = new IndiceCitas(new ArchivoCitas());
+        indice.agregar(cita(0));
+        Thread alta = new Thread(() -> {
+            indice.agregar(cita(1));
+            indice.agregarArchivada(0);
+            indice.obtener(1);
+        });
+        
+        synchronized (indice) {
+            alta.start();
+            alta.join(5_000);
+            assertFalse(alta.isAlive());
+        }
+        assertEquals(3, indice.tamano());
+        assertEquals("CIT-1", indice.obtener(1).getId());
+    }
+    
+    @Test
+    @DisplayName("Las celdas compactadas se leen desde el archivo")
+    void testCompactar() {
+        ArchivoCitas archivo = new ArchivoCitas();
+        IndiceCitas indice = new IndiceCitas(archivo);
+        Cita viva = cita(1);
+        Cita cerrada = Cita.restaurar("CIT-2", "PAC-001", "DOC-001", LocalDateTime.of(2024, 1, 1, 9, 0),
+                                      "Consulta general", Cita.EstadoCita.COMPLETADA);
+        indice.agregar(viva);
+        indice.agregar(cerrada);
+        int fila = archivo.archivar(cerrada);
+        
+        assertEquals(1, indice.compactar(cita -> cita == cerrada ? fila : -1));
+        assertEquals(0, indice.compactar(cita -> {
+            assertSame(viva, cita);
+            return -1;
+        }));
+        indice.agregarArchivada(archivo.archivar(Cita.restaurar("CIT-3", "PAC-001", "DOC-001",
+            LocalDateTime.of(2024, 1, 2, 9, 0), "Consulta general", Cita.EstadoCita.CANCELADA)));
+        
+        assertSame(viva, indice.obtener(0));
+        assertNotSame(cerrada, indice.obtener(1));
+        assertEquals("CIT-2", indice.obtener(1).getId());
+        assertEquals(Cita.EstadoCita.CANCELADA, indice.obtener(2).getEstado());
+        assertEquals(3, indice.copiar().size());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package servicio;
+
+import modelo.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+class IndiceUsuariosTest {
+    
+    private IndiceUsuarios indice;
+    private Usuario ana;
+    private Usuario mario;
+    private Usuario maria;
+    
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceUsuarios();
+        ana = new Usuario("DOC-001", "Ana", "Martínez", "ana@hospital.com", Usuario.TipoUsuario.PROFESIONAL_MEDICO);
+        mario = new Usuario("PAC-001", "Mario", "Lopez", "mario@correo.es", Usuario.TipoUsuario.PACIENTE);
+        maria = new Usuario("PAC-002", "Maria", "Garcia", "mgarcia@correo.es", Usuario.TipoUsuario.PACIENTE);
+        maria.setTelefono("+34 600 123 456");
+        assertTrue(indice.agregar(ana));
+        assertTrue(indice.agregar(mario));
+        assertTrue(indice.agregar(maria));
+    }
+    
+    private static List<String> ids(List<Usuario> usuarios) {
+        return usuarios.stream().map(Usuario::getId).collect(Collectors.toList());
+    }
+    
+    @Test
+    @DisplayName("Agregar registra una sola vez por id y observa al usuario")
+    void testAgregar() {
+        assertFalse(indice.agregar(new Usuario("PAC-001", "Otro", "Nombre", "otro@correo.es",
+                                               Usuario.TipoUsuario.PACIENTE)));
+        assertEquals(3, indice.contar());
+        assertEquals(List.of(ana, mario, maria), indice.todos());
+        assertSame(indice, ana.getObservador());
+        assertThrows(IllegalArgumentException.class, () -> indice.agregar(null));
+    }
+    
+    @Test
+    @DisplayName("Busca por prefijo sin distinguir mayusculas ni acentos en todos los campos")
+    void testBuscarPorCampos() {
+        assertEquals(List.of("DOC-001"), ids(indice.buscar("MARTINEZ", 10)));
+        assertEquals(List.of("DOC-001"), ids(indice.buscar("martí", 10)));
+        assertEquals(List.of("PAC-001", "PAC-002"), ids(indice.buscar("correo", 10)));
+        assertEquals(List.of("PAC-002"), ids(indice.buscar("600123", 10)));
+        assertEquals(List.of("DOC-001"), ids(indice.buscar("hospital.com", 10)));
+        assertTrue(indice.buscar("  ", 10).isEmpty());
+        assertTrue(indice.buscar(null, 10).isEmpty());
+        assertTrue(indice.buscar("xyz", 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> indice.buscar("ana", 0));
+    }
+    
+    @Test
+    @DisplayName("Ordena por coincidencias, tolera erratas y limita a los k mejores")
+    void testRankingYLimite() {
+        assertEquals(List.of("PAC-002", "PAC-001"), ids(indice.buscar("maria", 10)));
+        assertEquals(List.of("PAC-002"), ids(indice.buscar("maria", 1)));
+        assertEquals(List.of("DOC-001"), ids(indice.buscar("martinex", 10)));
+        assertEquals(List.of("DOC-001", "PAC-001"), ids(indice.buscar("m", 2)));
+    }
+    
+    @Test
+    @DisplayName("Los cambios de nombre, email o telefono actualizan el indice")
+    void testActualizacionIncremental() {
+        int trigramas = indice.contarTrigramas();
+        mario.setNombre("Rodrigo");
+        mario.setEmail("rodrigo@clinica.org");
+        mario.setTelefono("611");
+        
+        assertTrue(indice.buscar("mario", 10).stream().noneMatch(mario::equals));
+        assertEquals(List.of("PAC-001"), ids(indice.buscar("rodri", 10)));
+        assertEquals(List.of("PAC-001"), ids(indice.buscar("clinica", 10)));
+        assertEquals(List.of("PAC-001"), ids(indice.buscar("611", 10)));
+        
+        mario.setNombre("Mario");
+        mario.setEmail("mario@correo.es");
+        mario.setTelefono(null);
+        assertEquals(trigramas, indice.contarTrigramas());
+        assertTrue(indice.buscar("rodri", 10).isEmpty());
+        
+        // Un usuario con el mismo id que no es el indexado no altera el índice
+        indice.datosCambiados(new Usuario("PAC-001", "Intruso", "Nombre", "i@x.es", Usuario.TipoUsuario.PACIENTE));
+        indice.datosCambiados(new Usuario("PAC-999", "Ajeno", "Nombre", "a@x.es", Usuario.TipoUsuario.PACIENTE));
+        assertTrue(indice.buscar("intruso", 10).isEmpty());
+        assertEquals(trigramas, indice.contarTrigramas());
+    }
+}
\ No newline at end of file
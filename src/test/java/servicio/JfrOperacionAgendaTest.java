@@ -0,0 +1,114 @@
+package servicio;
+
+import modelo.Cita;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class JfrOperacionAgendaTest {
+    
+    @TempDir
+    Path directorio;
+    
+    private GestorDisponibilidad gestor;
+    private LocalDateTime horario;
+    
+    @BeforeEach
+    void setUp() {
+        gestor = new GestorDisponibilidad(16, 15);
+        horario = LocalDateTime.now().plusDays(1).withHour(9).withMinute(0).withSecond(0).withNano(0);
+        gestor.configurarHorarios("DOC-001", Set.of(horario, horario.plusMinutes(15), horario.plusHours(1)));
+    }
+    
+    private List<RecordedEvent> grabar(Runnable operaciones) throws IOException {
+        Path archivo = directorio.resolve("agenda.jfr");
+        try (Recording grabacion = new Recording()) {
+            grabacion.enable("citas.OperacionAgenda");
+            grabacion.start();
+            operaciones.run();
+            grabacion.stop();
+            grabacion.dump(archivo);
+        }
+        return RecordingFile.readAllEvents(archivo).stream()
+            .filter(evento -> evento.getEventType().getName().equals("citas.OperacionAgenda"))
+            .collect(Collectors.toList());
+    }
+    
+    @Test
+    @DisplayName("Cada operacion del gestor emite un evento con profesional, slots y resultado")
+    void testEventosPorOperacion() throws IOException {
+        List<RecordedEvent> eventos = grabar(() -> {
+            gestor.consultarDisponibilidad("DOC-001", horario);
+            gestor.consultarDisponibilidad("DOC-009", horario);
+            gestor.agendarCita(new Cita("CIT-001", "PAC-001", "DOC-001", horario, "Consulta general"));
+            gestor.reservarCita(new Cita("CIT-002", "PAC-002", "DOC-001", horario, "Consulta general"));
+            gestor.cancelarCita("CIT-001");
+            gestor.cancelarCita("CIT-999");
+        });
+        
+        assertEquals(6, eventos.size());
+        RecordedEvent consulta = eventos.get(0);
+        assertEquals("consultarDisponibilidad", consulta.getString("operacion"));
+        assertEquals("DOC-001", consulta.getString("profesionalId"));
+        assertEquals(96, consulta.getInt("slotsRevisados"));
+        assertEquals("3 libres", consulta.getString("resultado"));
+        assertFalse(consulta.getDuration().isNegative());
+        assertEquals(0, eventos.get(1).getInt("slotsRevisados"));
+        assertEquals("0 libres", eventos.get(1).getString("resultado"));
+        
+        RecordedEvent reserva = eventos.get(2);
+        assertEquals("agendarCita", reserva.getString("operacion"));
+        assertEquals("CIT-001", reserva.getString("citaId"));
+        assertEquals("AGENDADA", reserva.getString("resultado"));
+        assertEquals("HORARIO_OCUPADO", eventos.get(3).getString("resultado"));
+        assertEquals("agendarCita", eventos.get(3).getString("operacion"));
+        assertEquals("DOC-001", eventos.get(3).getString("profesionalId"));
+        
+        RecordedEvent cancelacion = eventos.get(4);
+        assertEquals("cancelarCita", cancelacion.getString("operacion"));
+        assertEquals("DOC-001", cancelacion.getString("profesionalId"));
+        assertEquals("CANCELADA", cancelacion.getString("resultado"));
+        assertNull(eventos.get(5).getString("profesionalId"));
+        assertEquals("NO_ENCONTRADA", eventos.get(5).getString("resultado"));
+    }
+    
+    @Test
+    @DisplayName("Los lotes emiten un solo evento con el recuento de agendadas")
+    void testEventosDeLote() throws IOException {
+        List<RecordedEvent> eventos = grabar(() -> {
+            gestor.agendarCitas(List.of(
+                new Cita("CIT-001", "PAC-001", "DOC-001", horario, "Consulta general"),
+                new Cita("CIT-002", "PAC-002", "DOC-009", horario, "Consulta general")));
+            gestor.cargarCitas(List.of(
+                Cita.restaurar("CIT-003", "PAC-003", "DOC-001", horario.plusHours(1), "Seguimiento",
+                               Cita.EstadoCita.PENDIENTE)));
+        });
+        
+        assertEquals(2, eventos.size());
+        assertEquals("agendarCitas", eventos.get(0).getString("operacion"));
+        assertEquals(2, eventos.get(0).getInt("slotsRevisados"));
+        assertEquals("1 de 2 AGENDADA", eventos.get(0).getString("resultado"));
+        assertEquals("cargarCitas", eventos.get(1).getString("operacion"));
+        assertEquals("1 de 1 AGENDADA", eventos.get(1).getString("resultado"));
+    }
+    
+    @Test
+    @DisplayName("Sin grabacion activa no se emite ningun evento")
+    void testSinGrabacion() throws IOException {
+        gestor.agendarCita(new Cita("CIT-001", "PAC-001", "DOC-001", horario, "Consulta general"));
+        List<RecordedEvent> eventos = grabar(() -> { });
+        assertTrue(eventos.isEmpty());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+package servicio;
+
+import modelo.Cita;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+class MetricasAgendaTest {
+    
+    private GestorDisponibilidad gestor;
+    private MetricasAgenda metricas;
+    private LocalDateTime horario;
+    
+    @BeforeEach
+    void setUp() {
+        gestor = new GestorDisponibilidad(16, 15);
+        metricas = new MetricasAgenda();
+        horario = LocalDateTime.now().plusDays(1).withHour(9).withMinute(0).withSecond(0).withNano(0);
+        gestor.configurarHorarios("DOC-001", Set.of(horario, horario.plusMinutes(15), horario.plusHours(1)));
+    }
+    
+    @Test
+    @DisplayName("Sin metricas activas el gestor no registra nada")
+    void testDesactivadas() {
+        assertNull(gestor.getMetricas());
+        assertTrue(gestor.agendarCita(new Cita("CIT-001", "PAC-001", "DOC-001", horario, "Consulta general")));
+        assertEquals(0, metricas.getReservasAgendadas());
+    }
+    
+    @Test
+    @DisplayName("El gestor cuenta reservas por resultado y mide latencias")
+    void testContadoresYLatencias() {
+        gestor.activarMetricas(metricas);
+        assertSame(metricas, gestor.getMetricas());
+        
+        assertTrue(gestor.agendarCita(new Cita("CIT-001", "PAC-001", "DOC-001", horario, "Consulta general")));
+        assertFalse(gestor.agendarCita(new Cita("CIT-002", "PAC-002", "DOC-001", horario, "Consulta general")));
+        assertFalse(gestor.agendarCita(new Cita("CIT-001", "PAC-002", "DOC-001", horario.plusHours(1), "Consulta general")));
+        assertFalse(gestor.agendarCita(new Cita("CIT-003", "PAC-002", "DOC-009", horario, "Consulta general")));
+        assertFalse(gestor.agendarCita(new Cita("CIT-004", "PAC-002", "DOC-001", horario.plusMinutes(15), "Consulta general")));
+        gestor.agendarCitas(List.of(new Cita("CIT-005", "PAC-003", "DOC-001", horario.plusMinutes(7), "Seguimiento")));
+        gestor.consultarDisponibilidad("DOC-001", horario);
+        gestor.consultarDisponibilidad("DOC-009", horario);
+        assertTrue(gestor.cancelarCita("CIT-001"));
+        assertFalse(gestor.cancelarCita("CIT-999"));
+        
+        assertEquals(1, metricas.getReservasAgendadas());
+        assertEquals(1, metricas.getReservasHorarioOcupado());
+        assertEquals(1, metricas.getReservasIdDuplicado());
+        assertEquals(2, metricas.getReservasNoConfiguradas());
+        assertEquals(1, metricas.getReservasEnConflicto());
+        assertEquals(2, metricas.getConsultas());
+        assertEquals(2, metricas.getCancelaciones());
+        assertEquals(6, metricas.getHistogramaAgendar().contar());
+        assertEquals(2, metricas.getHistogramaConsultar().contar());
+        assertEquals(2, metricas.getHistogramaCancelar().contar());
+        assertTrue(metricas.getAgendarCitaP50Micros() > 0);
+        assertTrue(metricas.getAgendarCitaP99Micros() <= metricas.getAgendarCitaMaxMicros());
+        assertTrue(metricas.getConsultarDisponibilidadP50Micros() <= metricas.getConsultarDisponibilidadP99Micros());
+        assertTrue(metricas.getCancelarCitaP999Micros() <= metricas.getCancelarCitaMaxMicros());
+        
+        gestor.activarMetricas(null);
+        gestor.cancelarCita("CIT-001");
+        assertEquals(2, metricas.getCancelaciones());
+        metricas.reiniciar();
+        assertEquals(0, metricas.getReservasAgendadas());
+        assertEquals(0, metricas.getCancelaciones());
+        assertEquals(0.0, metricas.getCancelarCitaP50Micros());
+    }
+    
+    @Test
+    @DisplayName("Se publica como MBean de plataforma y se puede retirar")
+    void testRegistroJmx() throws JMException {
+        gestor.activarMetricas(metricas);
+        gestor.consultarDisponibilidad("DOC-001", horario);
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        
+        ObjectName nombre = metricas.registrarEnPlataforma("prueba \"jmx\"");
+        try {
+            assertEquals(1L, servidor.getAttribute(nombre, "Consultas"));
+            assertTrue((Double) servidor.getAttribute(nombre, "ConsultarDisponibilidadP99Micros") > 0);
+            assertThrows(JMException.class, () -> metricas.registrarEnPlataforma("prueba \"jmx\""));
+            servidor.invoke(nombre, "reiniciar", null, null);
+            assertEquals(0L, servidor.getAttribute(nombre, "Consultas"));
+        } finally {
+            MetricasAgenda.retirarDePlataforma(nombre);
+        }
+        assertFalse(servidor.isRegistered(nombre));
+        MetricasAgenda.retirarDePlataforma(nombre);
+    }
+}
\ No newline at end of file
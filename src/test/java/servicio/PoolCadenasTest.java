@@ -0,0 +1,23 @@
+package servicio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PoolCadenasTest {
+    
+    @Test
+    @DisplayName("Cada cadena distinta se guarda una sola vez")
+    void testInternar() {
+        PoolCadenas pool = new PoolCadenas();
+        int doctor = pool.internar("DOC-001");
+        int paciente = pool.internar("PAC-001");
+        
+        assertEquals(doctor, pool.internar(new String("DOC-001")));
+        assertNotEquals(doctor, paciente);
+        assertEquals(2, pool.tamano());
+        assertEquals("PAC-001", pool.obtener(paciente));
+        assertEquals(paciente, pool.buscar("PAC-001"));
+        assertEquals(-1, pool.buscar("PAC-002"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package servicio;
+
+import modelo.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+class RegistroUsuariosTest {
+    
+    private RegistroUsuarios registro;
+    private Usuario ana;
+    private Usuario carlos;
+    private Usuario juan;
+    
+    @BeforeEach
+    void setUp() {
+        registro = new RegistroUsuarios();
+        ana = new Usuario("DOC-001", "Ana", "Martinez", "ana@hospital.com", Usuario.TipoUsuario.PROFESIONAL_MEDICO);
+        carlos = new Usuario("DOC-002", "Carlos", "Lopez", "carlos@hospital.com", Usuario.TipoUsuario.PROFESIONAL_MEDICO);
+        juan = new Usuario("PAC-001", "Juan", "Perez", "juan@email.com", Usuario.TipoUsuario.PACIENTE);
+        assertTrue(registro.registrar(ana));
+        assertTrue(registro.registrar(carlos));
+        assertTrue(registro.registrar(juan));
+    }
+    
+    @Test
+    @DisplayName("Registra por id sin duplicados y lista por rol y estado")
+    void testRegistrarYListar() {
+        assertFalse(registro.registrar(new Usuario("PAC-001", "Otro", "Nombre", "otro@email.com",
+                                                   Usuario.TipoUsuario.PACIENTE)));
+        assertThrows(IllegalArgumentException.class, () -> registro.registrar(null));
+        
+        assertEquals(3, registro.contar());
+        assertSame(juan, registro.buscarPorId("PAC-001"));
+        assertNull(registro.buscarPorId("PAC-999"));
+        assertTrue(registro.contiene("DOC-002"));
+        assertFalse(registro.contiene("DOC-003"));
+        assertEquals(List.of(ana, carlos), registro.listar(Usuario.TipoUsuario.PROFESIONAL_MEDICO, true));
+        assertEquals(2, registro.contar(Usuario.TipoUsuario.PROFESIONAL_MEDICO, true));
+        assertEquals(0, registro.contar(Usuario.TipoUsuario.PROFESIONAL_MEDICO, false));
+        assertEquals(List.of(), registro.listar(Usuario.TipoUsuario.ADMINISTRADOR, true));
+        assertEquals(List.of(ana, carlos, juan), registro.todos());
+        assertThrows(IllegalArgumentException.class, () -> registro.contar(null, true));
+    }
+    
+    @Test
+    @DisplayName("Activar, desactivar y cambiar de tipo mueven al usuario de particion")
+    void testCambiosDeRolYEstado() {
+        carlos.desactivar();
+        assertEquals(List.of(ana), registro.listar(Usuario.TipoUsuario.PROFESIONAL_MEDICO, true));
+        assertEquals(List.of(carlos), registro.listar(Usuario.TipoUsuario.PROFESIONAL_MEDICO, false));
+        
+        carlos.desactivar();
+        carlos.activar();
+        assertEquals(2, registro.contar(Usuario.TipoUsuario.PROFESIONAL_MEDICO, true));
+        assertEquals(0, registro.contar(Usuario.TipoUsuario.PROFESIONAL_MEDICO, false));
+        
+        juan.desactivar();
+        juan.setTipo(Usuario.TipoUsuario.RECEPCIONISTA);
+        assertEquals(0, registro.contar(Usuario.TipoUsuario.PACIENTE, false));
+        assertEquals(List.of(juan), registro.listar(Usuario.TipoUsuario.RECEPCIONISTA, false));
+        
+        ana.setTipo(Usuario.TipoUsuario.ADMINISTRADOR);
+        assertEquals(List.of(carlos), registro.listar(Usuario.TipoUsuario.PROFESIONAL_MEDICO, true));
+        assertEquals(List.of(ana), registro.listar(Usuario.TipoUsuario.ADMINISTRADOR, true));
+        assertEquals(3, registro.contar());
+    }
+    
+    @Test
+    @DisplayName("La busqueda de texto sigue los cambios de datos de los usuarios registrados")
+    void testBusquedaDeTexto() {
+        assertEquals(List.of(carlos), registro.buscar("lopez", 10));
+        carlos.setApellido("Fernandez");
+        assertTrue(registro.buscar("lopez", 10).isEmpty());
+        assertEquals(List.of(carlos), registro.buscar("fernan", 10));
+        assertSame(registro, carlos.getObservador());
+    }
+    
+    @Test
+    @DisplayName("Ignora avisos de usuarios que no son los registrados")
+    void testAvisosAjenos() {
+        Usuario impostor = new Usuario("DOC-001", "Impostor", "Falso", "falso@email.com",
+                                       Usuario.TipoUsuario.PACIENTE);
+        registro.rolCambiado(impostor, Usuario.TipoUsuario.PROFESIONAL_MEDICO, true);
+        registro.datosCambiados(impostor);
+        
+        assertEquals(List.of(ana, carlos), registro.listar(Usuario.TipoUsuario.PROFESIONAL_MEDICO, true));
+        assertEquals(List.of(juan), registro.listar(Usuario.TipoUsuario.PACIENTE, true));
+        assertTrue(registro.buscar("impostor", 10).isEmpty());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package servicio;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+class ReglaHorarioTest {
+    
+    private LocalDate lunes;
+    private Set<DayOfWeek> laborables;
+    
+    @BeforeEach
+    void setUp() {
+        lunes = LocalDate.of(2030, 1, 7);
+        laborables = EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY);
+    }
+    
+    @Test
+    @DisplayName("Parametros invalidos lanzan excepcion")
+    void testParametrosInvalidos() {
+        LocalTime nueve = LocalTime.of(9, 0);
+        LocalTime once = LocalTime.of(11, 0);
+        assertThrows(IllegalArgumentException.class, () -> new ReglaHorario(null, nueve, once, lunes, lunes));
+        assertThrows(IllegalArgumentException.class, () -> new ReglaHorario(Set.of(), nueve, once, lunes, lunes));
+        assertThrows(IllegalArgumentException.class, () -> new ReglaHorario(laborables, null, once, lunes, lunes));
+        assertThrows(IllegalArgumentException.class, () -> new ReglaHorario(laborables, nueve, null, lunes, lunes));
+        assertThrows(IllegalArgumentException.class, () -> new ReglaHorario(laborables, once, nueve, lunes, lunes));
+        assertThrows(IllegalArgumentException.class, () -> new ReglaHorario(laborables, nueve, once, null, lunes));
+        assertThrows(IllegalArgumentException.class, () -> new ReglaHorario(laborables, nueve, once, lunes, null));
+        assertThrows(IllegalArgumentException.class, () -> new ReglaHorario(laborables, nueve, once, lunes, lunes.minusDays(1)));
+    }
+    
+    @Test
+    @DisplayName("Regla aplica solo a dias de la semana vigentes y no exceptuados")
+    void testAplicaA() {
+        LocalDate feriado = lunes.plusDays(1);
+        ReglaHorario regla = new ReglaHorario(laborables, LocalTime.of(9, 0), LocalTime.of(11, 30),
+            lunes, lunes.plusDays(13), Set.of(feriado));
+        
+        assertTrue(regla.aplicaA(lunes));
+        assertFalse(regla.aplicaA(feriado));
+        assertFalse(regla.aplicaA(lunes.plusDays(5)));
+        assertFalse(regla.aplicaA(lunes.minusDays(7)));
+        assertFalse(regla.aplicaA(lunes.plusDays(14)));
+        assertEquals(Set.of(feriado), regla.getExcepciones());
+    }
+    
+    @Test
+    @DisplayName("Horarios del dia se generan por slot")
+    void testHorariosDelDia() {
+        ReglaHorario regla = new ReglaHorario(laborables, LocalTime.of(9, 0), LocalTime.of(10, 30), lunes, lunes);
+        
+        assertEquals(List.of(lunes.atTime(9, 0), lunes.atTime(9, 30), lunes.atTime(10, 0), lunes.atTime(10, 30)),
+            regla.horariosDelDia(lunes, 30));
+        assertEquals(2, regla.horariosDelDia(lunes, 60).size());
+        assertTrue(regla.horariosDelDia(lunes.plusDays(1), 30).isEmpty());
+        assertEquals(4, regla.slotsPorDia(30));
+        assertEquals(7, regla.slotsPorDia(15));
+    }
+    
+    @Test
+    @DisplayName("Franja hasta el final del dia no desborda")
+    void testFranjaFinalDelDia() {
+        ReglaHorario regla = new ReglaHorario(laborables, LocalTime.of(23, 0), LocalTime.of(23, 30), lunes, lunes);
+        
+        assertEquals(List.of(lunes.atTime(23, 0), lunes.atTime(23, 30)), regla.horariosDelDia(lunes, 30));
+    }
+    
+    @Test
+    @DisplayName("Contar dias aplicables sin recorrer todo el rango")
+    void testContarDiasAplicables() {
+        LocalDate feriado = lunes.plusDays(2);
+        LocalDate sabado = lunes.plusDays(5);
+        ReglaHorario anual = new ReglaHorario(laborables, LocalTime.of(9, 0), LocalTime.of(9, 0),
+            lunes, lunes.plusDays(366), Set.of(feriado, sabado, lunes.plusYears(3)));
+        
+        long esperado = 0;
+        for (LocalDate fecha = lunes; !fecha.isAfter(lunes.plusDays(366)); fecha = fecha.plusDays(1)) {
+            if (anual.aplicaA(fecha)) {
+                esperado++;
+            }
+        }
+        assertEquals(esperado, anual.contarDiasAplicables());
+        assertEquals(1, new ReglaHorario(laborables, LocalTime.of(9, 0), LocalTime.of(9, 0), lunes, lunes).contarDiasAplicables());
+    }
+    
+    @Test
+    @DisplayName("Detectar solapamiento entre reglas")
+    void testSeSolapaCon() {
+        ReglaHorario manana = new ReglaHorario(laborables, LocalTime.of(9, 0), LocalTime.of(11, 30), lunes, lunes.plusDays(30));
+        ReglaHorario tarde = new ReglaHorario(laborables, LocalTime.of(14, 0), LocalTime.of(16, 30), lunes, lunes.plusDays(30));
+        ReglaHorario fines = new ReglaHorario(EnumSet.of(DayOfWeek.SATURDAY), LocalTime.of(9, 0), LocalTime.of(11, 30), lunes, lunes.plusDays(30));
+        ReglaHorario siguienteMes = new ReglaHorario(laborables, LocalTime.of(9, 0), LocalTime.of(11, 30), lunes.plusDays(31), lunes.plusDays(60));
+        ReglaHorario cruzada = new ReglaHorario(EnumSet.of(DayOfWeek.MONDAY), LocalTime.of(11, 30), LocalTime.of(12, 0), lunes, lunes);
+        
+        assertFalse(manana.seSolapaCon(tarde));
+        assertFalse(tarde.seSolapaCon(manana));
+        assertFalse(manana.seSolapaCon(fines));
+        assertFalse(manana.seSolapaCon(siguienteMes));
+        assertFalse(siguienteMes.seSolapaCon(manana));
+        assertTrue(manana.seSolapaCon(cruzada));
+        assertTrue(cruzada.seSolapaCon(manana));
+    }
+    
+    @Test
+    @DisplayName("Getters y toString exponen la configuracion")
+    void testGetters() {
+        ReglaHorario regla = new ReglaHorario(laborables, LocalTime.of(9, 0), LocalTime.of(11, 30), lunes, lunes.plusDays(6), null);
+        
+        assertEquals(laborables, regla.getDiasSemana());
+        assertEquals(LocalTime.of(9, 0), regla.getInicio());
+        assertEquals(LocalTime.of(11, 30), regla.getFin());
+        assertEquals(lunes, regla.getDesde());
+        assertEquals(lunes.plusDays(6), regla.getHasta());
+        assertTrue(regla.getExcepciones().isEmpty());
+        assertTrue(regla.toString().contains("09:00-11:30"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,212 @@
+package servidor;
+
+import modelo.Cita;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import servicio.GestorDisponibilidad;
+import servicio.MetricasAgenda;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+class ServidorReservasTest {
+    
+    private GestorDisponibilidad gestor;
+    private ServidorReservas servidor;
+    private HttpClient cliente;
+    private LocalDate dia;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        gestor = new GestorDisponibilidad();
+        dia = LocalDate.now().plusDays(1);
+        gestor.configurarHorarios("DOC-001", Set.of(dia.atTime(9, 0), dia.atTime(10, 0), dia.atTime(11, 0)));
+        servidor = ServidorReservas.iniciar(gestor, new InetSocketAddress("127.0.0.1", 0), 4);
+        cliente = HttpClient.newHttpClient();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        servidor.close();
+    }
+    
+    private HttpResponse<String> enviar(String metodo, String ruta, String formulario) throws Exception {
+        HttpRequest.Builder peticion = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + servidor.getPuerto() + ruta));
+        if (formulario == null) {
+            peticion.method(metodo, HttpRequest.BodyPublishers.noBody());
+        } else {
+            peticion.header("Content-Type", "application/x-www-form-urlencoded")
+                .method(metodo, HttpRequest.BodyPublishers.ofString(formulario));
+        }
+        return cliente.send(peticion.build(), HttpResponse.BodyHandlers.ofString());
+    }
+    
+    private String reserva(LocalDateTime fechaHora) {
+        return "paciente=PAC-001&profesional=DOC-001&fechaHora=" + fechaHora + "&tipo="
+            + URLEncoder.encode("Consulta general", StandardCharsets.UTF_8) + "&motivo=" + URLEncoder.encode("Dolor \"fuerte\"\n", StandardCharsets.UTF_8);
+    }
+    
+    @Test
+    @DisplayName("Consultar disponibilidad por dia y por horario")
+    void testDisponibilidad() throws Exception {
+        HttpResponse<String> porDia = enviar("GET", "/disponibilidad?profesional=DOC-001&fecha=" + dia, null);
+        assertEquals(200, porDia.statusCode());
+        assertEquals("{\"profesional\":\"DOC-001\",\"fecha\":\"" + dia + "\",\"horarios\":[\""
+            + dia.atTime(9, 0) + "\",\"" + dia.atTime(10, 0) + "\",\"" + dia.atTime(11, 0) + "\"]}", porDia.body());
+        assertTrue(porDia.headers().firstValue("Content-Type").orElse("").startsWith("application/json"));
+        
+        HttpResponse<String> porHorario = enviar("GET",
+            "/disponibilidad?profesional=DOC-001&fechaHora=" + dia.atTime(10, 0) + "&sin-valor", null);
+        assertTrue(porHorario.body().endsWith("\"disponible\":true}"));
+        
+        assertEquals(400, enviar("GET", "/disponibilidad?fecha=" + dia, null).statusCode());
+        assertEquals(400, enviar("GET", "/disponibilidad?profesional=DOC-001&fecha=ayer", null).statusCode());
+        HttpResponse<String> metodo = enviar("POST", "/disponibilidad", "");
+        assertEquals(405, metodo.statusCode());
+        assertEquals("GET", metodo.headers().firstValue("Allow").orElse(null));
+    }
+    
+    @Test
+    @DisplayName("Agendar, consultar y cancelar una cita")
+    void testCicloDeCita() throws Exception {
+        HttpResponse<String> agendada = enviar("POST", "/citas", reserva(dia.atTime(9, 0)));
+        assertEquals(201, agendada.statusCode());
+        assertEquals("{\"resultado\":\"AGENDADA\",\"id\":\"WEB-1\"}", agendada.body());
+        assertEquals(1, gestor.contarCitas());
+        
+        HttpResponse<String> ocupada = enviar("POST", "/citas/", reserva(dia.atTime(9, 0)));
+        assertEquals(409, ocupada.statusCode());
+        assertEquals("{\"resultado\":\"HORARIO_OCUPADO\"}", ocupada.body());
+        
+        HttpResponse<String> consultada = enviar("GET", "/citas/WEB-1", null);
+        assertEquals(200, consultada.statusCode());
+        assertTrue(consultada.body().contains("\"motivo\":\"Dolor \\\"fuerte\\\"\\u000a\""));
+        assertTrue(consultada.body().endsWith("\"estado\":\"PENDIENTE\"}"));
+        
+        HttpResponse<String> cancelada = enviar("DELETE", "/citas/WEB-1", null);
+        assertEquals(200, cancelada.statusCode());
+        assertEquals("{\"id\":\"WEB-1\",\"estado\":\"CANCELADA\"}", cancelada.body());
+        assertTrue(gestor.estaDisponible("DOC-001", dia.atTime(9, 0)));
+        
+        assertEquals(404, enviar("DELETE", "/citas/WEB-9", null).statusCode());
+        assertEquals(404, enviar("GET", "/citas/WEB-9", null).statusCode());
+        assertEquals(405, enviar("PUT", "/citas/WEB-1", "").statusCode());
+        assertEquals(405, enviar("GET", "/citas", null).statusCode());
+    }
+    
+    @Test
+    @DisplayName("Los ids generados saltan los que ya existen y se respeta un id solicitado")
+    void testIdsDeCitas() throws Exception {
+        gestor.cargarCitas(List.of(Cita.restaurar("WEB-1", "PAC-001", "DOC-002", dia.atTime(9, 0),
+            "Seguimiento", Cita.EstadoCita.PENDIENTE)));
+        servidor.close();
+        gestor.buscarCita("WEB-1").cancelar();
+        servidor = ServidorReservas.iniciar(gestor, new InetSocketAddress("127.0.0.1", 0), 1);
+        gestor.cargarCitas(List.of(Cita.restaurar("WEB-2", "PAC-001", "DOC-002", dia.atTime(10, 0),
+            "Seguimiento", Cita.EstadoCita.PENDIENTE)));
+        
+        assertTrue(enviar("POST", "/citas", reserva(dia.atTime(9, 0))).body().contains("\"id\":\"WEB-3\""));
+        HttpResponse<String> duplicada = enviar("POST", "/citas", reserva(dia.atTime(11, 0)) + "&id=WEB-2");
+        assertEquals(409, duplicada.statusCode());
+        assertTrue(duplicada.body().contains("ID_DUPLICADO"));
+        assertEquals(201, enviar("POST", "/citas", reserva(dia.atTime(11, 0)) + "&id=PROPIA").statusCode());
+        assertEquals(400, enviar("POST", "/citas", "paciente=PAC-001").statusCode());
+        
+        Cita completada = gestor.buscarCita("PROPIA");
+        completada.confirmar();
+        completada.completar();
+        HttpResponse<String> noCancelable = enviar("DELETE", "/citas/PROPIA", null);
+        assertEquals(409, noCancelable.statusCode());
+        assertTrue(noCancelable.body().startsWith("{\"error\":"));
+    }
+    
+    @Test
+    @DisplayName("Estadisticas globales y por profesional")
+    void testEstadisticas() throws Exception {
+        enviar("POST", "/citas", reserva(dia.atTime(10, 0)));
+        
+        assertEquals("{\"totalCitas\":1,\"PENDIENTE\":1,\"CONFIRMADA\":0,\"CANCELADA\":0,\"COMPLETADA\":0}",
+            enviar("GET", "/estadisticas", null).body());
+        String porProfesional = enviar("GET", "/estadisticas?profesional=DOC-001", null).body();
+        assertTrue(porProfesional.startsWith("{\"profesional\":\"DOC-001\""));
+        assertTrue(porProfesional.contains("\"horariosConfigurados\":3"));
+        assertTrue(porProfesional.contains("\"horariosOcupados\":1"));
+    }
+    
+    @Test
+    @DisplayName("Las reservas por HTTP alimentan el histograma de latencia de agendar")
+    void testMetricasDeReserva() throws Exception {
+        MetricasAgenda metricas = new MetricasAgenda();
+        gestor.activarMetricas(metricas);
+        
+        enviar("POST", "/citas", reserva(dia.atTime(9, 0)));
+        enviar("POST", "/citas", reserva(dia.atTime(9, 0)));
+        
+        assertEquals(1, metricas.getReservasAgendadas());
+        assertEquals(1, metricas.getReservasHorarioOcupado());
+        assertTrue(metricas.getAgendarCitaP50Micros() > 0);
+    }
+    
+    @Test
+    @DisplayName("Si el registro de eventos falla la reserva responde 503")
+    void testRegistroNoDisponible() throws Exception {
+        gestor.agregarOyente(evento -> {
+            throw new UncheckedIOException(new IOException("Disco lleno"));
+        });
+        
+        HttpResponse<String> respuesta = enviar("POST", "/citas", reserva(dia.atTime(9, 0)));
+        
+        assertEquals(503, respuesta.statusCode());
+        assertEquals(0, gestor.contarCitas());
+    }
+    
+    @Test
+    @DisplayName("Un error inesperado del gestor responde 500 sin dejar colgado al cliente")
+    void testErrorInterno() throws Exception {
+        gestor.agregarOyente(evento -> {
+            throw new NullPointerException("Evento incompleto");
+        });
+        
+        HttpResponse<String> respuesta = enviar("POST", "/citas", reserva(dia.atTime(9, 0)));
+        
+        assertEquals(500, respuesta.statusCode());
+        assertFalse(respuesta.body().contains("Evento incompleto"));
+        assertFalse(respuesta.body().contains("NullPointerException"));
+        assertEquals(200, enviar("GET", "/estadisticas", null).statusCode());
+    }
+    
+    @Test
+    @DisplayName("Argumentos invalidos o puerto ocupado lanzan excepcion")
+    void testArgumentosInvalidos() {
+        InetSocketAddress direccion = new InetSocketAddress("127.0.0.1", 0);
+        assertThrows(IllegalArgumentException.class, () -> ServidorReservas.iniciar(null, direccion, 1));
+        assertThrows(IllegalArgumentException.class, () -> ServidorReservas.iniciar(gestor, null, 1));
+        assertThrows(IllegalArgumentException.class, () -> ServidorReservas.iniciar(gestor, direccion, 0));
+        assertThrows(IOException.class, () -> ServidorReservas.iniciar(gestor,
+            new InetSocketAddress("127.0.0.1", servidor.getPuerto()), 1));
+    }
+    
+    @Test
+    @DisplayName("Una ruta que solo comparte el prefijo del contexto responde 404")
+    void testRutaFueraDelContexto() throws Exception {
+        assertEquals(404, enviar("GET", "/citasXYZ", null).statusCode());
+        assertEquals(404, enviar("POST", "/citasXYZ", reserva(dia.atTime(9, 0))).statusCode());
+        assertEquals(404, enviar("GET", "/estadisticasX", null).statusCode());
+        assertEquals(0, gestor.contarCitas());
+        assertEquals(404, enviar("GET", "/citas/XYZ", null).statusCode());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package simulacion;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfiguracionSimulacionTest {
+    
+    @Test
+    @DisplayName("Lee los argumentos de linea de comandos")
+    void testDesdeArgumentos() {
+        ConfiguracionSimulacion configuracion = ConfiguracionSimulacion.desdeArgumentos(new String[] {
+            "--profesionales=5", "--pacientes=50", "--dias=7", "--tasa=1500.5", "--duracion=2",
+            "--semilla=-3", "--hilos=3", "--proporciones=6:3:1", "--salida=resultado.json"});
+        
+        assertEquals(5, configuracion.getProfesionales());
+        assertEquals(50, configuracion.getPacientes());
+        assertEquals(7, configuracion.getDias());
+        assertEquals(1500.5, configuracion.getTasaPorSegundo());
+        assertEquals(2.0, configuracion.getDuracionSegundos());
+        assertEquals(-3, configuracion.getSemilla());
+        assertEquals(3, configuracion.getHilos());
+        assertEquals(0.6, configuracion.getProporcionConsultas(), 1e-9);
+        assertEquals(0.3, configuracion.getProporcionReservas(), 1e-9);
+        assertEquals(0.1, configuracion.getProporcionCancelaciones(), 1e-9);
+        assertTrue(configuracion.aJson().startsWith("{\"profesionales\":5,\"pacientes\":50,\"dias\":7,"));
+    }
+    
+    @Test
+    @DisplayName("Valores por defecto con proporciones 70:20:10")
+    void testValoresPorDefecto() {
+        ConfiguracionSimulacion configuracion = ConfiguracionSimulacion.desdeArgumentos(new String[0]);
+        
+        assertEquals(42, configuracion.getSemilla());
+        assertEquals(0.7, configuracion.getProporcionConsultas(), 1e-9);
+        assertEquals(0.2, configuracion.getProporcionReservas(), 1e-9);
+        assertEquals(0.1, configuracion.getProporcionCancelaciones(), 1e-9);
+        assertTrue(configuracion.getHilos() >= 2);
+    }
+    
+    @Test
+    @DisplayName("Argumentos invalidos lanzan excepcion")
+    void testArgumentosInvalidos() {
+        for (String argumento : new String[] {"profesionales=3", "--profesionales", "--desconocida=1",
+                "--tasa=abc", "--tasa=0", "--tasa=Infinity", "--duracion=-1", "--duracion=NaN", "--hilos=0",
+                "--pacientes=0", "--dias=0", "--profesionales=0", "--proporciones=1:2",
+                "--proporciones=0:0:0", "--proporciones=-1:1:1", "--proporciones=Infinity:1:1"}) {
+            assertThrows(IllegalArgumentException.class,
+                () -> ConfiguracionSimulacion.desdeArgumentos(new String[] {argumento}), argumento);
+        }
+    }
+}
\ No newline at end of file
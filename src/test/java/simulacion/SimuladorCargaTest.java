@@ -0,0 +1,169 @@
+package simulacion;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import servicio.GestorDisponibilidad;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+class SimuladorCargaTest {
+    
+    @TempDir
+    Path directorio;
+    
+    private ConfiguracionSimulacion configuracion;
+    
+    @BeforeEach
+    void setUp() {
+        configuracion = new ConfiguracionSimulacion();
+        configuracion.setProfesionales(4);
+        configuracion.setPacientes(40);
+        configuracion.setDias(10);
+        configuracion.setTasaPorSegundo(20_000);
+        configuracion.setDuracionSegundos(0.5);
+        configuracion.setHilos(2);
+    }
+    
+    @Test
+    @DisplayName("La misma semilla produce el mismo plan y otra semilla uno distinto")
+    void testPlanReproducible() {
+        SimuladorCarga.Plan plan = new SimuladorCarga(configuracion).planificar();
+        SimuladorCarga.Plan repetido = new SimuladorCarga(configuracion).planificar();
+        configuracion.setSemilla(7);
+        SimuladorCarga.Plan otro = new SimuladorCarga(configuracion).planificar();
+        
+        assertArrayEquals(plan.llegadasNanos, repetido.llegadasNanos);
+        assertArrayEquals(plan.operaciones, repetido.operaciones);
+        assertArrayEquals(plan.slots, repetido.slots);
+        assertArrayEquals(plan.reservasObjetivo, repetido.reservasObjetivo);
+        assertFalse(Arrays.equals(plan.llegadasNanos, otro.llegadasNanos));
+    }
+    
+    @Test
+    @DisplayName("El plan empieza siempre el proximo lunes, sea cual sea el dia de lanzamiento")
+    void testPrimerDiaEsLunes() {
+        LocalDate primerDia = new SimuladorCarga(configuracion).getPrimerDia();
+        
+        assertEquals(DayOfWeek.MONDAY, primerDia.getDayOfWeek());
+        assertTrue(primerDia.isAfter(LocalDate.now()));
+        assertFalse(primerDia.isAfter(LocalDate.now().plusDays(7)));
+    }
+    
+    @Test
+    @DisplayName("Las llegadas siguen la tasa y las proporciones configuradas")
+    void testPlanSigueLaTasa() {
+        SimuladorCarga.Plan plan = new SimuladorCarga(configuracion).planificar();
+        
+        assertEquals(10_000, plan.getTotal(), 400);
+        int[] porOperacion = new int[SimuladorCarga.Operacion.values().length];
+        for (int i = 0; i < plan.getTotal(); i++) {
+            porOperacion[plan.operaciones[i].ordinal()]++;
+            assertTrue(plan.llegadasNanos[i] < 500_000_000L);
+            assertTrue(i == 0 || plan.llegadasNanos[i] >= plan.llegadasNanos[i - 1]);
+            if (plan.reservasObjetivo[i] >= 0) {
+                assertTrue(plan.reservasObjetivo[i] < i);
+                assertEquals(SimuladorCarga.Operacion.RESERVA, plan.operaciones[plan.reservasObjetivo[i]]);
+            }
+        }
+        assertEquals(0.7, porOperacion[0] / (double) plan.getTotal(), 0.03);
+        assertEquals(0.2, porOperacion[1] / (double) plan.getTotal(), 0.03);
+        assertEquals(0.1, porOperacion[2] / (double) plan.getTotal(), 0.03);
+    }
+    
+    @Test
+    @DisplayName("Ejecutar mide todas las operaciones del plan")
+    void testEjecutar() throws InterruptedException {
+        configuracion.setTasaPorSegundo(4_000);
+        SimuladorCarga simulador = new SimuladorCarga(configuracion);
+        int planificadas = simulador.planificar().getTotal();
+        
+        ResultadoSimulacion resultado = simulador.ejecutar();
+        
+        assertEquals(planificadas, resultado.getTotalOperaciones());
+        int total = 0;
+        for (SimuladorCarga.Operacion operacion : SimuladorCarga.Operacion.values()) {
+            ResultadoSimulacion.Estadistica estadistica = resultado.getEstadistica(operacion);
+            total += estadistica.getTotal();
+            assertTrue(estadistica.getExitosas() <= estadistica.getTotal());
+            assertTrue(estadistica.percentilNanos(0.50) <= estadistica.percentilNanos(0.99));
+            assertTrue(estadistica.percentilNanos(0.999) <= estadistica.maximoNanos());
+        }
+        assertEquals(planificadas, total);
+        assertTrue(resultado.getEstadistica(SimuladorCarga.Operacion.RESERVA).getExitosas() > 0);
+        assertTrue(resultado.getDuracionSegundos() >= 0.45);
+        assertTrue(resultado.aJson().contains("\"RESERVA\":{\"total\":"));
+        assertTrue(resultado.aJson().contains("\"p999\":"));
+    }
+    
+    @Test
+    @DisplayName("Las operaciones fallidas cuentan como no exitosas")
+    void testOperacionesFallidas() {
+        SimuladorCarga simulador = new SimuladorCarga(configuracion);
+        SimuladorCarga.Plan plan = new SimuladorCarga.Plan(3);
+        plan.operaciones[0] = SimuladorCarga.Operacion.CANCELACION;
+        plan.reservasObjetivo[0] = -1;
+        plan.operaciones[1] = SimuladorCarga.Operacion.CANCELACION;
+        plan.reservasObjetivo[1] = 2;
+        plan.operaciones[2] = SimuladorCarga.Operacion.RESERVA;
+        GestorDisponibilidad gestor = simulador.prepararGestor();
+        
+        assertFalse(simulador.ejecutarOperacion(gestor, plan, 0));
+        assertFalse(simulador.ejecutarOperacion(gestor, plan, 1));
+        plan.profesionales[2] = 99;
+        assertFalse(simulador.ejecutarOperacion(gestor, plan, 2));
+        assertThrows(IllegalArgumentException.class, () -> new SimuladorCarga(null));
+    }
+    
+    @Test
+    @DisplayName("Percentiles por rango mas cercano y resultados vacios")
+    void testPercentiles() {
+        ResultadoSimulacion.Estadistica estadistica = new ResultadoSimulacion.Estadistica(
+            new long[] {50, 10, 40, 30, 20, 60, 70, 80, 90, 100}, 4);
+        
+        assertEquals(50, estadistica.percentilNanos(0.50));
+        assertEquals(100, estadistica.percentilNanos(0.99));
+        assertEquals(10, estadistica.percentilNanos(0.0));
+        assertEquals(100, estadistica.maximoNanos());
+        
+        ResultadoSimulacion.Estadistica vacia = new ResultadoSimulacion.Estadistica(new long[0], 0);
+        assertEquals(0, vacia.percentilNanos(0.5));
+        assertEquals(0, vacia.maximoNanos());
+        ResultadoSimulacion sinDuracion = new ResultadoSimulacion(configuracion, new SimuladorCarga.Operacion[0],
+            new long[0], new boolean[0], 0);
+        assertEquals(0, sinDuracion.rendimientoPorSegundo(0));
+    }
+    
+    @Test
+    @DisplayName("Main escribe el JSON en el archivo indicado o en la salida estandar")
+    void testMain() throws Exception {
+        Path salida = directorio.resolve("resultado.json");
+        String[] argumentos = {"--profesionales=2", "--tasa=500", "--duracion=0.2", "--hilos=1"};
+        PrintStream original = System.out;
+        ByteArrayOutputStream capturada = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(capturada, true, StandardCharsets.UTF_8));
+        try {
+            SimuladorCarga.main(argumentos);
+            String[] conSalida = Arrays.copyOf(argumentos, argumentos.length + 1);
+            conSalida[argumentos.length] = "--salida=" + salida;
+            SimuladorCarga.main(conSalida);
+        } finally {
+            System.setOut(original);
+        }
+        
+        String texto = capturada.toString(StandardCharsets.UTF_8);
+        assertTrue(texto.startsWith("{\"configuracion\":{\"profesionales\":2,"));
+        assertTrue(texto.contains("op/s"));
+        assertTrue(texto.contains("CANCELACION  total="));
+        assertTrue(Files.readString(salida).contains("\"porOperacion\":{\"CONSULTA\""));
+    }
+}
\ No newline at end of file